@@ -0,0 +1,159 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.authentication;
+
+import com.onedrive.sdk.http.HttpMethod;
+import com.onedrive.sdk.http.IHttpRequest;
+import com.onedrive.sdk.logger.ILogger;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.options.HeaderOption;
+import com.onedrive.sdk.options.Option;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Allocation benchmark for authorizing requests with a shared account snapshot and authorization header
+ */
+public class AuthorizationInterceptorBenchmark extends AndroidTestCase {
+
+    /**
+     * The number of requests authorized in each measurement
+     */
+    private static final int REQUESTS = 10000;
+
+    /**
+     * The lifetime of the token, longer than the benchmark runs
+     */
+    private static final long TOKEN_LIFETIME = 60 * 60 * 1000;
+
+    /**
+     * Compares the bytes allocated per request when the account info and header are rebuilt for every request, as
+     * before, with the snapshot that MSAAuthenticator shares until the token rotates and the precomputed header
+     * @throws Exception If there is an exception during the test
+     */
+    @SuppressWarnings("deprecation")
+    public void testPerRequestAllocations() throws Exception {
+        final MockAuthenticator rebuilding = new MockAuthenticator();
+        final MSAAuthenticatorTests.SessionAuthenticator sharing = new MSAAuthenticatorTests.SessionAuthenticator();
+        sharing.setSession("token-0", new Date(System.currentTimeMillis() + TOKEN_LIFETIME));
+        final ILogger logger = new MockLogger();
+        final AuthorizationInterceptor interceptor = new AuthorizationInterceptor(sharing, logger);
+        final ReusableRequest request = new ReusableRequest();
+
+        // Warm up both paths so class loading is not measured
+        authorizeAsBefore(rebuilding, request, logger);
+        interceptor.intercept(request);
+        assertEquals("bearer token-0", request.mAuthorization);
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        for (int i = 0; i < REQUESTS; i++) {
+            authorizeAsBefore(rebuilding, request, logger);
+        }
+        final long rebuildingBytes = Debug.getThreadAllocSize();
+        Debug.resetThreadAllocSize();
+        for (int i = 0; i < REQUESTS; i++) {
+            interceptor.intercept(request);
+        }
+        final long sharingBytes = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+
+        Log.i("AuthorizationInterceptorBenchmark", "Rebuilding allocated " + rebuildingBytes / REQUESTS
+                + " bytes per request, sharing allocated " + sharingBytes / REQUESTS + " bytes per request");
+        assertTrue("Sharing allocated more than rebuilding", sharingBytes < rebuildingBytes);
+    }
+
+    /**
+     * Authorizes a request the way the interceptor did before, fetching the account info four times and building
+     * the header for every request
+     * @param authenticator The authenticator
+     * @param request The request
+     * @param logger The logger
+     */
+    private static void authorizeAsBefore(final IAuthenticator authenticator,
+                                          final IHttpRequest request,
+                                          final ILogger logger) {
+        logger.logDebug("Intercepting request, " + request.getRequestUrl());
+        for (final HeaderOption option : request.getHeaders()) {
+            if (option.getName().equals(AuthorizationInterceptor.AUTHORIZATION_HEADER_NAME)) {
+                return;
+            }
+        }
+        if (authenticator.getAccountInfo() != null) {
+            logger.logDebug("Found account information");
+            if (authenticator.getAccountInfo().isExpired()) {
+                authenticator.getAccountInfo().refresh();
+            }
+            final String accessToken = authenticator.getAccountInfo().getAccessToken();
+            request.addHeader(AuthorizationInterceptor.AUTHORIZATION_HEADER_NAME,
+                              AuthorizationInterceptor.OAUTH_BEARER_PREFIX + accessToken);
+        }
+    }
+
+    /**
+     * A request that can be authorized over and over without allocating
+     */
+    private static class ReusableRequest implements IHttpRequest {
+
+        private final URL mUrl;
+
+        private String mAuthorization;
+
+        ReusableRequest() throws MalformedURLException {
+            mUrl = new URL("https://localhost/v1.0/drive");
+        }
+
+        @Override
+        public URL getRequestUrl() {
+            return mUrl;
+        }
+
+        @Override
+        public HttpMethod getHttpMethod() {
+            return HttpMethod.GET;
+        }
+
+        @Override
+        public List<HeaderOption> getHeaders() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Option> getOptions() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void addHeader(final String header, final String value) {
+            mAuthorization = value;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.authentication;
+
+import android.test.AndroidTestCase;
+
+import java.util.Date;
+
+/**
+ * Test cases for {@see MSAAuthenticator}
+ */
+public class MSAAuthenticatorTests extends AndroidTestCase {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    public void testSnapshotSharedUntilTokenRotates() throws Exception {
+        final SessionAuthenticator authenticator = new SessionAuthenticator();
+        final Date expiresIn = new Date(System.currentTimeMillis() + HOUR);
+
+        authenticator.setSession("token-0", expiresIn);
+        final IAccountInfo first = authenticator.getAccountInfo();
+        assertEquals("token-0", first.getAccessToken());
+        assertSame(first, authenticator.getAccountInfo());
+
+        authenticator.setSession("token-1", new Date(expiresIn.getTime() + HOUR));
+        final IAccountInfo second = authenticator.getAccountInfo();
+        assertNotSame(first, second);
+        assertEquals("token-1", second.getAccessToken());
+        assertEquals("token-0", first.getAccessToken());
+        assertSame(second, authenticator.getAccountInfo());
+        assertEquals(((IExpiringAccountInfo) first).getAccountId(), ((IExpiringAccountInfo) second).getAccountId());
+    }
+
+    public void testNoSessionHasNoAccount() throws Exception {
+        assertNull(new SessionAuthenticator().getAccountInfo());
+    }
+
+    /**
+     * An MSAAuthenticator whose session is set by the test instead of the live auth client
+     */
+    static class SessionAuthenticator extends MSAAuthenticator {
+
+        private String mAccessToken;
+
+        private Date mExpiresIn;
+
+        void setSession(final String accessToken, final Date expiresIn) {
+            mAccessToken = accessToken;
+            mExpiresIn = expiresIn;
+        }
+
+        @Override
+        public String getClientId() {
+            return "client";
+        }
+
+        @Override
+        public String[] getScopes() {
+            return new String[] { "onedrive.readwrite" };
+        }
+
+        @Override
+        public IAccountInfo getAccountInfo() {
+            if (mAccessToken == null) {
+                return null;
+            }
+            return getAccountInfo(mAccessToken, mExpiresIn);
+        }
+
+        @Override
+        String getSessionId() {
+            return "session";
+        }
+    }
+}
@@ -0,0 +1,183 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.authentication;
+
+import com.onedrive.sdk.concurrency.ICallback;
+import com.onedrive.sdk.concurrency.IExecutors;
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.http.IHttpProvider;
+import com.onedrive.sdk.logger.ILogger;
+
+import android.app.Activity;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mock {@see IAuthenticator} with a single account whose token expiry is controlled by the test
+ */
+public class MockAuthenticator implements IAuthenticator {
+
+    private static final long TOKEN_LIFETIME_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final AtomicInteger mRefreshCount = new AtomicInteger();
+
+    private volatile String mAccessToken = "token-0";
+
+    private volatile long mExpiresOn = System.currentTimeMillis() + TOKEN_LIFETIME_MILLIS;
+
+    private volatile CountDownLatch mRefreshGate;
+
+    private volatile ClientException mRefreshFailure;
+
+    /**
+     * Sets when the access token expires
+     */
+    public void setExpiresOn(final long expiresOn) {
+        mExpiresOn = expiresOn;
+    }
+
+    /**
+     * Makes refreshes block until the gate is opened
+     */
+    public void setRefreshGate(final CountDownLatch refreshGate) {
+        mRefreshGate = refreshGate;
+    }
+
+    /**
+     * Makes refreshes fail with the given exception
+     */
+    public void setRefreshFailure(final ClientException refreshFailure) {
+        mRefreshFailure = refreshFailure;
+    }
+
+    public int getRefreshCount() {
+        return mRefreshCount.get();
+    }
+
+    @Override
+    public IAccountInfo getAccountInfo() {
+        return new MockAccountInfo(mAccessToken, mExpiresOn);
+    }
+
+    @Override
+    public void init(final IExecutors executors,
+                     final IHttpProvider httpProvider,
+                     final Activity activity,
+                     final ILogger logger) {
+    }
+
+    @Override
+    public void login(final String emailAddressHint, final ICallback<IAccountInfo> loginCallback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IAccountInfo login(final String emailAddressHint) throws ClientException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void loginSilent(final ICallback<IAccountInfo> loginCallback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public synchronized IAccountInfo loginSilent() throws ClientException {
+        final CountDownLatch gate = mRefreshGate;
+        if (gate != null) {
+            try {
+                gate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (mRefreshFailure != null) {
+            throw mRefreshFailure;
+        }
+        mAccessToken = "token-" + mRefreshCount.incrementAndGet();
+        mExpiresOn = System.currentTimeMillis() + TOKEN_LIFETIME_MILLIS;
+        return getAccountInfo();
+    }
+
+    @Override
+    public void logout(final ICallback<Void> logoutCallback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void logout() throws ClientException {
+        throw new UnsupportedOperationException();
+    }
+
+    private class MockAccountInfo implements IExpiringAccountInfo {
+
+        private final String mToken;
+
+        private final long mExpiry;
+
+        MockAccountInfo(final String token, final long expiry) {
+            mToken = token;
+            mExpiry = expiry;
+        }
+
+        @Override
+        public AccountType getAccountType() {
+            return AccountType.MicrosoftAccount;
+        }
+
+        @Override
+        public String getAccessToken() {
+            return mToken;
+        }
+
+        @Override
+        public String getServiceRoot() {
+            return "https://localhost/v1.0";
+        }
+
+        @Override
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= mExpiry;
+        }
+
+        @Override
+        public void refresh() {
+            loginSilent();
+        }
+
+        @Override
+        public Date getExpiresOn() {
+            return new Date(mExpiry);
+        }
+
+        @Override
+        public String getAccountId() {
+            return "account";
+        }
+    }
+}
@@ -0,0 +1,187 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.authentication;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.http.HttpMethod;
+import com.onedrive.sdk.http.IHttpRequest;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.options.HeaderOption;
+import com.onedrive.sdk.options.Option;
+
+import android.test.AndroidTestCase;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test cases for {@see TokenManager}
+ */
+public class TokenManagerTests extends AndroidTestCase {
+
+    private static final int CALLERS = 50;
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private MockAuthenticator mAuthenticator;
+
+    private TokenManager mTokenManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mAuthenticator = new MockAuthenticator();
+        mTokenManager = new TokenManager(mAuthenticator, new MockLogger());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mTokenManager.stopProactiveRefresh();
+        super.tearDown();
+    }
+
+    public void testValidTokenIsNotRefreshed() throws Exception {
+        assertEquals("token-0", mTokenManager.getAccountInfo().getAccessToken());
+        assertEquals(0, mAuthenticator.getRefreshCount());
+        assertEquals(0, mTokenManager.getStats().getRefreshCount());
+    }
+
+    public void testBurstAtExpiryRefreshesOnce() throws Exception {
+        mAuthenticator.setExpiresOn(System.currentTimeMillis() - 1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        mAuthenticator.setRefreshGate(gate);
+
+        final List<String> tokens = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final String token = mTokenManager.getAccountInfo().getAccessToken();
+                    synchronized (tokens) {
+                        tokens.add(token);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        gate.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(1, mAuthenticator.getRefreshCount());
+        assertEquals(1, mTokenManager.getStats().getRefreshCount());
+        assertEquals(CALLERS, tokens.size());
+        for (final String token : tokens) {
+            assertEquals("token-1", token);
+        }
+        assertTrue(mTokenManager.getStats().getTotalRefreshNanos() > 0);
+    }
+
+    public void testRefreshFailure() throws Exception {
+        mAuthenticator.setExpiresOn(System.currentTimeMillis() - 1);
+        final ClientException failure = new ClientException("denied", null, OneDriveErrorCodes.AuthenticationFailure);
+        mAuthenticator.setRefreshFailure(failure);
+        try {
+            mTokenManager.getAccountInfo();
+            fail("Expected the refresh failure");
+        } catch (final ClientException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(1, mTokenManager.getStats().getFailureCount());
+
+        mAuthenticator.setRefreshFailure(null);
+        assertEquals("token-1", mTokenManager.getAccountInfo().getAccessToken());
+    }
+
+    public void testProactiveRefresh() throws Exception {
+        // Expires within the margin, so the timer refreshes it straight away
+        mAuthenticator.setExpiresOn(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+        mTokenManager.startProactiveRefresh(5, TimeUnit.MINUTES);
+
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (mAuthenticator.getRefreshCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, mAuthenticator.getRefreshCount());
+        assertEquals(1, mTokenManager.getStats().getProactiveRefreshCount());
+        assertEquals("token-1", mTokenManager.getAccountInfo().getAccessToken());
+        assertEquals(0, mTokenManager.getStats().getWaitCount());
+    }
+
+    public void testInterceptorUsesTokenManager() throws Exception {
+        mAuthenticator.setExpiresOn(System.currentTimeMillis() - 1);
+        final AuthorizationInterceptor interceptor = new AuthorizationInterceptor(mTokenManager, new MockLogger());
+        final RecordingRequest request = new RecordingRequest();
+        interceptor.intercept(request);
+        assertEquals("bearer token-1", request.getAuthorization());
+        assertSame(mTokenManager, interceptor.getTokenManager());
+    }
+
+    private static class RecordingRequest implements IHttpRequest {
+
+        private final List<HeaderOption> mHeaders = new ArrayList<>();
+
+        String getAuthorization() {
+            for (final HeaderOption header : mHeaders) {
+                if (AuthorizationInterceptor.AUTHORIZATION_HEADER_NAME.equals(header.getName())) {
+                    return header.getValue().toString();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public URL getRequestUrl() {
+            try {
+                return new URL("https://localhost/v1.0/drive");
+            } catch (final MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public HttpMethod getHttpMethod() {
+            return HttpMethod.GET;
+        }
+
+        @Override
+        public List<HeaderOption> getHeaders() {
+            return mHeaders;
+        }
+
+        @Override
+        public List<Option> getOptions() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void addHeader(final String header, final String value) {
+            mHeaders.add(new HeaderOption(header, value));
+        }
+    }
+}
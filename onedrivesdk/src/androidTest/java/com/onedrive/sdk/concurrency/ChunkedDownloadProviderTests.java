@@ -0,0 +1,164 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.MockClient;
+import com.onedrive.sdk.http.DefaultHttpProvider;
+import com.onedrive.sdk.http.LocalHttpServer;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.serializer.MockSerializer;
+
+import android.test.AndroidTestCase;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test cases for {@see ChunkedDownloadProvider}
+ */
+public class ChunkedDownloadProviderTests extends AndroidTestCase {
+
+    private static final int RANGE_SIZE = 256 * 1024;
+
+    public void testRangedDownload() throws Exception {
+        final byte[] content = createContent(RANGE_SIZE * 7 + 123);
+        final LocalHttpServer server = new LocalHttpServer(content);
+        try {
+            final byte[] downloaded = download(server, content.length);
+            assertTrue(Arrays.equals(content, downloaded));
+            // One range to discover the length, then the remaining seven
+            assertEquals(8, server.getRanges().size());
+            assertTrue(server.getRanges().contains("bytes=0-" + (RANGE_SIZE - 1)));
+        } finally {
+            server.close();
+        }
+    }
+
+    public void testServerWithoutRangeSupport() throws Exception {
+        final byte[] content = createContent(RANGE_SIZE * 3);
+        final LocalHttpServer server = new LocalHttpServer(content);
+        server.setHonorRanges(false);
+        try {
+            final byte[] downloaded = download(server, content.length);
+            assertTrue(Arrays.equals(content, downloaded));
+            assertEquals(1, server.getRanges().size());
+        } finally {
+            server.close();
+        }
+    }
+
+    public void testUnknownContentLength() throws Exception {
+        final byte[] content = createContent(RANGE_SIZE * 3 + 5);
+        final LocalHttpServer server = new LocalHttpServer(content);
+        server.setHideLength(true);
+        try {
+            final byte[] downloaded = download(server, content.length);
+            assertTrue(Arrays.equals(content, downloaded));
+            // The first range, then the rest in one open ended range
+            assertEquals(Arrays.asList("bytes=0-" + (RANGE_SIZE - 1), "bytes=" + RANGE_SIZE + "-"), server.getRanges());
+        } finally {
+            server.close();
+        }
+    }
+
+    public void testUnknownContentLengthOfOneRange() throws Exception {
+        final byte[] content = createContent(RANGE_SIZE);
+        final LocalHttpServer server = new LocalHttpServer(content);
+        server.setHideLength(true);
+        try {
+            assertTrue(Arrays.equals(content, download(server, content.length)));
+        } finally {
+            server.close();
+        }
+    }
+
+    public void testLaterRangesMatchFirstETag() throws Exception {
+        final byte[] content = createContent(RANGE_SIZE * 3);
+        final LocalHttpServer server = new LocalHttpServer(content);
+        server.setContent(content, "\"v1\"");
+        try {
+            assertTrue(Arrays.equals(content, download(server, content.length)));
+            assertEquals(3, server.getIfMatches().size());
+            assertEquals(1, Collections.frequency(server.getIfMatches(), ""));
+            assertEquals(2, Collections.frequency(server.getIfMatches(), "\"v1\""));
+        } finally {
+            server.close();
+        }
+    }
+
+    private byte[] download(final LocalHttpServer server, final int expectedLength) throws Exception {
+        final MockLogger logger = new MockLogger();
+        final MockClient client = new MockClient();
+        client.setLogger(logger);
+        client.setHttpProvider(new DefaultHttpProvider(new MockSerializer(null, ""), null, new MockExecutors(), logger));
+        client.setExecutors(new DefaultExecutors(logger));
+
+        final File file = File.createTempFile("download", ".bin");
+        final RandomAccessFile target = new RandomAccessFile(file, "rw");
+        try {
+            final AtomicLong length = new AtomicLong(-1);
+            final AtomicLong lastProgress = new AtomicLong(-1);
+            new ChunkedDownloadProvider(client, server.getUrl("/drive/items/1/content"), null)
+                    .download(target.getChannel(), new IProgressCallback<Long>() {
+                        @Override
+                        public void progress(final long current, final long max) {
+                            assertEquals(expectedLength, max);
+                            lastProgress.set(current);
+                        }
+
+                        @Override
+                        public void success(final Long result) {
+                            length.set(result);
+                        }
+
+                        @Override
+                        public void failure(final ClientException ex) {
+                            fail("Unexpected failure " + ex);
+                        }
+                    }, RANGE_SIZE, 3);
+
+            assertEquals(expectedLength, length.get());
+            assertEquals(expectedLength, lastProgress.get());
+            assertEquals(expectedLength, target.length());
+            final ByteBuffer downloaded = ByteBuffer.allocate(expectedLength);
+            target.getChannel().read(downloaded, 0);
+            return downloaded.array();
+        } finally {
+            target.close();
+            assertTrue(file.delete());
+        }
+    }
+
+    private static byte[] createContent(final int length) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 253);
+        }
+        return content;
+    }
+}
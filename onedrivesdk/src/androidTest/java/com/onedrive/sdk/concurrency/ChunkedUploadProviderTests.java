@@ -0,0 +1,359 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.MockClient;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.ChunkedUploadResult;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.extensions.UploadSession;
+import com.onedrive.sdk.http.IHttpProvider;
+import com.onedrive.sdk.http.IHttpRequest;
+import com.onedrive.sdk.http.IRequestBody;
+import com.onedrive.sdk.http.IStatefulResponseHandler;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.options.HeaderOption;
+import com.onedrive.sdk.serializer.DefaultSerializer;
+import com.onedrive.sdk.serializer.ISerializer;
+
+import android.test.AndroidTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test cases for {@see ChunkedUploadProvider}
+ */
+public class ChunkedUploadProviderTests extends AndroidTestCase {
+
+    private static final int CHUNK_SIZE = 320 * 1024;
+
+    private static final int STREAM_SIZE = CHUNK_SIZE * 5 + 100;
+
+    public void testParallelUploadFromStream() throws Exception {
+        final byte[] content = createContent();
+        final MockUploadService service = new MockUploadService(content);
+        uploadInParallel(service, new ByteArrayInputStream(content));
+        service.assertComplete();
+    }
+
+    public void testParallelUploadFromFile() throws Exception {
+        final byte[] content = createContent();
+        final File file = File.createTempFile("upload", ".bin");
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            out.write(content);
+            out.close();
+            final FileInputStream in = new FileInputStream(file);
+            final MockUploadService service = new MockUploadService(content);
+            uploadInParallel(service, in);
+            in.close();
+            service.assertComplete();
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    public void testSequentialUploadFromFile() throws Exception {
+        final byte[] content = createContent();
+        final File file = File.createTempFile("upload", ".bin");
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            out.write(content);
+            out.close();
+            final FileInputStream in = new FileInputStream(file);
+            final MockUploadService service = new MockUploadService(content);
+            upload(service, in, CHUNK_SIZE, 1, 1);
+            in.close();
+            service.assertComplete();
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    public void testResumeFromStore() throws Exception {
+        final byte[] content = createContent();
+        final MockUploadService service = new MockUploadService(content);
+        service.receive(content, 0, CHUNK_SIZE * 2);
+
+        final File directory = File.createTempFile("sessions", "");
+        assertTrue(directory.delete());
+        final FileUploadSessionStore store =
+                new FileUploadSessionStore(directory, new DefaultSerializer(new MockLogger()));
+        final String key = "/sdcard/upload.bin:/Documents/upload.bin";
+        final UploadSession saved = new UploadSession();
+        saved.uploadUrl = "https://localhost/upload";
+        saved.expirationDateTime = Calendar.getInstance();
+        saved.expirationDateTime.add(Calendar.DAY_OF_MONTH, 1);
+        store.save(key, saved);
+
+        final MockClient client = new MockClient();
+        client.setLogger(new MockLogger());
+        client.setHttpProvider(service);
+        client.setExecutors(new DefaultExecutors(new MockLogger()));
+        final ChunkedUploadProvider<Item> provider = ChunkedUploadProvider.resume(
+                store, key, client, new ByteArrayInputStream(content), STREAM_SIZE, Item.class);
+        assertNotNull(provider);
+
+        final AtomicReference<Item> uploaded = new AtomicReference<>();
+        provider.upload(null, new IProgressCallback<Item>() {
+            @Override
+            public void progress(final long current, final long max) {
+                if (current < max) {
+                    assertNotNull(store.load(key));
+                }
+            }
+
+            @Override
+            public void success(final Item item) {
+                uploaded.set(item);
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                fail("Unexpected failure " + ex);
+            }
+        }, CHUNK_SIZE);
+
+        assertNotNull(uploaded.get());
+        service.assertComplete();
+        assertEquals(CHUNK_SIZE * 2, service.getLowestOffsetSent());
+        assertNull(store.load(key));
+        assertTrue(directory.delete());
+    }
+
+    public void testCorruptStoreIsDiscarded() throws Exception {
+        final File directory = File.createTempFile("sessions", "");
+        assertTrue(directory.delete());
+        final FileUploadSessionStore store =
+                new FileUploadSessionStore(directory, new DefaultSerializer(new MockLogger()));
+        final String key = "/sdcard/upload.bin:/Documents/upload.bin";
+        final UploadSession saved = new UploadSession();
+        saved.uploadUrl = "https://localhost/upload";
+        final MockClient client = new MockClient();
+        client.setLogger(new MockLogger());
+
+        for (final String contents : new String[] { "", "{\"uploadUrl\": " }) {
+            store.save(key, saved);
+            final File[] files = directory.listFiles();
+            assertEquals(1, files.length);
+            final FileOutputStream out = new FileOutputStream(files[0]);
+            out.write(contents.getBytes("UTF-8"));
+            out.close();
+
+            assertNull(ChunkedUploadProvider.resume(store, key, client, new ByteArrayInputStream(new byte[0]),
+                                                    STREAM_SIZE, Item.class));
+            assertFalse(files[0].exists());
+        }
+        assertTrue(directory.delete());
+    }
+
+    public void testAdaptiveChunkSizeGrowsOnFastLinks() {
+        final AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(CHUNK_SIZE * 16, 5000L);
+        int previous = sizer.getChunkSize();
+        for (int i = 0; i < 10; i++) {
+            // 5 MiB in 100ms with a 50ms response
+            sizer.onChunkCompleted(sizer.getChunkSize(), 100L, 50L);
+            assertTrue(sizer.getChunkSize() <= previous * 2);
+            assertEquals(0, sizer.getChunkSize() % CHUNK_SIZE);
+            previous = sizer.getChunkSize();
+        }
+        assertEquals(60 * 1024 * 1024, sizer.getChunkSize());
+    }
+
+    public void testAdaptiveChunkSizeShrinksOnSlowLinks() {
+        final AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(CHUNK_SIZE * 16, 5000L);
+        for (int i = 0; i < 10; i++) {
+            // 10 KiB/s with a 2s response
+            sizer.onChunkCompleted(sizer.getChunkSize(), sizer.getChunkSize() / 10L, 2000L);
+        }
+        assertEquals(CHUNK_SIZE, sizer.getChunkSize());
+    }
+
+    private void uploadInParallel(final MockUploadService service, final InputStream in) throws Exception {
+        upload(service, in, CHUNK_SIZE, 1, 3);
+    }
+
+    private void upload(final MockUploadService service, final InputStream in, final int... configs)
+            throws Exception {
+        final MockClient client = new MockClient();
+        client.setLogger(new MockLogger());
+        client.setHttpProvider(service);
+        client.setExecutors(new DefaultExecutors(new MockLogger()));
+        final UploadSession<Item> session = new UploadSession<>();
+        session.uploadUrl = "https://localhost/upload";
+
+        final AtomicReference<Item> uploaded = new AtomicReference<>();
+        final List<Long> progress = new ArrayList<>();
+        final ChunkedUploadProvider<Item> provider =
+                new ChunkedUploadProvider<>(session, client, in, STREAM_SIZE, Item.class);
+        provider.upload(null, new IProgressCallback<Item>() {
+            @Override
+            public synchronized void progress(final long current, final long max) {
+                progress.add(current);
+            }
+
+            @Override
+            public void success(final Item item) {
+                uploaded.set(item);
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                fail("Unexpected failure " + ex);
+            }
+        }, configs);
+
+        assertNotNull(uploaded.get());
+        assertEquals(Long.valueOf(STREAM_SIZE), progress.get(progress.size() - 1));
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) >= progress.get(i - 1));
+        }
+    }
+
+    private static byte[] createContent() {
+        final byte[] content = new byte[STREAM_SIZE];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        return content;
+    }
+
+    /**
+     * Mock upload session endpoint, accepts ranges in any order
+     */
+    private static class MockUploadService implements IHttpProvider {
+
+        private final byte[] mExpected;
+        private final byte[] mReceived;
+        private final boolean[] mHave;
+        private int mLowestOffsetSent = Integer.MAX_VALUE;
+
+        MockUploadService(final byte[] expected) {
+            mExpected = expected;
+            mReceived = new byte[expected.length];
+            mHave = new boolean[expected.length];
+        }
+
+        void assertComplete() {
+            assertTrue(Arrays.equals(mExpected, mReceived));
+        }
+
+        synchronized void receive(final byte[] body, final int start, final int length) {
+            System.arraycopy(body, start, mReceived, start, length);
+            Arrays.fill(mHave, start, start + length, true);
+        }
+
+        int getLowestOffsetSent() {
+            return mLowestOffsetSent;
+        }
+
+        private List<String> getMissingRanges() {
+            final List<String> missing = new ArrayList<>();
+            int i = 0;
+            while (i < mHave.length) {
+                if (mHave[i]) {
+                    i++;
+                    continue;
+                }
+                final int missingStart = i;
+                while (i < mHave.length && !mHave[i]) {
+                    i++;
+                }
+                missing.add(missingStart + "-" + (i - 1));
+            }
+            return missing;
+        }
+
+        @Override
+        public ISerializer getSerializer() {
+            return null;
+        }
+
+        @Override
+        public <Result, BodyType> void send(final IHttpRequest request,
+                                            final ICallback<Result> callback,
+                                            final Class<Result> resultClass,
+                                            final BodyType serializable) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <Result, BodyType> Result send(final IHttpRequest request,
+                                                           final Class<Result> resultClass,
+                                                           final BodyType serializable) throws ClientException {
+            final UploadSession session = new UploadSession();
+            session.nextExpectedRanges = getMissingRanges();
+            return (Result) session;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <Result, BodyType, DeserializeType> Result send(
+                final IHttpRequest request,
+                final Class<Result> resultClass,
+                final BodyType serializable,
+                final IStatefulResponseHandler<Result, DeserializeType> handler) throws ClientException {
+            String contentRange = null;
+            for (final HeaderOption header : request.getHeaders()) {
+                if (header.getName().equals("Content-Range")) {
+                    contentRange = header.getValue();
+                }
+            }
+            final String[] bounds = contentRange.substring("bytes ".length(), contentRange.indexOf('/')).split("-");
+            final int start = Integer.parseInt(bounds[0]);
+            final int end = Integer.parseInt(bounds[1]);
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try {
+                ((IRequestBody) serializable).writeTo(body);
+            } catch (final IOException e) {
+                throw new ClientException("Unable to read the chunk", e, OneDriveErrorCodes.GeneralException);
+            }
+            assertEquals(end - start + 1, body.size());
+            mLowestOffsetSent = Math.min(mLowestOffsetSent, start);
+            System.arraycopy(body.toByteArray(), 0, mReceived, start, body.size());
+            Arrays.fill(mHave, start, end + 1, true);
+
+            final List<String> missing = getMissingRanges();
+
+            if (missing.isEmpty()) {
+                return (Result) new ChunkedUploadResult<>(new Item());
+            }
+            final UploadSession session = new UploadSession();
+            session.nextExpectedRanges = missing;
+            return (Result) new ChunkedUploadResult<>(session);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.logger.MockLogger;
+
+import android.test.AndroidTestCase;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test cases for {@see DefaultExecutors}
+ */
+public class DefaultExecutorsTests extends AndroidTestCase {
+
+    public void testSaturatedLaneRejects() throws Exception {
+        final Map<ExecutorLane, ExecutorLaneConfig> configs = new EnumMap<>(ExecutorLane.class);
+        configs.put(ExecutorLane.Transfer, new ExecutorLaneConfig(1, 1, 1, SaturationPolicy.Reject));
+        final DefaultExecutors executors = new DefaultExecutors(new MockLogger(), configs);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable blocker = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException ignored) {
+                    // Test ends either way
+                }
+            }
+        };
+
+        executors.performOnBackground(blocker, ExecutorLane.Transfer);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executors.performOnBackground(blocker, ExecutorLane.Transfer);
+        assertEquals(1, executors.getActiveThreadCount(ExecutorLane.Transfer));
+        assertEquals(1, executors.getQueueDepth(ExecutorLane.Transfer));
+
+        try {
+            executors.performOnBackground(blocker, ExecutorLane.Transfer);
+            fail("Expected the saturated lane to reject the task");
+        } catch (final RejectedExecutionException ignored) {
+            // Expected
+        }
+
+        // Other lanes are unaffected by the saturated one
+        final CountDownLatch interactive = new CountDownLatch(1);
+        executors.performOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                interactive.countDown();
+            }
+        });
+        assertTrue(interactive.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executors.getQueueDepth(ExecutorLane.Interactive));
+
+        release.countDown();
+    }
+
+    public void testSaturatedLaneFailsCallback() throws Exception {
+        final Map<ExecutorLane, ExecutorLaneConfig> configs = new EnumMap<>(ExecutorLane.class);
+        configs.put(ExecutorLane.Interactive, new ExecutorLaneConfig(1, 1, 1, SaturationPolicy.Reject));
+        final DefaultExecutors executors = new DefaultExecutors(new MockLogger(), configs);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable blocker = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException ignored) {
+                    // Test ends either way
+                }
+            }
+        };
+        executors.performOnBackground(blocker);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executors.performOnBackground(blocker);
+
+        final CountDownLatch failed = new CountDownLatch(1);
+        final ClientException[] failure = new ClientException[1];
+        executors.performOnBackground(blocker, ExecutorLane.Interactive, new ICallback<Void>() {
+            @Override
+            public void success(final Void result) {
+                fail("The saturated lane should not run the task");
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                failure[0] = ex;
+                failed.countDown();
+            }
+        });
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertTrue(failure[0].getCause() instanceof RejectedExecutionException);
+        release.countDown();
+    }
+
+    public void testCallerRunsWhenSaturated() throws Exception {
+        final Map<ExecutorLane, ExecutorLaneConfig> configs = new EnumMap<>(ExecutorLane.class);
+        configs.put(ExecutorLane.Sync, new ExecutorLaneConfig(1, 1, 1, SaturationPolicy.CallerRuns));
+        final DefaultExecutors executors = new DefaultExecutors(new MockLogger(), configs);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable blocker = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException ignored) {
+                    // Test ends either way
+                }
+            }
+        };
+        executors.performOnBackground(blocker, ExecutorLane.Sync);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executors.performOnBackground(blocker, ExecutorLane.Sync);
+
+        final Thread caller = Thread.currentThread();
+        final Thread[] ranOn = new Thread[1];
+        executors.performOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                ranOn[0] = Thread.currentThread();
+            }
+        }, ExecutorLane.Sync);
+        assertSame(caller, ranOn[0]);
+
+        release.countDown();
+    }
+
+    public void testProgressUpdatesAreCollapsed() throws Exception {
+        final DefaultExecutors executors = new DefaultExecutors(new MockLogger());
+        final int updates = 1000;
+        final AtomicInteger progressCalls = new AtomicInteger(0);
+        final AtomicLong lastProgress = new AtomicLong(-1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final IProgressCallback<String> callback = new IProgressCallback<String>() {
+            @Override
+            public void progress(final long current, final long max) {
+                progressCalls.incrementAndGet();
+                lastProgress.set(current);
+            }
+
+            @Override
+            public void success(final String result) {
+                done.countDown();
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                fail("Unexpected failure");
+            }
+        };
+
+        for (int i = 1; i <= updates; i++) {
+            executors.performOnForeground(i, updates, callback);
+        }
+        executors.performOnForeground("done", callback);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(progressCalls.get() <= updates);
+        assertEquals(updates, lastProgress.get());
+    }
+}
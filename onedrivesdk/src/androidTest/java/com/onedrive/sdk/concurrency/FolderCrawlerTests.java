@@ -0,0 +1,124 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.MockClient;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.DriveRequestBuilder;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.http.MockHttpProvider;
+import com.onedrive.sdk.logger.MockLogger;
+
+import android.test.AndroidTestCase;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Test cases for {@see FolderCrawler}
+ */
+public class FolderCrawlerTests extends AndroidTestCase {
+
+    private static final String DRIVE = "https://localhost/v1.0/drive";
+
+    private MockHttpProvider mProvider;
+
+    private DriveRequestBuilder mDrive;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mProvider = new MockHttpProvider();
+        final MockClient client = new MockClient();
+        client.setHttpProvider(mProvider);
+        client.setExecutors(new DefaultExecutors(new MockLogger()));
+        mDrive = new DriveRequestBuilder(DRIVE, client, null);
+        mProvider.setResponse(DRIVE + "/root/children",
+                "{ \"value\": [ " + folder("a") + ", " + folder("b") + ", " + file("f1") + " ] }");
+        mProvider.setResponse(DRIVE + "/items/a/children",
+                "{ \"value\": [ " + file("a1") + ", " + folder("aa") + " ],"
+                + " \"@odata.nextLink\": \"" + DRIVE + "/items/a/children?page=2\" }");
+        mProvider.setResponse(DRIVE + "/items/a/children?page=2", "{ \"value\": [ " + file("a2") + " ] }");
+        mProvider.setResponse(DRIVE + "/items/aa/children", "{ \"value\": [ " + file("aa1") + " ] }");
+        mProvider.setResponse(DRIVE + "/items/b/children", "{ \"value\": [ " + file("b1") + " ] }");
+    }
+
+    public void testCrawlsWholeTree() throws Exception {
+        final Map<String, Integer> found = Collections.synchronizedMap(new TreeMap<String, Integer>());
+        final int count = new FolderCrawler(mDrive, 3).crawl(mDrive.getRoot(), new ICrawlConsumer() {
+            @Override
+            public void onItem(final Item item, final int depth) {
+                found.put(item.id, depth);
+            }
+        });
+
+        assertEquals(8, count);
+        assertEquals("{a=1, a1=2, a2=2, aa=2, aa1=3, b=1, b1=2, f1=1}", found.toString());
+        assertEquals(5, mProvider.getRequests().size());
+    }
+
+    public void testMaxDepthAndFolderFilter() throws Exception {
+        final FolderCrawler crawler = new FolderCrawler(mDrive, 2);
+        final ICrawlConsumer ignore = new ICrawlConsumer() {
+            @Override
+            public void onItem(final Item item, final int depth) {
+            }
+        };
+        crawler.setMaxDepth(1);
+        assertEquals(3, crawler.crawl(mDrive.getRoot(), ignore));
+
+        crawler.setMaxDepth(Integer.MAX_VALUE);
+        crawler.setFolderFilter(new IFolderFilter() {
+            @Override
+            public boolean shouldEnter(final Item folder, final int depth) {
+                return !"a".equals(folder.id);
+            }
+        });
+        assertEquals(4, crawler.crawl(mDrive.getRoot(), ignore));
+    }
+
+    public void testFailureStopsCrawl() throws Exception {
+        mProvider.setResponse(DRIVE + "/items/b/children",
+                new ClientException("Failed", null, OneDriveErrorCodes.AccessDenied));
+        try {
+            new FolderCrawler(mDrive, 2).crawl(mDrive.getRoot(), new ICrawlConsumer() {
+                @Override
+                public void onItem(final Item item, final int depth) {
+                }
+            });
+            fail("Expected the crawl to fail");
+        } catch (final ClientException e) {
+            assertTrue(e.isError(OneDriveErrorCodes.AccessDenied));
+        }
+    }
+
+    private static String folder(final String id) {
+        return "{ \"id\": \"" + id + "\", \"folder\": {} }";
+    }
+
+    private static String file(final String id) {
+        return "{ \"id\": \"" + id + "\", \"file\": {} }";
+    }
+}
@@ -0,0 +1,103 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.logger.MockLogger;
+
+import android.test.AndroidTestCase;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases for {@see LaneWorkers}
+ */
+public class LaneWorkersTests extends AndroidTestCase {
+
+    public void testRunsCopiesOnLane() throws Exception {
+        final DefaultExecutors executors = new DefaultExecutors(new MockLogger());
+        final CountDownLatch together = new CountDownLatch(3);
+        final AtomicInteger runs = new AtomicInteger();
+
+        LaneWorkers.run(executors, ExecutorLane.Transfer, 3, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                runs.incrementAndGet();
+                together.countDown();
+                assertTrue(together.await(5, TimeUnit.SECONDS));
+                return null;
+            }
+        });
+
+        assertEquals(3, runs.get());
+    }
+
+    public void testCallerFinishesOnSaturatedLane() throws Exception {
+        final Map<ExecutorLane, ExecutorLaneConfig> configs = new EnumMap<>(ExecutorLane.class);
+        configs.put(ExecutorLane.Transfer, new ExecutorLaneConfig(1, 1, 1, SaturationPolicy.Reject));
+        final DefaultExecutors executors = new DefaultExecutors(new MockLogger(), configs);
+        final CountDownLatch release = new CountDownLatch(1);
+        executors.performOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (final InterruptedException ignored) {
+                    // Test ends either way
+                }
+            }
+        }, ExecutorLane.Transfer);
+
+        final AtomicInteger runs = new AtomicInteger();
+        LaneWorkers.run(executors, ExecutorLane.Transfer, 4, new Callable<Void>() {
+            @Override
+            public Void call() {
+                runs.incrementAndGet();
+                return null;
+            }
+        });
+
+        // One copy was queued behind the blocked task and the others were rejected, only the caller ran
+        assertEquals(1, runs.get());
+        release.countDown();
+    }
+
+    public void testFailureIsRethrown() throws Exception {
+        try {
+            LaneWorkers.run(new MockExecutors(), ExecutorLane.Sync, 2, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    throw new IllegalStateException("Failed");
+                }
+            });
+            fail("Expected the failure to be rethrown");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
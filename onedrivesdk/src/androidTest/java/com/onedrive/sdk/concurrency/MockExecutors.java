@@ -34,6 +34,28 @@ public class MockExecutors implements IExecutors {
         runnable.run();
     }
 
+    @Override
+    public void performOnBackground(final Runnable runnable, final ExecutorLane lane) {
+        runnable.run();
+    }
+
+    @Override
+    public <Result> void performOnBackground(final Runnable runnable,
+                                             final ExecutorLane lane,
+                                             final ICallback<Result> callback) {
+        runnable.run();
+    }
+
+    @Override
+    public int getQueueDepth(final ExecutorLane lane) {
+        return 0;
+    }
+
+    @Override
+    public int getActiveThreadCount(final ExecutorLane lane) {
+        return 0;
+    }
+
     @Override
     public <Result> void performOnForeground(final Result result,
                                              final ICallback<Result> callback) {
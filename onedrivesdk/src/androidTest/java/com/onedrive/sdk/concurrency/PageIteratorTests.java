@@ -0,0 +1,192 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.MockClient;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.IItemCollectionPage;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.extensions.ItemCollectionRequest;
+import com.onedrive.sdk.http.MockHttpProvider;
+
+import android.test.AndroidTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Test cases for {@see PageIterator}
+ */
+public class PageIteratorTests extends AndroidTestCase {
+
+    private static final String URL = "https://localhost/v1.0/drive/root/children";
+
+    private MockHttpProvider mProvider;
+
+    private MockClient mClient;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mProvider = new MockHttpProvider();
+        mClient = new MockClient();
+        mClient.setHttpProvider(mProvider);
+        mClient.setExecutors(new MockExecutors());
+    }
+
+    public void testIteratesAllPages() throws Exception {
+        enqueuePages(3);
+        final List<String> names = new ArrayList<>();
+        for (final Item item : new ItemCollectionRequest(URL, mClient, null).iterate(1)) {
+            names.add(item.name);
+        }
+
+        assertEquals("[p0a, p0b, p1a, p1b, p2a, p2b]", names.toString());
+        assertEquals(3, mProvider.getRequests().size());
+    }
+
+    public void testPrefetchDepth() throws Exception {
+        enqueuePages(4);
+        final PageIterator<Item, IItemCollectionPage> prefetching = new ItemCollectionRequest(URL, mClient, null)
+                .iterate(2);
+        assertTrue(prefetching.hasNext());
+        assertEquals(3, mProvider.getRequests().size());
+
+        final PageIterator<Item, IItemCollectionPage> onDemand = new ItemCollectionRequest(URL, mClient, null)
+                .iterate(0);
+        assertTrue(onDemand.hasNext());
+        assertEquals(4, mProvider.getRequests().size());
+    }
+
+    public void testCancel() throws Exception {
+        enqueuePages(3);
+        final PageIterator<Item, IItemCollectionPage> iterator = new ItemCollectionRequest(URL, mClient, null)
+                .iterate(1);
+        assertEquals("p0a", iterator.next().name);
+        iterator.cancel();
+
+        assertFalse(iterator.hasNext());
+        assertTrue(iterator.isCancelled());
+        assertEquals(2, mProvider.getRequests().size());
+    }
+
+    public void testFailureAfterFetchedPages() throws Exception {
+        mProvider.enqueue(createPage(0, true));
+        mProvider.enqueue(new ClientException("Failed", null, OneDriveErrorCodes.GeneralException));
+        final PageIterator<Item, IItemCollectionPage> iterator = new ItemCollectionRequest(URL, mClient, null)
+                .iterate(1);
+        assertEquals("p0a", iterator.next().name);
+        assertEquals("p0b", iterator.next().name);
+
+        try {
+            iterator.hasNext();
+            fail("Expected the fetch failure");
+        } catch (final ClientException e) {
+            assertTrue(e.isError(OneDriveErrorCodes.GeneralException));
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    public void testBackgroundPrefetch() throws Exception {
+        mClient.setExecutors(new MockExecutors() {
+            @Override
+            public void performOnBackground(final Runnable runnable, final ExecutorLane lane) {
+                new Thread(runnable).start();
+            }
+        });
+        enqueuePages(20);
+        int count = 0;
+        for (final Item item : new ItemCollectionRequest(URL, mClient, null).iterate(3)) {
+            assertNotNull(item.name);
+            count++;
+        }
+
+        assertEquals(40, count);
+        assertEquals(20, mProvider.getRequests().size());
+    }
+
+    public void testUnexpectedFetchFailure() throws Exception {
+        mClient.setExecutors(new MockExecutors() {
+            @Override
+            public void performOnBackground(final Runnable runnable, final ExecutorLane lane) {
+                new Thread(runnable).start();
+            }
+        });
+        final PageIterator<Item, IItemCollectionPage> iterator =
+                new PageIterator<Item, IItemCollectionPage>(mClient.getExecutors(), ExecutorLane.Interactive, 1) {
+                    @Override
+                    protected IItemCollectionPage fetchFirst() {
+                        throw new IllegalStateException("Malformed page");
+                    }
+
+                    @Override
+                    protected IItemCollectionPage fetchNext(final IItemCollectionPage page) {
+                        throw new IllegalStateException("Malformed page");
+                    }
+                };
+
+        try {
+            iterator.hasNext();
+            fail("Expected the fetch failure");
+        } catch (final ClientException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    public void testRejectedFetch() throws Exception {
+        mClient.setExecutors(new MockExecutors() {
+            @Override
+            public void performOnBackground(final Runnable runnable, final ExecutorLane lane) {
+                throw new RejectedExecutionException("Lane saturated");
+            }
+        });
+        enqueuePages(1);
+        final PageIterator<Item, IItemCollectionPage> iterator = new ItemCollectionRequest(URL, mClient, null)
+                .iterate(1);
+
+        try {
+            iterator.hasNext();
+            fail("Expected the rejection");
+        } catch (final ClientException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    private void enqueuePages(final int pages) {
+        for (int i = 0; i < pages; i++) {
+            mProvider.enqueue(createPage(i, i < pages - 1));
+        }
+    }
+
+    private static String createPage(final int page, final boolean hasNext) {
+        String json = "{ \"value\": [ { \"name\": \"p" + page + "a\" }, { \"name\": \"p" + page + "b\" } ]";
+        if (hasNext) {
+            json += ", \"@odata.nextLink\": \"" + URL + "?page=" + (page + 1) + "\"";
+        }
+        return json + " }";
+    }
+}
@@ -0,0 +1,164 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.MockClient;
+import com.onedrive.sdk.extensions.ItemStreamRequest;
+import com.onedrive.sdk.http.DefaultHttpProvider;
+import com.onedrive.sdk.http.LocalHttpServer;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.serializer.MockSerializer;
+
+import android.test.AndroidTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Test cases for {@see ResumableDownloadStream}
+ */
+public class ResumableDownloadStreamTests extends AndroidTestCase {
+
+    private static final int CONTENT_LENGTH = 300 * 1024;
+
+    private static final int DROP_AFTER = 100 * 1024;
+
+    private LocalHttpServer mServer;
+
+    private MockClient mClient;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mServer = new LocalHttpServer(createContent(CONTENT_LENGTH, 0));
+        final MockLogger logger = new MockLogger();
+        mClient = new MockClient();
+        mClient.setLogger(logger);
+        mClient.setHttpProvider(new DefaultHttpProvider(new MockSerializer(null, ""), null, new MockExecutors(), logger));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mServer.close();
+        super.tearDown();
+    }
+
+    public void testResumeAfterDroppedConnection() throws Exception {
+        final byte[] content = createContent(CONTENT_LENGTH, 0);
+        mServer.setContent(content, "\"v1\"");
+        mServer.dropNextResponseAfter(DROP_AFTER);
+
+        final InputStream in = new ItemStreamRequest(mServer.getUrl("/drive/items/1/content"), mClient, null).get();
+        try {
+            assertTrue(Arrays.equals(content, readFully(in)));
+        } finally {
+            in.close();
+        }
+        assertEquals(2, mServer.getRanges().size());
+        assertEquals("bytes=" + DROP_AFTER + "-", mServer.getRanges().get(1));
+    }
+
+    public void testContentChangedDuringDownload() throws Exception {
+        mServer.setContent(createContent(CONTENT_LENGTH, 0), "\"v1\"");
+        mServer.dropNextResponseAfter(DROP_AFTER);
+
+        final InputStream in = ResumableDownloadStream.open(mClient, mServer.getUrl("/drive/items/1/content"), null,
+                                                            ResumableDownloadStream.MAXIMUM_RETRY_TIMES);
+        mServer.setContent(createContent(CONTENT_LENGTH, 1), "\"v2\"");
+        try {
+            readFully(in);
+            fail("Expected the download to fail");
+        } catch (final IOException ignored) {
+            // The new version must not be spliced onto the old one
+        } finally {
+            in.close();
+        }
+        assertEquals(2, mServer.getRanges().size());
+    }
+
+    public void testNoResumeWithoutETag() throws Exception {
+        mServer.dropNextResponseAfter(DROP_AFTER);
+
+        final InputStream in = ResumableDownloadStream.open(mClient, mServer.getUrl("/drive/items/1/content"), null,
+                                                            ResumableDownloadStream.MAXIMUM_RETRY_TIMES);
+        try {
+            readFully(in);
+            fail("Expected the download to fail");
+        } catch (final IOException ignored) {
+            // Without an eTag the content can not be verified
+        } finally {
+            in.close();
+        }
+        assertEquals(1, mServer.getRanges().size());
+    }
+
+    public void testReadAfterResumeGaveUp() throws Exception {
+        mServer.dropNextResponseAfter(DROP_AFTER);
+
+        final InputStream in = ResumableDownloadStream.open(mClient, mServer.getUrl("/drive/items/1/content"), null,
+                                                            ResumableDownloadStream.MAXIMUM_RETRY_TIMES);
+        try {
+            try {
+                readFully(in);
+                fail("Expected the download to fail");
+            } catch (final IOException ignored) {
+                // Without an eTag the content can not be verified
+            }
+            try {
+                in.read();
+                fail("Expected the failed download to stay failed");
+            } catch (final IOException e) {
+                assertEquals("Download failed", e.getMessage());
+            }
+            try {
+                in.available();
+                fail("Expected the failed download to stay failed");
+            } catch (final IOException e) {
+                assertEquals("Download failed", e.getMessage());
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read = in.read(buffer);
+        while (read != -1) {
+            out.write(buffer, 0, read);
+            read = in.read(buffer);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] createContent(final int length, final int seed) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ((i + seed) % 251);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,197 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.core;
+
+import com.onedrive.sdk.extensions.CopyRequest;
+import com.onedrive.sdk.extensions.DeltaRequest;
+import com.onedrive.sdk.extensions.IDeltaCollectionPage;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.extensions.ItemReference;
+import com.onedrive.sdk.extensions.ItemRequest;
+import com.onedrive.sdk.extensions.ItemStreamRequest;
+import com.onedrive.sdk.http.HttpMethod;
+import com.onedrive.sdk.http.MockHttpProvider;
+
+import android.test.AndroidTestCase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test cases for {@see ItemCache}
+ */
+public class ItemCacheTests extends AndroidTestCase {
+
+    private static final String ITEM_URL = "https://localhost/v1.0/drive/items/abc";
+
+    private static final String ITEM_JSON = "{ \"id\": \"abc\", \"name\": \"first\" }";
+
+    private static final String PATH_URL = "https://localhost/v1.0/drive/root:/folder/file.txt:";
+
+    private static final String PARENTED_ITEM_JSON = "{ \"id\": \"abc\", \"parentReference\": { \"id\": \"parent\" } }";
+
+    private MockClient mClient;
+
+    private MockHttpProvider mProvider;
+
+    private ItemCache mCache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mCache = new ItemCache(2, 1, TimeUnit.HOURS);
+        mProvider = new MockHttpProvider();
+        mClient = new MockClient();
+        mClient.setHttpProvider(mProvider);
+        mClient.setItemCache(mCache);
+    }
+
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        mCache.put(null, createItem("a"));
+        mCache.put(null, createItem("b"));
+        assertNotNull(mCache.get(null, "a"));
+        mCache.put(null, createItem("c"));
+
+        assertNull(mCache.get(null, "b"));
+        assertNotNull(mCache.get(null, "a"));
+        assertNotNull(mCache.get(null, "c"));
+        assertNull(mCache.get("other", "a"));
+        assertEquals(2, mCache.size());
+        assertEquals(3, mCache.getHitCount());
+        assertEquals(2, mCache.getMissCount());
+        assertEquals(1, mCache.getEvictionCount());
+    }
+
+    public void testExpiredEntriesAreMissed() throws Exception {
+        final ItemCache cache = new ItemCache(2, 1, TimeUnit.MILLISECONDS);
+        cache.put(null, createItem("a"));
+        Thread.sleep(10);
+
+        assertNull(cache.get(null, "a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    public void testGetIsServedFromCache() throws Exception {
+        mProvider.enqueue(ITEM_JSON);
+
+        assertEquals("first", new ItemRequest(ITEM_URL, mClient, null).get().name);
+        assertEquals("first", new ItemRequest(ITEM_URL, mClient, null).get().name);
+        assertEquals(1, mProvider.getRequests().size());
+        assertEquals(1, mCache.getHitCount());
+        assertEquals(1, mCache.getMissCount());
+    }
+
+    public void testBypassCache() throws Exception {
+        mProvider.enqueue(ITEM_JSON);
+        mProvider.enqueue("{ \"id\": \"abc\", \"name\": \"second\" }");
+        new ItemRequest(ITEM_URL, mClient, null).get();
+
+        assertEquals("second", new ItemRequest(ITEM_URL, mClient, null).bypassCache().get().name);
+        assertEquals("second", new ItemRequest(ITEM_URL, mClient, null).get().name);
+        assertEquals(2, mProvider.getRequests().size());
+    }
+
+    public void testQueryOptionsAreNotCached() throws Exception {
+        mProvider.enqueue(ITEM_JSON);
+        mProvider.enqueue(ITEM_JSON);
+        new ItemRequest(ITEM_URL, mClient, null).select("name").get();
+        new ItemRequest(ITEM_URL, mClient, null).get();
+
+        assertEquals(2, mProvider.getRequests().size());
+        assertEquals(0, mCache.getHitCount());
+    }
+
+    public void testPatchInvalidates() throws Exception {
+        mProvider.enqueue(ITEM_JSON);
+        mProvider.enqueue("{ \"id\": \"abc\", \"name\": \"patched\" }");
+        mProvider.enqueue("{ \"id\": \"abc\", \"name\": \"patched\" }");
+        new ItemRequest(ITEM_URL, mClient, null).get();
+        new ItemRequest(ITEM_URL, mClient, null).patch(new Item());
+
+        assertEquals("patched", new ItemRequest(ITEM_URL, mClient, null).get().name);
+        assertEquals(HttpMethod.PATCH, mProvider.getRequests().get(1).getHttpMethod());
+        assertEquals(3, mProvider.getRequests().size());
+    }
+
+    public void testPathAddressedPatchInvalidatesReturnedItem() throws Exception {
+        mCache.put(null, createItem("abc"));
+        mCache.put(null, createItem("parent"));
+        mProvider.enqueue(PARENTED_ITEM_JSON);
+
+        new ItemRequest(PATH_URL, mClient, null).patch(new Item());
+
+        assertEquals(0, mCache.size());
+    }
+
+    public void testPathAddressedPostInvalidatesParent() throws Exception {
+        mCache.put(null, createItem("parent"));
+        mProvider.enqueue(PARENTED_ITEM_JSON);
+
+        new ItemRequest("https://localhost/v1.0/drive/root:/folder:", mClient, null).post(new Item());
+
+        assertEquals(0, mCache.size());
+    }
+
+    public void testUploadInvalidatesUploadedItem() throws Exception {
+        mCache.put(null, createItem("abc"));
+        mCache.put(null, createItem("parent"));
+        mProvider.enqueue(PARENTED_ITEM_JSON);
+
+        new ItemStreamRequest(PATH_URL + "/content", mClient, null).put(new byte[] { 1 });
+
+        assertEquals(0, mCache.size());
+    }
+
+    public void testCopyInvalidatesDestination() throws Exception {
+        mCache.put(null, createItem("abc"));
+        mCache.put(null, createItem("parent"));
+        mProvider.enqueue("{}");
+        final ItemReference destination = new ItemReference();
+        destination.id = "parent";
+
+        new CopyRequest(ITEM_URL + "/action.copy", mClient, null, "copy", destination).post();
+
+        assertNotNull(mCache.get(null, "abc"));
+        assertNull(mCache.get(null, "parent"));
+    }
+
+    public void testDeltaInvalidatesChangedAndDeletedItems() throws Exception {
+        mCache.put(null, createItem("abc"));
+        mCache.put("other", createItem("def"));
+        mProvider.enqueue("{ \"value\": [ { \"id\": \"abc\" },"
+                + " { \"id\": \"def\", \"deleted\": {}, \"parentReference\": { \"driveId\": \"other\" } } ] }");
+
+        final IDeltaCollectionPage page = new DeltaRequest("https://localhost/v1.0/drive/root/view.delta",
+                mClient, null, null).get();
+
+        assertEquals(2, page.getCurrentPage().size());
+        assertEquals(0, mCache.size());
+    }
+
+    private static Item createItem(final String id) {
+        final Item item = new Item();
+        item.id = id;
+        return item;
+    }
+}
@@ -13,12 +13,46 @@ import com.onedrive.sdk.serializer.ISerializer;
 
 public class MockClient implements IOneDriveClient{
     private ILogger mLogger;
+    private IHttpProvider mHttpProvider;
+    private ItemCache mItemCache;
+    private IExecutors mExecutors;
+    private String mServiceRoot;
+    private ISerializer mSerializer;
+
+    public void setLogger(final ILogger logger) {
+        mLogger = logger;
+    }
+
+    public void setHttpProvider(final IHttpProvider httpProvider) {
+        mHttpProvider = httpProvider;
+    }
+
+    public void setItemCache(final ItemCache itemCache) {
+        mItemCache = itemCache;
+    }
+
+    public void setExecutors(final IExecutors executors) {
+        mExecutors = executors;
+    }
+
+    public void setServiceRoot(final String serviceRoot) {
+        mServiceRoot = serviceRoot;
+    }
+
+    public void setSerializer(final ISerializer serializer) {
+        mSerializer = serializer;
+    }
 
     @Override
     public IDriveRequestBuilder getDrive() {
         return null;
     }
 
+    @Override
+    public ItemCache getItemCache() {
+        return mItemCache;
+    }
+
     @Override
     public IDriveCollectionRequestBuilder getDrives() {
         return null;
@@ -46,17 +80,17 @@ public class MockClient implements IOneDriveClient{
 
     @Override
     public String getServiceRoot() {
-        return null;
+        return mServiceRoot;
     }
 
     @Override
     public IExecutors getExecutors() {
-        return null;
+        return mExecutors;
     }
 
     @Override
     public IHttpProvider getHttpProvider() {
-        return null;
+        return mHttpProvider;
     }
 
     @Override
@@ -66,7 +100,7 @@ public class MockClient implements IOneDriveClient{
 
     @Override
     public ISerializer getSerializer() {
-        return null;
+        return mSerializer;
     }
 
     @Override
@@ -0,0 +1,151 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.concurrency.MockExecutors;
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.MockClient;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.extensions.ItemRequest;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.serializer.DefaultSerializer;
+
+import android.test.AndroidTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test cases for {@see BatchRequest}
+ */
+public class BatchRequestTests extends AndroidTestCase {
+
+    private LocalBatchEndpoint mEndpoint;
+
+    private MockClient mClient;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mEndpoint = new LocalBatchEndpoint();
+        final DefaultSerializer serializer = new DefaultSerializer(new MockLogger());
+        mClient = new MockClient();
+        mClient.setServiceRoot(mEndpoint.getServiceRoot());
+        mClient.setSerializer(serializer);
+        mClient.setHttpProvider(new DefaultHttpProvider(serializer, null, new MockExecutors(), new MockLogger()));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mEndpoint.close();
+        super.tearDown();
+    }
+
+    public void testMixedResults() throws Exception {
+        mEndpoint.putItem("/drive/items/a", "{ \"id\": \"a\", \"name\": \"first\" }");
+        mEndpoint.putItem("/drive/items/b", "{ \"id\": \"b\", \"name\": \"second\" }");
+        mEndpoint.putItem("/drive/items/c", "{ \"id\": \"c\", \"name\": \"third\" }");
+        final Item rename = new Item();
+        rename.name = "renamed";
+
+        final BatchRequest batch = new BatchRequest(mClient);
+        final BatchStep<Item> get = batch.add(item("a"), HttpMethod.GET, Item.class);
+        final BatchStep<Item> patch = batch.add(item("b"), HttpMethod.PATCH, Item.class, rename);
+        final BatchStep<Void> delete = batch.add(item("c"), HttpMethod.DELETE, Void.class);
+        final BatchStep<Item> missing = batch.add(item("zzz"), HttpMethod.GET, Item.class);
+        assertEquals(4, batch.size());
+        batch.send();
+
+        assertEquals(1, mEndpoint.getBatchCount());
+        assertEquals(0, batch.size());
+        assertEquals("first", get.getResult().name);
+        assertEquals("renamed", patch.getResult().name);
+        assertEquals("renamed", mEndpoint.getItem("/drive/items/b").get("name").getAsString());
+        assertEquals(204, delete.getStatus());
+        assertNull(delete.getResult());
+        assertNull(mEndpoint.getItem("/drive/items/c"));
+        assertFalse(missing.isSuccess());
+        assertEquals(404, missing.getStatus());
+        try {
+            missing.getResult();
+            fail("Expected the service error");
+        } catch (final OneDriveServiceException e) {
+            assertTrue(e.isError(OneDriveErrorCodes.ItemNotFound));
+        }
+    }
+
+    public void testSplitsIntoBatches() throws Exception {
+        final BatchRequest batch = new BatchRequest(mClient);
+        final List<BatchStep<Item>> steps = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            mEndpoint.putItem("/drive/items/" + i, "{ \"id\": \"" + i + "\" }");
+            steps.add(batch.add(item(Integer.toString(i)), HttpMethod.GET, Item.class));
+        }
+        batch.send();
+
+        assertEquals(3, mEndpoint.getBatchCount());
+        assertEquals(45, mEndpoint.getRequestCount());
+        for (int i = 0; i < 45; i++) {
+            assertEquals(Integer.toString(i), steps.get(i).getResult().id);
+        }
+    }
+
+    public void testResultBeforeSend() throws Exception {
+        final BatchStep<Item> step = new BatchRequest(mClient).add(item("a"), HttpMethod.GET, Item.class);
+        try {
+            step.getResult();
+            fail("Expected the step to be incomplete");
+        } catch (final IllegalStateException expected) {
+            assertFalse(step.isSuccess());
+        }
+    }
+
+    public void testRequestOutsideServiceRoot() throws Exception {
+        final BatchRequest batch = new BatchRequest(mClient);
+        try {
+            batch.add(new ItemRequest("https://example.com/drive/items/a", mClient, null), HttpMethod.GET, Item.class);
+            fail("Expected the request to be rejected");
+        } catch (final IllegalArgumentException expected) {
+            assertEquals(0, batch.size());
+        }
+    }
+
+    public void testFailedBatchFailsItsSteps() throws Exception {
+        mClient.setServiceRoot("http://127.0.0.1:1/v1.0");
+        final BatchRequest batch = new BatchRequest(mClient);
+        final BatchStep<Item> step = batch.add(new ItemRequest("http://127.0.0.1:1/v1.0/drive/items/a", mClient, null),
+                                               HttpMethod.GET, Item.class);
+        try {
+            batch.send();
+            fail("Expected the batch to fail");
+        } catch (final ClientException expected) {
+            assertFalse(step.isSuccess());
+            assertEquals(0, step.getStatus());
+        }
+    }
+
+    private ItemRequest item(final String id) {
+        return new ItemRequest(mEndpoint.getServiceRoot() + "/drive/items/" + id, mClient, null);
+    }
+}
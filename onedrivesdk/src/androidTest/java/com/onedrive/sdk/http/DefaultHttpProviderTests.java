@@ -35,20 +35,28 @@ import com.onedrive.sdk.extensions.Drive;
 import com.onedrive.sdk.extensions.Item;
 import com.onedrive.sdk.extensions.UploadSession;
 import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.serializer.DefaultSerializer;
 import com.onedrive.sdk.serializer.MockSerializer;
 
 import android.test.AndroidTestCase;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Test cases for {@see DefaultHttpProvider}
@@ -179,6 +187,40 @@ public class DefaultHttpProviderTests extends AndroidTestCase {
         assertEquals(1, mInterceptor.getInterceptionCount());
     }
 
+    public void testCoalescedResponse() throws Exception {
+        final ITestData data = new ITestData() {
+            @Override
+            public int getRequestCode() {
+                return 200;
+            }
+
+            @Override
+            public String getJsonResponse() {
+                return "{ \"id\": \"zzz\" }";
+            }
+
+            @Override
+            public Map<String, String> getHeaders() {
+                final HashMap<String, String> map = new HashMap<>();
+                map.put("Content-Type", "application/json");
+                return map;
+            }
+        };
+        final Drive expectedDrive = new Drive();
+        expectedDrive.id = "driveId";
+        setDefaultHttpProvider(expectedDrive);
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        mProvider.setRequestCoalescer(coalescer);
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(new TestDataConnection(data)));
+
+        final Drive drive = mProvider.send(new MockRequest(), Drive.class, null);
+
+        assertEquals("driveId", drive.id);
+        assertEquals(1, mInterceptor.getInterceptionCount());
+        assertEquals(1, coalescer.getExchangeCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
     public void testBinaryResponse() throws Exception {
         final ITestData data = new ITestData() {
             @Override
@@ -288,6 +330,244 @@ public class DefaultHttpProviderTests extends AndroidTestCase {
         assertEquals(1, mInterceptor.getInterceptionCount());
     }
 
+    public void testPostStream() throws Exception {
+        final ITestData data = new ITestData() {
+            @Override
+            public int getRequestCode() {
+                return 200;
+            }
+
+            @Override
+            public String getJsonResponse() {
+                return "{ \"id\": \"zzz\" }";
+            }
+
+            @Override
+            public Map<String, String> getHeaders() {
+                final HashMap<String, String> map = new HashMap<>();
+                map.put("Content-Type", "application/json");
+                return map;
+            }
+        };
+        setDefaultHttpProvider(new Item());
+        final TestDataConnection connection = new TestDataConnection(data);
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(connection));
+
+        // Larger than the transfer buffer, with trailing bytes that are not part of the body
+        final byte[] content = new byte[200 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        final int length = content.length - 10;
+        mProvider.send(new MockRequest(), Item.class,
+                       new InputStreamRequestBody(new ByteArrayInputStream(content), length));
+
+        assertEquals(length, connection.getContentLength());
+        assertTrue(Arrays.equals(Arrays.copyOf(content, length), connection.getWrittenBytes()));
+    }
+
+    public void testPostStreamProgress() throws Exception {
+        final ITestData data = new ITestData() {
+            @Override
+            public int getRequestCode() {
+                return 200;
+            }
+
+            @Override
+            public String getJsonResponse() {
+                return "{ \"id\": \"zzz\" }";
+            }
+
+            @Override
+            public Map<String, String> getHeaders() {
+                final HashMap<String, String> map = new HashMap<>();
+                map.put("Content-Type", "application/json");
+                return map;
+            }
+        };
+        setDefaultHttpProvider(new Item());
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(new TestDataConnection(data)));
+
+        final int length = 200 * 1024;
+        final List<Long> progress = new ArrayList<>();
+        final AtomicBoolean success = new AtomicBoolean(false);
+        mProvider.send(new MockRequest(), new IProgressCallback<Item>() {
+            @Override
+            public void progress(final long current, final long max) {
+                assertEquals(length, max);
+                progress.add(current);
+            }
+
+            @Override
+            public void success(final Item item) {
+                success.set(true);
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                fail("Unexpected failure " + ex);
+            }
+        }, Item.class, new InputStreamRequestBody(new ByteArrayInputStream(new byte[length]), length));
+
+        assertTrue(success.get());
+        // One update per 64 KiB slice of the body rather than a single one at the end
+        assertEquals(4, progress.size());
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+        assertEquals(Long.valueOf(length), progress.get(progress.size() - 1));
+    }
+
+    public void testPostFile() throws Exception {
+        final ITestData data = new ITestData() {
+            @Override
+            public int getRequestCode() {
+                return 200;
+            }
+
+            @Override
+            public String getJsonResponse() {
+                return "{ \"id\": \"zzz\" }";
+            }
+
+            @Override
+            public Map<String, String> getHeaders() {
+                final HashMap<String, String> map = new HashMap<>();
+                map.put("Content-Type", "application/json");
+                return map;
+            }
+        };
+        setDefaultHttpProvider(new Item());
+        final TestDataConnection connection = new TestDataConnection(data);
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(connection));
+
+        final byte[] content = new byte[150 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        final File file = File.createTempFile("upload", ".bin");
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write(content);
+        out.close();
+
+        final AtomicInteger progressCalls = new AtomicInteger();
+        final AtomicBoolean success = new AtomicBoolean(false);
+        mProvider.send(new MockRequest(), new IProgressCallback<Item>() {
+            @Override
+            public void progress(final long current, final long max) {
+                progressCalls.incrementAndGet();
+            }
+
+            @Override
+            public void success(final Item item) {
+                success.set(true);
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                fail("Unexpected failure " + ex);
+            }
+        }, Item.class, new FileRequestBody(file));
+
+        assertTrue(success.get());
+        assertEquals(3, progressCalls.get());
+        assertTrue(Arrays.equals(content, connection.getWrittenBytes()));
+        assertTrue(file.delete());
+    }
+
+    public void testPostShortStream() throws Exception {
+        setDefaultHttpProvider(new Item());
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(new TestDataConnection(null)));
+
+        try {
+            mProvider.send(new MockRequest(), Item.class,
+                           new InputStreamRequestBody(new ByteArrayInputStream(new byte[10]), 20));
+            fail("Expected an exception");
+        } catch (final ClientException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    public void testGzipResponse() throws Exception {
+        final byte[] json = "{ \"id\": \"zzz\", \"name\": \"a file with a long enough name to compress\" }".getBytes();
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+        gzip.write(json);
+        gzip.close();
+
+        final EncodedConnection connection = new EncodedConnection("gzip", gzipped.toByteArray());
+        mProvider = new DefaultHttpProvider(new DefaultSerializer(new MockLogger()), mInterceptor = new MockInterceptor(),
+                new MockExecutors(), new MockLogger());
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(connection));
+        mProvider.setCompressionEnabled(true);
+
+        final Item item = mProvider.send(new MockRequest(), Item.class, null);
+
+        assertEquals("zzz", item.id);
+        assertEquals("gzip, deflate", connection.getRequestHeaders().get("Accept-Encoding"));
+        assertEquals(1, mProvider.getCompressionStats().getResponseCount());
+        assertEquals(gzipped.size(), mProvider.getCompressionStats().getCompressedBytes());
+        assertEquals(json.length, mProvider.getCompressionStats().getDecompressedBytes());
+    }
+
+    public void testCompressedResponsesInARow() throws Exception {
+        final byte[] json = "{ \"id\": \"zzz\" }".getBytes();
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+        gzip.write(json);
+        gzip.close();
+
+        final EncodedConnection connection = new EncodedConnection("gzip", gzipped.toByteArray());
+        mProvider = new DefaultHttpProvider(new DefaultSerializer(new MockLogger()), mInterceptor = new MockInterceptor(),
+                new MockExecutors(), new MockLogger());
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(connection));
+        mProvider.setCompressionEnabled(true);
+
+        assertEquals("zzz", mProvider.send(new MockRequest(), Item.class, null).id);
+        assertEquals("zzz", mProvider.send(new MockRequest(), Item.class, null).id);
+        assertEquals(2, mProvider.getCompressionStats().getResponseCount());
+
+        final InputStream decoded = DecodingInputStream.decode(new ByteArrayInputStream(gzipped.toByteArray()),
+                                                               "gzip", mProvider.getCompressionStats());
+        decoded.close();
+        try {
+            decoded.read();
+            fail("Expected an exception");
+        } catch (final IOException e) {
+            assertEquals("Stream closed", e.getMessage());
+        }
+    }
+
+    public void testDeflateResponse() throws Exception {
+        final byte[] json = "{ \"id\": \"zzz\" }".getBytes();
+        for (final boolean raw : new boolean[] { false, true }) {
+            final ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+            final DeflaterOutputStream deflate = new DeflaterOutputStream(deflated, new Deflater(Deflater.DEFAULT_COMPRESSION, raw));
+            deflate.write(json);
+            deflate.close();
+
+            final EncodedConnection connection = new EncodedConnection("deflate", deflated.toByteArray());
+            mProvider = new DefaultHttpProvider(new DefaultSerializer(new MockLogger()), mInterceptor = new MockInterceptor(),
+                    new MockExecutors(), new MockLogger());
+            mProvider.setConnectionFactory(new MockSingleConnectionFactory(connection));
+            mProvider.setCompressionEnabled(true);
+
+            assertEquals("zzz", mProvider.send(new MockRequest(), Item.class, null).id);
+            assertEquals(json.length, mProvider.getCompressionStats().getDecompressedBytes());
+        }
+    }
+
+    public void testCompressionNotRequestedByDefault() throws Exception {
+        final EncodedConnection connection = new EncodedConnection(null, "{ \"id\": \"zzz\" }".getBytes());
+        mProvider = new DefaultHttpProvider(new DefaultSerializer(new MockLogger()), mInterceptor = new MockInterceptor(),
+                new MockExecutors(), new MockLogger());
+        mProvider.setConnectionFactory(new MockSingleConnectionFactory(connection));
+
+        assertEquals("zzz", mProvider.send(new MockRequest(), Item.class, null).id);
+        assertFalse(connection.getRequestHeaders().containsKey("Accept-Encoding"));
+        assertEquals(0, mProvider.getCompressionStats().getResponseCount());
+    }
+
     public void testErrorResponse() throws Exception {
         final OneDriveErrorCodes expectedErrorCode = OneDriveErrorCodes.InvalidRequest;
         final String expectedMessage = "Test error!";
@@ -501,10 +781,22 @@ public class DefaultHttpProviderTests extends AndroidTestCase {
 
         private final ITestData mData;
 
+        private final ByteArrayOutputStream mOutput = new ByteArrayOutputStream();
+
+        private int mContentLength = -1;
+
         public TestDataConnection(ITestData data) {
             mData = data;
         }
 
+        public byte[] getWrittenBytes() {
+            return mOutput.toByteArray();
+        }
+
+        public int getContentLength() {
+            return mContentLength;
+        }
+
         @Override
         public void setFollowRedirects(final boolean followRedirects) {
 
@@ -517,7 +809,7 @@ public class DefaultHttpProviderTests extends AndroidTestCase {
 
         @Override
         public OutputStream getOutputStream() throws IOException {
-            return new ByteArrayOutputStream();
+            return mOutput;
         }
 
         @Override
@@ -552,7 +844,56 @@ public class DefaultHttpProviderTests extends AndroidTestCase {
 
         @Override
         public void setContentLength(int length) {
+            mContentLength = length;
+        }
+    }
+
+    /**
+     * Mock {@see IConnection} returning an encoded json body
+     */
+    private class EncodedConnection extends TestDataConnection {
+
+        private final byte[] mBody;
+
+        private final Map<String, String> mRequestHeaders = new HashMap<>();
+
+        public EncodedConnection(final String contentEncoding, final byte[] body) {
+            super(new ITestData() {
+                @Override
+                public int getRequestCode() {
+                    return 200;
+                }
+
+                @Override
+                public String getJsonResponse() {
+                    return null;
+                }
+
+                @Override
+                public Map<String, String> getHeaders() {
+                    final HashMap<String, String> headers = new HashMap<>();
+                    headers.put("Content-Type", "application/json");
+                    if (contentEncoding != null) {
+                        headers.put("Content-Encoding", contentEncoding);
+                    }
+                    return headers;
+                }
+            });
+            mBody = body;
+        }
+
+        public Map<String, String> getRequestHeaders() {
+            return mRequestHeaders;
+        }
+
+        @Override
+        public void addRequestHeader(final String headerName, final String headerValue) {
+            mRequestHeaders.put(headerName, headerValue);
+        }
 
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new ByteArrayInputStream(mBody);
         }
     }
 
@@ -0,0 +1,148 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the json $batch endpoint, serving GET, PATCH and DELETE of items kept in memory
+ */
+public class LocalBatchEndpoint implements LocalHttpServer.Responder {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final LocalHttpServer mServer;
+
+    private final Map<String, JsonObject> mItems = new ConcurrentHashMap<>();
+
+    private final AtomicInteger mBatchCount = new AtomicInteger();
+
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    public LocalBatchEndpoint() throws IOException {
+        mServer = new LocalHttpServer(new byte[0]);
+        mServer.setKeepAlive(true);
+        mServer.setResponder(this);
+    }
+
+    /**
+     * The service root, the batch endpoint is at $batch below it
+     */
+    public String getServiceRoot() {
+        return mServer.getUrl("/v1.0");
+    }
+
+    /**
+     * Stores an item that is served at the given url relative to the service root
+     */
+    public void putItem(final String url, final String json) {
+        mItems.put(url, new JsonParser().parse(json).getAsJsonObject());
+    }
+
+    public JsonObject getItem(final String url) {
+        return mItems.get(url);
+    }
+
+    /**
+     * The number of batches received
+     */
+    public int getBatchCount() {
+        return mBatchCount.get();
+    }
+
+    /**
+     * The number of requests received within batches
+     */
+    public int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    public void close() throws IOException {
+        mServer.close();
+    }
+
+    @Override
+    public String respond(final String method, final String path, final byte[] body) {
+        if (!"POST".equals(method) || !path.endsWith("/$batch")) {
+            return error("invalidRequest", "Only POST $batch is supported").toString();
+        }
+        mBatchCount.incrementAndGet();
+        final JsonArray requests = new JsonParser().parse(new String(body, UTF8)).getAsJsonObject()
+                .getAsJsonArray("requests");
+        final JsonArray responses = new JsonArray();
+        // Answer in reverse, the client must match responses by id
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            mRequestCount.incrementAndGet();
+            responses.add(handle(requests.get(i).getAsJsonObject()));
+        }
+        final JsonObject result = new JsonObject();
+        result.add("responses", responses);
+        return result.toString();
+    }
+
+    private JsonObject handle(final JsonObject request) {
+        final String url = request.get("url").getAsString();
+        final String method = request.get("method").getAsString();
+        final JsonObject item = mItems.get(url);
+        final JsonObject response = new JsonObject();
+        response.add("id", request.get("id"));
+        if (item == null) {
+            response.addProperty("status", 404);
+            response.add("body", error("itemNotFound", "Item not found"));
+        } else if ("GET".equals(method)) {
+            response.addProperty("status", 200);
+            response.add("body", item);
+        } else if ("PATCH".equals(method)) {
+            for (final Map.Entry<String, JsonElement> property : request.getAsJsonObject("body").entrySet()) {
+                item.add(property.getKey(), property.getValue());
+            }
+            response.addProperty("status", 200);
+            response.add("body", item);
+        } else if ("DELETE".equals(method)) {
+            mItems.remove(url);
+            response.addProperty("status", 204);
+        } else {
+            response.addProperty("status", 405);
+            response.add("body", error("notSupported", "Method not supported"));
+        }
+        return response;
+    }
+
+    private static JsonObject error(final String code, final String message) {
+        final JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        final JsonObject body = new JsonObject();
+        body.add("error", error);
+        return body;
+    }
+}
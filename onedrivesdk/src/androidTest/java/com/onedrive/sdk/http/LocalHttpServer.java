@@ -0,0 +1,359 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal local http server for tests, serving fixed content on every path and honoring Range requests
+ */
+public class LocalHttpServer {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private final ServerSocket mServerSocket;
+    private final List<String> mRanges = new CopyOnWriteArrayList<>();
+    private final List<String> mIfMatches = new CopyOnWriteArrayList<>();
+    private final List<byte[]> mRequestBodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger mDropAfter = new AtomicInteger(-1);
+    private final AtomicBoolean mDropRequest = new AtomicBoolean();
+    private final AtomicInteger mConnectionCount = new AtomicInteger();
+    private volatile byte[] mContent;
+    private volatile String mETag;
+    private volatile boolean mHonorRanges = true;
+    private volatile boolean mKeepAlive;
+    private volatile boolean mChunked;
+    private volatile boolean mHideLength;
+    private volatile boolean mRunning = true;
+    private volatile Responder mResponder;
+
+    /**
+     * Answers requests with json instead of the fixed content
+     */
+    public interface Responder {
+        String respond(final String method, final String path, final byte[] body);
+    }
+
+    public LocalHttpServer(final byte[] content) throws IOException {
+        mContent = content;
+        mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        final Thread acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        }, "LocalHttpServer");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public String getUrl(final String path) {
+        return "http://127.0.0.1:" + mServerSocket.getLocalPort() + path;
+    }
+
+    /**
+     * Replaces the content, as if the file changed on the server
+     */
+    public void setContent(final byte[] content, final String eTag) {
+        mContent = content;
+        mETag = eTag;
+    }
+
+    /**
+     * Drops the connection of the next response after the given number of body bytes
+     */
+    public void dropNextResponseAfter(final int bytes) {
+        mDropAfter.set(bytes);
+    }
+
+    /**
+     * Closes the connection after reading the next request, without answering it
+     */
+    public void dropNextRequest() {
+        mDropRequest.set(true);
+    }
+
+    public void setResponder(final Responder responder) {
+        mResponder = responder;
+    }
+
+    public void setHonorRanges(final boolean honorRanges) {
+        mHonorRanges = honorRanges;
+    }
+
+    /**
+     * Keeps connections open between requests instead of closing them after each response
+     */
+    public void setKeepAlive(final boolean keepAlive) {
+        mKeepAlive = keepAlive;
+    }
+
+    /**
+     * Sends bodies with chunked transfer encoding instead of a Content-Length
+     */
+    public void setChunked(final boolean chunked) {
+        mChunked = chunked;
+    }
+
+    /**
+     * Answers ranges with an unknown total length, as in "bytes 0-9/*"
+     */
+    public void setHideLength(final boolean hideLength) {
+        mHideLength = hideLength;
+    }
+
+    /**
+     * The If-Match header of every content request, or an empty string if it had none
+     */
+    public List<String> getIfMatches() {
+        return mIfMatches;
+    }
+
+    /**
+     * The Range header of every request, or an empty string if it had none
+     */
+    public List<String> getRanges() {
+        return mRanges;
+    }
+
+    /**
+     * The body of every request
+     */
+    public List<byte[]> getRequestBodies() {
+        return mRequestBodies;
+    }
+
+    /**
+     * The number of connections accepted
+     */
+    public int getConnectionCount() {
+        return mConnectionCount.get();
+    }
+
+    public void close() throws IOException {
+        mRunning = false;
+        mServerSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (mRunning) {
+            try {
+                final Socket socket = mServerSocket.accept();
+                mConnectionCount.incrementAndGet();
+                final Thread handler = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+                handler.setDaemon(true);
+                handler.start();
+            } catch (final IOException ignored) {
+                // Socket closed
+            }
+        }
+    }
+
+    private void serve(final Socket socket) {
+        try {
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+            final OutputStream out = socket.getOutputStream();
+            boolean open = true;
+            while (open) {
+                open = handle(in, out);
+            }
+        } catch (final IOException ignored) {
+            // Client went away
+        } finally {
+            try {
+                socket.close();
+            } catch (final IOException ignored) {
+                // Nothing left to do
+            }
+        }
+    }
+
+    private boolean handle(final InputStream in, final OutputStream out) throws IOException {
+        final String requestLine = readLine(in);
+        if (requestLine == null || requestLine.isEmpty()) {
+            return false;
+        }
+        final Map<String, String> headers = new HashMap<>();
+        String line = readLine(in);
+        while (line != null && !line.isEmpty()) {
+            final int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            line = readLine(in);
+        }
+
+        final String contentLength = headers.get("content-length");
+        final byte[] body = new byte[contentLength == null ? 0 : Integer.parseInt(contentLength)];
+        int read = 0;
+        while (read < body.length) {
+            final int count = in.read(body, read, body.length - read);
+            if (count == -1) {
+                return false;
+            }
+            read += count;
+        }
+        mRequestBodies.add(body);
+        if (mDropRequest.getAndSet(false)) {
+            return false;
+        }
+
+        if (requestLine.startsWith("DELETE ")) {
+            out.write(("HTTP/1.1 204 No Content\r\n"
+                    + (mKeepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n") + "\r\n")
+                    .getBytes(ASCII));
+            out.flush();
+            return mKeepAlive;
+        }
+
+        final Responder responder = mResponder;
+        if (responder != null) {
+            final String[] parts = requestLine.split(" ");
+            final byte[] json = responder.respond(parts[0], parts[1], body).getBytes("UTF-8");
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + json.length
+                    + "\r\n" + (mKeepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n") + "\r\n")
+                    .getBytes(ASCII));
+            out.write(json);
+            out.flush();
+            return mKeepAlive;
+        }
+
+        final byte[] content = mContent;
+        final String eTag = mETag;
+        final boolean keepAlive = mKeepAlive;
+        String range = headers.get("range");
+        if (range == null) {
+            range = "";
+        }
+        mRanges.add(range);
+
+        final String connection = keepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n";
+        final String ifMatch = headers.get("if-match");
+        mIfMatches.add(ifMatch == null ? "" : ifMatch);
+        if (ifMatch != null && !ifMatch.equals(eTag)) {
+            out.write(("HTTP/1.1 412 Precondition Failed\r\nContent-Length: 0\r\n" + connection + "\r\n")
+                    .getBytes(ASCII));
+            out.flush();
+            return keepAlive;
+        }
+
+        int start = 0;
+        int end = content.length - 1;
+        boolean partial = false;
+        if (mHonorRanges && range.startsWith("bytes=")) {
+            final String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(Integer.parseInt(bounds[1]), content.length - 1);
+            }
+            partial = true;
+        }
+        if (partial && start >= content.length) {
+            out.write(("HTTP/1.1 416 Range Not Satisfiable\r\nContent-Length: 0\r\n" + connection + "\r\n")
+                    .getBytes(ASCII));
+            out.flush();
+            return keepAlive;
+        }
+
+        final StringBuilder response = new StringBuilder();
+        if (partial) {
+            response.append("HTTP/1.1 206 Partial Content\r\n");
+            response.append("Content-Range: bytes ").append(start).append('-').append(end)
+                    .append('/').append(mHideLength ? "*" : String.valueOf(content.length)).append("\r\n");
+        } else {
+            response.append("HTTP/1.1 200 OK\r\n");
+        }
+        if (eTag != null) {
+            response.append("ETag: ").append(eTag).append("\r\n");
+        }
+        response.append("Content-Type: application/octet-stream\r\n");
+        final boolean chunked = mChunked;
+        if (chunked) {
+            response.append("Transfer-Encoding: chunked\r\n");
+        } else {
+            response.append("Content-Length: ").append(end - start + 1).append("\r\n");
+        }
+        response.append(connection).append("\r\n");
+
+        int length = end - start + 1;
+        final int dropAfter = mDropAfter.getAndSet(-1);
+        if (dropAfter >= 0) {
+            length = Math.min(length, dropAfter);
+        }
+        out.write(response.toString().getBytes(ASCII));
+        if (chunked) {
+            // Two chunks, to exercise chunk boundaries
+            final int half = length / 2;
+            writeChunk(out, content, start, half);
+            writeChunk(out, content, start + half, length - half);
+            out.write("0\r\n\r\n".getBytes(ASCII));
+        } else {
+            out.write(content, start, length);
+        }
+        out.flush();
+        return keepAlive && dropAfter < 0;
+    }
+
+    private static void writeChunk(final OutputStream out, final byte[] content, final int offset, final int length)
+            throws IOException {
+        if (length == 0) {
+            return;
+        }
+        out.write((Integer.toHexString(length) + "\r\n").getBytes(ASCII));
+        out.write(content, offset, length);
+        out.write("\r\n".getBytes(ASCII));
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c = in.read();
+        while (c != '\n') {
+            if (c == -1) {
+                return null;
+            }
+            if (c != '\r') {
+                line.write(c);
+            }
+            c = in.read();
+        }
+        return new String(line.toByteArray(), ASCII);
+    }
+}
@@ -0,0 +1,148 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.concurrency.ICallback;
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.serializer.DefaultSerializer;
+import com.onedrive.sdk.serializer.ISerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Mock {@see IHttpProvider} that answers requests with queued json responses
+ */
+public class MockHttpProvider implements IHttpProvider {
+
+    /**
+     * The serializer
+     */
+    private final ISerializer mSerializer = new DefaultSerializer(new MockLogger());
+
+    /**
+     * The queued responses, either json strings or exceptions to throw
+     */
+    private final Queue<Object> mResponses = new LinkedList<>();
+
+    /**
+     * The responses by request url, either json strings or exceptions to throw
+     */
+    private final Map<String, Object> mResponsesByUrl = new HashMap<>();
+
+    /**
+     * The requests that were sent
+     */
+    private final List<IHttpRequest> mRequests = Collections.synchronizedList(new ArrayList<IHttpRequest>());
+
+    /**
+     * Queues a json response
+     * @param json The response
+     */
+    public void enqueue(final String json) {
+        mResponses.add(json);
+    }
+
+    /**
+     * Queues a failure
+     * @param exception The exception to throw
+     */
+    public void enqueue(final ClientException exception) {
+        mResponses.add(exception);
+    }
+
+    /**
+     * Sets the response to every request for a url, used before the queued responses
+     * @param url The request url
+     * @param response The json response, or the exception to throw
+     */
+    public synchronized void setResponse(final String url, final Object response) {
+        mResponsesByUrl.put(url, response);
+    }
+
+    /**
+     * Gets the requests that were sent
+     * @return The requests
+     */
+    public List<IHttpRequest> getRequests() {
+        return mRequests;
+    }
+
+    @Override
+    public ISerializer getSerializer() {
+        return mSerializer;
+    }
+
+    @Override
+    public <Result, BodyType> void send(final IHttpRequest request,
+                                        final ICallback<Result> callback,
+                                        final Class<Result> resultClass,
+                                        final BodyType serializable) {
+        try {
+            callback.success(send(request, resultClass, serializable));
+        } catch (final ClientException e) {
+            callback.failure(e);
+        }
+    }
+
+    @Override
+    public <Result, BodyType> Result send(final IHttpRequest request,
+                                          final Class<Result> resultClass,
+                                          final BodyType serializable) throws ClientException {
+        mRequests.add(request);
+        final Object response = takeResponse(request);
+        if (response instanceof ClientException) {
+            throw (ClientException) response;
+        }
+        return mSerializer.deserializeObject((String) response, resultClass);
+    }
+
+    /**
+     * Gets the response to a request
+     * @param request The request
+     * @return The json response, or the exception to throw
+     */
+    private synchronized Object takeResponse(final IHttpRequest request) {
+        final Object response = mResponsesByUrl.get(request.getRequestUrl().toString());
+        if (response != null) {
+            return response;
+        }
+        return mResponses.remove();
+    }
+
+    @Override
+    public <Result, BodyType, DeserializeType> Result send(final IHttpRequest request,
+                                                           final Class<Result> resultClass,
+                                                           final BodyType serializable,
+                                                           final IStatefulResponseHandler<Result,
+                                                                   DeserializeType> handler)
+            throws ClientException {
+        throw new UnsupportedOperationException();
+    }
+}
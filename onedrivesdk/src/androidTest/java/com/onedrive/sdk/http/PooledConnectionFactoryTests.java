@@ -0,0 +1,240 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.concurrency.MockExecutors;
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.options.HeaderOption;
+import com.onedrive.sdk.options.Option;
+import com.onedrive.sdk.serializer.MockSerializer;
+
+import android.test.AndroidTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test cases for {@see PooledConnectionFactory}
+ */
+public class PooledConnectionFactoryTests extends AndroidTestCase {
+
+    private static final int CONTENT_LENGTH = 100 * 1024;
+
+    private byte[] mContent;
+
+    private LocalHttpServer mServer;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContent = new byte[CONTENT_LENGTH];
+        for (int i = 0; i < mContent.length; i++) {
+            mContent[i] = (byte) (i % 241);
+        }
+        mServer = new LocalHttpServer(mContent);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mServer.close();
+        super.tearDown();
+    }
+
+    public void testConnectionReuse() throws Exception {
+        mServer.setKeepAlive(true);
+        final PooledConnectionFactory factory = new PooledConnectionFactory();
+        final DefaultHttpProvider provider = createProvider(factory);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(Arrays.equals(mContent, get(provider)));
+        }
+
+        assertEquals(1, mServer.getConnectionCount());
+        assertEquals(1, factory.getConnectionPool().getConnectionCount());
+        assertEquals(2, factory.getConnectionPool().getReuseCount());
+        assertEquals(1, factory.getConnectionPool().getIdleConnectionCount());
+    }
+
+    public void testChunkedResponse() throws Exception {
+        mServer.setKeepAlive(true);
+        mServer.setChunked(true);
+        final PooledConnectionFactory factory = new PooledConnectionFactory();
+        final DefaultHttpProvider provider = createProvider(factory);
+
+        assertTrue(Arrays.equals(mContent, get(provider)));
+        assertTrue(Arrays.equals(mContent, get(provider)));
+        assertEquals(1, mServer.getConnectionCount());
+    }
+
+    public void testServerClosesConnection() throws Exception {
+        final PooledConnectionFactory factory = new PooledConnectionFactory();
+        final DefaultHttpProvider provider = createProvider(factory);
+
+        assertTrue(Arrays.equals(mContent, get(provider)));
+        assertTrue(Arrays.equals(mContent, get(provider)));
+
+        assertEquals(2, mServer.getConnectionCount());
+        assertEquals(0, factory.getConnectionPool().getReuseCount());
+        assertEquals(0, factory.getConnectionPool().getIdleConnectionCount());
+    }
+
+    public void testRequestBody() throws Exception {
+        mServer.setKeepAlive(true);
+        final PooledConnectionFactory factory = new PooledConnectionFactory();
+        final DefaultHttpProvider provider = createProvider(factory);
+        final byte[] body = new byte[] { 1, 2, 3, 4, 5 };
+
+        final InputStream in = provider.send(new TestRequest(HttpMethod.PUT), InputStream.class, body);
+        assertTrue(Arrays.equals(mContent, readFully(in)));
+        assertTrue(Arrays.equals(mContent, get(provider)));
+
+        assertTrue(Arrays.equals(body, mServer.getRequestBodies().get(0)));
+        assertEquals(1, mServer.getConnectionCount());
+    }
+
+    public void testNoContentReleasesConnection() throws Exception {
+        mServer.setKeepAlive(true);
+        final PooledConnectionFactory factory = new PooledConnectionFactory();
+        final DefaultHttpProvider provider = createProvider(factory);
+
+        assertNull(provider.send(new TestRequest(HttpMethod.DELETE), Void.class, null));
+        assertEquals(1, factory.getConnectionPool().getIdleConnectionCount());
+
+        assertTrue(Arrays.equals(mContent, get(provider)));
+        assertEquals(1, mServer.getConnectionCount());
+        assertEquals(1, factory.getConnectionPool().getReuseCount());
+    }
+
+    public void testIdempotentRequestRetriedOnStaleSocket() throws Exception {
+        mServer.setKeepAlive(true);
+        final PooledConnectionFactory factory = new PooledConnectionFactory();
+        final DefaultHttpProvider provider = createProvider(factory);
+
+        assertTrue(Arrays.equals(mContent, get(provider)));
+        mServer.dropNextRequest();
+        assertTrue(Arrays.equals(mContent, get(provider)));
+
+        assertEquals(3, mServer.getRequestBodies().size());
+        assertEquals(2, mServer.getConnectionCount());
+    }
+
+    public void testPostNotRetriedOnStaleSocket() throws Exception {
+        mServer.setKeepAlive(true);
+        final PooledConnectionFactory factory = new PooledConnectionFactory();
+        final DefaultHttpProvider provider = createProvider(factory);
+
+        assertTrue(Arrays.equals(mContent, get(provider)));
+        mServer.dropNextRequest();
+        try {
+            provider.send(new TestRequest(HttpMethod.POST), InputStream.class, null);
+            fail("Expected the request to fail rather than be sent twice");
+        } catch (final ClientException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        assertEquals(2, mServer.getRequestBodies().size());
+        assertEquals(1, mServer.getConnectionCount());
+    }
+
+    public void testIdleEviction() throws Exception {
+        mServer.setKeepAlive(true);
+        final long keepAliveMillis = 50;
+        final PooledConnectionFactory factory = new PooledConnectionFactory(new ConnectionPool(1, keepAliveMillis),
+                PooledConnectionFactory.DEFAULT_CONNECT_TIMEOUT, PooledConnectionFactory.DEFAULT_READ_TIMEOUT);
+        final DefaultHttpProvider provider = createProvider(factory);
+
+        get(provider);
+        Thread.sleep(keepAliveMillis * 4);
+        get(provider);
+
+        assertEquals(2, mServer.getConnectionCount());
+        assertEquals(1, factory.getConnectionPool().getEvictionCount());
+    }
+
+    private DefaultHttpProvider createProvider(final IConnectionFactory factory) {
+        return new DefaultHttpProvider(new MockSerializer(null, ""), null, new MockExecutors(), new MockLogger(),
+                                       factory);
+    }
+
+    private byte[] get(final DefaultHttpProvider provider) throws IOException {
+        return readFully(provider.send(new TestRequest(HttpMethod.GET), InputStream.class, null));
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read = in.read(buffer);
+            while (read != -1) {
+                out.write(buffer, 0, read);
+                read = in.read(buffer);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private class TestRequest implements IHttpRequest {
+
+        private final HttpMethod mMethod;
+
+        TestRequest(final HttpMethod method) {
+            mMethod = method;
+        }
+
+        @Override
+        public URL getRequestUrl() {
+            try {
+                return new URL(mServer.getUrl("/drive/items/1/content"));
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public HttpMethod getHttpMethod() {
+            return mMethod;
+        }
+
+        @Override
+        public List<HeaderOption> getHeaders() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<Option> getOptions() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void addHeader(final String header, final String value) {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.options.HeaderOption;
+
+import android.test.AndroidTestCase;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases for {@see RequestCoalescer}
+ */
+public class RequestCoalescerTests extends AndroidTestCase {
+
+    private static final int CALLERS = 8;
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    public void testConcurrentRequestsShareOneExchange() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger exchanges = new AtomicInteger();
+        final Item item = new Item();
+        final Callable<Item> exchange = new Callable<Item>() {
+            @Override
+            public Item call() throws Exception {
+                exchanges.incrementAndGet();
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                return item;
+            }
+        };
+
+        final List<Item> results = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final Item result = coalescer.execute("key", exchange);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        while (coalescer.getCoalescedCount() < CALLERS - 1) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, coalescer.getInFlightCount());
+        release.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(1, exchanges.get());
+        assertEquals(1, coalescer.getExchangeCount());
+        assertEquals(CALLERS, results.size());
+        for (final Item result : results) {
+            assertSame(item, result);
+        }
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    public void testCompletedExchangeIsNotReused() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicInteger exchanges = new AtomicInteger();
+        final Callable<Integer> exchange = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return exchanges.incrementAndGet();
+            }
+        };
+
+        assertEquals(Integer.valueOf(1), coalescer.execute("key", exchange));
+        assertEquals(Integer.valueOf(2), coalescer.execute("key", exchange));
+        assertEquals(2, coalescer.getExchangeCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    public void testFailureIsRethrown() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final ClientException failure = new ClientException("boom", null, OneDriveErrorCodes.GeneralException);
+        try {
+            coalescer.execute("key", new Callable<Item>() {
+                @Override
+                public Item call() {
+                    throw failure;
+                }
+            });
+            fail("Expected the exchange failure");
+        } catch (final ClientException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    public void testKeyIncludesIdentityAndResultClass() throws Exception {
+        final String key = RequestCoalescer.createKey(new AuthorizedRequest("a"), Item.class);
+        assertEquals(key, RequestCoalescer.createKey(new AuthorizedRequest("a"), Item.class));
+        assertFalse(key.equals(RequestCoalescer.createKey(new AuthorizedRequest("b"), Item.class)));
+        assertFalse(key.equals(RequestCoalescer.createKey(new AuthorizedRequest("a"), Object.class)));
+        assertTrue(RequestCoalescer.canCoalesce(new MockRequest(), Item.class, null));
+        assertFalse(RequestCoalescer.canCoalesce(new MockRequest(), Item.class, new Item()));
+        assertFalse(RequestCoalescer.canCoalesce(new MockRequest(), InputStream.class, null));
+    }
+
+    private static class AuthorizedRequest extends MockRequest {
+
+        private final List<HeaderOption> mHeaders = new ArrayList<>();
+
+        AuthorizedRequest(final String token) {
+            mHeaders.add(new HeaderOption("Authorization", "bearer " + token));
+        }
+
+        @Override
+        public List<HeaderOption> getHeaders() {
+            return mHeaders;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.concurrency.MockExecutors;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.options.HeaderOption;
+import com.onedrive.sdk.options.Option;
+import com.onedrive.sdk.serializer.DefaultSerializer;
+
+import android.test.AndroidTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Test cases for {@see ResponseCache}
+ */
+public class ResponseCacheTests extends AndroidTestCase {
+
+    private static final String ITEM_JSON = "{ \"id\": \"zzz\", \"eTag\": \"v1\" }";
+
+    public void testNotModifiedServedFromCache() throws Exception {
+        final ResponseCache cache = new ResponseCache(1024);
+        final DefaultHttpProvider provider = new DefaultHttpProvider(new DefaultSerializer(new MockLogger()), null,
+                new MockExecutors(), new MockLogger());
+        provider.setResponseCache(cache);
+        final FakeConnection first = new FakeConnection(200, "\"v1\"", ITEM_JSON);
+        final FakeConnection second = new FakeConnection(304, null, "");
+        provider.setConnectionFactory(new SequenceConnectionFactory(first, second));
+
+        assertEquals("zzz", provider.send(new TestRequest("token"), Item.class, null).id);
+        assertNull(first.mRequestHeaders.get("If-None-Match"));
+
+        final Item cached = provider.send(new TestRequest("token"), Item.class, null);
+        assertEquals("zzz", cached.id);
+        assertEquals("\"v1\"", second.mRequestHeaders.get("If-None-Match"));
+        assertEquals(1, cache.getStoreCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    public void testKeyIncludesIdentity() throws Exception {
+        assertEquals(ResponseCache.createKey(new TestRequest("a"), null),
+                     ResponseCache.createKey(new TestRequest("a"), null));
+        assertFalse(ResponseCache.createKey(new TestRequest("a"), null)
+                .equals(ResponseCache.createKey(new TestRequest("b"), null)));
+    }
+
+    public void testKeyIsStableAcrossTokenRefresh() throws Exception {
+        assertEquals(ResponseCache.createKey(new TestRequest("a"), "account"),
+                     ResponseCache.createKey(new TestRequest("b"), "account"));
+        assertFalse(ResponseCache.createKey(new TestRequest("a"), "account")
+                .equals(ResponseCache.createKey(new TestRequest("a"), "other")));
+    }
+
+    public void testLargeResponseNotCached() throws Exception {
+        final ResponseCache cache = new ResponseCache(ITEM_JSON.length() - 1);
+        final DefaultHttpProvider provider = new DefaultHttpProvider(new DefaultSerializer(new MockLogger()), null,
+                new MockExecutors(), new MockLogger());
+        provider.setResponseCache(cache);
+        provider.setConnectionFactory(new SequenceConnectionFactory(new FakeConnection(200, "\"v1\"", ITEM_JSON)));
+
+        assertEquals("zzz", provider.send(new TestRequest("token"), Item.class, null).id);
+        assertEquals(0, cache.getStoreCount());
+        assertEquals(0, cache.getMemorySize());
+    }
+
+    public void testMemoryEviction() throws Exception {
+        final ResponseCache cache = new ResponseCache(100);
+        cache.put("a", new CachedResponse("1", new byte[40]));
+        cache.put("b", new CachedResponse("2", new byte[40]));
+        assertNotNull(cache.get("a"));
+        cache.put("c", new CachedResponse("3", new byte[40]));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(80, cache.getMemorySize());
+    }
+
+    public void testDiskTier() throws Exception {
+        final File directory = new File(System.getProperty("java.io.tmpdir"), "response-cache-" + System.nanoTime());
+        try {
+            final byte[] body = ITEM_JSON.getBytes();
+            final ResponseCache cache = new ResponseCache(0, directory, 1024 * 1024);
+            cache.put("a", new CachedResponse("\"v1\"", body));
+            assertEquals(0, cache.getMemorySize());
+            assertTrue(cache.getDiskSize() > body.length);
+
+            final ResponseCache reopened = new ResponseCache(1024, directory, 1024 * 1024);
+            final CachedResponse cached = reopened.get("a");
+            assertEquals("\"v1\"", cached.getETag());
+            assertTrue(Arrays.equals(body, cached.getBody()));
+            assertEquals(body.length, reopened.getMemorySize());
+        } finally {
+            new ResponseCache(0, directory, 0).clear();
+            directory.delete();
+        }
+    }
+
+    public void testDiskEviction() throws Exception {
+        final File directory = new File(System.getProperty("java.io.tmpdir"), "response-cache-" + System.nanoTime());
+        try {
+            final ResponseCache cache = new ResponseCache(0, directory, 250);
+            cache.put("a", new CachedResponse("1", new byte[100]));
+            cache.put("b", new CachedResponse("2", new byte[100]));
+            assertNotNull(cache.get("a"));
+            cache.put("c", new CachedResponse("3", new byte[100]));
+
+            assertNotNull(cache.get("a"));
+            assertNull(cache.get("b"));
+            assertNotNull(cache.get("c"));
+            assertTrue(cache.getDiskSize() <= 250);
+        } finally {
+            new ResponseCache(0, directory, 0).clear();
+            directory.delete();
+        }
+    }
+
+    private static class TestRequest implements IHttpRequest {
+
+        private final List<HeaderOption> mHeaders = new ArrayList<>();
+
+        TestRequest(final String token) {
+            mHeaders.add(new HeaderOption("Authorization", "bearer " + token));
+        }
+
+        @Override
+        public URL getRequestUrl() {
+            try {
+                return new URL("https://localhost/drive/items/1");
+            } catch (final MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public HttpMethod getHttpMethod() {
+            return HttpMethod.GET;
+        }
+
+        @Override
+        public List<HeaderOption> getHeaders() {
+            return mHeaders;
+        }
+
+        @Override
+        public List<Option> getOptions() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void addHeader(final String header, final String value) {
+            mHeaders.add(new HeaderOption(header, value));
+        }
+    }
+
+    private static class SequenceConnectionFactory implements IConnectionFactory {
+
+        private final Queue<IConnection> mConnections = new LinkedList<>();
+
+        SequenceConnectionFactory(final IConnection... connections) {
+            mConnections.addAll(Arrays.asList(connections));
+        }
+
+        @Override
+        public IConnection createFromRequest(final IHttpRequest request) {
+            return mConnections.remove();
+        }
+    }
+
+    private static class FakeConnection implements IConnection {
+
+        private final int mResponseCode;
+        private final String mETag;
+        private final String mBody;
+        private final Map<String, String> mRequestHeaders = new HashMap<>();
+
+        FakeConnection(final int responseCode, final String eTag, final String body) {
+            mResponseCode = responseCode;
+            mETag = eTag;
+            mBody = body;
+        }
+
+        @Override
+        public void setFollowRedirects(final boolean followRedirects) {
+        }
+
+        @Override
+        public void addRequestHeader(final String headerName, final String headerValue) {
+            mRequestHeaders.put(headerName, headerValue);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(mBody.getBytes());
+        }
+
+        @Override
+        public int getResponseCode() {
+            return mResponseCode;
+        }
+
+        @Override
+        public String getResponseMessage() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            final Map<String, String> headers = new HashMap<>();
+            headers.put("Content-Type", "application/json");
+            if (mETag != null) {
+                headers.put("ETag", mETag);
+            }
+            return headers;
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return "GET";
+        }
+
+        @Override
+        public void setContentLength(final int length) {
+        }
+    }
+}
@@ -0,0 +1,58 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.logger;
+
+import android.test.AndroidTestCase;
+
+/**
+ * Test cases for {@see DefaultLogger}
+ */
+public class DefaultLoggerTests extends AndroidTestCase {
+
+    public void testDebugEnabledFollowsLevel() throws Exception {
+        final DefaultLogger logger = new DefaultLogger();
+        assertFalse(logger.isDebugEnabled());
+        logger.setLoggingLevel(LoggerLevel.Debug);
+        assertTrue(logger.isDebugEnabled());
+        logger.setLoggingLevel(LoggerLevel.Error);
+        assertFalse(logger.isDebugEnabled());
+    }
+
+    public void testDisabledMessageIsNotFormatted() throws Exception {
+        final Object argument = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("The message should not be formatted");
+            }
+        };
+        new DefaultLogger().logDebug("Argument {}", argument);
+        new DefaultLogger().logDebug("Arguments {} and {}", argument, argument);
+    }
+
+    public void testFormatMessage() throws Exception {
+        assertEquals("Response code 200, OK", DefaultLogger.formatMessage("Response code {}, {}", 200, "OK"));
+        assertEquals("Value null", DefaultLogger.formatMessage("Value {}", (Object) null));
+        assertEquals("Extra x {} left", DefaultLogger.formatMessage("Extra {} {} left", "x"));
+        assertEquals("No placeholder", DefaultLogger.formatMessage("No placeholder", "unused"));
+    }
+}
@@ -37,11 +37,26 @@ public class MockLogger implements ILogger {
         return null;
     }
 
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
     @Override
     public void logDebug(final String message) {
 
     }
 
+    @Override
+    public void logDebug(final String format, final Object arg) {
+
+    }
+
+    @Override
+    public void logDebug(final String format, final Object arg1, final Object arg2) {
+
+    }
+
     @Override
     public void logError(final String message, final Throwable throwable) {
 
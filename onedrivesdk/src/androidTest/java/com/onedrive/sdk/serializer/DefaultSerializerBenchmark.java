@@ -0,0 +1,114 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.serializer;
+
+import com.onedrive.sdk.generated.BaseItemCollectionResponse;
+import com.onedrive.sdk.logger.MockLogger;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Allocation benchmark for the {@see DefaultSerializer} deserialization modes
+ */
+public class DefaultSerializerBenchmark extends AndroidTestCase {
+
+    /**
+     * The number of items in the benchmark children page
+     */
+    private static final int ITEM_COUNT = 1000;
+
+    /**
+     * The number of times each page is deserialized
+     */
+    private static final int ITERATIONS = 5;
+
+    /**
+     * Compares the bytes allocated while deserializing a large children page with and without single pass mode
+     * @throws Exception If there is an exception during the test
+     */
+    @SuppressWarnings("deprecation")
+    public void testSinglePassAllocations() throws Exception {
+        final String page = createChildrenPage();
+        final DefaultSerializer twoPass = new DefaultSerializer(new MockLogger(), false);
+        final DefaultSerializer singlePass = new DefaultSerializer(new MockLogger(), true);
+
+        // Warm up both serializers so the type adapters are cached before measuring
+        twoPass.deserializeObject(page, BaseItemCollectionResponse.class);
+        singlePass.deserializeObject(page, BaseItemCollectionResponse.class);
+
+        final long twoPassBytes = measureAllocations(twoPass, page);
+        final long singlePassBytes = measureAllocations(singlePass, page);
+        Log.i("DefaultSerializerBenchmark", "Two pass allocated " + twoPassBytes
+                + " bytes, single pass allocated " + singlePassBytes + " bytes");
+
+        assertTrue("Single pass allocated more than two pass", singlePassBytes <= twoPassBytes);
+    }
+
+    /**
+     * Measures the bytes allocated on this thread while deserializing the page
+     * @param serializer The serializer to measure
+     * @param page The page to deserialize
+     * @return The number of bytes allocated
+     */
+    @SuppressWarnings("deprecation")
+    private static long measureAllocations(final DefaultSerializer serializer, final String page) {
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        for (int i = 0; i < ITERATIONS; i++) {
+            final BaseItemCollectionResponse response = serializer.deserializeObject(page,
+                    BaseItemCollectionResponse.class);
+            assertEquals(ITEM_COUNT, response.value.size());
+        }
+        final long allocated = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+        return allocated;
+    }
+
+    /**
+     * Creates the json for a children page
+     * @return The json string
+     */
+    private static String createChildrenPage() {
+        final StringBuilder sb = new StringBuilder("{\"@odata.nextLink\":\"https://localhost/next\",\"value\":[");
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":\"8BF6AE90006C4A4C!").append(i)
+              .append("\",\"name\":\"File ").append(i)
+              .append(".txt\",\"eTag\":\"aOEJGNkFFOTAwMDZDNEE0QyE").append(i)
+              .append("\",\"cTag\":\"adDo4QkY2QUU5MDAwNkM0QTRDIT").append(i)
+              .append("\",\"size\":").append(i * 1024)
+              .append(",\"createdDateTime\":\"2015-08-05T17:21:14.663Z\"")
+              .append(",\"lastModifiedDateTime\":\"2015-08-05T17:21:14.663Z\"")
+              .append(",\"parentReference\":{\"driveId\":\"8bf6ae90006c4a4c\",\"id\":\"8BF6AE90006C4A4C!103\",")
+              .append("\"path\":\"/drive/root:\"}")
+              .append(",\"file\":{\"hashes\":{\"crc32Hash\":\"B3E5D9DB\",\"sha1Hash\":\"")
+              .append("C6F8D76A68AD2DA9DCC8DAD5C4E6C1E4E2B1F5A0\"},\"mimeType\":\"text/plain\"}}");
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+}
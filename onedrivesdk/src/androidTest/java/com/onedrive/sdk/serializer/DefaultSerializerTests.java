@@ -23,10 +23,15 @@
 package com.onedrive.sdk.serializer;
 
 import com.onedrive.sdk.extensions.Drive;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.extensions.ItemCollectionPage;
+import com.onedrive.sdk.generated.BaseItemCollectionResponse;
 import com.onedrive.sdk.logger.DefaultLogger;
 
 import android.test.AndroidTestCase;
 
+import java.io.ByteArrayInputStream;
+
 /**
  * Test cases for the {@see DefaultSerializer}
  */
@@ -46,4 +51,123 @@ public class DefaultSerializerTests extends AndroidTestCase  {
         assertEquals("8bf6ae90006c4a4c", result.id);
 
     }
+
+    /**
+     * Make sure that single pass deserialization produces the same object and raw json as the default mode
+     * @throws Exception If there is an exception during the test
+     */
+    public void testSinglePassDriveDeserialization() throws Exception {
+        final DefaultSerializer serializer = new DefaultSerializer(new DefaultLogger(), true);
+        String source = "{\"@odata.context\":\"https://api.onedrive.com/v1.0/$metadata#drives/$entity\",\"id\":\"8bf6ae90006c4a4c\",\"driveType\":\"personal\",\"owner\":{\"user\":{\"displayName\":\"Peter\",\"id\":\"8bf6ae90006c4a4c\"}},\"quota\":{\"deleted\":1485718314,\"remaining\":983887466461,\"state\":\"normal\",\"total\":1142461300736,\"used\":158573834275}}";
+        Drive result = serializer.deserializeObject(source, Drive.class);
+        assertNotNull(result);
+        assertEquals("personal", result.driveType);
+        assertEquals(Long.valueOf(983887466461L), result.quota.remaining);
+        assertEquals("8bf6ae90006c4a4c", result.id);
+
+        final Drive twoPassResult = new DefaultSerializer(new DefaultLogger()).deserializeObject(source, Drive.class);
+        assertEquals(twoPassResult.getRawObject(), result.getRawObject());
+        assertEquals("https://api.onedrive.com/v1.0/$metadata#drives/$entity",
+                result.getRawObject().get("@odata.context").getAsString());
+    }
+
+    /**
+     * Make sure that expanded children are bound from the parent's json tree, including their raw objects
+     * @throws Exception If there is an exception during the test
+     */
+    public void testExpandedChildrenDeserialization() throws Exception {
+        final DefaultSerializer serializer = new DefaultSerializer(new DefaultLogger());
+        String source = "{\"id\":\"root\",\"name\":\"root\",\"folder\":{\"childCount\":2},\"children@odata.nextLink\":\"https://localhost/next\",\"children\":[{\"id\":\"child1\",\"name\":\"a.txt\",\"size\":12,\"extra\":\"one\"},{\"id\":\"child2\",\"name\":\"b\",\"folder\":{\"childCount\":0}}]}";
+        Item result = serializer.deserializeObject(source, Item.class);
+        assertNotNull(result.children);
+        assertEquals(2, result.children.getCurrentPage().size());
+
+        final Item first = result.children.getCurrentPage().get(0);
+        assertEquals("child1", first.id);
+        assertEquals(Long.valueOf(12L), first.size);
+        assertEquals("one", first.getRawObject().get("extra").getAsString());
+        assertSame(result.getRawObject().getAsJsonArray("children").get(0), first.getRawObject());
+        assertEquals(Integer.valueOf(0), result.children.getCurrentPage().get(1).folder.childCount);
+    }
+
+    /**
+     * Make sure that deserializing from a stream matches deserializing from a string
+     * @throws Exception If there is an exception during the test
+     */
+    public void testStreamDeserialization() throws Exception {
+        final DefaultSerializer serializer = new DefaultSerializer(new DefaultLogger());
+        String source = "{\"id\":\"8bf6ae90006c4a4c\",\"driveType\":\"personal\",\"owner\":{\"user\":{\"displayName\":\"P\u00e9ter\",\"id\":\"8bf6ae90006c4a4c\"}}}";
+        Drive result = serializer.deserializeObject(new ByteArrayInputStream(source.getBytes("UTF-8")), Drive.class);
+        assertNotNull(result);
+        assertEquals("personal", result.driveType);
+        assertEquals("P\u00e9ter", result.owner.user.displayName);
+        assertEquals(serializer.deserializeObject(source, Drive.class).getRawObject(), result.getRawObject());
+    }
+
+    /**
+     * Make sure that both single and two pass deserialization read streams alike
+     * @throws Exception If there is an exception during the test
+     */
+    public void testStreamDeserializationHonorsSinglePass() throws Exception {
+        String source = "{\"id\":\"root\",\"extra\":\"one\",\"children\":[{\"id\":\"child1\"}]}";
+        final Item twoPass = new DefaultSerializer(new DefaultLogger(), false)
+                .deserializeObject(new ByteArrayInputStream(source.getBytes("UTF-8")), Item.class);
+        final Item singlePass = new DefaultSerializer(new DefaultLogger(), true)
+                .deserializeObject(new ByteArrayInputStream(source.getBytes("UTF-8")), Item.class);
+        assertEquals("child1", twoPass.children.getCurrentPage().get(0).id);
+        assertEquals("one", twoPass.getRawObject().get("extra").getAsString());
+        assertEquals(singlePass.getRawObject(), twoPass.getRawObject());
+        assertSame(singlePass.getRawObject().getAsJsonArray("children").get(0),
+                   singlePass.children.getCurrentPage().get(0).getRawObject());
+    }
+
+    /**
+     * Make sure that lazily held raw objects materialize to the same json as eagerly held ones
+     * @throws Exception If there is an exception during the test
+     */
+    public void testLazyRawObject() throws Exception {
+        final DefaultSerializer serializer = new DefaultSerializer(new DefaultLogger(), true, RawObjectPolicy.Lazy);
+        String source = "{\"id\":\"root\",\"description\":null,\"name\":\"<root>\",\"children\":[{\"id\":\"child1\",\"extra\":\"one\"}]}";
+        Item result = serializer.deserializeObject(source, Item.class);
+        assertEquals("root", result.id);
+        assertEquals("one", result.children.getCurrentPage().get(0).getRawObject().get("extra").getAsString());
+
+        final Item eagerResult = new DefaultSerializer(new DefaultLogger()).deserializeObject(source, Item.class);
+        assertEquals(eagerResult.getRawObject(), result.getRawObject());
+        assertTrue(result.getRawObject().has("description"));
+        assertSame(result.getRawObject(), result.getRawObject());
+    }
+
+    /**
+     * Make sure that typed only deserialization binds the object without keeping the raw json
+     * @throws Exception If there is an exception during the test
+     */
+    public void testTypedOnlyRawObject() throws Exception {
+        final DefaultSerializer serializer = new DefaultSerializer(new DefaultLogger(), true, RawObjectPolicy.TypedOnly);
+        String source = "{\"id\":\"root\",\"children\":[{\"id\":\"child1\",\"extra\":\"one\"}]}";
+        Item result = serializer.deserializeObject(source, Item.class);
+        assertEquals("root", result.id);
+        assertEquals("child1", result.children.getCurrentPage().get(0).id);
+        assertNull(result.getRawObject());
+        assertNull(result.children.getCurrentPage().get(0).getRawObject());
+    }
+
+    /**
+     * Make sure that a typed only page keeps its annotations but not the json of its items
+     * @throws Exception If there is an exception during the test
+     */
+    public void testTypedOnlyPageKeepsAnnotations() throws Exception {
+        final DefaultSerializer serializer = new DefaultSerializer(new DefaultLogger(), true, RawObjectPolicy.TypedOnly);
+        String source = "{\"@odata.nextLink\":\"https://next\",\"@delta.token\":\"token1\","
+                        + "\"value\":[{\"id\":\"child1\",\"extra\":\"one\"}]}";
+        BaseItemCollectionResponse response = serializer.deserializeObject(source, BaseItemCollectionResponse.class);
+        ItemCollectionPage page = new ItemCollectionPage(response, null);
+        page.setRawObject(serializer, response.getRawObject());
+
+        assertEquals("child1", page.getCurrentPage().get(0).id);
+        assertNull(page.getCurrentPage().get(0).getRawObject());
+        assertEquals("https://next", page.getRawObject().get("@odata.nextLink").getAsString());
+        assertEquals("token1", page.getRawObject().get("@delta.token").getAsString());
+        assertFalse(page.getRawObject().has("value"));
+    }
 }
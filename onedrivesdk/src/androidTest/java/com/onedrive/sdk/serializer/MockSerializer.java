@@ -22,6 +22,10 @@
 
 package com.onedrive.sdk.serializer;
 
+import com.google.gson.JsonElement;
+
+import java.io.InputStream;
+
 /**
  * Mock instance of the {@see ISerializer}
  */
@@ -52,6 +56,23 @@ public class MockSerializer implements ISerializer {
         return (T) mDeserializeReturn;
     }
 
+    @Override
+    public <T> T deserializeObject(final JsonElement json, final Class<T> clazz) {
+        //noinspection unchecked
+        return (T) mDeserializeReturn;
+    }
+
+    @Override
+    public <T> T deserializeObject(final InputStream inputStream, final Class<T> clazz) {
+        //noinspection unchecked
+        return (T) mDeserializeReturn;
+    }
+
+    @Override
+    public RawObjectPolicy getRawObjectPolicy() {
+        return RawObjectPolicy.Eager;
+    }
+
     @Override
     public <T> String serializeObject(final T serializableObject) {
         return mSerializeReturn;
@@ -0,0 +1,197 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.sync;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.MockClient;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.Item;
+import com.onedrive.sdk.extensions.ItemRequestBuilder;
+import com.onedrive.sdk.http.MockHttpProvider;
+import com.onedrive.sdk.logger.MockLogger;
+import com.onedrive.sdk.serializer.DefaultSerializer;
+
+import android.test.AndroidTestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test cases for {@see DriveIndex} and {@see DeltaSyncProvider}
+ */
+public class DriveIndexTests extends AndroidTestCase {
+
+    private static final String ROOT = "{ \"id\": \"root\", \"name\": \"root\", \"folder\": {} }";
+
+    private File mDirectory;
+
+    private File mFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDirectory = new File(System.getProperty("java.io.tmpdir"), "drive-index-" + System.nanoTime());
+        mFile = new File(mDirectory, "index");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        final File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+        super.tearDown();
+    }
+
+    public void testApplyAndList() throws Exception {
+        final DriveIndex index = new DriveIndex(mFile);
+        index.apply(items(ROOT,
+                          child("docs", "root", true),
+                          "{ \"id\": \"a\", \"name\": \"a.txt\", \"eTag\": \"e1\", \"cTag\": \"c1\", \"size\": 12,"
+                          + " \"parentReference\": { \"id\": \"docs\" },"
+                          + " \"file\": { \"hashes\": { \"sha1Hash\": \"s1\", \"crc32Hash\": \"r1\" } } }"),
+                    "t1");
+
+        assertEquals("t1", index.getDeltaToken());
+        assertEquals("root", index.getRoot().getId());
+        assertEquals(1, index.getChildren("root").size());
+        final DriveIndexEntry file = index.getChildren("docs").get(0);
+        assertEquals("a.txt", file.getName());
+        assertEquals("e1", file.getETag());
+        assertEquals("c1", file.getCTag());
+        assertEquals(12, file.getSize());
+        assertEquals("s1", file.getSha1Hash());
+        assertEquals("r1", file.getCrc32Hash());
+        assertFalse(file.isFolder());
+        assertTrue(index.get("docs").isFolder());
+    }
+
+    public void testMoveAndDeleteSubtree() throws Exception {
+        final DriveIndex index = new DriveIndex(mFile);
+        index.apply(items(ROOT, child("docs", "root", true), child("old", "docs", true), child("a", "old", false),
+                          child("b", "docs", false)), "t1");
+        index.apply(items(child("b", "root", false)), "t2");
+
+        assertEquals(2, index.getChildren("root").size());
+        assertEquals(1, index.getChildren("docs").size());
+
+        index.apply(items("{ \"id\": \"old\", \"deleted\": {} }"), "t3");
+        assertNull(index.get("old"));
+        assertNull(index.get("a"));
+        assertEquals(0, index.getChildren("docs").size());
+        assertEquals(3, index.size());
+    }
+
+    public void testReopenAfterCompaction() throws Exception {
+        final DriveIndex index = new DriveIndex(mFile);
+        index.apply(items(ROOT), "t0");
+        for (int i = 1; i <= 70; i++) {
+            index.apply(items(child("f" + i, "root", false)), "t" + i);
+        }
+        assertTrue(mFile.isFile());
+
+        final DriveIndex reopened = new DriveIndex(mFile);
+        assertEquals("t70", reopened.getDeltaToken());
+        assertEquals(71, reopened.size());
+        assertEquals(70, reopened.getChildren("root").size());
+    }
+
+    public void testIncompleteRecordIsDropped() throws Exception {
+        final DriveIndex index = new DriveIndex(mFile);
+        index.apply(items(ROOT), "t1");
+        index.apply(items(child("a", "root", false)), "t2");
+        final FileOutputStream journal = new FileOutputStream(new File(mFile.getPath() + ".journal"), true);
+        journal.write(new byte[] { 0, 0, 1, 0, 1, 2, 3 });
+        journal.close();
+
+        final DriveIndex reopened = new DriveIndex(mFile);
+        assertEquals("t2", reopened.getDeltaToken());
+        assertEquals(2, reopened.size());
+
+        reopened.apply(items(child("b", "root", false)), "t3");
+        final DriveIndex again = new DriveIndex(mFile);
+        assertEquals("t3", again.getDeltaToken());
+        assertEquals(3, again.size());
+    }
+
+    public void testSyncFollowsPagesAndContinuesFromToken() throws Exception {
+        final MockHttpProvider provider = new MockHttpProvider();
+        provider.enqueue("{ \"value\": [ " + ROOT + ", " + child("a", "root", false) + " ],"
+                         + " \"@odata.nextLink\": \"https://localhost/v1.0/drive/root/view.delta?token=p1\","
+                         + " \"@delta.token\": \"t1\" }");
+        provider.enqueue("{ \"value\": [ " + child("b", "root", false) + " ], \"@delta.token\": \"t2\" }");
+        provider.enqueue("{ \"value\": [ { \"id\": \"a\", \"deleted\": {} } ], \"@delta.token\": \"t3\" }");
+        final DeltaSyncProvider sync = new DeltaSyncProvider(createRoot(provider), new DriveIndex(mFile));
+
+        assertEquals(3, sync.sync());
+        assertEquals("t2", sync.getIndex().getDeltaToken());
+        assertEquals(2, sync.getIndex().getChildren("root").size());
+
+        assertEquals(1, sync.sync());
+        assertTrue(provider.getRequests().get(2).getRequestUrl().toString().contains("token=t2"));
+        assertEquals("t3", new DriveIndex(mFile).getDeltaToken());
+        assertEquals(2, new DriveIndex(mFile).size());
+    }
+
+    public void testResyncClearsIndex() throws Exception {
+        final DriveIndex index = new DriveIndex(mFile);
+        index.apply(items(ROOT, child("stale", "root", false)), "t1");
+        final MockHttpProvider provider = new MockHttpProvider();
+        provider.enqueue(new ClientException("Resync", null, OneDriveErrorCodes.ResyncRequired));
+        provider.enqueue("{ \"value\": [ " + ROOT + " ], \"@delta.token\": \"t9\" }");
+
+        new DeltaSyncProvider(createRoot(provider), index).sync();
+        assertNull(index.get("stale"));
+        assertEquals("t9", index.getDeltaToken());
+    }
+
+    private static ItemRequestBuilder createRoot(final MockHttpProvider provider) {
+        final MockClient client = new MockClient();
+        client.setHttpProvider(provider);
+        return new ItemRequestBuilder("https://localhost/v1.0/drive/root", client, null);
+    }
+
+    private static String child(final String id, final String parentId, final boolean folder) {
+        String json = "{ \"id\": \"" + id + "\", \"name\": \"" + id + "\","
+                + " \"parentReference\": { \"id\": \"" + parentId + "\" }";
+        if (folder) {
+            json += ", \"folder\": {}";
+        }
+        return json + " }";
+    }
+
+    private static List<Item> items(final String... json) {
+        final DefaultSerializer serializer = new DefaultSerializer(new MockLogger());
+        final List<Item> items = new ArrayList<>();
+        for (final String item : Arrays.asList(json)) {
+            items.add(serializer.deserializeObject(item, Item.class));
+        }
+        return items;
+    }
+}
@@ -23,12 +23,15 @@
 package com.onedrive.sdk.authentication;
 
 import com.microsoft.aad.adal.AuthenticationResult;
+import com.microsoft.aad.adal.UserInfo;
 import com.onedrive.sdk.logger.ILogger;
 
+import java.util.Date;
+
 /**
  * Account information for an ADAL based account.
  */
-public class ADALAccountInfo implements IAccountInfo {
+public class ADALAccountInfo implements IExpiringAccountInfo {
 
     /**
      * The authenticator that can refresh this account.
@@ -94,6 +97,28 @@ public class ADALAccountInfo implements IAccountInfo {
         return mOneDriveServiceInfo.serviceEndpointUri;
     }
 
+    /**
+     * Gets when the access token expires.
+     * @return The expiration time.
+     */
+    @Override
+    public Date getExpiresOn() {
+        return mAuthenticationResult.getExpiresOn();
+    }
+
+    /**
+     * Gets the user id from the authentication result, which stays the same when the access token is refreshed.
+     * @return The account id, or null if the result has no user information.
+     */
+    @Override
+    public String getAccountId() {
+        final UserInfo userInfo = mAuthenticationResult.getUserInfo();
+        if (userInfo == null) {
+            return null;
+        }
+        return userInfo.getUserId();
+    }
+
     /**
      * Determines if the access token is expired and needs to be refreshed.
      * @return true if the refresh() needs to be called and
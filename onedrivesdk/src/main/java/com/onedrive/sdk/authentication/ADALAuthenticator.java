@@ -36,6 +36,7 @@ import com.microsoft.aad.adal.AuthenticationResult;
 import com.microsoft.aad.adal.PromptBehavior;
 import com.onedrive.sdk.authentication.adal.BrokerPermissionsChecker;
 import com.microsoft.onedrivesdk.BuildConfig;
+import com.onedrive.sdk.concurrency.ExecutorLane;
 import com.onedrive.sdk.concurrency.ICallback;
 import com.onedrive.sdk.concurrency.IExecutors;
 import com.onedrive.sdk.concurrency.SimpleWaiter;
@@ -269,7 +270,7 @@ public abstract class ADALAuthenticator implements IAuthenticator {
                     loginCallback.failure(e);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, loginCallback);
     }
 
     /**
@@ -363,7 +364,7 @@ public abstract class ADALAuthenticator implements IAuthenticator {
                     mExecutors.performOnForeground(e, loginCallback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, loginCallback);
     }
 
     /**
@@ -467,7 +468,7 @@ public abstract class ADALAuthenticator implements IAuthenticator {
                     mExecutors.performOnForeground((Void) null, logoutCallback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, logoutCallback);
     }
 
     /**
@@ -22,6 +22,7 @@
 
 package com.onedrive.sdk.authentication;
 
+import com.onedrive.sdk.http.IAccountIdentifier;
 import com.onedrive.sdk.http.IHttpRequest;
 import com.onedrive.sdk.http.IRequestInterceptor;
 import com.onedrive.sdk.logger.ILogger;
@@ -30,7 +31,7 @@ import com.onedrive.sdk.options.HeaderOption;
 /**
  * Intercepts a request and adds authorization headers.
  */
-public class AuthorizationInterceptor implements IRequestInterceptor {
+public class AuthorizationInterceptor implements IRequestInterceptor, IAccountIdentifier {
 
     /**
      * The authorization header name.
@@ -43,14 +44,19 @@ public class AuthorizationInterceptor implements IRequestInterceptor {
     public static final String OAUTH_BEARER_PREFIX = "bearer ";
 
     /**
-     * The authenticator.
+     * The logger.
      */
-    private final IAuthenticator mAuthenticator;
+    private final ILogger mLogger;
 
     /**
-     * The logger.
+     * The token manager that refreshes expired access tokens one at a time.
      */
-    private final ILogger mLogger;
+    private final TokenManager mTokenManager;
+
+    /**
+     * The authorization header of the last access token, shared by all requests until the token rotates.
+     */
+    private volatile AuthorizationHeader mAuthorizationHeader;
 
     /**
      * Creates the authorization interceptor.
@@ -58,8 +64,35 @@ public class AuthorizationInterceptor implements IRequestInterceptor {
      * @param logger The logger.
      */
     public AuthorizationInterceptor(final IAuthenticator authenticator, final ILogger logger) {
-        mAuthenticator = authenticator;
+        this(new TokenManager(authenticator, logger), logger);
+    }
+
+    /**
+     * Creates the authorization interceptor with a token manager, such as one that refreshes access tokens ahead
+     * of their expiry.
+     * @param tokenManager The token manager of the authenticator.
+     * @param logger The logger.
+     */
+    public AuthorizationInterceptor(final TokenManager tokenManager, final ILogger logger) {
         mLogger = logger;
+        mTokenManager = tokenManager;
+    }
+
+    /**
+     * Gets the token manager.
+     * @return The token manager.
+     */
+    public TokenManager getTokenManager() {
+        return mTokenManager;
+    }
+
+    /**
+     * Gets an identifier of the current account that stays the same when its access token is refreshed.
+     * @return The account id, or null if it is not known.
+     */
+    @Override
+    public String getAccountId() {
+        return mTokenManager.getAccountId();
     }
 
     /**
@@ -68,7 +101,7 @@ public class AuthorizationInterceptor implements IRequestInterceptor {
      */
     @Override
     public void intercept(final IHttpRequest request) {
-        mLogger.logDebug("Intercepting request, " + request.getRequestUrl());
+        mLogger.logDebug("Intercepting request, {}", request.getRequestUrl());
 
         // If the request already has an authorization header, do not intercept it.
         for (final HeaderOption option : request.getHeaders()) {
@@ -78,17 +111,52 @@ public class AuthorizationInterceptor implements IRequestInterceptor {
             }
         }
 
-        if (mAuthenticator.getAccountInfo() != null) {
+        final IAccountInfo accountInfo = mTokenManager.getAccountInfo();
+        if (accountInfo != null) {
             mLogger.logDebug("Found account information");
-            if (mAuthenticator.getAccountInfo().isExpired()) {
-                mLogger.logDebug("Account access token is expired, refreshing");
-                mAuthenticator.getAccountInfo().refresh();
-            }
-
-            final String accessToken = mAuthenticator.getAccountInfo().getAccessToken();
-            request.addHeader(AUTHORIZATION_HEADER_NAME, OAUTH_BEARER_PREFIX + accessToken);
+            request.addHeader(AUTHORIZATION_HEADER_NAME, getAuthorizationHeader(accountInfo.getAccessToken()));
         } else {
             mLogger.logDebug("No active account found, skipping writing auth header");
         }
     }
+
+    /**
+     * Gets the authorization header value for an access token, building it only when the token has rotated.
+     * @param accessToken The access token.
+     * @return The header value.
+     */
+    private String getAuthorizationHeader(final String accessToken) {
+        final AuthorizationHeader current = mAuthorizationHeader;
+        if (current != null && accessToken != null && accessToken.equals(current.mAccessToken)) {
+            return current.mValue;
+        }
+        final AuthorizationHeader header = new AuthorizationHeader(accessToken);
+        mAuthorizationHeader = header;
+        return header.mValue;
+    }
+
+    /**
+     * An access token and its authorization header value.
+     */
+    private static final class AuthorizationHeader {
+
+        /**
+         * The access token.
+         */
+        private final String mAccessToken;
+
+        /**
+         * The header value.
+         */
+        private final String mValue;
+
+        /**
+         * Creates an AuthorizationHeader.
+         * @param accessToken The access token.
+         */
+        AuthorizationHeader(final String accessToken) {
+            mAccessToken = accessToken;
+            mValue = OAUTH_BEARER_PREFIX + accessToken;
+        }
+    }
 }
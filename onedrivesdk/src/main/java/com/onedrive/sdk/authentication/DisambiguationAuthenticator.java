@@ -23,6 +23,7 @@
 package com.onedrive.sdk.authentication;
 
 import com.microsoft.onedrivesdk.BuildConfig;
+import com.onedrive.sdk.concurrency.ExecutorLane;
 import com.onedrive.sdk.concurrency.ICallback;
 import com.onedrive.sdk.concurrency.IExecutors;
 import com.onedrive.sdk.concurrency.SimpleWaiter;
@@ -157,7 +158,7 @@ public class DisambiguationAuthenticator implements IAuthenticator {
                     mExecutors.performOnForeground(e, loginCallback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, loginCallback);
     }
 
     /**
@@ -255,7 +256,7 @@ public class DisambiguationAuthenticator implements IAuthenticator {
                     mExecutors.performOnForeground(e, loginCallback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, loginCallback);
     }
 
     /**
@@ -316,7 +317,7 @@ public class DisambiguationAuthenticator implements IAuthenticator {
                 logout();
                 mExecutors.performOnForeground((Void) null, logoutCallback);
             }
-        });
+        }, ExecutorLane.Interactive, logoutCallback);
     }
 
     /**
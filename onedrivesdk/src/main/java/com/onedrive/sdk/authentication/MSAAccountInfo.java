@@ -25,10 +25,13 @@ package com.onedrive.sdk.authentication;
 import com.microsoft.services.msa.LiveConnectSession;
 import com.onedrive.sdk.logger.ILogger;
 
+import java.util.Date;
+
 /**
- * Account information for a MSA based account.
+ * Account information for a MSA based account. This is an immutable snapshot of the session at the time it was
+ * taken, {@link MSAAuthenticator} shares one snapshot between requests and swaps in a new one when the token rotates.
  */
-public class MSAAccountInfo implements IAccountInfo {
+public class MSAAccountInfo implements IExpiringAccountInfo {
 
     /**
      * The service root for the OneDrive personal API.
@@ -41,9 +44,19 @@ public class MSAAccountInfo implements IAccountInfo {
     private final MSAAuthenticator mAuthenticator;
 
     /**
-     * The session this account is based off of.
+     * The access token of the session.
+     */
+    private final String mAccessToken;
+
+    /**
+     * When the access token expires, in milliseconds since the epoch.
+     */
+    private final long mExpiresOn;
+
+    /**
+     * The id of the signed in session, the same for every snapshot of it.
      */
-    private LiveConnectSession mSession;
+    private final String mAccountId;
 
     /**
      * The logger.
@@ -59,8 +72,28 @@ public class MSAAccountInfo implements IAccountInfo {
     public MSAAccountInfo(final MSAAuthenticator authenticator,
                           final LiveConnectSession liveConnectSession,
                           final ILogger logger) {
+        this(authenticator, liveConnectSession.getAccessToken(), liveConnectSession.getExpiresIn(), logger);
+    }
+
+    /**
+     * Creates an MSAAccountInfo object.
+     * @param authenticator The authenticator that this account info was created from.
+     * @param accessToken The access token of the session.
+     * @param expiresIn When the access token expires, or null if it is not known.
+     * @param logger The logger.
+     */
+    MSAAccountInfo(final MSAAuthenticator authenticator,
+                   final String accessToken,
+                   final Date expiresIn,
+                   final ILogger logger) {
         mAuthenticator = authenticator;
-        mSession = liveConnectSession;
+        mAccessToken = accessToken;
+        if (expiresIn == null) {
+            mExpiresOn = 0;
+        } else {
+            mExpiresOn = expiresIn.getTime();
+        }
+        mAccountId = authenticator.getSessionId();
         mLogger = logger;
     }
 
@@ -79,7 +112,7 @@ public class MSAAccountInfo implements IAccountInfo {
      */
     @Override
     public String getAccessToken() {
-        return mSession.getAccessToken();
+        return mAccessToken;
     }
 
     /**
@@ -91,6 +124,24 @@ public class MSAAccountInfo implements IAccountInfo {
         return ONE_DRIVE_PERSONAL_SERVICE_ROOT;
     }
 
+    /**
+     * Gets when the access token expires.
+     * @return The expiration time.
+     */
+    @Override
+    public Date getExpiresOn() {
+        return new Date(mExpiresOn);
+    }
+
+    /**
+     * Gets the id of the signed in session, which stays the same when the access token is refreshed.
+     * @return The account id.
+     */
+    @Override
+    public String getAccountId() {
+        return mAccountId;
+    }
+
     /**
      * Indicates if the account access token is expired and needs to be refreshed.
      * @return true if refresh() needs to be called and
@@ -98,16 +149,25 @@ public class MSAAccountInfo implements IAccountInfo {
      */
     @Override
     public boolean isExpired() {
-        return mSession.isExpired();
+        return System.currentTimeMillis() >= mExpiresOn;
     }
 
     /**
-     * Refreshes the authentication token for this account info.
+     * Refreshes the authentication token for this account. The snapshot itself does not change, the refreshed
+     * account is returned by {@link MSAAuthenticator#getAccountInfo()}.
      */
     @Override
     public void refresh() {
         mLogger.logDebug("Refreshing access token...");
-        final MSAAccountInfo newInfo = (MSAAccountInfo)mAuthenticator.loginSilent();
-        mSession = newInfo.mSession;
+        mAuthenticator.loginSilent();
+    }
+
+    /**
+     * Gets whether this snapshot still matches the access token of a session.
+     * @param accessToken The access token of the session.
+     * @return true if the session still has the access token of this snapshot.
+     */
+    boolean isSnapshotOf(final String accessToken) {
+        return mAccessToken != null && mAccessToken.equals(accessToken);
     }
 }
@@ -32,6 +32,7 @@ import com.microsoft.services.msa.LiveAuthException;
 import com.microsoft.services.msa.LiveAuthListener;
 import com.microsoft.services.msa.LiveConnectSession;
 import com.microsoft.services.msa.LiveStatus;
+import com.onedrive.sdk.concurrency.ExecutorLane;
 import com.onedrive.sdk.concurrency.ICallback;
 import com.onedrive.sdk.core.ClientException;
 import com.onedrive.sdk.concurrency.SimpleWaiter;
@@ -42,6 +43,8 @@ import com.onedrive.sdk.logger.ILogger;
 
 import java.security.InvalidParameterException;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -66,6 +69,11 @@ public abstract class MSAAuthenticator implements IAuthenticator {
      */
     private static final String USER_ID_KEY = "userId";
 
+    /**
+     * The key for the session id.
+     */
+    private static final String SESSION_ID_KEY = "sessionId";
+
     /**
      * The key for the version code
      */
@@ -81,6 +89,16 @@ public abstract class MSAAuthenticator implements IAuthenticator {
      */
     private final AtomicReference<String> mUserId = new AtomicReference<>();
 
+    /**
+     * The id of the signed in session, kept across access token refreshes and restarts until logout.
+     */
+    private final AtomicReference<String> mSessionId = new AtomicReference<>();
+
+    /**
+     * The snapshot of the active account, shared until its access token rotates.
+     */
+    private final AtomicReference<MSAAccountInfo> mAccountInfo = new AtomicReference<>();
+
     /**
      * The executors.
      */
@@ -144,6 +162,7 @@ public abstract class MSAAuthenticator implements IAuthenticator {
 
         final SharedPreferences prefs = getSharedPreferences();
         mUserId.set(prefs.getString(USER_ID_KEY, null));
+        mSessionId.set(prefs.getString(SESSION_ID_KEY, null));
     }
 
     /**
@@ -172,7 +191,7 @@ public abstract class MSAAuthenticator implements IAuthenticator {
                     mExecutors.performOnForeground(e, loginCallback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, loginCallback);
     }
 
     /**
@@ -242,10 +261,12 @@ public abstract class MSAAuthenticator implements IAuthenticator {
         }
 
         mUserId.set(userId);
+        mSessionId.set(UUID.randomUUID().toString());
 
         final SharedPreferences prefs = getSharedPreferences();
         prefs.edit()
              .putString(USER_ID_KEY, mUserId.get())
+             .putString(SESSION_ID_KEY, mSessionId.get())
              .putInt(VERSION_CODE_KEY, BuildConfig.VERSION_CODE)
              .apply();
 
@@ -277,7 +298,7 @@ public abstract class MSAAuthenticator implements IAuthenticator {
                     mExecutors.performOnForeground(e, loginCallback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, loginCallback);
     }
 
     /**
@@ -373,7 +394,7 @@ public abstract class MSAAuthenticator implements IAuthenticator {
                     mExecutors.performOnForeground(e, logoutCallback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, logoutCallback);
     }
 
     /**
@@ -419,6 +440,8 @@ public abstract class MSAAuthenticator implements IAuthenticator {
              .putInt(VERSION_CODE_KEY, BuildConfig.VERSION_CODE)
              .apply();
         mUserId.set(null);
+        mSessionId.set(null);
+        mAccountInfo.set(null);
 
         final ClientException exception = error.get();
         if (exception != null) {
@@ -427,7 +450,8 @@ public abstract class MSAAuthenticator implements IAuthenticator {
     }
 
     /**
-     * Gets the current account info for this authenticator.
+     * Gets the current account info for this authenticator, the same snapshot is returned until the access token
+     * rotates.
      * @return NULL if no account is available.
      */
     @Override
@@ -436,8 +460,37 @@ public abstract class MSAAuthenticator implements IAuthenticator {
         if (session == null) {
             return null;
         }
+        return getAccountInfo(session.getAccessToken(), session.getExpiresIn());
+    }
+
+    /**
+     * Gets the account info snapshot for the access token of the session, reusing the current snapshot if the token
+     * has not rotated.
+     * @param accessToken The access token of the session.
+     * @param expiresIn When the access token expires, or null if it is not known.
+     * @return The snapshot.
+     */
+    MSAAccountInfo getAccountInfo(final String accessToken, final Date expiresIn) {
+        final MSAAccountInfo current = mAccountInfo.get();
+        if (current != null && current.isSnapshotOf(accessToken)) {
+            return current;
+        }
+        final MSAAccountInfo snapshot = new MSAAccountInfo(this, accessToken, expiresIn, mLogger);
+        mAccountInfo.compareAndSet(current, snapshot);
+        return snapshot;
+    }
 
-        return new MSAAccountInfo(this, session, mLogger);
+    /**
+     * Gets the id of the signed in session, creating one for sessions restored from before session ids were kept.
+     * @return The session id.
+     */
+    String getSessionId() {
+        if (mSessionId.get() == null && mSessionId.compareAndSet(null, UUID.randomUUID().toString())) {
+            getSharedPreferences().edit()
+                                  .putString(SESSION_ID_KEY, mSessionId.get())
+                                  .apply();
+        }
+        return mSessionId.get();
     }
 
     /**
@@ -0,0 +1,313 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.authentication;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.logger.ILogger;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out the current account for authorizing requests and refreshes its access token, one refresh at a time.
+ * Requests that find the token expired while a refresh is running wait for it and use the new token, rather than
+ * each refreshing through the authenticator. With proactive refresh started, a background timer refreshes the
+ * token a margin ahead of its expiry, so requests normally never wait at all.
+ */
+public class TokenManager {
+
+    /**
+     * The name of the background timer thread.
+     */
+    private static final String TIMER_THREAD_NAME = "OneDrive token refresh";
+
+    /**
+     * The delay before the timer retries a failed refresh, in milliseconds.
+     */
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * The authenticator.
+     */
+    private final IAuthenticator mAuthenticator;
+
+    /**
+     * The logger.
+     */
+    private final ILogger mLogger;
+
+    /**
+     * The refresh and wait counters.
+     */
+    private final TokenRefreshStats mStats = new TokenRefreshStats();
+
+    /**
+     * The refresh in flight, or null if there is none.
+     */
+    private final AtomicReference<FutureTask<Void>> mRefresh = new AtomicReference<>();
+
+    /**
+     * The background timer, or null if proactive refresh is stopped, guarded by this.
+     */
+    private ScheduledThreadPoolExecutor mTimer;
+
+    /**
+     * The next check of the background timer, guarded by this.
+     */
+    private ScheduledFuture<?> mNextCheck;
+
+    /**
+     * How long before expiry the timer refreshes the token, in milliseconds.
+     */
+    private volatile long mRefreshMarginMillis;
+
+    /**
+     * Creates a new TokenManager, proactive refresh is stopped until {@link #startProactiveRefresh} is called.
+     * @param authenticator The authenticator.
+     * @param logger The logger.
+     */
+    public TokenManager(final IAuthenticator authenticator, final ILogger logger) {
+        mAuthenticator = authenticator;
+        mLogger = logger;
+    }
+
+    /**
+     * Gets the refresh counters, for monitoring.
+     * @return The refresh counters.
+     */
+    public TokenRefreshStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Gets the current account with an access token that has not expired, refreshing it first if needed.
+     * @return The account, or null if no account is signed in.
+     * @throws ClientException If the access token had to be refreshed and the refresh failed.
+     */
+    public IAccountInfo getAccountInfo() throws ClientException {
+        final IAccountInfo accountInfo = mAuthenticator.getAccountInfo();
+        if (accountInfo == null || !accountInfo.isExpired()) {
+            return accountInfo;
+        }
+        mLogger.logDebug("Account access token is expired, refreshing");
+        refresh(false);
+        return mAuthenticator.getAccountInfo();
+    }
+
+    /**
+     * Gets an identifier of the current account that stays the same when its access token is refreshed, without
+     * refreshing it.
+     * @return The account id, or null if no account is signed in or its account info does not provide one.
+     */
+    public String getAccountId() {
+        final IAccountInfo accountInfo = mAuthenticator.getAccountInfo();
+        if (accountInfo instanceof IExpiringAccountInfo) {
+            return ((IExpiringAccountInfo) accountInfo).getAccountId();
+        }
+        return null;
+    }
+
+    /**
+     * Starts refreshing the access token on a background timer, a margin ahead of its expiry. Accounts that do
+     * not implement {@link IExpiringAccountInfo} are checked for expiry every margin instead.
+     * @param refreshMargin How long before expiry to refresh.
+     * @param unit The unit of the margin.
+     */
+    public synchronized void startProactiveRefresh(final long refreshMargin, final TimeUnit unit) {
+        if (refreshMargin <= 0) {
+            throw new IllegalArgumentException("The refresh margin must be positive");
+        }
+        mRefreshMarginMillis = unit.toMillis(refreshMargin);
+        if (mTimer == null) {
+            mTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, TIMER_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        scheduleNext(false);
+    }
+
+    /**
+     * Stops the background timer, expired tokens are still refreshed when a request needs them.
+     */
+    public synchronized void stopProactiveRefresh() {
+        if (mTimer != null) {
+            mTimer.shutdownNow();
+            mTimer = null;
+            mNextCheck = null;
+        }
+    }
+
+    /**
+     * Schedules the next check of the background timer.
+     * @param afterRefresh Whether a refresh was just made or attempted, so a token that is still within the
+     *                     margin is not refreshed again straight away.
+     */
+    private synchronized void scheduleNext(final boolean afterRefresh) {
+        if (mTimer == null) {
+            return;
+        }
+        final long margin = mRefreshMarginMillis;
+        long delay = margin;
+        final Date expiresOn = getExpiresOn(mAuthenticator.getAccountInfo());
+        if (expiresOn != null) {
+            delay = Math.max(expiresOn.getTime() - margin - System.currentTimeMillis(), 0);
+        }
+        if (afterRefresh && delay == 0) {
+            delay = RETRY_DELAY_MILLIS;
+        }
+        // A new schedule replaces the previous one
+        if (mNextCheck != null) {
+            mNextCheck.cancel(false);
+            mTimer.purge();
+        }
+        mNextCheck = mTimer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh(true);
+                } catch (final ClientException e) {
+                    mLogger.logError("Unable to refresh the access token ahead of expiry", e);
+                }
+                scheduleNext(true);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Refreshes the access token, or waits for the refresh already in flight.
+     * @param proactive Whether to refresh a token that is within the margin of its expiry, rather than only an
+     *                  expired one.
+     * @throws ClientException If the refresh failed.
+     */
+    private void refresh(final boolean proactive) throws ClientException {
+        final long start = System.nanoTime();
+        while (true) {
+            final FutureTask<Void> running = mRefresh.get();
+            if (running != null) {
+                await(running);
+                mStats.onWait(System.nanoTime() - start);
+                return;
+            }
+
+            final FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    refreshIfNeeded(proactive);
+                    return null;
+                }
+            });
+            if (mRefresh.compareAndSet(null, task)) {
+                try {
+                    task.run();
+                } finally {
+                    mRefresh.compareAndSet(task, null);
+                }
+                await(task);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Refreshes the access token unless another thread already did.
+     * @param proactive Whether to refresh a token that is within the margin of its expiry.
+     */
+    private void refreshIfNeeded(final boolean proactive) {
+        final IAccountInfo accountInfo = mAuthenticator.getAccountInfo();
+        if (accountInfo == null || !needsRefresh(accountInfo, proactive)) {
+            return;
+        }
+
+        mLogger.logDebug("Refreshing access token");
+        final long start = System.nanoTime();
+        try {
+            accountInfo.refresh();
+        } catch (final RuntimeException e) {
+            mStats.onFailure();
+            throw e;
+        }
+        mStats.onRefresh(System.nanoTime() - start, proactive);
+    }
+
+    /**
+     * Gets whether an access token needs to be refreshed.
+     * @param accountInfo The account.
+     * @param proactive Whether a token within the margin of its expiry needs to be refreshed.
+     * @return true if the token needs to be refreshed.
+     */
+    private boolean needsRefresh(final IAccountInfo accountInfo, final boolean proactive) {
+        if (accountInfo.isExpired()) {
+            return true;
+        }
+        final Date expiresOn = getExpiresOn(accountInfo);
+        return proactive
+                && expiresOn != null
+                && expiresOn.getTime() - System.currentTimeMillis() <= mRefreshMarginMillis;
+    }
+
+    /**
+     * Gets when the access token of an account expires.
+     * @param accountInfo The account, or null.
+     * @return The expiration time, or null if it is not known.
+     */
+    private static Date getExpiresOn(final IAccountInfo accountInfo) {
+        if (accountInfo instanceof IExpiringAccountInfo) {
+            return ((IExpiringAccountInfo) accountInfo).getExpiresOn();
+        }
+        return null;
+    }
+
+    /**
+     * Waits for a refresh and unwraps its exception.
+     * @param task The refresh.
+     * @throws ClientException If the refresh failed, or the wait was interrupted.
+     */
+    private static void await(final FutureTask<Void> task) throws ClientException {
+        try {
+            task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for the access token", e,
+                                      OneDriveErrorCodes.AuthenticationFailure);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            throw new ClientException("Unable to refresh the access token", e.getCause(),
+                                      OneDriveErrorCodes.AuthenticationFailure);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.authentication;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for access token refreshes, to monitor their latency and how many requests waited on them.
+ */
+public class TokenRefreshStats {
+
+    /**
+     * The number of completed refreshes.
+     */
+    private final AtomicLong mRefreshCount = new AtomicLong();
+
+    /**
+     * The number of refreshes made ahead of expiry by the background timer.
+     */
+    private final AtomicLong mProactiveRefreshCount = new AtomicLong();
+
+    /**
+     * The number of failed refreshes.
+     */
+    private final AtomicLong mFailureCount = new AtomicLong();
+
+    /**
+     * The total time spent refreshing, in nanoseconds.
+     */
+    private final AtomicLong mTotalRefreshNanos = new AtomicLong();
+
+    /**
+     * The longest refresh, in nanoseconds.
+     */
+    private final AtomicLong mMaximumRefreshNanos = new AtomicLong();
+
+    /**
+     * The number of requests that waited for a refresh started by another thread.
+     */
+    private final AtomicLong mWaitCount = new AtomicLong();
+
+    /**
+     * The total time requests spent waiting for a refresh started by another thread, in nanoseconds.
+     */
+    private final AtomicLong mTotalWaitNanos = new AtomicLong();
+
+    /**
+     * Gets the number of completed refreshes.
+     * @return The number of refreshes.
+     */
+    public long getRefreshCount() {
+        return mRefreshCount.get();
+    }
+
+    /**
+     * Gets the number of refreshes made ahead of expiry by the background timer.
+     * @return The number of proactive refreshes.
+     */
+    public long getProactiveRefreshCount() {
+        return mProactiveRefreshCount.get();
+    }
+
+    /**
+     * Gets the number of failed refreshes.
+     * @return The number of failures.
+     */
+    public long getFailureCount() {
+        return mFailureCount.get();
+    }
+
+    /**
+     * Gets the total time spent refreshing.
+     * @return The time in nanoseconds.
+     */
+    public long getTotalRefreshNanos() {
+        return mTotalRefreshNanos.get();
+    }
+
+    /**
+     * Gets the longest refresh.
+     * @return The time in nanoseconds.
+     */
+    public long getMaximumRefreshNanos() {
+        return mMaximumRefreshNanos.get();
+    }
+
+    /**
+     * Gets the number of requests that waited for a refresh started by another thread, rather than each refreshing
+     * through the authenticator.
+     * @return The number of waits.
+     */
+    public long getWaitCount() {
+        return mWaitCount.get();
+    }
+
+    /**
+     * Gets the total time requests spent waiting for a refresh started by another thread.
+     * @return The time in nanoseconds.
+     */
+    public long getTotalWaitNanos() {
+        return mTotalWaitNanos.get();
+    }
+
+    /**
+     * Records a completed refresh.
+     * @param nanos The time the refresh took.
+     * @param proactive Whether the refresh was made ahead of expiry.
+     */
+    void onRefresh(final long nanos, final boolean proactive) {
+        mRefreshCount.incrementAndGet();
+        if (proactive) {
+            mProactiveRefreshCount.incrementAndGet();
+        }
+        mTotalRefreshNanos.addAndGet(nanos);
+        long maximum = mMaximumRefreshNanos.get();
+        while (nanos > maximum && !mMaximumRefreshNanos.compareAndSet(maximum, nanos)) {
+            maximum = mMaximumRefreshNanos.get();
+        }
+    }
+
+    /**
+     * Records a failed refresh.
+     */
+    void onFailure() {
+        mFailureCount.incrementAndGet();
+    }
+
+    /**
+     * Records a request that waited for a refresh started by another thread.
+     * @param nanos The time the request waited.
+     */
+    void onWait(final long nanos) {
+        mWaitCount.incrementAndGet();
+        mTotalWaitNanos.addAndGet(nanos);
+    }
+}
@@ -0,0 +1,152 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+/**
+ * Picks chunk sizes for a chunked upload from the measured throughput and round trip time, so each chunk takes
+ * about the target duration. Slow links get small chunks that are cheap to retry, fast links get large chunks that
+ * spend less time on per request overhead. Sizes stay multiples of 320 KiB between 320 KiB and 60 MiB.
+ */
+public class AdaptiveChunkSizer {
+
+    /**
+     * The required chunk size increment by OneDrive Service, which is 320 KiB.
+     */
+    private static final int CHUNK_SIZE_INCREMENT = 320 * 1024;
+
+    /**
+     * The maximum chunk size for a single upload allowed by OneDrive service, 60 MiB.
+     */
+    private static final int MAXIMUM_CHUNK_SIZE = 60 * 1024 * 1024;
+
+    /**
+     * The default duration each chunk should take.
+     */
+    public static final long DEFAULT_TARGET_CHUNK_MILLIS = 5000L;
+
+    /**
+     * The weight of the newest sample in the moving averages.
+     */
+    private static final double SMOOTHING = 0.3;
+
+    /**
+     * The largest factor the chunk size changes by after a single chunk.
+     */
+    private static final int MAXIMUM_STEP = 2;
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    /**
+     * The duration each chunk should take.
+     */
+    private final long mTargetChunkMillis;
+
+    /**
+     * The current chunk size.
+     */
+    private int mChunkSize;
+
+    /**
+     * The smoothed throughput while sending chunks, in bytes per second, or 0 before the first sample.
+     */
+    private double mThroughput;
+
+    /**
+     * The smoothed time between sending a chunk and receiving its response, in milliseconds.
+     */
+    private double mRoundTripMillis;
+
+    /**
+     * Creates a new AdaptiveChunkSizer.
+     * @param initialChunkSize The size of the first chunk.
+     * @param targetChunkMillis The duration each chunk should take.
+     */
+    public AdaptiveChunkSizer(final int initialChunkSize, final long targetChunkMillis) {
+        if (targetChunkMillis <= 0) {
+            throw new IllegalArgumentException("Target chunk duration must be positive");
+        }
+        mTargetChunkMillis = targetChunkMillis;
+        mChunkSize = clamp(initialChunkSize);
+    }
+
+    /**
+     * Gets the size of the next chunk.
+     * @return The chunk size.
+     */
+    public synchronized int getChunkSize() {
+        return mChunkSize;
+    }
+
+    /**
+     * Gets the smoothed throughput.
+     * @return The throughput in bytes per second, or 0 before the first chunk.
+     */
+    public synchronized double getThroughput() {
+        return mThroughput;
+    }
+
+    /**
+     * Gets the smoothed round trip time.
+     * @return The round trip time in milliseconds.
+     */
+    public synchronized double getRoundTripMillis() {
+        return mRoundTripMillis;
+    }
+
+    /**
+     * Records an accepted chunk and resizes the next one.
+     * @param bytes The chunk length.
+     * @param transferMillis How long the chunk took to send.
+     * @param responseMillis How long the response took after the chunk was sent.
+     */
+    public synchronized void onChunkCompleted(final int bytes, final long transferMillis, final long responseMillis) {
+        final double throughput = bytes * MILLIS_PER_SECOND / Math.max(transferMillis, 1L);
+        if (mThroughput == 0) {
+            mThroughput = throughput;
+            mRoundTripMillis = responseMillis;
+        } else {
+            mThroughput += SMOOTHING * (throughput - mThroughput);
+            mRoundTripMillis += SMOOTHING * (responseMillis - mRoundTripMillis);
+        }
+
+        // Leave room for the round trip, but never plan less than half the target for sending
+        final double sendMillis = Math.max(mTargetChunkMillis - mRoundTripMillis, mTargetChunkMillis / 2.0);
+        final double desired = mThroughput * sendMillis / MILLIS_PER_SECOND;
+        final double bounded = Math.max(mChunkSize / (double) MAXIMUM_STEP,
+                                        Math.min(desired, (double) mChunkSize * MAXIMUM_STEP));
+        mChunkSize = clamp((long) bounded);
+    }
+
+    /**
+     * Rounds a size down to a multiple of 320 KiB within the allowed bounds.
+     * @param size The size.
+     * @return The chunk size.
+     */
+    private static int clamp(final long size) {
+        final long rounded = size - size % CHUNK_SIZE_INCREMENT;
+        return (int) Math.max(CHUNK_SIZE_INCREMENT, Math.min(MAXIMUM_CHUNK_SIZE, rounded));
+    }
+}
@@ -84,7 +84,7 @@ public class AsyncMonitor<T> {
                     mClient.getExecutors().performOnForeground(e, callback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     /**
@@ -119,7 +119,7 @@ public class AsyncMonitor<T> {
                     mClient.getExecutors().performOnForeground(e, callback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     /**
@@ -144,7 +144,7 @@ public class AsyncMonitor<T> {
      */
     public void pollForResult(final long millisBetweenPoll, final IProgressCallback<T> callback) {
         final int progressMax = 100;
-        mClient.getLogger().logDebug("Starting to poll for request " + mMonitorLocation.getLocation());
+        mClient.getLogger().logDebug("Starting to poll for request {}", mMonitorLocation.getLocation());
         mClient.getExecutors().performOnBackground(new Runnable() {
             @Override
             public void run() {
@@ -165,7 +165,7 @@ public class AsyncMonitor<T> {
                                                                        callback);
                         }
                     } while (!(isCompleted(status) || isFailed(status)));
-                    mClient.getLogger().logDebug("Polling has completed, got final status: " + status.status);
+                    mClient.getLogger().logDebug("Polling has completed, got final status: {}", status.status);
                     if (isFailed(status)) {
                         mClient.getExecutors().performOnForeground(new AsyncOperationException(status),
                                                                       callback);
@@ -176,7 +176,7 @@ public class AsyncMonitor<T> {
                     mClient.getExecutors().performOnForeground(e, callback);
                 }
             }
-        });
+        }, ExecutorLane.Sync, callback);
     }
 
     /**
@@ -23,7 +23,6 @@
 package com.onedrive.sdk.concurrency;
 
 import com.onedrive.sdk.extensions.AsyncOperationStatus;
-import com.onedrive.sdk.http.DefaultHttpProvider;
 import com.onedrive.sdk.http.HttpResponseCode;
 import com.onedrive.sdk.http.IConnection;
 import com.onedrive.sdk.http.IHttpRequest;
@@ -74,8 +73,7 @@ public class AsyncMonitorResponseHandler implements IStatefulResponseHandler<Asy
 
         try {
             in = new BufferedInputStream(connection.getInputStream());
-            final AsyncOperationStatus result = serializer.deserializeObject(
-                    DefaultHttpProvider.streamToString(in), AsyncOperationStatus.class);
+            final AsyncOperationStatus result = serializer.deserializeObject(in, AsyncOperationStatus.class);
             result.seeOther = connection.getHeaders().get("Location");
             return result;
         } finally {
@@ -0,0 +1,632 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.IOneDriveClient;
+import com.onedrive.sdk.http.BaseRequest;
+import com.onedrive.sdk.http.BufferPool;
+import com.onedrive.sdk.http.HttpMethod;
+import com.onedrive.sdk.http.HttpResponseCode;
+import com.onedrive.sdk.http.IConnection;
+import com.onedrive.sdk.http.IHttpRequest;
+import com.onedrive.sdk.http.IStatefulResponseHandler;
+import com.onedrive.sdk.http.OneDriveServiceException;
+import com.onedrive.sdk.logger.ILogger;
+import com.onedrive.sdk.options.Option;
+import com.onedrive.sdk.serializer.ISerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Downloads content over several connections at once, each fetching a byte range with a Range header and writing
+ * it straight to its offset in the target file.
+ */
+public class ChunkedDownloadProvider {
+
+    /**
+     * The default size of each range, 4 MiB.
+     */
+    private static final int DEFAULT_RANGE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The default number of concurrent connections.
+     */
+    private static final int DEFAULT_CONNECTIONS = 4;
+
+    /**
+     * The default retry times for a range if failure happened.
+     */
+    private static final int MAXIMUM_RETRY_TIMES = 3;
+
+    /**
+     * The seconds for retry delay.
+     */
+    private static final int RETRY_DELAY = 2 * 1000;
+
+    /**
+     * The size of the buffers used to copy response bodies to the file, 64 KiB.
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of idle copy buffers that are kept for reuse.
+     */
+    private static final int MAXIMUM_POOLED_BUFFERS = 8;
+
+    /**
+     * The copy buffers shared by all downloads.
+     */
+    private static final BufferPool COPY_BUFFERS = new BufferPool(COPY_BUFFER_SIZE, MAXIMUM_POOLED_BUFFERS);
+
+    /**
+     * The range header name.
+     */
+    private static final String RANGE_HEADER_NAME = "Range";
+
+    /**
+     * The content range response header name.
+     */
+    private static final String CONTENT_RANGE_HEADER_NAME = "Content-Range";
+
+    /**
+     * The if match header name.
+     */
+    private static final String IF_MATCH_HEADER_NAME = "If-Match";
+
+    /**
+     * The eTag response header name.
+     */
+    private static final String ETAG_HEADER_NAME = "ETag";
+
+    /**
+     * The length of a range that runs to the end of the content.
+     */
+    private static final int UNBOUNDED_LENGTH = -1;
+
+    /**
+     * The client.
+     */
+    private final IOneDriveClient mClient;
+
+    /**
+     * The url of the content.
+     */
+    private final String mRequestUrl;
+
+    /**
+     * The options of the content request.
+     */
+    private final List<Option> mOptions;
+
+    /**
+     * The bytes written so far across all ranges, guarded by this.
+     */
+    private long mWritten;
+
+    /**
+     * The total length of the content, once known.
+     */
+    private volatile long mTotalLength;
+
+    /**
+     * The eTag of the first response, which the later ranges are requested with so that they come from the same
+     * version of the content.
+     */
+    private volatile String mETag;
+
+    /**
+     * The first range failure.
+     */
+    private volatile ClientException mError;
+
+    /**
+     * Creates the ChunkedDownloadProvider.
+     * @param client The onedrive client.
+     * @param requestUrl The url of the content, such as the url of an item stream request.
+     * @param options The options of the content request.
+     */
+    public ChunkedDownloadProvider(final IOneDriveClient client,
+                                   final String requestUrl,
+                                   final List<Option> options) {
+        if (client == null) {
+            throw new InvalidParameterException("OneDrive client is null.");
+        }
+
+        if (requestUrl == null) {
+            throw new InvalidParameterException("Request url is null.");
+        }
+
+        mClient = client;
+        mRequestUrl = requestUrl;
+        mOptions = options;
+    }
+
+    /**
+     * Downloads the content into the target file. The first range discovers the content length and eTag, the rest
+     * are fetched in parallel and only if the eTag still matches. If the server does not support ranges the whole
+     * content is written by the first request, and if it does not tell the content length the rest is fetched
+     * with a single open ended range.
+     *
+     * @param target   The file to write to, its size is set to the content length.
+     * @param callback The callback receiving the aggregate progress and the content length on success.
+     * @param configs  The optional configs, [0] should be the range size, the [1] should be the number of
+     *                 concurrent connections and the [2] should be the maxRetry for each range.
+     * @throws IOException The io exception happened while writing to the file.
+     */
+    public void download(final FileChannel target,
+                         final IProgressCallback<Long> callback,
+                         final int... configs) throws IOException {
+        int rangeSize = DEFAULT_RANGE_SIZE;
+        if (configs.length > 0) {
+            rangeSize = configs[0];
+        }
+
+        int connections = DEFAULT_CONNECTIONS;
+        if (configs.length > 1) {
+            connections = configs[1];
+        }
+
+        int maxRetry = MAXIMUM_RETRY_TIMES;
+        if (configs.length > 2) {
+            maxRetry = configs[2];
+        }
+
+        if (rangeSize <= 0 || connections <= 0) {
+            throw new IllegalArgumentException("Range size and connections must be positive");
+        }
+
+        mWritten = 0;
+        mTotalLength = -1;
+        mETag = null;
+        mError = null;
+
+        final RangeResponseHandler first = fetchRange(target, callback, 0, rangeSize, maxRetry);
+        if (first == null) {
+            callback.failure(mError);
+            return;
+        }
+
+        if (first.isPartial() && mTotalLength < 0) {
+            fetchRemainder(target, callback, first, rangeSize, maxRetry);
+            return;
+        }
+
+        if (!first.isPartial() || mTotalLength <= rangeSize) {
+            finish(target, callback);
+            return;
+        }
+
+        final Queue<long[]> pending = new ConcurrentLinkedQueue<>();
+        for (long offset = rangeSize; offset < mTotalLength; offset += rangeSize) {
+            pending.add(new long[] { offset, Math.min(offset + rangeSize, mTotalLength) });
+        }
+
+        runWorkers(target, callback, pending, connections, maxRetry);
+
+        if (mError != null) {
+            callback.failure(mError);
+            return;
+        }
+        finish(target, callback);
+    }
+
+    /**
+     * Fetches the content after the first range sequentially when the server did not tell the content length, so
+     * the length is the number of bytes actually written.
+     * @param target The file to write to.
+     * @param callback The callback.
+     * @param first The handler of the first range.
+     * @param rangeSize The size of the first range.
+     * @param maxRetry The retry limit.
+     * @throws IOException The io exception happened while writing to the file.
+     */
+    private void fetchRemainder(final FileChannel target,
+                                final IProgressCallback<Long> callback,
+                                final RangeResponseHandler first,
+                                final int rangeSize,
+                                final int maxRetry) throws IOException {
+        mClient.getLogger().logDebug("Content length is unknown, fetching the rest in one range");
+        long length = first.getWritten();
+        if (length == rangeSize) {
+            final RangeResponseHandler rest = fetchRange(target, callback, rangeSize, UNBOUNDED_LENGTH, maxRetry);
+            if (rest == null) {
+                callback.failure(mError);
+                return;
+            }
+            length += rest.getWritten();
+        }
+        mTotalLength = length;
+        finish(target, callback);
+    }
+
+    /**
+     * Trims the file to the content length and reports success.
+     * @param target The file.
+     * @param callback The callback.
+     * @throws IOException The io exception happened while trimming the file.
+     */
+    private void finish(final FileChannel target, final IProgressCallback<Long> callback) throws IOException {
+        if (mTotalLength < 0) {
+            throw new IllegalStateException("The content length is not known");
+        }
+        if (target.size() > mTotalLength) {
+            target.truncate(mTotalLength);
+        }
+        callback.progress(mTotalLength, mTotalLength);
+        callback.success(mTotalLength);
+    }
+
+    /**
+     * Fetches the pending ranges with several connections on the transfer lane.
+     * @param target The file to write to.
+     * @param callback The progress callback.
+     * @param pending The ranges to fetch.
+     * @param connections The number of concurrent connections.
+     * @param maxRetry The retry limit for each range.
+     * @throws IOException The io exception happened while writing to the file.
+     */
+    private void runWorkers(final FileChannel target,
+                            final IProgressCallback<Long> callback,
+                            final Queue<long[]> pending,
+                            final int connections,
+                            final int maxRetry) throws IOException {
+        try {
+            LaneWorkers.run(mClient.getExecutors(), ExecutorLane.Transfer, connections, new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    long[] range = pending.poll();
+                    while (range != null && mError == null) {
+                        fetchRange(target, callback, range[0], (int) (range[1] - range[0]), maxRetry);
+                        range = pending.poll();
+                    }
+                    return null;
+                }
+            });
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new ClientException("Error during ranged download", e.getCause(),
+                                      OneDriveErrorCodes.GeneralException);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted during ranged download", e, OneDriveErrorCodes.GeneralException);
+        }
+    }
+
+    /**
+     * Fetches a range with retries, each retry continues after the bytes already written. A range is not retried
+     * once the content changed on the server.
+     * @param target The file to write to.
+     * @param callback The progress callback.
+     * @param offset The offset of the range.
+     * @param length The length of the range, or UNBOUNDED_LENGTH for the rest of the content.
+     * @param maxRetry The retry limit.
+     * @return The handler of the successful response, or null if the range failed.
+     * @throws IOException The io exception happened while writing to the file.
+     */
+    private RangeResponseHandler fetchRange(final FileChannel target,
+                                            final IProgressCallback<Long> callback,
+                                            final long offset,
+                                            final int length,
+                                            final int maxRetry) throws IOException {
+        final RangeResponseHandler handler = new RangeResponseHandler(target, callback, offset, length);
+        ClientException lastError = null;
+        for (int retry = 0; retry < maxRetry; retry++) {
+            try {
+                Thread.sleep(RETRY_DELAY * retry * retry);
+            } catch (final InterruptedException e) {
+                mClient.getLogger().logError("Exception while waiting download retry", e);
+            }
+
+            final BaseRequest request = new BaseRequest(mRequestUrl, mClient, mOptions, Long.class) { };
+            request.setHttpMethod(HttpMethod.GET);
+            request.addHeader(RANGE_HEADER_NAME, handler.getRangeHeader());
+            final String eTag = mETag;
+            if (eTag != null) {
+                request.addHeader(IF_MATCH_HEADER_NAME, eTag);
+            }
+            try {
+                mClient.getHttpProvider().send(request, Long.class, null, handler);
+                return handler;
+            } catch (final ClientException e) {
+                if (e.getCause() instanceof IOException && handler.isWriteFailed()) {
+                    throw (IOException) e.getCause();
+                }
+                lastError = e;
+                if (handler.isContentChanged()) {
+                    lastError = new ClientException("The content changed during the download",
+                                                    e,
+                                                    OneDriveErrorCodes.GeneralException);
+                    break;
+                }
+                mClient.getLogger().logDebug("Range request failed, retry if necessary.");
+            }
+        }
+        if (lastError == null) {
+            lastError = new ClientException("Range request failed too many times.",
+                                            null,
+                                            OneDriveErrorCodes.GeneralException);
+        }
+        mError = lastError;
+        return null;
+    }
+
+    /**
+     * Records bytes written to the file and reports the aggregate progress.
+     * @param callback The progress callback.
+     * @param bytes The bytes written.
+     */
+    private synchronized void onBytesWritten(final IProgressCallback<Long> callback, final int bytes) {
+        mWritten += bytes;
+        if (mTotalLength > 0) {
+            callback.progress(mWritten, mTotalLength);
+        }
+    }
+
+    /**
+     * Writes the body of a range response to its offset in the file.
+     */
+    private class RangeResponseHandler implements IStatefulResponseHandler<Long, Long> {
+
+        /**
+         * The file to write to.
+         */
+        private final FileChannel mTarget;
+
+        /**
+         * The progress callback.
+         */
+        private final IProgressCallback<Long> mCallback;
+
+        /**
+         * The offset of the range.
+         */
+        private final long mOffset;
+
+        /**
+         * The length of the range, or UNBOUNDED_LENGTH for the rest of the content.
+         */
+        private final int mLength;
+
+        /**
+         * The bytes of the range written so far, kept across retries.
+         */
+        private long mRangeWritten;
+
+        /**
+         * Whether the last response was a partial content response.
+         */
+        private boolean mPartial;
+
+        /**
+         * Whether writing to the file failed, which is not worth retrying.
+         */
+        private boolean mWriteFailed;
+
+        /**
+         * Whether the content no longer matches the eTag of the first response, which is not worth retrying.
+         */
+        private boolean mContentChanged;
+
+        /**
+         * Creates a new RangeResponseHandler.
+         * @param target The file to write to.
+         * @param callback The progress callback.
+         * @param offset The offset of the range.
+         * @param length The length of the range.
+         */
+        RangeResponseHandler(final FileChannel target,
+                             final IProgressCallback<Long> callback,
+                             final long offset,
+                             final int length) {
+            mTarget = target;
+            mCallback = callback;
+            mOffset = offset;
+            mLength = length;
+        }
+
+        /**
+         * Gets the Range header for the bytes of the range that have not been written yet.
+         * @return The header value.
+         */
+        String getRangeHeader() {
+            if (mLength == UNBOUNDED_LENGTH) {
+                return "bytes=" + (mOffset + mRangeWritten) + "-";
+            }
+            return "bytes=" + (mOffset + mRangeWritten) + "-" + (mOffset + mLength - 1);
+        }
+
+        /**
+         * Gets the bytes of the range written so far.
+         * @return The number of bytes.
+         */
+        long getWritten() {
+            return mRangeWritten;
+        }
+
+        /**
+         * Gets whether the last response was a partial content response.
+         * @return true if the server honored the range.
+         */
+        boolean isPartial() {
+            return mPartial;
+        }
+
+        /**
+         * Gets whether writing to the file failed.
+         * @return true if the file could not be written.
+         */
+        boolean isWriteFailed() {
+            return mWriteFailed;
+        }
+
+        /**
+         * Gets whether the content changed on the server since the first response.
+         * @return true if the eTag no longer matches.
+         */
+        boolean isContentChanged() {
+            return mContentChanged;
+        }
+
+        @Override
+        public void configConnection(final IConnection connection) {
+            // Nothing to configure
+        }
+
+        @Override
+        public Long generateResult(final IHttpRequest request,
+                                   final IConnection connection,
+                                   final ISerializer serializer,
+                                   final ILogger logger) throws Exception {
+            final int responseCode = connection.getResponseCode();
+            if (responseCode == HttpResponseCode.HTTP_RANGE_NOT_SATISFIABLE && mLength == UNBOUNDED_LENGTH) {
+                logger.logDebug("The content ended with the previous range");
+                return 0L;
+            }
+            if (responseCode == HttpResponseCode.HTTP_PRECONDITION_FAILED) {
+                mContentChanged = true;
+            }
+            if (responseCode >= HttpResponseCode.HTTP_CLIENT_ERROR) {
+                throw OneDriveServiceException.createFromConnection(request, null, serializer, connection);
+            }
+
+            final String eTag = getHeader(connection.getHeaders(), ETAG_HEADER_NAME);
+            if (mETag == null) {
+                mETag = eTag;
+            } else if (eTag != null && !eTag.equals(mETag)) {
+                mContentChanged = true;
+                connection.getInputStream().close();
+                throw new IOException("Expected eTag " + mETag + " but the server returned " + eTag);
+            }
+
+            final long start;
+            if (responseCode == HttpResponseCode.HTTP_PARTIAL_CONTENT) {
+                mPartial = true;
+                final long[] contentRange = parseContentRange(getHeader(connection.getHeaders(),
+                                                                        CONTENT_RANGE_HEADER_NAME));
+                start = contentRange[0];
+                if (contentRange[1] >= 0) {
+                    mTotalLength = contentRange[1];
+                }
+            } else if (responseCode == HttpResponseCode.HTTP_OK && mOffset == 0 && mRangeWritten == 0) {
+                logger.logDebug("Server ignored the range, downloading the whole content");
+                mPartial = false;
+                start = 0;
+            } else {
+                throw new IOException("Unexpected response " + responseCode + " to a range request");
+            }
+
+            final long written = copy(connection.getInputStream(), start);
+            if (!mPartial) {
+                mTotalLength = written;
+            }
+            return written;
+        }
+
+        /**
+         * Copies a response body to the file.
+         * @param in The response body.
+         * @param start The offset of the body in the file.
+         * @return The number of bytes written.
+         * @throws IOException An exception occurs if the body could not be read or the file written.
+         */
+        private long copy(final InputStream in, final long start) throws IOException {
+            final ByteBuffer buffer = COPY_BUFFERS.acquire();
+            long position = start;
+            try {
+                int read = in.read(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+                while (read != -1) {
+                    buffer.clear();
+                    buffer.limit(read);
+                    try {
+                        while (buffer.hasRemaining()) {
+                            position += mTarget.write(buffer, position);
+                        }
+                    } catch (final IOException e) {
+                        mWriteFailed = true;
+                        throw e;
+                    }
+                    mRangeWritten += read;
+                    onBytesWritten(mCallback, read);
+                    read = in.read(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+                }
+            } finally {
+                COPY_BUFFERS.release(buffer);
+                in.close();
+            }
+            return position - start;
+        }
+    }
+
+    /**
+     * Gets a response header regardless of the case of its name.
+     * @param headers The response headers.
+     * @param name The header name.
+     * @return The header value, or null if it is not present.
+     */
+    static String getHeader(final Map<String, String> headers, final String name) {
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a Content-Range header, such as "bytes 0-1023/4096".
+     * @param contentRange The header value.
+     * @return The first byte of the range and the total length, or -1 if the total length is unknown.
+     * @throws IOException If the header is missing or malformed.
+     */
+    static long[] parseContentRange(final String contentRange) throws IOException {
+        if (contentRange == null) {
+            throw new IOException("Partial content response without a Content-Range header");
+        }
+        try {
+            final int dash = contentRange.indexOf('-');
+            final int slash = contentRange.indexOf('/');
+            final long first = Long.parseLong(contentRange.substring(contentRange.indexOf(' ') + 1, dash).trim());
+            final String total = contentRange.substring(slash + 1).trim();
+            if ("*".equals(total)) {
+                return new long[] { first, -1 };
+            }
+            return new long[] { first, Long.parseLong(total) };
+        } catch (final NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed Content-Range header " + contentRange, e);
+        }
+    }
+}
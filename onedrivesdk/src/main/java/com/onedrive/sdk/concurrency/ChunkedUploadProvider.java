@@ -22,14 +22,23 @@
 
 package com.onedrive.sdk.concurrency;
 
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.ItemCache;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
 import com.onedrive.sdk.extensions.ChunkedUploadResult;
 import com.onedrive.sdk.extensions.IOneDriveClient;
+import com.onedrive.sdk.extensions.Item;
 import com.onedrive.sdk.extensions.UploadSession;
+import com.onedrive.sdk.http.BaseRequest;
+import com.onedrive.sdk.http.HttpMethod;
 import com.onedrive.sdk.options.Option;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.security.InvalidParameterException;
+import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -70,6 +79,16 @@ public class ChunkedUploadProvider<UploadType> {
      */
     private final InputStream mInputStream;
 
+    /**
+     * The input channel when the input stream is seekable, null otherwise.
+     */
+    private final FileChannel mChannel;
+
+    /**
+     * The position of the input channel when the provider was created.
+     */
+    private final long mChannelOrigin;
+
     /**
      * The upload session url.
      */
@@ -85,11 +104,26 @@ public class ChunkedUploadProvider<UploadType> {
      */
     private final ChunkedUploadResponseHandler<UploadType> mResponseHandler;
 
+    /**
+     * The checkpoint of the upload, or null if it is not resumable.
+     */
+    private final UploadSessionCheckpoint mCheckpoint;
+
     /**
      * The counter for how many bytes read from input stream.
      */
     private int mReadSoFar;
 
+    /**
+     * The ranges the service expects when resuming an upload, or null.
+     */
+    private List<String> mExpectedRanges;
+
+    /**
+     * The duration each chunk should take when chunks are sized adaptively, or 0 for a fixed chunk size.
+     */
+    private long mTargetChunkMillis;
+
     /**
      * Create the ChunkedUploadProvider
      *
@@ -104,6 +138,28 @@ public class ChunkedUploadProvider<UploadType> {
                                  final InputStream inputStream,
                                  final int streamSize,
                                  final Class<UploadType> uploadTypeClass) {
+        this(uploadSession, client, inputStream, streamSize, uploadTypeClass, null, null);
+    }
+
+    /**
+     * Create a resumable ChunkedUploadProvider, whose progress is saved to the store after every accepted chunk
+     * so it can be continued with {@link #resume} after the process restarts.
+     *
+     * @param uploadSession The initial upload session.
+     * @param client        The onedrive client.
+     * @param inputStream   The input stream.
+     * @param streamSize    The stream size.
+     * @param uploadTypeClass The upload type class.
+     * @param store         The upload session store, or null if the upload is not resumable.
+     * @param key           The key identifying the upload in the store.
+     */
+    public ChunkedUploadProvider(final UploadSession uploadSession,
+                                 final IOneDriveClient client,
+                                 final InputStream inputStream,
+                                 final int streamSize,
+                                 final Class<UploadType> uploadTypeClass,
+                                 final IUploadSessionStore store,
+                                 final String key) {
         if (uploadSession == null) {
             throw new InvalidParameterException("Upload session is null.");
         }
@@ -123,9 +179,153 @@ public class ChunkedUploadProvider<UploadType> {
         this.mClient = client;
         this.mReadSoFar = 0;
         this.mInputStream = inputStream;
+        FileChannel channel = null;
+        long channelOrigin = 0;
+        if (inputStream instanceof FileInputStream) {
+            try {
+                channel = ((FileInputStream) inputStream).getChannel();
+                channelOrigin = channel.position();
+            } catch (final IOException e) {
+                client.getLogger().logError("Input stream is not seekable, chunks will be read in order", e);
+                channel = null;
+            }
+        }
+        this.mChannel = channel;
+        this.mChannelOrigin = channelOrigin;
         this.mStreamSize = streamSize;
         this.mUploadUrl = uploadSession.uploadUrl;
         this.mResponseHandler = new ChunkedUploadResponseHandler(uploadTypeClass);
+        if (store != null) {
+            this.mCheckpoint = new UploadSessionCheckpoint(store, key, uploadSession, client.getLogger());
+        } else {
+            this.mCheckpoint = null;
+        }
+    }
+
+    /**
+     * Resumes an upload saved by a resumable provider, asking the service which ranges it still expects.
+     *
+     * @param store           The upload session store.
+     * @param key             The key identifying the upload in the store.
+     * @param client          The onedrive client.
+     * @param inputStream     The input stream, positioned at the start of the content.
+     * @param streamSize      The stream size.
+     * @param uploadTypeClass The upload type class.
+     * @param <UploadType>    The upload item type.
+     * @return The provider positioned after the bytes the service already has, or null if there is no saved upload
+     *         or its session has expired, in which case a new session must be created.
+     * @throws IOException The io exception happened while skipping the uploaded bytes of the input.
+     */
+    public static <UploadType> ChunkedUploadProvider<UploadType> resume(final IUploadSessionStore store,
+                                                                        final String key,
+                                                                        final IOneDriveClient client,
+                                                                        final InputStream inputStream,
+                                                                        final int streamSize,
+                                                                        final Class<UploadType> uploadTypeClass)
+            throws IOException {
+        final UploadSession saved = store.load(key);
+        if (saved == null || saved.uploadUrl == null) {
+            return null;
+        }
+
+        if (saved.expirationDateTime != null && saved.expirationDateTime.before(Calendar.getInstance())) {
+            client.getLogger().logDebug("Saved upload session has expired");
+            store.remove(key);
+            return null;
+        }
+
+        final UploadSession current;
+        try {
+            current = getSessionStatus(client, saved.uploadUrl);
+        } catch (final ClientException e) {
+            if (e.isError(OneDriveErrorCodes.ItemNotFound) || e.isError(OneDriveErrorCodes.UploadSessionNotFound)) {
+                client.getLogger().logDebug("Saved upload session no longer exists");
+                store.remove(key);
+                return null;
+            }
+            throw e;
+        }
+        current.uploadUrl = saved.uploadUrl;
+        if (current.expirationDateTime == null) {
+            current.expirationDateTime = saved.expirationDateTime;
+        }
+
+        final ChunkedUploadProvider<UploadType> provider = new ChunkedUploadProvider<>(current, client, inputStream,
+                                                                                       streamSize, uploadTypeClass,
+                                                                                       store, key);
+        provider.skipTo(current.nextExpectedRanges);
+        return provider;
+    }
+
+    /**
+     * Gets the status of an upload session from the service.
+     * @param client The onedrive client.
+     * @param uploadUrl The upload session url.
+     * @return The upload session, with the ranges the service still expects.
+     * @throws ClientException An exception occurs if the status could not be retrieved.
+     */
+    static UploadSession getSessionStatus(final IOneDriveClient client, final String uploadUrl)
+            throws ClientException {
+        final BaseRequest statusRequest = new BaseRequest(uploadUrl,
+                                                          client,
+                                                          /* options */ null,
+                                                          UploadSession.class) { };
+        statusRequest.setHttpMethod(HttpMethod.GET);
+        return client.getHttpProvider().send(statusRequest,
+                                             UploadSession.class,
+                                             /* serialization object */ null);
+    }
+
+    /**
+     * Positions the upload at the first range the service expects. Sequential uploads continue from the start of
+     * that range, parallel uploads of seekable inputs send exactly the expected ranges.
+     * @param expectedRanges The ranges the service expects.
+     * @throws IOException The io exception happened while skipping the uploaded bytes of the input.
+     */
+    private void skipTo(final List<String> expectedRanges) throws IOException {
+        if (expectedRanges == null || expectedRanges.isEmpty()) {
+            return;
+        }
+        final int offset;
+        try {
+            for (final String range : expectedRanges) {
+                ParallelChunkedUpload.parseRange(range, this.mStreamSize);
+            }
+            offset = ParallelChunkedUpload.parseRange(expectedRanges.get(0), this.mStreamSize)[0];
+        } catch (final NumberFormatException e) {
+            this.mClient.getLogger().logError("Unable to parse expected ranges, uploading from the start", e);
+            return;
+        }
+
+        if (this.mChannel == null) {
+            long skipped = 0;
+            while (skipped < offset) {
+                final long step = this.mInputStream.skip(offset - skipped);
+                if (step <= 0) {
+                    if (this.mInputStream.read() == -1) {
+                        throw new IOException("Input ended before the resumed offset " + offset);
+                    }
+                    skipped++;
+                } else {
+                    skipped += step;
+                }
+            }
+        }
+        this.mExpectedRanges = expectedRanges;
+        this.mReadSoFar = offset;
+    }
+
+    /**
+     * Sizes chunks adaptively, growing or shrinking them from the measured throughput and round trip time so
+     * each one takes about the target duration, see {@link AdaptiveChunkSizer}. The chunk size passed to
+     * {@link #upload} becomes the size of the first chunk. Parallel uploads keep a fixed chunk size.
+     * @param targetChunkMillis The duration each chunk should take, or 0 to use a fixed chunk size.
+     */
+    public void setTargetChunkDuration(final long targetChunkMillis) {
+        if (targetChunkMillis < 0) {
+            throw new IllegalArgumentException("Target chunk duration cannot be negative");
+        }
+        this.mTargetChunkMillis = targetChunkMillis;
     }
 
     /**
@@ -134,7 +334,9 @@ public class ChunkedUploadProvider<UploadType> {
      * @param options  The upload options.
      * @param callback The progress callback invoked during uploading.
      * @param configs  The optional ocnfigs for the upload options, [0] should be the customized chunk
-     *                 size and the [1] should be the maxRetry for upload retry.
+     *                 size, the [1] should be the maxRetry for upload retry and the [2] should be the
+     *                 number of chunks to upload in parallel. Parallel uploads need a service that accepts
+     *                 ranges out of order, inputs from a {@link FileInputStream} are read concurrently.
      * @throws IOException The io exception happend during upload.
      */
     public void upload(final List<Option> options,
@@ -161,25 +363,73 @@ public class ChunkedUploadProvider<UploadType> {
             throw new IllegalArgumentException("Please set chunk size smaller than 60 MiB");
         }
 
-        byte[] buffer = new byte[chunkSize];
+        if (this.mCheckpoint != null) {
+            final UploadSession state = new UploadSession();
+            state.nextExpectedRanges = this.mExpectedRanges;
+            this.mCheckpoint.save(state, this.mReadSoFar);
+        }
 
-        while (this.mReadSoFar < this.mStreamSize) {
-            int read = this.mInputStream.read(buffer);
+        if (configs.length > 2 && configs[2] > 1) {
+            new ParallelChunkedUpload<>(this.mClient, this.mUploadUrl, options, this.mResponseHandler, callback,
+                                        this.mInputStream, this.mChannel, this.mChannelOrigin, this.mReadSoFar,
+                                        this.mExpectedRanges, this.mCheckpoint, this.mStreamSize, chunkSize,
+                                        maxRetry).upload(configs[2]);
+            this.mReadSoFar = this.mStreamSize;
+            return;
+        }
 
-            if (read == -1) {
-                break;
+        AdaptiveChunkSizer sizer = null;
+        if (this.mTargetChunkMillis > 0) {
+            sizer = new AdaptiveChunkSizer(chunkSize, this.mTargetChunkMillis);
+        }
+
+        // File inputs are streamed from their file regions, other inputs reuse a single chunk buffer
+        // that only grows when adaptive sizing asks for a larger chunk.
+        byte[] buffer = null;
+
+        while (this.mReadSoFar < this.mStreamSize) {
+            int nextChunkSize = chunkSize;
+            if (sizer != null) {
+                nextChunkSize = sizer.getChunkSize();
             }
 
-            ChunkedUploadRequest request =
-			    new ChunkedUploadRequest(this.mUploadUrl, this.mClient, options, buffer, read,
-                                         maxRetry, this.mReadSoFar, this.mStreamSize);
+            final int read;
+            final ChunkedUploadRequest request;
+            if (this.mChannel != null) {
+                read = Math.min(nextChunkSize, this.mStreamSize - this.mReadSoFar);
+                request = new ChunkedUploadRequest(this.mUploadUrl, this.mClient, options, this.mChannel,
+                                                   this.mChannelOrigin + this.mReadSoFar, read,
+                                                   maxRetry, this.mReadSoFar, this.mStreamSize);
+            } else {
+                if (buffer == null || buffer.length < nextChunkSize) {
+                    buffer = new byte[nextChunkSize];
+                }
+                read = this.mInputStream.read(buffer, 0, nextChunkSize);
+
+                if (read == -1) {
+                    break;
+                }
+
+                request = new ChunkedUploadRequest(this.mUploadUrl, this.mClient, options, buffer, read,
+                                                   maxRetry, this.mReadSoFar, this.mStreamSize);
+            }
             ChunkedUploadResult result = request.upload(this.mResponseHandler);
 
             if (result.uploadCompleted()) {
+                if (this.mCheckpoint != null) {
+                    this.mCheckpoint.clear();
+                }
                 callback.progress(this.mStreamSize, this.mStreamSize);
+                invalidateUploaded(this.mClient, result.getItem());
                 callback.success((UploadType) result.getItem());
                 break;
             } else if (result.chunkCompleted()) {
+                if (this.mCheckpoint != null) {
+                    this.mCheckpoint.save(result.getSession(), this.mReadSoFar + read);
+                }
+                if (sizer != null) {
+                    sizer.onChunkCompleted(read, request.getTransferMillis(), request.getResponseMillis());
+                }
                 callback.progress(this.mReadSoFar, this.mStreamSize);
             } else if (result.hasError()) {
                 callback.failure(result.getError());
@@ -189,4 +439,17 @@ public class ChunkedUploadProvider<UploadType> {
             this.mReadSoFar += read;
         }
     }
+
+    /**
+     * Drops an uploaded item and its parent from the client's item cache.
+     *
+     * @param client   The client.
+     * @param uploaded The uploaded item, ignored unless it is an {@link Item}.
+     */
+    static void invalidateUploaded(final IOneDriveClient client, final Object uploaded) {
+        final ItemCache cache = client.getItemCache();
+        if (cache != null && uploaded instanceof Item) {
+            cache.invalidate(/* driveId */ null, (Item) uploaded);
+        }
+    }
 }
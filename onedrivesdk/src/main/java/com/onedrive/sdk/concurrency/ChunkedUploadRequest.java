@@ -27,10 +27,20 @@ import com.onedrive.sdk.core.OneDriveErrorCodes;
 import com.onedrive.sdk.extensions.ChunkedUploadResult;
 import com.onedrive.sdk.extensions.IOneDriveClient;
 import com.onedrive.sdk.http.BaseRequest;
+import com.onedrive.sdk.http.ByteArrayRequestBody;
+import com.onedrive.sdk.http.FileChannelRequestBody;
 import com.onedrive.sdk.http.HttpMethod;
+import com.onedrive.sdk.http.IConnection;
+import com.onedrive.sdk.http.IHttpRequest;
+import com.onedrive.sdk.http.IRequestBody;
+import com.onedrive.sdk.http.IStatefulResponseHandler;
+import com.onedrive.sdk.logger.ILogger;
 import com.onedrive.sdk.options.Option;
+import com.onedrive.sdk.serializer.ISerializer;
 
+import java.nio.channels.FileChannel;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The chunk upload request.
@@ -55,7 +65,7 @@ public class ChunkedUploadRequest {
     /**
      * The chunk data sent to the server.
      */
-    private final byte[] mData;
+    private final IRequestBody mData;
 
     /**
      * The base request.
@@ -73,7 +83,28 @@ public class ChunkedUploadRequest {
     private int mRetryCount;
 
     /**
-     * Construct the ChunkedUploadRequest
+     * When the last attempt started sending, in nanoseconds.
+     */
+    private long mStartNanos;
+
+    /**
+     * When the last attempt finished writing the chunk, in nanoseconds, or 0 if unknown.
+     */
+    private long mBodySentNanos;
+
+    /**
+     * When the last attempt received its response, in nanoseconds, or 0 if unknown.
+     */
+    private long mResponseNanos;
+
+    /**
+     * When the last attempt completed, in nanoseconds.
+     */
+    private long mEndNanos;
+
+    /**
+     * Construct the ChunkedUploadRequest, the chunk is sent straight from the given array without a copy
+     * and must not be modified until the upload returns.
      * @param requestUrl The upload url.
      * @param client The OneDrive client.
      * @param options The query options.
@@ -91,8 +122,53 @@ public class ChunkedUploadRequest {
                                 final int maxRetry,
                                 final int beginIndex,
                                 final int totalLenth) {
-        this.mData = new byte[chunkSize];
-        System.arraycopy(chunk, 0, this.mData, 0, chunkSize);
+        this(requestUrl, client, options, new ByteArrayRequestBody(chunk, 0, chunkSize), maxRetry, beginIndex,
+             totalLenth);
+    }
+
+    /**
+     * Construct the ChunkedUploadRequest for a chunk that is streamed from a file region.
+     * @param requestUrl The upload url.
+     * @param client The OneDrive client.
+     * @param options The query options.
+     * @param channel The channel of the file.
+     * @param position The position of the chunk in the channel.
+     * @param chunkSize The chunk size.
+     * @param maxRetry The limit on retry.
+     * @param beginIndex The begin index of this chunk in the input stream.
+     * @param totalLenth The total length of the input stream.
+     */
+    public ChunkedUploadRequest(final String requestUrl,
+                                final IOneDriveClient client,
+                                final List<Option> options,
+                                final FileChannel channel,
+                                final long position,
+                                final int chunkSize,
+                                final int maxRetry,
+                                final int beginIndex,
+                                final int totalLenth) {
+        this(requestUrl, client, options, new FileChannelRequestBody(channel, position, chunkSize), maxRetry,
+             beginIndex, totalLenth);
+    }
+
+    /**
+     * Construct the ChunkedUploadRequest
+     * @param requestUrl The upload url.
+     * @param client The OneDrive client.
+     * @param options The query options.
+     * @param chunk The chunk body.
+     * @param maxRetry The limit on retry.
+     * @param beginIndex The begin index of this chunk in the input stream.
+     * @param totalLenth The total length of the input stream.
+     */
+    private ChunkedUploadRequest(final String requestUrl,
+                                 final IOneDriveClient client,
+                                 final List<Option> options,
+                                 final IRequestBody chunk,
+                                 final int maxRetry,
+                                 final int beginIndex,
+                                 final int totalLenth) {
+        this.mData = chunk;
         this.mRetryCount = 0;
         this.mMaxRetry = maxRetry;
         this.mBaseRequest = new BaseRequest(requestUrl, client, options, ChunkedUploadResult.class) { };
@@ -101,7 +177,7 @@ public class ChunkedUploadRequest {
                                     String.format(
                                             CONTENT_RANGE_FORMAT,
                                             beginIndex,
-                                            beginIndex + chunkSize - 1,
+                                            beginIndex + chunk.getLength() - 1,
                                             totalLenth));
     }
 
@@ -122,14 +198,19 @@ public class ChunkedUploadRequest {
 
             ChunkedUploadResult result = null;
 
+            this.mBodySentNanos = 0;
+            this.mResponseNanos = 0;
+            this.mStartNanos = System.nanoTime();
             try {
                 result = this.mBaseRequest
                         .getClient()
                         .getHttpProvider()
-                        .send(mBaseRequest, ChunkedUploadResult.class, this.mData, responseHandler);
+                        .send(mBaseRequest, ChunkedUploadResult.class, this.mData,
+                              new TimedResponseHandler<>(responseHandler));
             } catch (final ClientException e) {
                 this.mBaseRequest.getClient().getLogger().logDebug("Request failed with, retry if necessary.");
             }
+            this.mEndNanos = System.nanoTime();
 
             if (result != null && result.chunkCompleted()) {
                 return result;
@@ -142,4 +223,63 @@ public class ChunkedUploadRequest {
                 new ClientException("Upload session failed to many times." , null,
                                     OneDriveErrorCodes.UploadSessionIncomplete));
     }
+
+    /**
+     * Gets how long the last attempt took to send the chunk, or the whole attempt if that is unknown.
+     * @return The transfer time in milliseconds.
+     */
+    long getTransferMillis() {
+        long end = this.mEndNanos;
+        if (this.mBodySentNanos != 0) {
+            end = this.mBodySentNanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(end - this.mStartNanos);
+    }
+
+    /**
+     * Gets how long the last attempt waited for the response after the chunk was sent.
+     * @return The response time in milliseconds, or 0 if unknown.
+     */
+    long getResponseMillis() {
+        if (this.mBodySentNanos == 0 || this.mResponseNanos == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(this.mResponseNanos - this.mBodySentNanos);
+    }
+
+    /**
+     * Records when the chunk was sent and when its response arrived.
+     * @param <UploadType> The upload item type.
+     */
+    private class TimedResponseHandler<UploadType>
+            implements IStatefulResponseHandler<ChunkedUploadResult, UploadType> {
+
+        /**
+         * The handler that processes the response.
+         */
+        private final IStatefulResponseHandler<ChunkedUploadResult, UploadType> mDelegate;
+
+        /**
+         * Creates a new TimedResponseHandler.
+         * @param delegate The handler that processes the response.
+         */
+        TimedResponseHandler(final IStatefulResponseHandler<ChunkedUploadResult, UploadType> delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void configConnection(final IConnection connection) {
+            mBodySentNanos = System.nanoTime();
+            mDelegate.configConnection(connection);
+        }
+
+        @Override
+        public ChunkedUploadResult generateResult(final IHttpRequest request,
+                                                  final IConnection connection,
+                                                  final ISerializer serializer,
+                                                  final ILogger logger) throws Exception {
+            mResponseNanos = System.nanoTime();
+            return mDelegate.generateResult(request, connection, serializer, logger);
+        }
+    }
 }
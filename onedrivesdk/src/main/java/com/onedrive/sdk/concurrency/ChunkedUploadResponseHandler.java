@@ -24,7 +24,6 @@ package com.onedrive.sdk.concurrency;
 
 import com.onedrive.sdk.extensions.ChunkedUploadResult;
 import com.onedrive.sdk.extensions.UploadSession;
-import com.onedrive.sdk.http.DefaultHttpProvider;
 import com.onedrive.sdk.http.HttpResponseCode;
 import com.onedrive.sdk.http.IConnection;
 import com.onedrive.sdk.http.IHttpRequest;
@@ -89,8 +88,7 @@ public class ChunkedUploadResponseHandler<UploadType>
             if (connection.getResponseCode() == HttpResponseCode.HTTP_ACCEPTED) {
                 logger.logDebug("Chunk bytes has been accepted by the server.");
                 in = new BufferedInputStream(connection.getInputStream());
-                final UploadSession seesion = serializer.deserializeObject(
-                        DefaultHttpProvider.streamToString(in), UploadSession.class);
+                final UploadSession seesion = serializer.deserializeObject(in, UploadSession.class);
 
                 return new ChunkedUploadResult(seesion);
 
@@ -98,9 +96,7 @@ public class ChunkedUploadResponseHandler<UploadType>
                     || connection.getResponseCode() == HttpResponseCode.HTTP_OK) {
                 logger.logDebug("Upload session is completed, uploaded item returned.");
                 in = new BufferedInputStream(connection.getInputStream());
-                String rawJson = DefaultHttpProvider.streamToString(in);
-                UploadType uploadedItem = serializer.deserializeObject(rawJson,
-                                                                       this.mDeserializeTypeClass);
+                UploadType uploadedItem = serializer.deserializeObject(in, this.mDeserializeTypeClass);
 
                 return new ChunkedUploadResult(uploadedItem);
             } else if (connection.getResponseCode() >= HttpResponseCode.HTTP_CLIENT_ERROR) {
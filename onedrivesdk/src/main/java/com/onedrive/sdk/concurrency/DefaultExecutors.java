@@ -23,10 +23,18 @@
 package com.onedrive.sdk.concurrency;
 
 import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
 import com.onedrive.sdk.logger.ILogger;
 
-import java.util.concurrent.Executors;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The default executors implementation for the OneDrive SDK.
@@ -34,9 +42,14 @@ import java.util.concurrent.ThreadPoolExecutor;
 public class DefaultExecutors implements IExecutors {
 
     /**
-     * The executor for handling background actions.
+     * How long idle lane threads are kept alive, in seconds.
      */
-    private final ThreadPoolExecutor mBackgroundExecutor;
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    /**
+     * The executors for handling background actions, one per lane.
+     */
+    private final Map<ExecutorLane, ThreadPoolExecutor> mBackgroundExecutors;
 
     /**
      * The executor for handling foreground actions.
@@ -53,20 +66,97 @@ public class DefaultExecutors implements IExecutors {
      * @param logger The logger.
      */
     public DefaultExecutors(final ILogger logger) {
+        this(logger, null);
+    }
+
+    /**
+     * Creates a new instance of the DefaultExecutors.
+     * @param logger The logger.
+     * @param laneConfigs The sizing of each lane, lanes that are not present use
+     *                    {@link ExecutorLaneConfig#getDefault(ExecutorLane)}.
+     */
+    public DefaultExecutors(final ILogger logger, final Map<ExecutorLane, ExecutorLaneConfig> laneConfigs) {
         mLogger = logger;
-        mBackgroundExecutor = (ThreadPoolExecutor)Executors.newCachedThreadPool();
+        mBackgroundExecutors = new EnumMap<ExecutorLane, ThreadPoolExecutor>(ExecutorLane.class);
+        for (final ExecutorLane lane : ExecutorLane.values()) {
+            ExecutorLaneConfig config = null;
+            if (laneConfigs != null) {
+                config = laneConfigs.get(lane);
+            }
+            if (config == null) {
+                config = ExecutorLaneConfig.getDefault(lane);
+            }
+            mBackgroundExecutors.put(lane, createLaneExecutor(lane, config));
+        }
         mForegroundExecutor = new SynchronousExecutor();
     }
 
     /**
-     * Runs the given Runnable on the background thread.
+     * Runs the given Runnable on the interactive lane.
      * @param runnable The Runnable to execute.
      */
     @Override
     public void performOnBackground(final Runnable runnable) {
-        mLogger.logDebug("Starting background task, current active count: "
-                         + mBackgroundExecutor.getActiveCount());
-        mBackgroundExecutor.execute(runnable);
+        performOnBackground(runnable, ExecutorLane.Interactive);
+    }
+
+    /**
+     * Runs the given Runnable on a background thread of the given lane.
+     * @param runnable The Runnable to execute.
+     * @param lane The lane to run on.
+     */
+    @Override
+    public void performOnBackground(final Runnable runnable, final ExecutorLane lane) {
+        final ThreadPoolExecutor executor = mBackgroundExecutors.get(lane);
+        if (mLogger.isDebugEnabled()) {
+            mLogger.logDebug("Starting " + lane + " background task, current active count: "
+                             + executor.getActiveCount()
+                             + ", queue depth: "
+                             + executor.getQueue().size());
+        }
+        executor.execute(runnable);
+    }
+
+    /**
+     * Runs the given Runnable on a background thread of the given lane, reporting a saturated lane to the callback.
+     * @param runnable The Runnable to execute.
+     * @param lane The lane to run on.
+     * @param callback The callback to fail if the lane rejects the Runnable.
+     * @param <Result> The result type.
+     */
+    @Override
+    public <Result> void performOnBackground(final Runnable runnable,
+                                             final ExecutorLane lane,
+                                             final ICallback<Result> callback) {
+        try {
+            performOnBackground(runnable, lane);
+        } catch (final RejectedExecutionException e) {
+            mLogger.logError("The " + lane + " lane rejected a background task", e);
+            performOnForeground(new ClientException("The " + lane + " lane is saturated",
+                                                    e,
+                                                    OneDriveErrorCodes.GeneralException),
+                                callback);
+        }
+    }
+
+    /**
+     * Gets the number of tasks waiting for a thread on the given lane.
+     * @param lane The lane.
+     * @return The queue depth.
+     */
+    @Override
+    public int getQueueDepth(final ExecutorLane lane) {
+        return mBackgroundExecutors.get(lane).getQueue().size();
+    }
+
+    /**
+     * Gets the approximate number of threads actively running tasks on the given lane.
+     * @param lane The lane.
+     * @return The active thread count.
+     */
+    @Override
+    public int getActiveThreadCount(final ExecutorLane lane) {
+        return mBackgroundExecutors.get(lane).getActiveCount();
     }
 
     /**
@@ -78,10 +168,12 @@ public class DefaultExecutors implements IExecutors {
     @Override
     public <Result> void performOnForeground(final Result result,
                                              final ICallback<Result> callback) {
-        mLogger.logDebug("Starting foreground task, current active count:"
-                         + mForegroundExecutor.getActiveCount()
-                         + ", with result "
-                         + result);
+        if (mLogger.isDebugEnabled()) {
+            mLogger.logDebug("Starting foreground task, current active count:"
+                             + mForegroundExecutor.getActiveCount()
+                             + ", with result "
+                             + result);
+        }
         mForegroundExecutor.execute(new Runnable() {
             @Override
             public void run() {
@@ -91,7 +183,8 @@ public class DefaultExecutors implements IExecutors {
     }
 
     /**
-     * Performs the given callback with the result object.
+     * Performs the given callback with the progress values. A progress update that has not been delivered yet is
+     * superseded by a newer one for the same callback.
      * @param progress The progress value.
      * @param progressMax The progress value.
      * @param callback The callback to call on the foreground with this result.
@@ -100,13 +193,15 @@ public class DefaultExecutors implements IExecutors {
     public <Result> void performOnForeground(final int progress,
                                              final int progressMax,
                                              final IProgressCallback<Result> callback) {
-        mLogger.logDebug("Starting foreground task, current active count:"
-                         + mForegroundExecutor.getActiveCount()
-                         + ", with progress  "
-                         + progress
-                         + ", max progress"
-                         + progressMax);
-        mForegroundExecutor.execute(new Runnable() {
+        if (mLogger.isDebugEnabled()) {
+            mLogger.logDebug("Starting foreground task, current active count:"
+                             + mForegroundExecutor.getActiveCount()
+                             + ", with progress  "
+                             + progress
+                             + ", max progress"
+                             + progressMax);
+        }
+        mForegroundExecutor.executeCoalesced(callback, new Runnable() {
             @Override
             public void run() {
                 callback.progress(progress, progressMax);
@@ -122,10 +217,12 @@ public class DefaultExecutors implements IExecutors {
     @Override
     public <Result> void performOnForeground(final ClientException exception,
                                              final ICallback<Result> callback) {
-        mLogger.logDebug("Starting foreground task, current active count:"
-                         + mForegroundExecutor.getActiveCount()
-                         + ", with exception "
-                         + exception);
+        if (mLogger.isDebugEnabled()) {
+            mLogger.logDebug("Starting foreground task, current active count:"
+                             + mForegroundExecutor.getActiveCount()
+                             + ", with exception "
+                             + exception);
+        }
         mForegroundExecutor.execute(new Runnable() {
             @Override
             public void run() {
@@ -134,4 +231,76 @@ public class DefaultExecutors implements IExecutors {
         });
     }
 
+    /**
+     * Creates the bounded thread pool backing a lane.
+     * @param lane The lane.
+     * @param config The sizing of the lane.
+     * @return The thread pool.
+     */
+    private static ThreadPoolExecutor createLaneExecutor(final ExecutorLane lane, final ExecutorLaneConfig config) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(config.getCorePoolSize(),
+                                                                   config.getMaximumPoolSize(),
+                                                                   KEEP_ALIVE_SECONDS,
+                                                                   TimeUnit.SECONDS,
+                                                                   new ArrayBlockingQueue<Runnable>(
+                                                                           config.getQueueCapacity()),
+                                                                   new LaneThreadFactory(lane),
+                                                                   getRejectedExecutionHandler(
+                                                                           config.getSaturationPolicy()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Gets the handler that applies a saturation policy.
+     * @param policy The saturation policy.
+     * @return The rejected execution handler.
+     */
+    private static RejectedExecutionHandler getRejectedExecutionHandler(final SaturationPolicy policy) {
+        switch (policy) {
+            case CallerRuns:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DiscardOldest:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            case Reject:
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+
+    /**
+     * Names the threads of a lane and runs sync threads at a lower priority.
+     */
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        /**
+         * The lane the threads belong to.
+         */
+        private final ExecutorLane mLane;
+
+        /**
+         * The number of threads created so far.
+         */
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        /**
+         * Creates a new LaneThreadFactory.
+         * @param lane The lane the threads belong to.
+         */
+        LaneThreadFactory(final ExecutorLane lane) {
+            mLane = lane;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "OneDrive-" + mLane + "-" + mThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            if (mLane == ExecutorLane.Sync) {
+                thread.setPriority(Thread.MIN_PRIORITY);
+            } else {
+                thread.setPriority(Thread.NORM_PRIORITY);
+            }
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,167 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+/**
+ * The sizing of a single executor lane.
+ * A lane only grows past its core pool size once its queue is full, so the core pool size is the concurrency the
+ * lane actually runs at and the maximum pool size is effectively unused with a deep queue.
+ */
+public class ExecutorLaneConfig {
+
+    /**
+     * The default number of interactive threads.
+     */
+    private static final int INTERACTIVE_CORE_POOL_SIZE = 8;
+
+    /**
+     * The default number of interactive tasks that may wait for a thread.
+     */
+    private static final int INTERACTIVE_QUEUE_CAPACITY = 256;
+
+    /**
+     * The default number of transfer threads.
+     */
+    private static final int TRANSFER_CORE_POOL_SIZE = 4;
+
+    /**
+     * The default number of transfer tasks that may wait for a thread.
+     */
+    private static final int TRANSFER_QUEUE_CAPACITY = 64;
+
+    /**
+     * The default number of sync threads.
+     */
+    private static final int SYNC_CORE_POOL_SIZE = 2;
+
+    /**
+     * The default number of sync tasks that may wait for a thread.
+     */
+    private static final int SYNC_QUEUE_CAPACITY = 64;
+
+    /**
+     * The number of threads the lane grows to before queueing work.
+     */
+    private final int mCorePoolSize;
+
+    /**
+     * The number of threads the lane grows to once its queue is full.
+     */
+    private final int mMaximumPoolSize;
+
+    /**
+     * The number of tasks that may wait for a thread.
+     */
+    private final int mQueueCapacity;
+
+    /**
+     * What happens to new work once the lane is saturated.
+     */
+    private final SaturationPolicy mSaturationPolicy;
+
+    /**
+     * Creates a new lane configuration.
+     * @param corePoolSize The number of threads the lane grows to before queueing work.
+     * @param maximumPoolSize The number of threads the lane grows to once its queue is full.
+     * @param queueCapacity The number of tasks that may wait for a thread.
+     * @param saturationPolicy What happens to new work once the lane is saturated.
+     */
+    public ExecutorLaneConfig(final int corePoolSize,
+                              final int maximumPoolSize,
+                              final int queueCapacity,
+                              final SaturationPolicy saturationPolicy) {
+        if (corePoolSize < 1 || maximumPoolSize < corePoolSize) {
+            throw new IllegalArgumentException("Pool sizes must satisfy 1 <= core <= maximum");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        if (saturationPolicy == null) {
+            throw new IllegalArgumentException("Saturation policy cannot be null");
+        }
+        mCorePoolSize = corePoolSize;
+        mMaximumPoolSize = maximumPoolSize;
+        mQueueCapacity = queueCapacity;
+        mSaturationPolicy = saturationPolicy;
+    }
+
+    /**
+     * Gets the default configuration for a lane.
+     * Each lane runs at its core pool size, with the maximum pool size equal to it, and rejects new work when
+     * saturated, as work submitted from the main thread must never run there.
+     * @param lane The lane.
+     * @return The default configuration.
+     */
+    public static ExecutorLaneConfig getDefault(final ExecutorLane lane) {
+        switch (lane) {
+            case Transfer:
+                return new ExecutorLaneConfig(TRANSFER_CORE_POOL_SIZE,
+                                              TRANSFER_CORE_POOL_SIZE,
+                                              TRANSFER_QUEUE_CAPACITY,
+                                              SaturationPolicy.Reject);
+            case Sync:
+                return new ExecutorLaneConfig(SYNC_CORE_POOL_SIZE,
+                                              SYNC_CORE_POOL_SIZE,
+                                              SYNC_QUEUE_CAPACITY,
+                                              SaturationPolicy.Reject);
+            case Interactive:
+            default:
+                return new ExecutorLaneConfig(INTERACTIVE_CORE_POOL_SIZE,
+                                              INTERACTIVE_CORE_POOL_SIZE,
+                                              INTERACTIVE_QUEUE_CAPACITY,
+                                              SaturationPolicy.Reject);
+        }
+    }
+
+    /**
+     * Gets the number of threads the lane grows to before queueing work.
+     * @return The core pool size.
+     */
+    public int getCorePoolSize() {
+        return mCorePoolSize;
+    }
+
+    /**
+     * Gets the number of threads the lane grows to once its queue is full.
+     * @return The maximum pool size.
+     */
+    public int getMaximumPoolSize() {
+        return mMaximumPoolSize;
+    }
+
+    /**
+     * Gets the number of tasks that may wait for a thread.
+     * @return The queue capacity.
+     */
+    public int getQueueCapacity() {
+        return mQueueCapacity;
+    }
+
+    /**
+     * Gets what happens to new work once the lane is saturated.
+     * @return The saturation policy.
+     */
+    public SaturationPolicy getSaturationPolicy() {
+        return mSaturationPolicy;
+    }
+}
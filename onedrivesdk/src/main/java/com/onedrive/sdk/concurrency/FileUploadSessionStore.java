@@ -0,0 +1,192 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.google.gson.JsonParseException;
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.UploadSession;
+import com.onedrive.sdk.serializer.ISerializer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An upload session store that keeps one json file per upload in a directory, such as the application's files
+ * directory. Files are synced to disk and then replaced atomically, so a crash while saving leaves the previous
+ * state intact. A state file that can not be parsed is deleted and treated as no saved session.
+ */
+public class FileUploadSessionStore implements IUploadSessionStore {
+
+    /**
+     * The extension of the state files.
+     */
+    private static final String FILE_EXTENSION = ".json";
+
+    /**
+     * The extension of state files that are being written.
+     */
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+    /**
+     * The mask of the low four bits of a byte.
+     */
+    private static final int NIBBLE_MASK = 0x0f;
+
+    /**
+     * The number of bits in a nibble.
+     */
+    private static final int NIBBLE_BITS = 4;
+
+    /**
+     * The hex digits.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The charset of the state files.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The directory holding the state files.
+     */
+    private final File mDirectory;
+
+    /**
+     * The serializer.
+     */
+    private final ISerializer mSerializer;
+
+    /**
+     * Creates a new FileUploadSessionStore.
+     * @param directory The directory holding the state files, created if it does not exist.
+     * @param serializer The serializer.
+     */
+    public FileUploadSessionStore(final File directory, final ISerializer serializer) {
+        mDirectory = directory;
+        mSerializer = serializer;
+    }
+
+    @Override
+    public synchronized void save(final String key, final UploadSession session) throws ClientException {
+        final File file = getFile(key);
+        final File temporary = new File(mDirectory, file.getName() + TEMPORARY_FILE_EXTENSION);
+        FileOutputStream out = null;
+        try {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                throw new IOException("Unable to create " + mDirectory);
+            }
+            out = new FileOutputStream(temporary);
+            out.write(mSerializer.serializeObject(session).getBytes(UTF8));
+            // The contents must be on disk before the rename, or a crash could leave an empty file in place
+            out.getFD().sync();
+            out.close();
+            out = null;
+            if (!temporary.renameTo(file)) {
+                throw new IOException("Unable to replace " + file);
+            }
+        } catch (final IOException e) {
+            throw new ClientException("Unable to save upload session", e, OneDriveErrorCodes.GeneralException);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    @Override
+    public synchronized UploadSession load(final String key) throws ClientException {
+        final File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        InputStream in = null;
+        UploadSession session = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            session = mSerializer.deserializeObject(in, UploadSession.class);
+        } catch (final IOException e) {
+            throw new ClientException("Unable to load upload session", e, OneDriveErrorCodes.GeneralException);
+        } catch (final JsonParseException ignored) {
+            // A corrupt file is no better than no file, the upload starts over
+        } finally {
+            closeQuietly(in);
+        }
+        if (session == null && !file.delete()) {
+            throw new ClientException("Unable to remove corrupt upload session " + file,
+                                      null,
+                                      OneDriveErrorCodes.GeneralException);
+        }
+        return session;
+    }
+
+    @Override
+    public synchronized void remove(final String key) throws ClientException {
+        final File file = getFile(key);
+        if (file.exists() && !file.delete()) {
+            throw new ClientException("Unable to remove upload session " + file,
+                                      null,
+                                      OneDriveErrorCodes.GeneralException);
+        }
+    }
+
+    /**
+     * Gets the state file of an upload, named after the hash of its key so any key is a valid file name.
+     * @param key The key identifying the upload.
+     * @return The state file.
+     */
+    private File getFile(final String key) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF8));
+            final StringBuilder name = new StringBuilder(hash.length * 2 + FILE_EXTENSION.length());
+            for (final byte b : hash) {
+                name.append(HEX_DIGITS[(b >> NIBBLE_BITS) & NIBBLE_MASK]).append(HEX_DIGITS[b & NIBBLE_MASK]);
+            }
+            return new File(mDirectory, name.append(FILE_EXTENSION).toString());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    /**
+     * Closes a stream, ignoring any failure.
+     * @param closeable The stream, or null.
+     */
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (final IOException ignored) {
+            // Nothing left to do with the stream
+        }
+    }
+}
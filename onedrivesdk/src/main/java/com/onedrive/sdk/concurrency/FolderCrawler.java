@@ -0,0 +1,320 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.IDriveRequestBuilder;
+import com.onedrive.sdk.extensions.IItemCollectionPage;
+import com.onedrive.sdk.extensions.IItemCollectionRequestBuilder;
+import com.onedrive.sdk.extensions.IItemRequestBuilder;
+import com.onedrive.sdk.extensions.Item;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Enumerates a folder tree with several children requests in flight at once.
+ *
+ * A fixed number of workers on the sync lane, one of them the calling thread, share one deque of folders to
+ * enumerate. Each worker follows the pages of one folder
+ * and pushes the subfolders it finds onto the deque, where any idle worker picks them up, newest first so that
+ * the frontier stays small on wide trees. Items are streamed to the consumer as each page arrives.
+ */
+public class FolderCrawler {
+
+    /**
+     * The default number of folders enumerated at once.
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    /**
+     * The drive the folders are in.
+     */
+    private final IDriveRequestBuilder mDrive;
+
+    /**
+     * The number of folders enumerated at once.
+     */
+    private final int mConcurrency;
+
+    /**
+     * The deepest level that is enumerated.
+     */
+    private int mMaxDepth = Integer.MAX_VALUE;
+
+    /**
+     * The filter of the folders to descend into, or null to descend into all folders.
+     */
+    private IFolderFilter mFolderFilter;
+
+    /**
+     * The crawl in progress, or null.
+     */
+    private volatile Crawl mCrawl;
+
+    /**
+     * Creates a new FolderCrawler.
+     * @param drive The drive the folders are in, used to address subfolders by id.
+     * @param concurrency The number of folders enumerated at once.
+     */
+    public FolderCrawler(final IDriveRequestBuilder drive, final int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("The concurrency must be positive");
+        }
+        mDrive = drive;
+        mConcurrency = concurrency;
+    }
+
+    /**
+     * Limits the depth of the crawl.
+     * @param maxDepth The deepest level that is enumerated, 1 to enumerate only the children of the crawled folder.
+     */
+    public void setMaxDepth(final int maxDepth) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("The maximum depth must be positive");
+        }
+        mMaxDepth = maxDepth;
+    }
+
+    /**
+     * Sets the filter of the folders to descend into.
+     * @param folderFilter The filter, or null to descend into all folders.
+     */
+    public void setFolderFilter(final IFolderFilter folderFilter) {
+        mFolderFilter = folderFilter;
+    }
+
+    /**
+     * Enumerates everything below a folder, blocking until the crawl completes or is cancelled.
+     * @param folder The folder to crawl, such as the root of the drive.
+     * @param consumer The consumer of the discovered items.
+     * @return The number of items delivered to the consumer.
+     * @throws ClientException An exception occurs if a folder could not be enumerated, the crawl is then stopped.
+     */
+    public int crawl(final IItemRequestBuilder folder, final ICrawlConsumer consumer) throws ClientException {
+        final Crawl crawl = new Crawl(consumer, mFolderFilter, mMaxDepth);
+        mCrawl = crawl;
+        crawl.schedule(new Folder(folder, 0));
+        try {
+            LaneWorkers.run(mDrive.getClient().getExecutors(), ExecutorLane.Sync, mConcurrency, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        crawl.work();
+                    } catch (final InterruptedException e) {
+                        crawl.stop();
+                        throw e;
+                    }
+                    return null;
+                }
+            });
+        } catch (final ExecutionException e) {
+            throw new ClientException("Error during folder crawl", e.getCause(), OneDriveErrorCodes.GeneralException);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            crawl.stop();
+            throw new ClientException("Interrupted during folder crawl", e, OneDriveErrorCodes.GeneralException);
+        } finally {
+            mCrawl = null;
+        }
+        if (crawl.mFailure.get() != null) {
+            throw crawl.mFailure.get();
+        }
+        return crawl.mItemCount.get();
+    }
+
+    /**
+     * Stops the crawl in progress. Folders being enumerated finish their current page, and crawl returns the number
+     * of items delivered so far.
+     */
+    public void cancel() {
+        final Crawl crawl = mCrawl;
+        if (crawl != null) {
+            crawl.stop();
+        }
+    }
+
+    /**
+     * A folder waiting to be enumerated.
+     */
+    private static final class Folder {
+
+        /**
+         * The request builder of the folder, or null for the marker that stops a worker.
+         */
+        private final IItemRequestBuilder mBuilder;
+
+        /**
+         * The depth of the folder.
+         */
+        private final int mDepth;
+
+        /**
+         * Creates a new Folder.
+         * @param builder The request builder of the folder.
+         * @param depth The depth of the folder.
+         */
+        Folder(final IItemRequestBuilder builder, final int depth) {
+            mBuilder = builder;
+            mDepth = depth;
+        }
+    }
+
+    /**
+     * The state of one crawl, shared by its workers.
+     */
+    private final class Crawl {
+
+        /**
+         * The marker that stops a worker.
+         */
+        private final Folder mStop = new Folder(null, 0);
+
+        /**
+         * The folders waiting to be enumerated, taken newest first.
+         */
+        private final LinkedBlockingDeque<Folder> mFolders = new LinkedBlockingDeque<>();
+
+        /**
+         * The number of folders waiting or being enumerated.
+         */
+        private final AtomicInteger mPendingFolders = new AtomicInteger();
+
+        /**
+         * The number of items delivered to the consumer.
+         */
+        private final AtomicInteger mItemCount = new AtomicInteger();
+
+        /**
+         * The first failure.
+         */
+        private final AtomicReference<ClientException> mFailure = new AtomicReference<>();
+
+        /**
+         * The consumer of the discovered items.
+         */
+        private final ICrawlConsumer mConsumer;
+
+        /**
+         * The filter of the folders to descend into, or null.
+         */
+        private final IFolderFilter mFilter;
+
+        /**
+         * The deepest level that is enumerated.
+         */
+        private final int mDepthLimit;
+
+        /**
+         * Whether the crawl was stopped.
+         */
+        private volatile boolean mStopped;
+
+        /**
+         * Creates a new Crawl.
+         * @param consumer The consumer of the discovered items.
+         * @param filter The filter of the folders to descend into, or null.
+         * @param depthLimit The deepest level that is enumerated.
+         */
+        Crawl(final ICrawlConsumer consumer, final IFolderFilter filter, final int depthLimit) {
+            mConsumer = consumer;
+            mFilter = filter;
+            mDepthLimit = depthLimit;
+        }
+
+        /**
+         * Queues a folder to be enumerated.
+         * @param folder The folder.
+         */
+        void schedule(final Folder folder) {
+            mPendingFolders.incrementAndGet();
+            mFolders.addLast(folder);
+        }
+
+        /**
+         * Stops every worker, leaving the waiting folders unvisited.
+         */
+        void stop() {
+            mStopped = true;
+            for (int i = 0; i < mConcurrency; i++) {
+                mFolders.addLast(mStop);
+            }
+        }
+
+        /**
+         * Enumerates folders until the crawl completes or is stopped.
+         * @throws InterruptedException If the worker was interrupted while waiting for a folder.
+         */
+        void work() throws InterruptedException {
+            while (true) {
+                final Folder folder = mFolders.takeLast();
+                if (folder == mStop || mStopped) {
+                    return;
+                }
+                try {
+                    enumerate(folder);
+                } catch (final ClientException e) {
+                    mFailure.compareAndSet(null, e);
+                    stop();
+                } catch (final RuntimeException e) {
+                    mFailure.compareAndSet(null, new ClientException("Error during folder crawl", e,
+                                                                     OneDriveErrorCodes.GeneralException));
+                    stop();
+                } finally {
+                    if (mPendingFolders.decrementAndGet() == 0) {
+                        stop();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Enumerates the children of a folder, following its pages, and queues the subfolders to descend into.
+         * @param folder The folder.
+         * @throws ClientException An exception occurs if a page could not be fetched.
+         */
+        private void enumerate(final Folder folder) throws ClientException {
+            final int depth = folder.mDepth + 1;
+            IItemCollectionPage page = folder.mBuilder.getChildren().buildRequest().get();
+            while (true) {
+                for (final Item item : page.getCurrentPage()) {
+                    mItemCount.incrementAndGet();
+                    mConsumer.onItem(item, depth);
+                    if (item.folder != null && depth < mDepthLimit
+                        && (mFilter == null || mFilter.shouldEnter(item, depth))) {
+                        schedule(new Folder(mDrive.getItems(item.id), depth));
+                    }
+                }
+                final IItemCollectionRequestBuilder next = page.getNextPage();
+                if (next == null || mStopped) {
+                    return;
+                }
+                page = next.buildRequest().get();
+            }
+        }
+    }
+}
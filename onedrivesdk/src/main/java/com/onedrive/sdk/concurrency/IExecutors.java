@@ -30,11 +30,44 @@ import com.onedrive.sdk.core.ClientException;
 public interface IExecutors {
 
     /**
-     * Runs the given Runnable on the background thread.
+     * Runs the given Runnable on the background thread, using the {@link ExecutorLane#Interactive} lane.
      * @param runnable The Runnable to execute.
      */
     void performOnBackground(final Runnable runnable);
 
+    /**
+     * Runs the given Runnable on a background thread of the given lane.
+     * @param runnable The Runnable to execute.
+     * @param lane The lane to run on.
+     */
+    void performOnBackground(final Runnable runnable, final ExecutorLane lane);
+
+    /**
+     * Runs the given Runnable on a background thread of the given lane, reporting a saturated lane to the callback
+     * as a failure instead of throwing on the calling thread.
+     * @param runnable The Runnable to execute.
+     * @param lane The lane to run on.
+     * @param callback The callback to fail if the lane rejects the Runnable.
+     * @param <Result> The result type.
+     */
+    <Result> void performOnBackground(final Runnable runnable,
+                                      final ExecutorLane lane,
+                                      final ICallback<Result> callback);
+
+    /**
+     * Gets the number of tasks waiting for a thread on the given lane.
+     * @param lane The lane.
+     * @return The queue depth.
+     */
+    int getQueueDepth(final ExecutorLane lane);
+
+    /**
+     * Gets the approximate number of threads actively running tasks on the given lane.
+     * @param lane The lane.
+     * @return The active thread count.
+     */
+    int getActiveThreadCount(final ExecutorLane lane);
+
     /**
      * Performs the given callback with the result object.
      * @param result The result value.
@@ -0,0 +1,55 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.extensions.UploadSession;
+
+/**
+ * Persists the state of chunked uploads so they can be resumed after the process restarts.
+ */
+public interface IUploadSessionStore {
+
+    /**
+     * Saves the state of an upload, replacing any state saved under the same key.
+     * @param key The key identifying the upload, such as the local path and the destination path.
+     * @param session The upload url, expiration and the ranges the service still expects.
+     * @throws ClientException An exception occurs if the state could not be saved.
+     */
+    void save(final String key, final UploadSession session) throws ClientException;
+
+    /**
+     * Loads the state of an upload.
+     * @param key The key identifying the upload.
+     * @return The saved state, or null if there is none.
+     * @throws ClientException An exception occurs if the state could not be read.
+     */
+    UploadSession load(final String key) throws ClientException;
+
+    /**
+     * Removes the state of an upload.
+     * @param key The key identifying the upload.
+     * @throws ClientException An exception occurs if the state could not be removed.
+     */
+    void remove(final String key) throws ClientException;
+}
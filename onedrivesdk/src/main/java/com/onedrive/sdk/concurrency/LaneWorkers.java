@@ -0,0 +1,160 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs several copies of a worker task on an executor lane, with the calling thread running one of them.
+ *
+ * The workers are expected to share their work, so the calling thread alone is enough to finish it. Copies the lane
+ * cannot take, or has not started by the time the calling thread is done, are never run. This keeps the task from
+ * waiting on a saturated lane, or on itself when the caller already runs on that lane.
+ */
+final class LaneWorkers {
+
+    /**
+     * Not instantiable.
+     */
+    private LaneWorkers() {
+    }
+
+    /**
+     * Runs the copies of the task and waits for the ones that started.
+     * @param executors The executors.
+     * @param lane The lane to run the other copies on.
+     * @param count The number of copies, including the one run by the calling thread.
+     * @param task The worker task.
+     * @throws ExecutionException If a copy of the task failed, with the first failure as the cause.
+     * @throws InterruptedException If the calling thread was interrupted while waiting for the other copies.
+     */
+    static void run(final IExecutors executors, final ExecutorLane lane, final int count, final Callable<Void> task)
+            throws ExecutionException, InterruptedException {
+        final List<Worker> workers = new ArrayList<>(count);
+        for (int i = 1; i < count; i++) {
+            final Worker helper = new Worker(task);
+            workers.add(helper);
+            try {
+                executors.performOnBackground(helper, lane);
+            } catch (final RejectedExecutionException ignored) {
+                // The calling thread covers the work of the copies the lane cannot take
+                helper.claim();
+            }
+        }
+
+        final Worker own = new Worker(task);
+        workers.add(0, own);
+        own.run();
+
+        for (final Worker worker : workers) {
+            worker.claim();
+        }
+        for (final Worker worker : workers) {
+            worker.await();
+        }
+        for (final Worker worker : workers) {
+            worker.rethrow();
+        }
+    }
+
+    /**
+     * One copy of the task, run at most once.
+     */
+    private static final class Worker implements Runnable {
+
+        /**
+         * The task.
+         */
+        private final Callable<Void> mTask;
+
+        /**
+         * Whether the copy started, or was claimed so it never will.
+         */
+        private final AtomicBoolean mStarted = new AtomicBoolean();
+
+        /**
+         * Released once the copy finished or was claimed.
+         */
+        private final CountDownLatch mDone = new CountDownLatch(1);
+
+        /**
+         * The failure of the copy, or null.
+         */
+        private volatile Exception mFailure;
+
+        /**
+         * Creates a new Worker.
+         * @param task The task.
+         */
+        Worker(final Callable<Void> task) {
+            mTask = task;
+        }
+
+        @Override
+        public void run() {
+            if (!mStarted.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                mTask.call();
+            } catch (final Exception e) {
+                mFailure = e;
+            } finally {
+                mDone.countDown();
+            }
+        }
+
+        /**
+         * Prevents the copy from starting if it has not started yet.
+         */
+        void claim() {
+            if (mStarted.compareAndSet(false, true)) {
+                mDone.countDown();
+            }
+        }
+
+        /**
+         * Waits for the copy to finish.
+         * @throws InterruptedException If the calling thread was interrupted while waiting.
+         */
+        void await() throws InterruptedException {
+            mDone.await();
+        }
+
+        /**
+         * Throws the failure of the copy, if any.
+         * @throws ExecutionException If the copy failed.
+         */
+        void rethrow() throws ExecutionException {
+            if (mFailure != null) {
+                throw new ExecutionException(mFailure);
+            }
+        }
+    }
+}
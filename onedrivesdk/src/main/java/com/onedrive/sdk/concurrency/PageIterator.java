@@ -0,0 +1,308 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.http.IBaseCollectionPage;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over every item of a paged collection, following the next page links. While one page is consumed the
+ * following pages are fetched in the background, up to the prefetch depth, so the latency of all but the first
+ * page is hidden behind the consumer. The first page is requested on the first call to {@link #hasNext()}. A
+ * failure to fetch a page is thrown from {@link #hasNext()} once the pages before it have been consumed.
+ * An iterator can be iterated once, and can be cancelled from any thread.
+ * @param <T> The type of the items.
+ * @param <P> The type of the collection pages.
+ */
+public abstract class PageIterator<T, P extends IBaseCollectionPage<T, ?>> implements Iterator<T>, Iterable<T> {
+
+    /**
+     * The executors.
+     */
+    private final IExecutors mExecutors;
+
+    /**
+     * The lane the pages are fetched on.
+     */
+    private final ExecutorLane mLane;
+
+    /**
+     * The number of pages fetched ahead of the page being consumed.
+     */
+    private final int mPrefetchDepth;
+
+    /**
+     * The pages fetched but not yet consumed, guarded by this.
+     */
+    private final ArrayDeque<P> mFetched = new ArrayDeque<>();
+
+    /**
+     * The last page fetched, whose next page is requested next, guarded by this.
+     */
+    private P mLastPage;
+
+    /**
+     * The failure to fetch the page after the fetched ones, guarded by this.
+     */
+    private ClientException mFailure;
+
+    /**
+     * Whether a page is being fetched, guarded by this.
+     */
+    private boolean mFetching;
+
+    /**
+     * Whether the last page has been fetched or fetching failed, guarded by this.
+     */
+    private boolean mExhausted;
+
+    /**
+     * Whether the iteration was cancelled.
+     */
+    private volatile boolean mCancelled;
+
+    /**
+     * Whether an iteration was started through {@link #iterator()}.
+     */
+    private boolean mIterated;
+
+    /**
+     * The items of the page being consumed.
+     */
+    private Iterator<T> mCurrent;
+
+    /**
+     * Creates a new PageIterator.
+     * @param executors The executors the pages are fetched on.
+     * @param lane The lane the pages are fetched on.
+     * @param prefetchDepth The number of pages fetched ahead of the page being consumed, 0 to fetch each page only
+     *                      once the previous one has been consumed.
+     */
+    protected PageIterator(final IExecutors executors, final ExecutorLane lane, final int prefetchDepth) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("The prefetch depth must not be negative");
+        }
+        mExecutors = executors;
+        mLane = lane;
+        mPrefetchDepth = prefetchDepth;
+    }
+
+    /**
+     * Fetches the first page.
+     * @return The first page.
+     * @throws ClientException An exception occurs if the page could not be fetched.
+     */
+    protected abstract P fetchFirst() throws ClientException;
+
+    /**
+     * Fetches the page after a page.
+     * @param page The previous page, which has a next page.
+     * @return The next page.
+     * @throws ClientException An exception occurs if the page could not be fetched.
+     */
+    protected abstract P fetchNext(final P page) throws ClientException;
+
+    /**
+     * Gets this iterator, so that it can be used in a for each loop.
+     * @return This iterator.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (mIterated) {
+            throw new IllegalStateException("A page iterator can only be iterated once");
+        }
+        mIterated = true;
+        return this;
+    }
+
+    /**
+     * Determines whether there are more items, waiting for the next page if needed.
+     * @return Whether there are more items.
+     * @throws ClientException An exception occurs if the next page could not be fetched.
+     */
+    @Override
+    public boolean hasNext() throws ClientException {
+        while (!mCancelled && (mCurrent == null || !mCurrent.hasNext())) {
+            final P page = takePage();
+            if (page == null) {
+                return false;
+            }
+            final List<T> items = page.getCurrentPage();
+            if (items == null) {
+                mCurrent = Collections.<T>emptyList().iterator();
+            } else {
+                mCurrent = items.iterator();
+            }
+        }
+        return !mCancelled;
+    }
+
+    /**
+     * Gets the next item, waiting for the next page if needed.
+     * @return The next item.
+     * @throws ClientException An exception occurs if the next page could not be fetched.
+     */
+    @Override
+    public T next() throws ClientException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return mCurrent.next();
+    }
+
+    /**
+     * Items can not be removed.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops the iteration. Pages already fetched are dropped, a page being fetched is discarded when it arrives and
+     * no more pages are requested.
+     */
+    public synchronized void cancel() {
+        mCancelled = true;
+        mFetched.clear();
+        notifyAll();
+    }
+
+    /**
+     * Gets whether the iteration was cancelled.
+     * @return Whether the iteration was cancelled.
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Takes the next fetched page, waiting for it if needed.
+     * @return The page, or null if there are no more pages or the iteration was cancelled.
+     * @throws ClientException An exception occurs if the next page could not be fetched.
+     */
+    private synchronized P takePage() throws ClientException {
+        while (mFetched.isEmpty()) {
+            if (mCancelled) {
+                return null;
+            }
+            if (mFailure != null) {
+                final ClientException failure = mFailure;
+                mFailure = null;
+                throw failure;
+            }
+            if (mExhausted && !mFetching) {
+                return null;
+            }
+            requestPage(true);
+            if (!mFetching) {
+                // The page was fetched on this thread
+                continue;
+            }
+            try {
+                wait();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new ClientException("Interrupted while waiting for a page", e,
+                                          OneDriveErrorCodes.GeneralException);
+            }
+        }
+        final P page = mFetched.remove();
+        requestPage(false);
+        return page;
+    }
+
+    /**
+     * Requests the next page in the background, if none is being fetched and the prefetch depth allows it.
+     * @param needed Whether the consumer is waiting for the page.
+     */
+    private synchronized void requestPage(final boolean needed) {
+        if (mCancelled || mFetching || mExhausted || (!needed && mFetched.size() >= mPrefetchDepth)) {
+            return;
+        }
+        mFetching = true;
+        final P previous = mLastPage;
+        try {
+            mExecutors.performOnBackground(new Runnable() {
+                @Override
+                public void run() {
+                    fetch(previous);
+                }
+            }, mLane);
+        } catch (final RuntimeException e) {
+            // Such as a rejection by a saturated lane, a prefetch is requested again once the page is needed
+            mFetching = false;
+            if (needed) {
+                mFailure = new ClientException("Unable to request the next page", e,
+                                               OneDriveErrorCodes.GeneralException);
+                mExhausted = true;
+            }
+        }
+    }
+
+    /**
+     * Fetches a page and hands it to the consumer.
+     * @param previous The previous page, or null to fetch the first page.
+     */
+    private void fetch(final P previous) {
+        P page = null;
+        boolean last = false;
+        ClientException failure = null;
+        try {
+            if (previous == null) {
+                page = fetchFirst();
+            } else {
+                page = fetchNext(previous);
+            }
+            last = page.getNextPage() == null;
+        } catch (final ClientException e) {
+            failure = e;
+        } catch (final RuntimeException e) {
+            failure = new ClientException("Unable to fetch the next page", e, OneDriveErrorCodes.GeneralException);
+        }
+        synchronized (this) {
+            mFetching = false;
+            if (mCancelled) {
+                return;
+            }
+            if (failure != null) {
+                mFailure = failure;
+                mExhausted = true;
+            } else {
+                mFetched.add(page);
+                mLastPage = page;
+                mExhausted = last;
+            }
+            requestPage(false);
+            notifyAll();
+        }
+    }
+}
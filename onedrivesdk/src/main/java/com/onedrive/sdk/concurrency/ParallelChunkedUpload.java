@@ -0,0 +1,498 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.ChunkedUploadResult;
+import com.onedrive.sdk.extensions.IOneDriveClient;
+import com.onedrive.sdk.extensions.UploadSession;
+import com.onedrive.sdk.options.Option;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Uploads the chunks of an upload session with several ranges in flight at once.
+ *
+ * Seekable inputs are streamed concurrently from their file regions without a chunk buffer, for other inputs each
+ * worker owns one chunk buffer and the input is read one chunk at a time in order while earlier chunks are still
+ * being sent. Ranges that still fail after the
+ * per chunk retries are resent from a seekable input, guided by the ranges the service reports as missing.
+ *
+ * @param <UploadType> The upload item type.
+ */
+class ParallelChunkedUpload<UploadType> {
+
+    /**
+     * The separator between the start and end of a range in nextExpectedRanges.
+     */
+    private static final char RANGE_SEPARATOR = '-';
+
+    /**
+     * The client.
+     */
+    private final IOneDriveClient mClient;
+
+    /**
+     * The upload session url.
+     */
+    private final String mUploadUrl;
+
+    /**
+     * The upload options.
+     */
+    private final List<Option> mOptions;
+
+    /**
+     * The upload response handler.
+     */
+    private final ChunkedUploadResponseHandler<UploadType> mResponseHandler;
+
+    /**
+     * The progress callback.
+     */
+    private final IProgressCallback<UploadType> mCallback;
+
+    /**
+     * The input stream, read in order when the input is not seekable.
+     */
+    private final InputStream mInputStream;
+
+    /**
+     * The input channel when the input is seekable, null otherwise.
+     */
+    private final FileChannel mChannel;
+
+    /**
+     * The position of the input channel that corresponds to the start of the upload.
+     */
+    private final long mChannelOrigin;
+
+    /**
+     * The stream size.
+     */
+    private final int mStreamSize;
+
+    /**
+     * The chunk size.
+     */
+    private final int mChunkSize;
+
+    /**
+     * The retry limit for a single chunk.
+     */
+    private final int mMaxRetry;
+
+    /**
+     * The ranges the service expects when resuming an upload, or null to send everything from the start offset.
+     */
+    private final List<String> mExpectedRanges;
+
+    /**
+     * The checkpoint of the upload, or null if it is not resumable.
+     */
+    private final UploadSessionCheckpoint mCheckpoint;
+
+    /**
+     * The offset the upload starts from.
+     */
+    private final int mStartOffset;
+
+    /**
+     * The offset of the next chunk to read from a non seekable input, guarded by mInputStream.
+     */
+    private int mNextOffset;
+
+    /**
+     * The bytes reported to the progress callback so far, guarded by this.
+     */
+    private long mAcknowledged;
+
+    /**
+     * The bytes sent successfully so far, guarded by this.
+     */
+    private long mSent;
+
+    /**
+     * The number of chunks acknowledged so far, guarded by this.
+     */
+    private long mCheckpointGeneration;
+
+    /**
+     * The acknowledgement the checkpoint was last saved for, guarded by mCheckpoint.
+     */
+    private long mSavedGeneration;
+
+    /**
+     * The uploaded item, once the service has received every range.
+     */
+    private volatile UploadType mItem;
+
+    /**
+     * The last chunk error.
+     */
+    private volatile ClientException mError;
+
+    /**
+     * Whether the workers should stop taking new ranges.
+     */
+    private volatile boolean mStopped;
+
+    /**
+     * Creates a new ParallelChunkedUpload.
+     * @param client The client.
+     * @param uploadUrl The upload session url.
+     * @param options The upload options.
+     * @param responseHandler The upload response handler.
+     * @param callback The progress callback.
+     * @param inputStream The input stream.
+     * @param channel The input channel when the input is seekable, or null.
+     * @param channelOrigin The position of the input channel that corresponds to the start of the upload.
+     * @param startOffset The offset the upload starts from.
+     * @param expectedRanges The ranges the service expects when resuming an upload, or null.
+     * @param checkpoint The checkpoint of the upload, or null.
+     * @param streamSize The stream size.
+     * @param chunkSize The chunk size.
+     * @param maxRetry The retry limit for a single chunk.
+     */
+    ParallelChunkedUpload(final IOneDriveClient client,
+                          final String uploadUrl,
+                          final List<Option> options,
+                          final ChunkedUploadResponseHandler<UploadType> responseHandler,
+                          final IProgressCallback<UploadType> callback,
+                          final InputStream inputStream,
+                          final FileChannel channel,
+                          final long channelOrigin,
+                          final int startOffset,
+                          final List<String> expectedRanges,
+                          final UploadSessionCheckpoint checkpoint,
+                          final int streamSize,
+                          final int chunkSize,
+                          final int maxRetry) {
+        mClient = client;
+        mUploadUrl = uploadUrl;
+        mOptions = options;
+        mResponseHandler = responseHandler;
+        mCallback = callback;
+        mInputStream = inputStream;
+        mChannel = channel;
+        mChannelOrigin = channelOrigin;
+        mStartOffset = startOffset;
+        mExpectedRanges = expectedRanges;
+        mCheckpoint = checkpoint;
+        mNextOffset = startOffset;
+        mAcknowledged = startOffset;
+        mStreamSize = streamSize;
+        mChunkSize = chunkSize;
+        mMaxRetry = maxRetry;
+    }
+
+    /**
+     * Uploads the remaining ranges and reports the outcome to the callback.
+     * @param window The number of ranges in flight at once.
+     * @throws IOException The io exception happened while reading the input.
+     */
+    void upload(final int window) throws IOException {
+        Queue<int[]> pending = null;
+        if (mChannel != null) {
+            pending = new ConcurrentLinkedQueue<>();
+            if (mExpectedRanges != null) {
+                for (final String range : mExpectedRanges) {
+                    final int[] parsed = parseRange(range, mStreamSize);
+                    addChunks(pending, parsed[0], parsed[1]);
+                }
+            } else {
+                addChunks(pending, mStartOffset, mStreamSize);
+            }
+        }
+
+        for (int round = 0;; round++) {
+            final Queue<int[]> failed = new ConcurrentLinkedQueue<>();
+            runWorkers(window, pending, failed);
+
+            if (mItem != null) {
+                if (mCheckpoint != null) {
+                    mCheckpoint.clear();
+                }
+                mCallback.progress(mStreamSize, mStreamSize);
+                ChunkedUploadProvider.invalidateUploaded(mClient, mItem);
+                mCallback.success(mItem);
+                return;
+            }
+
+            if (mChannel == null || round >= mMaxRetry) {
+                break;
+            }
+
+            pending = getMissingRanges(failed);
+            if (pending.isEmpty()) {
+                break;
+            }
+            mClient.getLogger().logDebug("Resending {} chunks the service has not received", pending.size());
+            mStopped = false;
+        }
+
+        ClientException error = mError;
+        if (error == null) {
+            error = new ClientException("Upload session failed too many times.",
+                                        null,
+                                        OneDriveErrorCodes.UploadSessionIncomplete);
+        }
+        mCallback.failure(error);
+    }
+
+    /**
+     * Runs the workers until every range has been attempted or the upload has stopped.
+     * @param window The number of workers.
+     * @param pending The ranges to send from a seekable input, or null to read the input stream in order.
+     * @param failed The ranges that could not be sent.
+     * @throws IOException The io exception happened while reading the input.
+     */
+    private void runWorkers(final int window, final Queue<int[]> pending, final Queue<int[]> failed)
+            throws IOException {
+        try {
+            LaneWorkers.run(mClient.getExecutors(), ExecutorLane.Transfer, window, new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    try {
+                        uploadChunks(pending, failed);
+                    } catch (final IOException | RuntimeException e) {
+                        mStopped = true;
+                        throw e;
+                    }
+                    return null;
+                }
+            });
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw new IllegalStateException(e.getCause());
+            }
+        } catch (final InterruptedException e) {
+            mStopped = true;
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for chunk uploads");
+        }
+    }
+
+    /**
+     * Sends chunks until there are none left or the upload has stopped.
+     * @param pending The ranges to send from a seekable input, or null to read the input stream in order.
+     * @param failed The ranges that could not be sent.
+     * @throws IOException The io exception happened while reading the input.
+     */
+    private void uploadChunks(final Queue<int[]> pending, final Queue<int[]> failed) throws IOException {
+        byte[] buffer = null;
+        if (pending == null) {
+            buffer = new byte[mChunkSize];
+        }
+        while (!mStopped) {
+            final int[] range;
+            final ChunkedUploadRequest request;
+            if (pending != null) {
+                range = pending.poll();
+                if (range == null) {
+                    return;
+                }
+                request = new ChunkedUploadRequest(mUploadUrl, mClient, mOptions, mChannel, mChannelOrigin + range[0],
+                                                   range[1] - range[0], mMaxRetry, range[0], mStreamSize);
+            } else {
+                range = readStream(buffer);
+                if (range == null) {
+                    return;
+                }
+                request = new ChunkedUploadRequest(mUploadUrl, mClient, mOptions, buffer, range[1] - range[0],
+                                                   mMaxRetry, range[0], mStreamSize);
+            }
+
+            final ChunkedUploadResult result = request.upload(mResponseHandler);
+
+            if (result.uploadCompleted()) {
+                mItem = (UploadType) result.getItem();
+                mStopped = true;
+            } else if (result.chunkCompleted()) {
+                onChunkAcknowledged(range[1] - range[0], result.getSession());
+            } else {
+                mError = result.getError();
+                failed.add(range);
+                if (pending == null) {
+                    // The bytes of a non seekable input cannot be read again
+                    mStopped = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the next chunk of the non seekable input.
+     * @param buffer The buffer to read into.
+     * @return The range that was read, or null if the input has been consumed.
+     * @throws IOException The io exception happened while reading the input.
+     */
+    private int[] readStream(final byte[] buffer) throws IOException {
+        synchronized (mInputStream) {
+            final int length = Math.min(mChunkSize, mStreamSize - mNextOffset);
+            int filled = 0;
+            while (filled < length) {
+                final int read = mInputStream.read(buffer, filled, length - filled);
+                if (read == -1) {
+                    break;
+                }
+                filled += read;
+            }
+            if (filled == 0) {
+                return null;
+            }
+            final int[] range = new int[] { mNextOffset, mNextOffset + filled };
+            mNextOffset += filled;
+            return range;
+        }
+    }
+
+    /**
+     * Updates the progress once a chunk has been accepted, using the ranges the service still expects when present.
+     * The checkpoint is written after the progress is updated, outside of the lock.
+     * @param length The chunk length.
+     * @param session The upload session returned with the chunk.
+     */
+    private void onChunkAcknowledged(final int length, final UploadSession session) {
+        final long generation;
+        synchronized (this) {
+            mSent += length;
+            long acknowledged = mStartOffset + mSent;
+            if (session != null && session.nextExpectedRanges != null) {
+                try {
+                    acknowledged = mStreamSize - getRemainingBytes(session.nextExpectedRanges);
+                } catch (final NumberFormatException e) {
+                    mClient.getLogger().logError("Unable to parse the expected ranges " + session.nextExpectedRanges,
+                                                 e);
+                }
+            }
+            if (acknowledged > mAcknowledged) {
+                mAcknowledged = acknowledged;
+                mCallback.progress(acknowledged, mStreamSize);
+            }
+            generation = ++mCheckpointGeneration;
+        }
+        if (mCheckpoint != null) {
+            saveCheckpoint(session, generation);
+        }
+    }
+
+    /**
+     * Saves the checkpoint, unless a later acknowledgement has already been saved.
+     * @param session The upload session returned with the chunk.
+     * @param generation The order of the acknowledgement.
+     */
+    private void saveCheckpoint(final UploadSession session, final long generation) {
+        synchronized (mCheckpoint) {
+            if (generation > mSavedGeneration) {
+                mSavedGeneration = generation;
+                mCheckpoint.save(session, mStartOffset);
+            }
+        }
+    }
+
+    /**
+     * Gets the ranges to resend after a round, asking the service which ranges it is still missing.
+     * @param failed The ranges that could not be sent in the last round.
+     * @return The ranges to resend.
+     */
+    private Queue<int[]> getMissingRanges(final Queue<int[]> failed) {
+        final Queue<int[]> missing = new ConcurrentLinkedQueue<>();
+        try {
+            final UploadSession session = ChunkedUploadProvider.getSessionStatus(mClient, mUploadUrl);
+            if (session != null && session.nextExpectedRanges != null) {
+                for (final String range : session.nextExpectedRanges) {
+                    final int[] parsed = parseRange(range, mStreamSize);
+                    addChunks(missing, parsed[0], parsed[1]);
+                }
+                return missing;
+            }
+        } catch (final ClientException | NumberFormatException e) {
+            mClient.getLogger().logError("Unable to get the upload session status, resending failed ranges", e);
+            missing.clear();
+        }
+        missing.addAll(failed);
+        return missing;
+    }
+
+    /**
+     * Splits a range into chunks.
+     * @param chunks The queue to add the chunks to.
+     * @param start The start offset, inclusive.
+     * @param end The end offset, exclusive.
+     */
+    private void addChunks(final Queue<int[]> chunks, final int start, final int end) {
+        for (int offset = start; offset < end; offset += mChunkSize) {
+            chunks.add(new int[] { offset, Math.min(offset + mChunkSize, end) });
+        }
+    }
+
+    /**
+     * Gets the number of bytes the service still expects.
+     * @param ranges The nextExpectedRanges of the upload session.
+     * @return The number of bytes.
+     * @throws NumberFormatException If a range is malformed.
+     */
+    private long getRemainingBytes(final List<String> ranges) {
+        long remaining = 0;
+        for (final String range : ranges) {
+            final int[] parsed = parseRange(range, mStreamSize);
+            remaining += parsed[1] - parsed[0];
+        }
+        return remaining;
+    }
+
+    /**
+     * Parses a range of nextExpectedRanges, such as "0-1023" or "1024-".
+     * @param range The range.
+     * @param streamSize The stream size, the end of open ended ranges.
+     * @return The start offset, inclusive, and the end offset, exclusive.
+     * @throws NumberFormatException If the range is malformed.
+     */
+    static int[] parseRange(final String range, final int streamSize) {
+        final int separator = range.indexOf(RANGE_SEPARATOR);
+        if (separator < 0) {
+            final int start = Integer.parseInt(range.trim());
+            return new int[] { start, start + 1 };
+        }
+        final int start = Integer.parseInt(range.substring(0, separator).trim());
+        final String end = range.substring(separator + 1).trim();
+        if (end.isEmpty()) {
+            return new int[] { start, streamSize };
+        }
+        return new int[] { start, Math.min(Integer.parseInt(end) + 1, streamSize) };
+    }
+}
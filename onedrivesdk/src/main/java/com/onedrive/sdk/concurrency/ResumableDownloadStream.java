@@ -0,0 +1,430 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.extensions.IOneDriveClient;
+import com.onedrive.sdk.http.BaseRequest;
+import com.onedrive.sdk.http.HttpMethod;
+import com.onedrive.sdk.http.HttpResponseCode;
+import com.onedrive.sdk.http.IConnection;
+import com.onedrive.sdk.http.IHttpRequest;
+import com.onedrive.sdk.http.IStatefulResponseHandler;
+import com.onedrive.sdk.http.OneDriveServiceException;
+import com.onedrive.sdk.logger.ILogger;
+import com.onedrive.sdk.options.Option;
+import com.onedrive.sdk.serializer.ISerializer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A download stream that survives dropped connections. It counts the bytes delivered to the caller and, after a
+ * transient failure, re-issues the request with a Range header for the rest of the content. The eTag of the first
+ * response is required to match on every resume, so two versions of a file are never spliced together.
+ */
+public class ResumableDownloadStream extends InputStream {
+
+    /**
+     * The default number of consecutive resumes without progress before giving up.
+     */
+    public static final int MAXIMUM_RETRY_TIMES = 3;
+
+    /**
+     * The milliseconds for retry delay.
+     */
+    private static final int RETRY_DELAY = 1000;
+
+    /**
+     * The mask of the bits of a byte.
+     */
+    private static final int BYTE_MASK = 0xff;
+
+    /**
+     * The range header name.
+     */
+    private static final String RANGE_HEADER_NAME = "Range";
+
+    /**
+     * The if match header name.
+     */
+    private static final String IF_MATCH_HEADER_NAME = "If-Match";
+
+    /**
+     * The eTag response header name.
+     */
+    private static final String ETAG_HEADER_NAME = "ETag";
+
+    /**
+     * The content range response header name.
+     */
+    private static final String CONTENT_RANGE_HEADER_NAME = "Content-Range";
+
+    /**
+     * The content length response header name.
+     */
+    private static final String CONTENT_LENGTH_HEADER_NAME = "Content-Length";
+
+    /**
+     * The client.
+     */
+    private final IOneDriveClient mClient;
+
+    /**
+     * The url of the content.
+     */
+    private final String mRequestUrl;
+
+    /**
+     * The options of the content request.
+     */
+    private final List<Option> mOptions;
+
+    /**
+     * The number of consecutive resumes without progress before giving up.
+     */
+    private final int mMaxRetry;
+
+    /**
+     * The buffer for single byte reads.
+     */
+    private final byte[] mSingleByte = new byte[1];
+
+    /**
+     * The body of the current response.
+     */
+    private InputStream mIn;
+
+    /**
+     * The bytes delivered to the caller so far.
+     */
+    private long mPosition;
+
+    /**
+     * The total length of the content, or -1 if it is unknown.
+     */
+    private long mLength = -1;
+
+    /**
+     * The eTag of the first response, or null if the server did not send one.
+     */
+    private String mETag;
+
+    /**
+     * The resumes since bytes were last delivered.
+     */
+    private int mRetries;
+
+    /**
+     * Whether the content changed on the server since the first response.
+     */
+    private boolean mContentChanged;
+
+    /**
+     * Whether this stream has been closed.
+     */
+    private boolean mClosed;
+
+    /**
+     * Creates the ResumableDownloadStream.
+     * @param client The onedrive client.
+     * @param requestUrl The url of the content.
+     * @param options The options of the content request.
+     * @param maxRetry The number of consecutive resumes without progress before giving up.
+     */
+    private ResumableDownloadStream(final IOneDriveClient client,
+                                    final String requestUrl,
+                                    final List<Option> options,
+                                    final int maxRetry) {
+        if (client == null) {
+            throw new InvalidParameterException("OneDrive client is null.");
+        }
+
+        if (requestUrl == null) {
+            throw new InvalidParameterException("Request url is null.");
+        }
+
+        mClient = client;
+        mRequestUrl = requestUrl;
+        mOptions = options;
+        mMaxRetry = maxRetry;
+    }
+
+    /**
+     * Requests the content and returns a stream over it that resumes after dropped connections.
+     * @param client The onedrive client.
+     * @param requestUrl The url of the content.
+     * @param options The options of the content request.
+     * @param maxRetry The number of consecutive resumes without progress before giving up.
+     * @return The stream that the caller needs to close.
+     * @throws ClientException An exception occurs if the first request failed.
+     */
+    public static ResumableDownloadStream open(final IOneDriveClient client,
+                                               final String requestUrl,
+                                               final List<Option> options,
+                                               final int maxRetry) throws ClientException {
+        final ResumableDownloadStream stream = new ResumableDownloadStream(client, requestUrl, options, maxRetry);
+        stream.connect();
+        return stream;
+    }
+
+    /**
+     * Gets the bytes delivered so far.
+     * @return The position in the content.
+     */
+    public long getPosition() {
+        return mPosition;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (read(mSingleByte, 0, 1) == -1) {
+            return -1;
+        }
+        return mSingleByte[0] & BYTE_MASK;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (true) {
+            checkOpen();
+            IOException failure;
+            try {
+                final int read = mIn.read(buffer, offset, length);
+                if (read != -1) {
+                    onDelivered(read);
+                    return read;
+                }
+                if (isComplete()) {
+                    return -1;
+                }
+                failure = new IOException("Connection closed after " + mPosition + " of " + mLength + " bytes");
+            } catch (final IOException e) {
+                failure = e;
+            }
+            resume(failure);
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkOpen();
+        try {
+            return mIn.available();
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        if (mIn != null) {
+            mIn.close();
+            mIn = null;
+        }
+    }
+
+    /**
+     * Throws if this stream has been closed, or if the download failed and can not be read any further.
+     * @throws IOException If this stream has been closed or has no response left to read.
+     */
+    private void checkOpen() throws IOException {
+        if (mClosed) {
+            throw new IOException("Stream closed");
+        }
+        if (mIn == null) {
+            throw new IOException("Download failed");
+        }
+    }
+
+    /**
+     * Records bytes delivered to the caller.
+     * @param bytes The number of bytes.
+     */
+    private void onDelivered(final int bytes) {
+        mPosition += bytes;
+        mRetries = 0;
+    }
+
+    /**
+     * Gets whether the end of the current response is the end of the content.
+     * @return true if all the content has been delivered, or the length of the content is unknown.
+     */
+    private boolean isComplete() {
+        return mLength < 0 || mPosition >= mLength;
+    }
+
+    /**
+     * Re-issues the request for the content after the delivered bytes.
+     * @param cause The failure of the current response.
+     * @throws IOException The cause, if the download can not be resumed.
+     */
+    private void resume(final IOException cause) throws IOException {
+        closeQuietly();
+        if (mETag == null) {
+            mClient.getLogger().logDebug("No eTag to verify the content with, download can not be resumed");
+            throw cause;
+        }
+
+        while (mRetries < mMaxRetry) {
+            try {
+                Thread.sleep(RETRY_DELAY * mRetries * mRetries);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw cause;
+            }
+            mRetries++;
+
+            mClient.getLogger().logDebug("Resuming download at byte {}, attempt {}", mPosition, mRetries);
+            try {
+                connect();
+                return;
+            } catch (final ClientException e) {
+                if (mContentChanged) {
+                    throw new IOException("Content changed on the server during the download", e);
+                }
+                mClient.getLogger().logDebug("Resume request failed, retry if necessary.");
+            }
+        }
+        throw cause;
+    }
+
+    /**
+     * Closes the current response without reporting failures.
+     */
+    private void closeQuietly() {
+        if (mIn == null) {
+            return;
+        }
+        try {
+            mIn.close();
+        } catch (final IOException ignored) {
+            // The connection is already broken
+        }
+        mIn = null;
+    }
+
+    /**
+     * Requests the content from the current position.
+     * @throws ClientException An exception occurs if the request failed.
+     */
+    private void connect() throws ClientException {
+        final BaseRequest request = new BaseRequest(mRequestUrl, mClient, mOptions, InputStream.class) { };
+        request.setHttpMethod(HttpMethod.GET);
+        if (mPosition > 0) {
+            request.addHeader(RANGE_HEADER_NAME, "bytes=" + mPosition + "-");
+            request.addHeader(IF_MATCH_HEADER_NAME, mETag);
+        }
+        mIn = mClient.getHttpProvider().send(request, InputStream.class, null, new ResumeResponseHandler());
+    }
+
+    /**
+     * Checks that a response continues the content at the current position and returns its body.
+     */
+    private class ResumeResponseHandler implements IStatefulResponseHandler<InputStream, InputStream> {
+
+        @Override
+        public void configConnection(final IConnection connection) {
+            // Nothing to configure
+        }
+
+        @Override
+        public InputStream generateResult(final IHttpRequest request,
+                                          final IConnection connection,
+                                          final ISerializer serializer,
+                                          final ILogger logger) throws Exception {
+            final int responseCode = connection.getResponseCode();
+            if (responseCode == HttpResponseCode.HTTP_PRECONDITION_FAILED) {
+                mContentChanged = true;
+            }
+            if (responseCode >= HttpResponseCode.HTTP_CLIENT_ERROR) {
+                throw OneDriveServiceException.createFromConnection(request, null, serializer, connection);
+            }
+
+            final Map<String, String> headers = connection.getHeaders();
+            final String eTag = ChunkedDownloadProvider.getHeader(headers, ETAG_HEADER_NAME);
+            if (mPosition == 0 && mETag == null) {
+                mETag = eTag;
+            } else if (eTag == null || !eTag.equals(mETag)) {
+                mContentChanged = true;
+                connection.getInputStream().close();
+                throw new IOException("Expected eTag " + mETag + " but the server returned " + eTag);
+            }
+
+            final InputStream in = new BufferedInputStream(connection.getInputStream());
+            if (responseCode == HttpResponseCode.HTTP_PARTIAL_CONTENT) {
+                final long[] contentRange = ChunkedDownloadProvider.parseContentRange(
+                        ChunkedDownloadProvider.getHeader(headers, CONTENT_RANGE_HEADER_NAME));
+                if (contentRange[0] != mPosition) {
+                    in.close();
+                    throw new IOException("Server resumed at byte " + contentRange[0] + " instead of " + mPosition);
+                }
+                mLength = contentRange[1];
+                return in;
+            }
+
+            final String contentLength = ChunkedDownloadProvider.getHeader(headers, CONTENT_LENGTH_HEADER_NAME);
+            if (contentLength != null) {
+                mLength = Long.parseLong(contentLength.trim());
+            }
+            if (mPosition > 0) {
+                logger.logDebug("Server ignored the range, skipping the delivered bytes");
+                skipFully(in, mPosition);
+            }
+            return in;
+        }
+
+        /**
+         * Skips bytes of a response body that have already been delivered.
+         * @param in The response body.
+         * @param count The number of bytes to skip.
+         * @throws IOException An exception occurs if the body ended early.
+         */
+        private void skipFully(final InputStream in, final long count) throws IOException {
+            long remaining = count;
+            while (remaining > 0) {
+                final long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    if (in.read() == -1) {
+                        in.close();
+                        throw new IOException("Response ended before the resume position");
+                    }
+                    remaining--;
+                } else {
+                    remaining -= skipped;
+                }
+            }
+        }
+    }
+}
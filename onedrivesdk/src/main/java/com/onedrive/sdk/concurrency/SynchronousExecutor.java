@@ -22,40 +22,92 @@
 
 package com.onedrive.sdk.concurrency;
 
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An executor that runs only on the main thread of an Android application.
+ * Pending tasks are collected in a lock-free queue and run in batches, with a single message posted to the main
+ * thread per batch rather than one per task.
  */
 public class SynchronousExecutor implements Executor {
 
+    /**
+     * How long a single batch may run on the main thread before yielding to the next frame, in milliseconds.
+     */
+    private static final long DRAIN_BUDGET_MILLIS = 8L;
+
     /**
      * The current number of synchronously executing actions.
      */
     private AtomicInteger mActiveCount = new AtomicInteger(0);
 
+    /**
+     * The tasks waiting to run on the main thread.
+     */
+    private final Queue<Runnable> mPending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The latest task for each coalescing key that has not run yet.
+     */
+    private final ConcurrentHashMap<Object, Runnable> mCoalesced = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a batch has been posted to the main thread and has not started draining yet.
+     */
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean(false);
+
+    /**
+     * The handler for the main thread.
+     */
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Runs the pending tasks on the main thread.
+     */
+    private final Runnable mDrain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
     /**
      * Executes the given Runnable task.
      * @param runnable The task to run on the main thread.
      */
     @Override public void execute(@NonNull final Runnable runnable) {
-        final AsyncTask<Void, Void, Void> asyncTask = new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(final Void... params) {
-                return null;
-            }
-            @Override
-            protected void onPostExecute(final Void result) {
-                mActiveCount.incrementAndGet();
-                runnable.run();
-                mActiveCount.decrementAndGet();
-            }
-        };
-        asyncTask.execute();
+        mPending.offer(runnable);
+        scheduleDrain();
+    }
+
+    /**
+     * Executes the given Runnable task, replacing any task with the same key that has not run yet. The task keeps
+     * the place in line of the task it replaced.
+     * @param key The coalescing key, such as the callback the task reports to.
+     * @param runnable The task to run on the main thread.
+     */
+    public void executeCoalesced(@NonNull final Object key, @NonNull final Runnable runnable) {
+        if (mCoalesced.put(key, runnable) == null) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Runnable latest = mCoalesced.remove(key);
+                    if (latest != null) {
+                        latest.run();
+                    }
+                }
+            });
+        }
     }
 
     /**
@@ -65,4 +117,46 @@ public class SynchronousExecutor implements Executor {
     public int getActiveCount() {
         return mActiveCount.get();
     }
+
+    /**
+     * Gets the number of tasks waiting to run on the main thread.
+     * @return The count.
+     */
+    public int getPendingCount() {
+        return mPending.size();
+    }
+
+    /**
+     * Posts a batch to the main thread unless one is already waiting.
+     */
+    private void scheduleDrain() {
+        if (mDrainScheduled.compareAndSet(false, true)) {
+            mHandler.post(mDrain);
+        }
+    }
+
+    /**
+     * Runs pending tasks until the queue is empty or the batch is over budget, in which case the remainder is left
+     * for the next batch.
+     */
+    private void drain() {
+        mDrainScheduled.set(false);
+        final long deadline = SystemClock.uptimeMillis() + DRAIN_BUDGET_MILLIS;
+        Runnable runnable = mPending.poll();
+        while (runnable != null) {
+            mActiveCount.incrementAndGet();
+            try {
+                runnable.run();
+            } finally {
+                mActiveCount.decrementAndGet();
+            }
+            if (SystemClock.uptimeMillis() > deadline) {
+                break;
+            }
+            runnable = mPending.poll();
+        }
+        if (!mPending.isEmpty()) {
+            scheduleDrain();
+        }
+    }
 }
@@ -0,0 +1,115 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.concurrency;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.extensions.UploadSession;
+import com.onedrive.sdk.logger.ILogger;
+
+import java.util.Calendar;
+import java.util.Collections;
+
+/**
+ * Records the progress of one chunked upload in an upload session store. Failures to persist are logged and do
+ * not fail the upload, it only becomes less resumable.
+ */
+class UploadSessionCheckpoint {
+
+    /**
+     * The store.
+     */
+    private final IUploadSessionStore mStore;
+
+    /**
+     * The key identifying the upload.
+     */
+    private final String mKey;
+
+    /**
+     * The upload session url.
+     */
+    private final String mUploadUrl;
+
+    /**
+     * The logger.
+     */
+    private final ILogger mLogger;
+
+    /**
+     * The latest known expiration of the upload session.
+     */
+    private Calendar mExpiration;
+
+    /**
+     * Creates a new UploadSessionCheckpoint.
+     * @param store The store.
+     * @param key The key identifying the upload.
+     * @param session The upload session.
+     * @param logger The logger.
+     */
+    UploadSessionCheckpoint(final IUploadSessionStore store,
+                            final String key,
+                            final UploadSession session,
+                            final ILogger logger) {
+        mStore = store;
+        mKey = key;
+        mUploadUrl = session.uploadUrl;
+        mExpiration = session.expirationDateTime;
+        mLogger = logger;
+    }
+
+    /**
+     * Saves the ranges the service still expects.
+     * @param session The session returned with the latest accepted chunk, or null.
+     * @param nextOffset The offset the upload continues from if the session has no ranges.
+     */
+    synchronized void save(final UploadSession session, final int nextOffset) {
+        final UploadSession state = new UploadSession();
+        state.uploadUrl = mUploadUrl;
+        if (session != null && session.expirationDateTime != null) {
+            mExpiration = session.expirationDateTime;
+        }
+        state.expirationDateTime = mExpiration;
+        if (session != null && session.nextExpectedRanges != null) {
+            state.nextExpectedRanges = session.nextExpectedRanges;
+        } else {
+            state.nextExpectedRanges = Collections.singletonList(nextOffset + "-");
+        }
+        try {
+            mStore.save(mKey, state);
+        } catch (final ClientException e) {
+            mLogger.logError("Unable to save upload session checkpoint", e);
+        }
+    }
+
+    /**
+     * Removes the saved state once the upload has completed.
+     */
+    synchronized void clear() {
+        try {
+            mStore.remove(mKey);
+        } catch (final ClientException e) {
+            mLogger.logError("Unable to remove upload session checkpoint", e);
+        }
+    }
+}
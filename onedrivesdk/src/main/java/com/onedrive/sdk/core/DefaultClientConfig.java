@@ -27,15 +27,27 @@ import com.onedrive.sdk.authentication.AuthorizationInterceptor;
 import com.onedrive.sdk.authentication.DisambiguationAuthenticator;
 import com.onedrive.sdk.authentication.IAuthenticator;
 import com.onedrive.sdk.authentication.MSAAuthenticator;
+import com.onedrive.sdk.authentication.TokenManager;
 import com.onedrive.sdk.concurrency.DefaultExecutors;
+import com.onedrive.sdk.concurrency.ExecutorLane;
+import com.onedrive.sdk.concurrency.ExecutorLaneConfig;
 import com.onedrive.sdk.concurrency.IExecutors;
+import com.onedrive.sdk.http.DefaultConnectionFactory;
 import com.onedrive.sdk.http.DefaultHttpProvider;
+import com.onedrive.sdk.http.IConnectionFactory;
 import com.onedrive.sdk.http.IHttpProvider;
 import com.onedrive.sdk.http.IRequestInterceptor;
+import com.onedrive.sdk.http.RequestCoalescer;
+import com.onedrive.sdk.http.ResponseCache;
 import com.onedrive.sdk.logger.DefaultLogger;
 import com.onedrive.sdk.logger.ILogger;
 import com.onedrive.sdk.serializer.DefaultSerializer;
 import com.onedrive.sdk.serializer.ISerializer;
+import com.onedrive.sdk.serializer.RawObjectPolicy;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The default configuration for a OneDrive client.
@@ -72,6 +84,53 @@ public abstract class DefaultClientConfig implements IClientConfig {
      */
     private IRequestInterceptor mRequestInterceptor;
 
+    /**
+     * Whether the serializer should parse each response only once.
+     */
+    private boolean mSinglePassDeserialization;
+
+    /**
+     * How the serializer retains the raw json of deserialized objects.
+     */
+    private RawObjectPolicy mRawObjectPolicy = RawObjectPolicy.Eager;
+
+    /**
+     * The connection factory used by the http provider.
+     */
+    private IConnectionFactory mConnectionFactory = new DefaultConnectionFactory();
+
+    /**
+     * Whether the http provider requests compressed json responses.
+     */
+    private boolean mResponseCompression;
+
+    /**
+     * The cache of json responses, or null if caching is disabled.
+     */
+    private ResponseCache mResponseCache;
+
+    /**
+     * The coalescer of identical in-flight GET requests, or null if coalescing is disabled.
+     */
+    private RequestCoalescer mRequestCoalescer;
+
+    /**
+     * The token manager used by the request interceptor.
+     */
+    private TokenManager mTokenManager;
+
+    /**
+     * How long before expiry access tokens are refreshed in the background, in milliseconds, or 0 to only
+     * refresh expired tokens when a request needs them.
+     */
+    private long mTokenRefreshMarginMillis;
+
+    /**
+     * The sizing of the executor lanes that have been configured.
+     */
+    private final Map<ExecutorLane, ExecutorLaneConfig> mExecutorLaneConfigs =
+            new EnumMap<>(ExecutorLane.class);
+
     /**
      * Creates an instance of this OneDrive config with an authenticator.
      * @param authenticator The authenticator.
@@ -118,7 +177,11 @@ public abstract class DefaultClientConfig implements IClientConfig {
             mHttpProvider = new DefaultHttpProvider(getSerializer(),
                                                     getRequestInterceptor(),
                                                     getExecutors(),
-                                                    getLogger());
+                                                    getLogger(),
+                                                    mConnectionFactory);
+            mHttpProvider.setCompressionEnabled(mResponseCompression);
+            mHttpProvider.setResponseCache(mResponseCache);
+            mHttpProvider.setRequestCoalescer(mRequestCoalescer);
             mLogger.logDebug("Created DefaultHttpProvider");
         }
         return mHttpProvider;
@@ -131,7 +194,7 @@ public abstract class DefaultClientConfig implements IClientConfig {
     @Override
     public ISerializer getSerializer() {
         if (mSerializer == null) {
-            mSerializer = new DefaultSerializer(getLogger());
+            mSerializer = new DefaultSerializer(getLogger(), mSinglePassDeserialization, mRawObjectPolicy);
             mLogger.logDebug("Created DefaultSerializer");
         }
         return mSerializer;
@@ -144,7 +207,7 @@ public abstract class DefaultClientConfig implements IClientConfig {
     @Override
     public IExecutors getExecutors() {
         if (mExecutors == null) {
-            mExecutors = new DefaultExecutors(getLogger());
+            mExecutors = new DefaultExecutors(getLogger(), mExecutorLaneConfigs);
             mLogger.logDebug("Created DefaultExecutors");
         }
         return mExecutors;
@@ -162,13 +225,129 @@ public abstract class DefaultClientConfig implements IClientConfig {
         return mLogger;
     }
 
+    /**
+     * Sets whether the serializer should parse each response only once, binding the typed object and the raw
+     * json object from the same parsed tree. Must be called before the serializer is first used.
+     * @param singlePassDeserialization true to enable single pass deserialization.
+     */
+    public void setSinglePassDeserialization(final boolean singlePassDeserialization) {
+        if (mSerializer != null) {
+            throw new IllegalStateException("The serializer has already been created");
+        }
+        mSinglePassDeserialization = singlePassDeserialization;
+    }
+
+    /**
+     * Sets how the serializer retains the raw json of deserialized objects, see {@link RawObjectPolicy}.
+     * Must be called before the serializer is first used.
+     * @param rawObjectPolicy The raw object policy.
+     */
+    public void setRawObjectPolicy(final RawObjectPolicy rawObjectPolicy) {
+        if (mSerializer != null) {
+            throw new IllegalStateException("The serializer has already been created");
+        }
+        mRawObjectPolicy = rawObjectPolicy;
+    }
+
+    /**
+     * Sets the sizing and saturation policy of a background executor lane, lanes that are not configured use
+     * {@link ExecutorLaneConfig#getDefault(ExecutorLane)}. Must be called before the executors are first used.
+     * @param lane The lane.
+     * @param laneConfig The lane configuration.
+     */
+    public void setExecutorLaneConfig(final ExecutorLane lane, final ExecutorLaneConfig laneConfig) {
+        if (mExecutors != null) {
+            throw new IllegalStateException("The executors have already been created");
+        }
+        mExecutorLaneConfigs.put(lane, laneConfig);
+    }
+
+    /**
+     * Sets the connection factory used by the http provider, such as a
+     * {@link com.onedrive.sdk.http.PooledConnectionFactory} to keep connections alive between requests.
+     * Must be called before the http provider is first used.
+     * @param connectionFactory The connection factory.
+     */
+    public void setConnectionFactory(final IConnectionFactory connectionFactory) {
+        if (mHttpProvider != null) {
+            throw new IllegalStateException("The http provider has already been created");
+        }
+        mConnectionFactory = connectionFactory;
+    }
+
+    /**
+     * Sets whether json responses are requested with gzip or deflate encoding, the saved transfer can be monitored
+     * with {@link DefaultHttpProvider#getCompressionStats()}. Must be called before the http provider is first used.
+     * @param responseCompression true to request compressed responses.
+     */
+    public void setResponseCompression(final boolean responseCompression) {
+        if (mHttpProvider != null) {
+            throw new IllegalStateException("The http provider has already been created");
+        }
+        mResponseCompression = responseCompression;
+    }
+
+    /**
+     * Sets the cache that json GET responses with an eTag are stored in, so unchanged items and folders are
+     * answered from the cache after the service confirms them with 304 Not Modified.
+     * Must be called before the http provider is first used.
+     * @param responseCache The response cache, or null to disable caching.
+     */
+    public void setResponseCache(final ResponseCache responseCache) {
+        if (mHttpProvider != null) {
+            throw new IllegalStateException("The http provider has already been created");
+        }
+        mResponseCache = responseCache;
+    }
+
+    /**
+     * Sets the coalescer that lets identical json GET requests in flight at the same time share one exchange and
+     * one result, the shared requests can be monitored with {@link RequestCoalescer#getCoalescedCount()}.
+     * Must be called before the http provider is first used.
+     * @param requestCoalescer The request coalescer, or null to disable coalescing.
+     */
+    public void setRequestCoalescer(final RequestCoalescer requestCoalescer) {
+        if (mHttpProvider != null) {
+            throw new IllegalStateException("The http provider has already been created");
+        }
+        mRequestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Sets how long before expiry access tokens are refreshed on a background timer, so requests do not wait for
+     * a refresh when the token expires. Must be called before the http provider is first used.
+     * @param refreshMargin How long before expiry to refresh, or 0 to only refresh expired tokens.
+     * @param unit The unit of the margin.
+     */
+    public void setTokenRefreshMargin(final long refreshMargin, final TimeUnit unit) {
+        if (mTokenManager != null) {
+            throw new IllegalStateException("The token manager has already been created");
+        }
+        mTokenRefreshMarginMillis = unit.toMillis(refreshMargin);
+    }
+
+    /**
+     * Gets the token manager that refreshes access tokens, its refresh latency and the requests that waited on a
+     * refresh can be monitored with {@link TokenManager#getStats()}.
+     * @return The token manager.
+     */
+    public TokenManager getTokenManager() {
+        if (mTokenManager == null) {
+            mTokenManager = new TokenManager(getAuthenticator(), getLogger());
+            if (mTokenRefreshMarginMillis > 0) {
+                mTokenManager.startProactiveRefresh(mTokenRefreshMarginMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return mTokenManager;
+    }
+
     /**
      * Gets the request interceptor.
      * @return The request interceptor.
      */
     private IRequestInterceptor getRequestInterceptor() {
         if (mRequestInterceptor == null) {
-            mRequestInterceptor = new AuthorizationInterceptor(getAuthenticator(), getLogger());
+            mRequestInterceptor = new AuthorizationInterceptor(getTokenManager(), getLogger());
         }
         return mRequestInterceptor;
     }
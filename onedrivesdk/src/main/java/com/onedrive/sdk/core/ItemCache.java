@@ -0,0 +1,267 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.core;
+
+import com.onedrive.sdk.extensions.Item;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches item metadata by drive and item id, so that repeated GETs of the same item are answered without a round
+ * trip. Entries expire after a fixed time to live and the least recently used entries are evicted once the cache
+ * is full. Entries are invalidated when the item is changed through the client, or reported as changed or deleted
+ * by a delta request, and can be bypassed per request with
+ * {@link com.onedrive.sdk.extensions.IItemRequest#bypassCache()}. Cached items are shared between callers and should
+ * not be modified.
+ * <p>
+ * Changes made through the client drop the item by the id it was requested by and by the id of the returned item,
+ * together with its parent. A few changes cannot be tracked this way and stay cached until they expire: an item
+ * deleted through its path, as no item is returned; the former parent of a moved item; and the items created by a
+ * copy, which completes after the destination folder was dropped. Changes made by other clients are only seen
+ * through a delta request or once the entry expires.
+ */
+public class ItemCache {
+
+    /**
+     * The drive id used for the default drive, which is addressed without an id.
+     */
+    private static final String DEFAULT_DRIVE_ID = "";
+
+    /**
+     * The separator between the drive id and the item id in a key.
+     */
+    private static final char KEY_SEPARATOR = '/';
+
+    /**
+     * The initial capacity of the index.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The load factor of the index.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The largest number of cached items.
+     */
+    private final int mMaximumEntries;
+
+    /**
+     * The time to live of an entry, in nanoseconds.
+     */
+    private final long mTimeToLiveNanos;
+
+    /**
+     * The entries in access order, guarded by this.
+     */
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * The number of lookups answered from the cache.
+     */
+    private final AtomicLong mHitCount = new AtomicLong();
+
+    /**
+     * The number of lookups not answered from the cache.
+     */
+    private final AtomicLong mMissCount = new AtomicLong();
+
+    /**
+     * The number of entries dropped because they expired or the cache was full.
+     */
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+    /**
+     * Creates a new ItemCache.
+     * @param maximumEntries The largest number of cached items.
+     * @param timeToLive The time an item is served from the cache after it was fetched.
+     * @param unit The unit of the time to live.
+     */
+    public ItemCache(final int maximumEntries, final long timeToLive, final TimeUnit unit) {
+        if (maximumEntries <= 0) {
+            throw new IllegalArgumentException("The maximum number of entries must be positive");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("The time to live must be positive");
+        }
+        mMaximumEntries = maximumEntries;
+        mTimeToLiveNanos = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Gets a cached item.
+     * @param driveId The drive id, or null for the default drive.
+     * @param itemId The item id.
+     * @return The item, or null if it is not cached or has expired.
+     */
+    public synchronized Item get(final String driveId, final String itemId) {
+        final String key = createKey(driveId, itemId);
+        final Entry entry = mEntries.get(key);
+        if (entry == null) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        if (System.nanoTime() - entry.mCreated >= mTimeToLiveNanos) {
+            mEntries.remove(key);
+            mEvictionCount.incrementAndGet();
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        mHitCount.incrementAndGet();
+        return entry.mItem;
+    }
+
+    /**
+     * Caches an item under its id, evicting the least recently used entries over the bound.
+     * @param driveId The drive id, or null for the default drive.
+     * @param item The item.
+     */
+    public synchronized void put(final String driveId, final Item item) {
+        if (item == null || item.id == null) {
+            return;
+        }
+        mEntries.put(createKey(driveId, item.id), new Entry(item, System.nanoTime()));
+        final Iterator<Entry> eldest = mEntries.values().iterator();
+        while (mEntries.size() > mMaximumEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            mEvictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops a cached item. As the default drive is addressed without its id, an item cached for the default drive
+     * is dropped as well.
+     * @param driveId The drive id, or null for the default drive.
+     * @param itemId The item id.
+     */
+    public synchronized void invalidate(final String driveId, final String itemId) {
+        if (itemId == null) {
+            return;
+        }
+        mEntries.remove(createKey(driveId, itemId));
+        mEntries.remove(createKey(null, itemId));
+    }
+
+    /**
+     * Drops an item returned by a change made through the client and its parent, whose children changed. The item
+     * is dropped from the drive in its parent reference, or from the given drive if the reference has none.
+     * @param driveId The drive id of the request that made the change, or null for the default drive.
+     * @param item The changed item, ignored if null.
+     */
+    public synchronized void invalidate(final String driveId, final Item item) {
+        if (item == null) {
+            return;
+        }
+        String itemDriveId = driveId;
+        if (item.parentReference != null && item.parentReference.driveId != null) {
+            itemDriveId = item.parentReference.driveId;
+        }
+        invalidate(itemDriveId, item.id);
+        if (item.parentReference != null) {
+            invalidate(itemDriveId, item.parentReference.id);
+        }
+    }
+
+    /**
+     * Drops all cached items.
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    /**
+     * Gets the number of cached items, including those that have expired but were not looked up since.
+     * @return The number of cached items.
+     */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups not answered from the cache, including those of expired items.
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Gets the number of entries dropped because they expired or the cache was full.
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * Creates the key of an item.
+     * @param driveId The drive id, or null for the default drive.
+     * @param itemId The item id.
+     * @return The key.
+     */
+    private static String createKey(final String driveId, final String itemId) {
+        if (driveId == null) {
+            return DEFAULT_DRIVE_ID + KEY_SEPARATOR + itemId;
+        }
+        return driveId + KEY_SEPARATOR + itemId;
+    }
+
+    /**
+     * A cached item.
+     */
+    private static final class Entry {
+
+        /**
+         * The item.
+         */
+        private final Item mItem;
+
+        /**
+         * The time the item was cached, from {@link System#nanoTime()}.
+         */
+        private final long mCreated;
+
+        /**
+         * Creates a new Entry.
+         * @param item The item.
+         * @param created The time the item was cached.
+         */
+        Entry(final Item item, final long created) {
+            mItem = item;
+            mCreated = created;
+        }
+    }
+}
@@ -49,4 +49,19 @@ public class CopyRequest extends BaseCopyRequest implements ICopyRequest {
     public CopyRequest(final String requestUrl, final IOneDriveClient client, final List<Option> options, final String name, final ItemReference parentReference) {
         super(requestUrl, client, options, name, parentReference);
     }
+
+    /**
+     * Starts the copy, dropping the destination folder from the client's item cache once the copy was accepted
+     * @return The monitor of the copy
+     * @throws ClientException An exception occurs if there was an error while the request was sent
+     */
+    @Override
+    public AsyncMonitor<Item> post() throws ClientException {
+        final AsyncMonitor<Item> monitor = super.post();
+        final ItemCache cache = getClient().getItemCache();
+        if (cache != null && mBody.parentReference != null) {
+            cache.invalidate(mBody.parentReference.driveId, mBody.parentReference.id);
+        }
+        return monitor;
+    }
 }
@@ -32,6 +32,8 @@ import com.onedrive.sdk.serializer.*;
 
 import java.util.*;
 
+import android.net.Uri;
+
 // This file is available for extending, afterwards please submit a pull request.
 
 /**
@@ -39,6 +41,16 @@ import java.util.*;
  */
 public class DeltaRequest extends BaseDeltaRequest implements IDeltaRequest {
 
+    /**
+     * The path segment preceding a drive id
+     */
+    private static final String DRIVES_SEGMENT = "drives";
+
+    /**
+     * The id of the drive of the request, or null for the default drive
+     */
+    private final String mDriveId;
+
     /**
      * The request for this Delta
      *
@@ -48,5 +60,54 @@ public class DeltaRequest extends BaseDeltaRequest implements IDeltaRequest {
      */
     public DeltaRequest(final String requestUrl, final IOneDriveClient client, final List<Option> options, final String token) {
         super(requestUrl, client, options, token);
+        final List<String> segments = Uri.parse(requestUrl).getPathSegments();
+        final int drives = segments.indexOf(DRIVES_SEGMENT);
+        if (drives >= 0 && drives < segments.size() - 1) {
+            mDriveId = segments.get(drives + 1);
+        } else {
+            mDriveId = null;
+        }
+    }
+
+    /**
+     * Gets a page of changes, dropping every changed or deleted item from the client's item cache
+     * @return The page of changes
+     * @throws ClientException An exception occurs if there was an error while the request was sent
+     */
+    @Override
+    public IDeltaCollectionPage get() throws ClientException {
+        final IDeltaCollectionPage page = super.get();
+        final ItemCache cache = getBaseRequest().getClient().getItemCache();
+        if (cache != null && page.getCurrentPage() != null) {
+            for (final Item item : page.getCurrentPage()) {
+                if (item.parentReference != null && item.parentReference.driveId != null) {
+                    cache.invalidate(item.parentReference.driveId, item.id);
+                } else {
+                    cache.invalidate(mDriveId, item.id);
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Iterates over the changes on all pages, fetching the following pages in the background
+     * @param prefetchDepth The number of pages fetched ahead of the page being consumed
+     * @return The iterator, which can be cancelled
+     */
+    @Override
+    public PageIterator<Item, IDeltaCollectionPage> iterate(final int prefetchDepth) {
+        final IExecutors executors = getBaseRequest().getClient().getExecutors();
+        return new PageIterator<Item, IDeltaCollectionPage>(executors, ExecutorLane.Sync, prefetchDepth) {
+            @Override
+            protected IDeltaCollectionPage fetchFirst() throws ClientException {
+                return DeltaRequest.this.get();
+            }
+
+            @Override
+            protected IDeltaCollectionPage fetchNext(final IDeltaCollectionPage page) throws ClientException {
+                return page.getNextPage().buildRequest().get();
+            }
+        };
     }
 }
@@ -39,4 +39,10 @@ import java.util.*;
  */
 public interface IItemCollectionRequest extends IBaseItemCollectionRequest {
 
+    /**
+     * Iterates over the children on all pages, fetching the following pages in the background
+     * @param prefetchDepth The number of pages fetched ahead of the page being consumed
+     * @return The iterator, which can be cancelled
+     */
+    PageIterator<Item, IItemCollectionPage> iterate(final int prefetchDepth);
 }
@@ -39,4 +39,9 @@ import java.util.*;
  */
 public interface IItemRequest extends IBaseItemRequest {
 
+    /**
+     * Sends this request to the service even if the item is in the client's item cache
+     * @return The updated request
+     */
+    IItemRequest bypassCache();
 }
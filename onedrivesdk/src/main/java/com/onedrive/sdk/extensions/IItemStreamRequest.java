@@ -30,6 +30,10 @@ import com.onedrive.sdk.generated.*;
 import com.onedrive.sdk.options.*;
 import com.onedrive.sdk.serializer.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.*;
 
 // This file is available for extending, afterwards please submit a pull request.
@@ -39,4 +43,45 @@ import java.util.*;
  */
 public interface IItemStreamRequest extends IBaseItemStreamRequest {
 
+    /**
+     * Downloads the content into a file over several connections, each fetching a byte range.
+     * @param target The file to write to.
+     * @param callback The callback receiving the aggregate progress and the content length on success.
+     * @param configs The optional configs, see {@link ChunkedDownloadProvider#download}.
+     * @throws IOException An exception occurs if the file could not be written.
+     */
+    void download(final FileChannel target, final IProgressCallback<Long> callback, final int... configs)
+            throws IOException;
+
+    /**
+     * Uploads the content of a stream without holding it in memory.
+     * @param content The stream to upload, it is not closed by this request.
+     * @param length The number of bytes to upload from the stream.
+     * @param callback The callback to be called after success or failure.
+     */
+    void put(final InputStream content, final long length, final ICallback<Item> callback);
+
+    /**
+     * Uploads the content of a stream without holding it in memory.
+     * @param content The stream to upload, it is not closed by this request.
+     * @param length The number of bytes to upload from the stream.
+     * @return The uploaded item.
+     * @throws ClientException An exception occurs if there was an error while the request was sent.
+     */
+    Item put(final InputStream content, final long length) throws ClientException;
+
+    /**
+     * Uploads the content of a file without holding it in memory.
+     * @param file The file to upload.
+     * @param callback The callback to be called after success or failure.
+     */
+    void put(final File file, final ICallback<Item> callback);
+
+    /**
+     * Uploads the content of a file without holding it in memory.
+     * @param file The file to upload.
+     * @return The uploaded item.
+     * @throws ClientException An exception occurs if there was an error while the request was sent.
+     */
+    Item put(final File file) throws ClientException;
 }
@@ -44,4 +44,10 @@ public interface IOneDriveClient extends IBaseOneDriveClient {
      * @return The request builder.
      */
     IDriveRequestBuilder getDrive();
+
+    /**
+     * Gets the item metadata cache.
+     * @return The item cache, or null if items are not cached.
+     */
+    ItemCache getItemCache();
 }
@@ -39,4 +39,10 @@ import java.util.*;
  */
 public interface ISearchRequest extends IBaseSearchRequest {
 
+    /**
+     * Iterates over the search results on all pages, fetching the following pages in the background
+     * @param prefetchDepth The number of pages fetched ahead of the page being consumed
+     * @return The iterator, which can be cancelled
+     */
+    PageIterator<Item, ISearchCollectionPage> iterate(final int prefetchDepth);
 }
@@ -49,4 +49,25 @@ public class ItemCollectionRequest extends BaseItemCollectionRequest implements
     public ItemCollectionRequest(final String requestUrl, final IOneDriveClient client, final List<Option> options) {
         super(requestUrl, client, options);
     }
+
+    /**
+     * Iterates over the children on all pages, fetching the following pages in the background
+     * @param prefetchDepth The number of pages fetched ahead of the page being consumed
+     * @return The iterator, which can be cancelled
+     */
+    @Override
+    public PageIterator<Item, IItemCollectionPage> iterate(final int prefetchDepth) {
+        final IExecutors executors = getBaseRequest().getClient().getExecutors();
+        return new PageIterator<Item, IItemCollectionPage>(executors, ExecutorLane.Interactive, prefetchDepth) {
+            @Override
+            protected IItemCollectionPage fetchFirst() throws ClientException {
+                return ItemCollectionRequest.this.get();
+            }
+
+            @Override
+            protected IItemCollectionPage fetchNext(final IItemCollectionPage page) throws ClientException {
+                return page.getNextPage().buildRequest().get();
+            }
+        };
+    }
 }
@@ -32,6 +32,8 @@ import com.onedrive.sdk.serializer.*;
 
 import java.util.*;
 
+import android.net.Uri;
+
 // This file is available for extending, afterwards please submit a pull request.
 
 /**
@@ -39,6 +41,36 @@ import java.util.*;
  */
 public class ItemRequest extends BaseItemRequest implements IItemRequest {
 
+    /**
+     * The path segment of the default drive
+     */
+    private static final String DRIVE_SEGMENT = "drive";
+
+    /**
+     * The path segment preceding a drive id
+     */
+    private static final String DRIVES_SEGMENT = "drives";
+
+    /**
+     * The path segment preceding an item id
+     */
+    private static final String ITEMS_SEGMENT = "items";
+
+    /**
+     * The id of the drive of the item, or null for the default drive
+     */
+    private final String mDriveId;
+
+    /**
+     * The id of the item, or null if the item is not addressed by its id
+     */
+    private final String mItemId;
+
+    /**
+     * Whether the item cache is bypassed
+     */
+    private boolean mBypassCache;
+
     /**
      * The request for the Item
      *
@@ -48,5 +80,254 @@ public class ItemRequest extends BaseItemRequest implements IItemRequest {
      */
     public ItemRequest(final String requestUrl, final IOneDriveClient client, final List<Option> options) {
         super(requestUrl, client, options);
+        final List<String> segments = Uri.parse(requestUrl).getPathSegments();
+        final int items = segments.size() - 2;
+        if (items > 0 && ITEMS_SEGMENT.equals(segments.get(items))
+            && DRIVE_SEGMENT.equals(segments.get(items - 1))) {
+            mDriveId = null;
+            mItemId = segments.get(items + 1);
+        } else if (items > 1 && ITEMS_SEGMENT.equals(segments.get(items))
+            && DRIVES_SEGMENT.equals(segments.get(items - 2))) {
+            mDriveId = segments.get(items - 1);
+            mItemId = segments.get(items + 1);
+        } else {
+            mDriveId = null;
+            mItemId = null;
+        }
+    }
+
+    /**
+     * Sends this request to the service even if the item is in the client's item cache
+     * @return The updated request
+     */
+    @Override
+    public IItemRequest bypassCache() {
+        mBypassCache = true;
+        return this;
+    }
+
+    /**
+     * Gets the item, from the client's item cache if it is there
+     * @param callback The callback to be called after success or failure
+     */
+    @Override
+    public void get(final ICallback<Item> callback) {
+        final ItemCache cache = getCacheForGet();
+        if (cache == null) {
+            super.get(callback);
+            return;
+        }
+        if (!mBypassCache) {
+            final Item cached = cache.get(mDriveId, mItemId);
+            if (cached != null) {
+                getClient().getExecutors().performOnForeground(cached, callback);
+                return;
+            }
+        }
+        super.get(new ICallback<Item>() {
+            @Override
+            public void success(final Item result) {
+                putInCache(cache, result);
+                callback.success(result);
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                callback.failure(ex);
+            }
+        });
+    }
+
+    /**
+     * Gets the item, from the client's item cache if it is there
+     * @return The item
+     * @throws ClientException An exception occurs if there was an error while the request was sent
+     */
+    @Override
+    public Item get() throws ClientException {
+        final ItemCache cache = getCacheForGet();
+        if (cache == null) {
+            return super.get();
+        }
+        if (!mBypassCache) {
+            final Item cached = cache.get(mDriveId, mItemId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final Item item = super.get();
+        putInCache(cache, item);
+        return item;
+    }
+
+    /**
+     * Patches the item, dropping it and the returned item with its parent from the client's item cache
+     * @param sourceItem The source item
+     * @param callback The callback to be called after success or failure
+     */
+    @Override
+    public void patch(final Item sourceItem, final ICallback<Item> callback) {
+        invalidate();
+        super.patch(sourceItem, invalidateItemOnCompletion(callback));
+    }
+
+    /**
+     * Patches the item, dropping it and the returned item with its parent from the client's item cache
+     * @param sourceItem The source item
+     * @return The patched item
+     * @throws ClientException An exception occurs if there was an error while the request was sent
+     */
+    @Override
+    public Item patch(final Item sourceItem) throws ClientException {
+        invalidate();
+        final Item result;
+        try {
+            result = super.patch(sourceItem);
+        } finally {
+            invalidate();
+        }
+        invalidate(result);
+        return result;
+    }
+
+    /**
+     * Deletes the item, dropping it from the client's item cache
+     * @param callback The callback to be called after success or failure
+     */
+    @Override
+    public void delete(final ICallback<Void> callback) {
+        invalidate();
+        super.delete(invalidateOnCompletion(callback));
+    }
+
+    /**
+     * Deletes the item, dropping it from the client's item cache
+     * @throws ClientException An exception occurs if there was an error while the request was sent
+     */
+    @Override
+    public void delete() throws ClientException {
+        invalidate();
+        try {
+            super.delete();
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Creates a child of the item, dropping the item and the created item from the client's item cache
+     * @param newItem The new item
+     * @param callback The callback to be called after success or failure
+     */
+    @Override
+    public void post(final Item newItem, final ICallback<Item> callback) {
+        invalidate();
+        super.post(newItem, invalidateItemOnCompletion(callback));
+    }
+
+    /**
+     * Creates a child of the item, dropping the item and the created item from the client's item cache
+     * @param newItem The new item
+     * @return The created item
+     * @throws ClientException An exception occurs if there was an error while the request was sent
+     */
+    @Override
+    public Item post(final Item newItem) throws ClientException {
+        invalidate();
+        final Item result;
+        try {
+            result = super.post(newItem);
+        } finally {
+            invalidate();
+        }
+        invalidate(result);
+        return result;
+    }
+
+    /**
+     * Gets the item cache to be used by a GET, the response of a query with options is never cached
+     * @return The item cache, or null if the item cache is not used
+     */
+    private ItemCache getCacheForGet() {
+        if (mItemId == null || !getQueryOptions().isEmpty()) {
+            return null;
+        }
+        return getClient().getItemCache();
+    }
+
+    /**
+     * Caches an item fetched by this request, if it is cached under the id it was requested by
+     * @param cache The item cache
+     * @param item The item
+     */
+    private void putInCache(final ItemCache cache, final Item item) {
+        if (item != null && mItemId.equals(item.id)) {
+            cache.put(mDriveId, item);
+        }
+    }
+
+    /**
+     * Drops the item from the client's item cache
+     */
+    private void invalidate() {
+        final ItemCache cache = getClient().getItemCache();
+        if (cache != null) {
+            cache.invalidate(mDriveId, mItemId);
+        }
+    }
+
+    /**
+     * Drops an item returned by this request and its parent from the client's item cache, which covers items
+     * addressed by their path
+     * @param item The returned item
+     */
+    private void invalidate(final Item item) {
+        final ItemCache cache = getClient().getItemCache();
+        if (cache != null) {
+            cache.invalidate(mDriveId, item);
+        }
+    }
+
+    /**
+     * Wraps a callback to drop the item, and on success the returned item with its parent, from the client's item
+     * cache once the request completes
+     * @param callback The callback
+     * @return The wrapped callback
+     */
+    private ICallback<Item> invalidateItemOnCompletion(final ICallback<Item> callback) {
+        return invalidateOnCompletion(new ICallback<Item>() {
+            @Override
+            public void success(final Item result) {
+                invalidate(result);
+                callback.success(result);
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                callback.failure(ex);
+            }
+        });
+    }
+
+    /**
+     * Wraps a callback to drop the item from the client's item cache once the request completes
+     * @param callback The callback
+     * @param <T> The result type
+     * @return The wrapped callback
+     */
+    private <T> ICallback<T> invalidateOnCompletion(final ICallback<T> callback) {
+        return new ICallback<T>() {
+            @Override
+            public void success(final T result) {
+                invalidate();
+                callback.success(result);
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                invalidate();
+                callback.failure(ex);
+            }
+        };
     }
 }
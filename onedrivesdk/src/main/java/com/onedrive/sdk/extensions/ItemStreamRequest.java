@@ -30,6 +30,10 @@ import com.onedrive.sdk.generated.*;
 import com.onedrive.sdk.options.*;
 import com.onedrive.sdk.serializer.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.*;
 
 // This file is available for extending, afterwards please submit a pull request.
@@ -49,4 +53,118 @@ public class ItemStreamRequest extends BaseItemStreamRequest implements IItemStr
     public ItemStreamRequest(final String requestUrl, final IOneDriveClient client, final List<Option> options) {
         super(requestUrl, client, options);
     }
+
+    /**
+     * Downloads the content into a file over several connections, each fetching a byte range.
+     * @param target The file to write to.
+     * @param callback The callback receiving the aggregate progress and the content length on success.
+     * @param configs The optional configs, see {@link ChunkedDownloadProvider#download}.
+     * @throws IOException An exception occurs if the file could not be written.
+     */
+    @Override
+    public void download(final FileChannel target, final IProgressCallback<Long> callback, final int... configs)
+            throws IOException {
+        createDownloadProvider().download(target, callback, configs);
+    }
+
+    /**
+     * Uploads the content of a stream without holding it in memory, dropping the uploaded item and its parent from
+     * the client's item cache.
+     * @param content The stream to upload, it is not closed by this request.
+     * @param length The number of bytes to upload from the stream.
+     * @param callback The callback to be called after success or failure.
+     */
+    @Override
+    public void put(final InputStream content, final long length, final ICallback<Item> callback) {
+        send(content, length, invalidateOnSuccess(callback));
+    }
+
+    /**
+     * Uploads the content of a stream without holding it in memory, dropping the uploaded item and its parent from
+     * the client's item cache.
+     * @param content The stream to upload, it is not closed by this request.
+     * @param length The number of bytes to upload from the stream.
+     * @return The uploaded item.
+     * @throws ClientException An exception occurs if there was an error while the request was sent.
+     */
+    @Override
+    public Item put(final InputStream content, final long length) throws ClientException {
+        return invalidate(send(content, length));
+    }
+
+    /**
+     * Uploads the content of a file without holding it in memory, dropping the uploaded item and its parent from
+     * the client's item cache.
+     * @param file The file to upload.
+     * @param callback The callback to be called after success or failure.
+     */
+    @Override
+    public void put(final File file, final ICallback<Item> callback) {
+        send(file, invalidateOnSuccess(callback));
+    }
+
+    /**
+     * Uploads the content of a file without holding it in memory, dropping the uploaded item and its parent from
+     * the client's item cache.
+     * @param file The file to upload.
+     * @return The uploaded item.
+     * @throws ClientException An exception occurs if there was an error while the request was sent.
+     */
+    @Override
+    public Item put(final File file) throws ClientException {
+        return invalidate(send(file));
+    }
+
+    /**
+     * Uploads the content, dropping the uploaded item and its parent from the client's item cache.
+     * @param fileContents The content to upload.
+     * @param callback The callback to be called after success or failure.
+     */
+    @Override
+    public void put(final byte[] fileContents, final ICallback<Item> callback) {
+        super.put(fileContents, invalidateOnSuccess(callback));
+    }
+
+    /**
+     * Uploads the content, dropping the uploaded item and its parent from the client's item cache.
+     * @param fileContents The content to upload.
+     * @return The uploaded item.
+     * @throws ClientException An exception occurs if there was an error while the request was sent.
+     */
+    @Override
+    public Item put(final byte[] fileContents) throws ClientException {
+        return invalidate(super.put(fileContents));
+    }
+
+    /**
+     * Drops an uploaded item and its parent from the client's item cache.
+     * @param item The uploaded item.
+     * @return The uploaded item.
+     */
+    private Item invalidate(final Item item) {
+        final ItemCache cache = getClient().getItemCache();
+        if (cache != null) {
+            cache.invalidate(/* driveId */ null, item);
+        }
+        return item;
+    }
+
+    /**
+     * Wraps a callback to drop the uploaded item and its parent from the client's item cache on success.
+     * @param callback The callback.
+     * @return The wrapped callback.
+     */
+    private ICallback<Item> invalidateOnSuccess(final ICallback<Item> callback) {
+        return new ICallback<Item>() {
+            @Override
+            public void success(final Item result) {
+                callback.success(invalidate(result));
+            }
+
+            @Override
+            public void failure(final ClientException ex) {
+                callback.failure(ex);
+            }
+        };
+    }
 }
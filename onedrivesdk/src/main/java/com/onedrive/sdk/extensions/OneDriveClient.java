@@ -43,6 +43,11 @@ import android.app.Activity;
  */
 public class OneDriveClient extends BaseOneDriveClient implements IOneDriveClient {
 
+    /**
+     * The item metadata cache.
+     */
+    private ItemCache mItemCache;
+
     /**
      * Restricted constructor
      */
@@ -58,6 +63,23 @@ public class OneDriveClient extends BaseOneDriveClient implements IOneDriveClien
         return new DriveRequestBuilder(getServiceRoot() + "/drive", this, null);
     }
 
+    /**
+     * Gets the item metadata cache
+     * @return The item cache, or null if items are not cached
+     */
+    @Override
+    public ItemCache getItemCache() {
+        return mItemCache;
+    }
+
+    /**
+     * Sets the item metadata cache
+     * @param itemCache The item cache
+     */
+    protected void setItemCache(final ItemCache itemCache) {
+        mItemCache = itemCache;
+    }
+
     /**
      * The builder for this OneDriveClient
      */
@@ -118,6 +140,16 @@ public class OneDriveClient extends BaseOneDriveClient implements IOneDriveClien
             return this;
         }
 
+        /**
+         * Sets the item metadata cache, items are not cached by default
+         * @param itemCache The item cache
+         * @return the instance of this builder
+         */
+        public Builder itemCache(final ItemCache itemCache) {
+            mClient.setItemCache(itemCache);
+            return this;
+        }
+
         /**
          * Set this builder based on the client configuration
          * @param clientConfig The client configuration
@@ -149,7 +181,7 @@ public class OneDriveClient extends BaseOneDriveClient implements IOneDriveClien
                         executors.performOnForeground(e, callback);
                     }
                 }
-            });
+            }, ExecutorLane.Interactive, callback);
         }
 
         /**
@@ -49,4 +49,25 @@ public class SearchRequest extends BaseSearchRequest implements ISearchRequest {
     public SearchRequest(final String requestUrl, final IOneDriveClient client, final List<Option> options, final String q) {
         super(requestUrl, client, options, q);
     }
+
+    /**
+     * Iterates over the search results on all pages, fetching the following pages in the background
+     * @param prefetchDepth The number of pages fetched ahead of the page being consumed
+     * @return The iterator, which can be cancelled
+     */
+    @Override
+    public PageIterator<Item, ISearchCollectionPage> iterate(final int prefetchDepth) {
+        final IExecutors executors = getBaseRequest().getClient().getExecutors();
+        return new PageIterator<Item, ISearchCollectionPage>(executors, ExecutorLane.Interactive, prefetchDepth) {
+            @Override
+            protected ISearchCollectionPage fetchFirst() throws ClientException {
+                return SearchRequest.this.get();
+            }
+
+            @Override
+            protected ISearchCollectionPage fetchNext(final ISearchCollectionPage page) throws ClientException {
+                return page.getNextPage().buildRequest().get();
+            }
+        };
+    }
 }
@@ -32,6 +32,8 @@ import com.onedrive.sdk.serializer.*;
 
 import java.util.*;
 
+import com.google.gson.JsonObject;
+
 // This file is available for extending, afterwards please submit a pull request.
 
 /**
@@ -45,8 +47,9 @@ public class ThumbnailSet extends BaseThumbnailSet {
      * @return The thumbnail, null if it doesn't exist
      */
     public Thumbnail getCustomThumbnail(final String name) {
-        if (getRawObject().has(name)) {
-            return getSerializer().deserializeObject(getRawObject().get(name).toString(), Thumbnail.class);
+        final JsonObject rawObject = getRawObject();
+        if (rawObject != null && rawObject.has(name)) {
+            return getSerializer().deserializeObject(rawObject.get(name), Thumbnail.class);
         }
         return null;
     }
@@ -23,6 +23,7 @@
 package com.onedrive.sdk.extensions;
 
 import com.onedrive.sdk.concurrency.ChunkedUploadProvider;
+import com.onedrive.sdk.concurrency.IUploadSessionStore;
 import com.onedrive.sdk.generated.*;
 
 import java.io.InputStream;
@@ -45,4 +46,18 @@ public class UploadSession<UploadType> extends BaseUploadSession {
     public ChunkedUploadProvider createUploadProvider(IOneDriveClient client, InputStream input, int size, Class<UploadType> uploadTypeClass) {
         return new ChunkedUploadProvider<UploadType>(this, client, input, size, uploadTypeClass);
     }
+
+    /**
+     * Create a resumable upload session service provider, see {@link ChunkedUploadProvider#resume}.
+     * @param client The OneDrive client.
+     * @param input The input stream.
+     * @param size The size of the input.
+     * @param uploadTypeClass The expected uploaded item type.
+     * @param store The store the upload progress is saved to.
+     * @param key The key identifying the upload in the store.
+     * @return The uploaded item.
+     */
+    public ChunkedUploadProvider createUploadProvider(IOneDriveClient client, InputStream input, int size, Class<UploadType> uploadTypeClass, IUploadSessionStore store, String key) {
+        return new ChunkedUploadProvider<UploadType>(this, client, input, size, uploadTypeClass, store, key);
+    }
 }
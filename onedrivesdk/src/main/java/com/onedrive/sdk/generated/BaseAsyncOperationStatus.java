@@ -64,7 +64,7 @@ public class BaseAsyncOperationStatus implements IJsonBackedObject {
     /**
      * The raw representation of this class
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer
@@ -76,7 +76,7 @@ public class BaseAsyncOperationStatus implements IJsonBackedObject {
      * @return the raw representation of this class
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -95,7 +95,7 @@ public class BaseAsyncOperationStatus implements IJsonBackedObject {
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+        mRawObject = RawObjectHolder.create(serializer, json);
 
     }
 }
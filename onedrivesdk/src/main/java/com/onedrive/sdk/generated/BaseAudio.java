@@ -142,7 +142,7 @@ public class BaseAudio implements IJsonBackedObject {
     /**
      * The raw representation of this class
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer
@@ -154,7 +154,7 @@ public class BaseAudio implements IJsonBackedObject {
      * @return the raw representation of this class
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -173,7 +173,7 @@ public class BaseAudio implements IJsonBackedObject {
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+        mRawObject = RawObjectHolder.create(serializer, json);
 
     }
 }
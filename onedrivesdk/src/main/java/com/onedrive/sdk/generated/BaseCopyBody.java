@@ -58,7 +58,7 @@ public class BaseCopyBody {
     /**
      * The raw representation of this class
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer
@@ -70,7 +70,7 @@ public class BaseCopyBody {
      * @return the raw representation of this class
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -89,7 +89,7 @@ public class BaseCopyBody {
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+        mRawObject = RawObjectHolder.create(serializer, json);
 
     }
 }
@@ -79,7 +79,7 @@ public class BaseCopyRequest extends BaseRequest implements IBaseCopyRequest {
                     getClient().getExecutors().performOnForeground(e, callback);
                 }
             }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public AsyncMonitor<Item> post() throws ClientException {
@@ -52,7 +52,7 @@ public class BaseCreateLinkBody {
     /**
      * The raw representation of this class
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer
@@ -64,7 +64,7 @@ public class BaseCreateLinkBody {
      * @return the raw representation of this class
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -83,7 +83,7 @@ public class BaseCreateLinkBody {
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+        mRawObject = RawObjectHolder.create(serializer, json);
 
     }
 }
@@ -64,7 +64,7 @@ public class BaseDeltaRequest extends BaseCollectionRequest<BaseDeltaCollectionR
                     executors.performOnForeground(e, callback);
                 }
            }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public IDeltaCollectionPage get() throws ClientException {
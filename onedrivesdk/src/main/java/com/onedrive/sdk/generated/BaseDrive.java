@@ -32,6 +32,7 @@ import com.onedrive.sdk.serializer.*;
 
 import java.util.*;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.*;
 
@@ -85,7 +86,7 @@ public class BaseDrive implements IJsonBackedObject {
     /**
      * The raw representation of this class
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer
@@ -97,7 +98,7 @@ public class BaseDrive implements IJsonBackedObject {
      * @return the raw representation of this class
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -116,7 +117,7 @@ public class BaseDrive implements IJsonBackedObject {
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+        mRawObject = RawObjectHolder.create(serializer, json);
 
 
         if (json.has("items")) {
@@ -125,11 +126,10 @@ public class BaseDrive implements IJsonBackedObject {
                 response.nextLink = json.get("items@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("items").toString(), JsonObject[].class);
-            final Item[] array = new Item[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), Item.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("items");
+            final Item[] array = new Item[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), Item.class);
             }
             response.value = Arrays.asList(array);
             items = new ItemCollectionPage(response, null);
@@ -141,11 +141,10 @@ public class BaseDrive implements IJsonBackedObject {
                 response.nextLink = json.get("shared@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("shared").toString(), JsonObject[].class);
-            final Item[] array = new Item[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), Item.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("shared");
+            final Item[] array = new Item[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), Item.class);
             }
             response.value = Arrays.asList(array);
             shared = new ItemCollectionPage(response, null);
@@ -157,11 +156,10 @@ public class BaseDrive implements IJsonBackedObject {
                 response.nextLink = json.get("special@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("special").toString(), JsonObject[].class);
-            final Item[] array = new Item[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), Item.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("special");
+            final Item[] array = new Item[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), Item.class);
             }
             response.value = Arrays.asList(array);
             special = new ItemCollectionPage(response, null);
@@ -62,7 +62,7 @@ public class BaseDriveCollectionRequest extends BaseCollectionRequest<BaseDriveC
                     executors.performOnForeground(e, callback);
                 }
            }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public IDriveCollectionPage get() throws ClientException {
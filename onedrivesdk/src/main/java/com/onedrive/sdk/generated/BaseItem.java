@@ -32,6 +32,7 @@ import com.onedrive.sdk.serializer.*;
 
 import java.util.*;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.*;
 
@@ -222,7 +223,7 @@ public class BaseItem implements IJsonBackedObject {
     /**
      * The raw representation of this class
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer
@@ -234,7 +235,7 @@ public class BaseItem implements IJsonBackedObject {
      * @return the raw representation of this class
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -253,7 +254,7 @@ public class BaseItem implements IJsonBackedObject {
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+        mRawObject = RawObjectHolder.create(serializer, json);
 
 
         if (json.has("permissions")) {
@@ -262,11 +263,10 @@ public class BaseItem implements IJsonBackedObject {
                 response.nextLink = json.get("permissions@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("permissions").toString(), JsonObject[].class);
-            final Permission[] array = new Permission[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), Permission.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("permissions");
+            final Permission[] array = new Permission[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), Permission.class);
             }
             response.value = Arrays.asList(array);
             permissions = new PermissionCollectionPage(response, null);
@@ -278,11 +278,10 @@ public class BaseItem implements IJsonBackedObject {
                 response.nextLink = json.get("versions@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("versions").toString(), JsonObject[].class);
-            final Item[] array = new Item[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), Item.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("versions");
+            final Item[] array = new Item[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), Item.class);
             }
             response.value = Arrays.asList(array);
             versions = new ItemCollectionPage(response, null);
@@ -294,11 +293,10 @@ public class BaseItem implements IJsonBackedObject {
                 response.nextLink = json.get("children@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("children").toString(), JsonObject[].class);
-            final Item[] array = new Item[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), Item.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("children");
+            final Item[] array = new Item[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), Item.class);
             }
             response.value = Arrays.asList(array);
             children = new ItemCollectionPage(response, null);
@@ -310,11 +308,10 @@ public class BaseItem implements IJsonBackedObject {
                 response.nextLink = json.get("thumbnails@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("thumbnails").toString(), JsonObject[].class);
-            final ThumbnailSet[] array = new ThumbnailSet[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), ThumbnailSet.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("thumbnails");
+            final ThumbnailSet[] array = new ThumbnailSet[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), ThumbnailSet.class);
             }
             response.value = Arrays.asList(array);
             thumbnails = new ThumbnailSetCollectionPage(response, null);
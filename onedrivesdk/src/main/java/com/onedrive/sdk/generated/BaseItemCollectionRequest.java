@@ -62,7 +62,7 @@ public class BaseItemCollectionRequest extends BaseCollectionRequest<BaseItemCol
                     executors.performOnForeground(e, callback);
                 }
            }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public IItemCollectionPage get() throws ClientException {
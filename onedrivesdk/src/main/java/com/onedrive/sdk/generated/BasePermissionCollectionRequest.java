@@ -62,7 +62,7 @@ public class BasePermissionCollectionRequest extends BaseCollectionRequest<BaseP
                     executors.performOnForeground(e, callback);
                 }
            }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public IPermissionCollectionPage get() throws ClientException {
@@ -61,7 +61,7 @@ public class BaseRecentRequest extends BaseCollectionRequest<BaseRecentCollectio
                     executors.performOnForeground(e, callback);
                 }
            }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public IRecentCollectionPage get() throws ClientException {
@@ -64,7 +64,7 @@ public class BaseSearchRequest extends BaseCollectionRequest<BaseSearchCollectio
                     executors.performOnForeground(e, callback);
                 }
            }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public ISearchCollectionPage get() throws ClientException {
@@ -32,6 +32,7 @@ import com.onedrive.sdk.serializer.*;
 
 import java.util.*;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.*;
 
@@ -69,7 +70,7 @@ public class BaseShare implements IJsonBackedObject {
     /**
      * The raw representation of this class
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer
@@ -81,7 +82,7 @@ public class BaseShare implements IJsonBackedObject {
      * @return the raw representation of this class
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -100,7 +101,7 @@ public class BaseShare implements IJsonBackedObject {
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+        mRawObject = RawObjectHolder.create(serializer, json);
 
 
         if (json.has("items")) {
@@ -109,11 +110,10 @@ public class BaseShare implements IJsonBackedObject {
                 response.nextLink = json.get("items@odata.nextLink").getAsString();
             }
 
-            final JsonObject[] sourceArray = serializer.deserializeObject(json.get("items").toString(), JsonObject[].class);
-            final Item[] array = new Item[sourceArray.length];
-            for (int i = 0; i < sourceArray.length; i++) {
-                array[i] = serializer.deserializeObject(sourceArray[i].toString(), Item.class);
-                array[i].setRawObject(serializer, sourceArray[i]);
+            final JsonArray sourceArray = json.getAsJsonArray("items");
+            final Item[] array = new Item[sourceArray.size()];
+            for (int i = 0; i < sourceArray.size(); i++) {
+                array[i] = serializer.deserializeObject(sourceArray.get(i), Item.class);
             }
             response.value = Arrays.asList(array);
             items = new ItemCollectionPage(response, null);
@@ -62,7 +62,7 @@ public class BaseThumbnailSetCollectionRequest extends BaseCollectionRequest<Bas
                     executors.performOnForeground(e, callback);
                 }
            }
-        });
+        }, ExecutorLane.Interactive, callback);
     }
 
     public IThumbnailSetCollectionPage get() throws ClientException {
@@ -22,12 +22,16 @@
 
 package com.onedrive.sdk.http;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import com.onedrive.sdk.serializer.ISerializer;
+import com.onedrive.sdk.serializer.RawObjectHolder;
+import com.onedrive.sdk.serializer.RawObjectPolicy;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A page of results from a collection.
@@ -36,6 +40,11 @@ import java.util.List;
  */
 public abstract class BaseCollectionPage<T1, T2 extends IRequestBuilder> implements IBaseCollectionPage<T1, T2>  {
 
+    /**
+     * The prefix of the members that annotate a page rather than hold its items.
+     */
+    private static final String ANNOTATION_PREFIX = "@";
+
     /**
      * The contents of this page.
      */
@@ -49,7 +58,7 @@ public abstract class BaseCollectionPage<T1, T2 extends IRequestBuilder> impleme
     /**
      * The raw representation of this class.
      */
-    private transient JsonObject mRawObject;
+    private transient RawObjectHolder mRawObject = RawObjectHolder.EMPTY;
 
     /**
      * The serializer.
@@ -89,7 +98,7 @@ public abstract class BaseCollectionPage<T1, T2 extends IRequestBuilder> impleme
      * @return The raw representation of this class.
      */
     public JsonObject getRawObject() {
-        return mRawObject;
+        return mRawObject.get();
     }
 
     /**
@@ -108,6 +117,30 @@ public abstract class BaseCollectionPage<T1, T2 extends IRequestBuilder> impleme
      */
     public void setRawObject(final ISerializer serializer, final JsonObject json) {
         mSerializer = serializer;
-        mRawObject = json;
+
+        // Pages carry annotations such as the delta token, so those are kept even when the rest is dropped
+        if (serializer != null && serializer.getRawObjectPolicy() == RawObjectPolicy.TypedOnly) {
+            mRawObject = RawObjectHolder.create(getAnnotations(json), RawObjectPolicy.Eager);
+        } else {
+            mRawObject = RawObjectHolder.create(serializer, json);
+        }
+    }
+
+    /**
+     * Gets the annotations of a page, such as @odata.nextLink and @delta.token, without its items.
+     * @param json The json of the page.
+     * @return The annotations, or null if there is no json.
+     */
+    private static JsonObject getAnnotations(final JsonObject json) {
+        if (json == null) {
+            return null;
+        }
+        final JsonObject annotations = new JsonObject();
+        for (final Map.Entry<String, JsonElement> member : json.entrySet()) {
+            if (member.getKey().startsWith(ANNOTATION_PREFIX)) {
+                annotations.add(member.getKey(), member.getValue());
+            }
+        }
+        return annotations;
     }
 }
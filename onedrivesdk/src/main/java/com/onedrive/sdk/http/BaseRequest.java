@@ -48,7 +48,7 @@ public abstract class BaseRequest implements IHttpRequest {
     /**
      * The request stats header name.
      */
-    private static final String REQUEST_STATS_HEADER_NAME = "X-RequestStats";
+    static final String REQUEST_STATS_HEADER_NAME = "X-RequestStats";
 
     /**
      * The request stats header value format string.
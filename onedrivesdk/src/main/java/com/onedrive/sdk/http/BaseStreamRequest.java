@@ -22,14 +22,20 @@
 
 package com.onedrive.sdk.http;
 
+import com.onedrive.sdk.concurrency.ChunkedDownloadProvider;
+import com.onedrive.sdk.concurrency.ExecutorLane;
 import com.onedrive.sdk.concurrency.ICallback;
+import com.onedrive.sdk.concurrency.IExecutors;
+import com.onedrive.sdk.concurrency.ResumableDownloadStream;
 import com.onedrive.sdk.core.ClientException;
 import com.onedrive.sdk.extensions.IOneDriveClient;
 import com.onedrive.sdk.options.HeaderOption;
 import com.onedrive.sdk.options.Option;
 
+import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -43,6 +49,11 @@ public abstract class BaseStreamRequest<T> implements IHttpStreamRequest {
      */
     private final BaseRequest mBaseRequest;
 
+    /**
+     * The url to make the request against, without query options.
+     */
+    private final String mRequestUrl;
+
     /**
      * Creates the stream request.
      * @param requestUrl The url to make the request against.
@@ -55,6 +66,38 @@ public abstract class BaseStreamRequest<T> implements IHttpStreamRequest {
                              final List<Option> options,
                              final Class<T> responseClass) {
         mBaseRequest = new BaseRequest(requestUrl, client, options, responseClass) { };
+        mRequestUrl = requestUrl;
+    }
+
+    /**
+     * Creates a provider that downloads the stream of this request over several ranged connections.
+     * @return The download provider.
+     */
+    protected ChunkedDownloadProvider createDownloadProvider() {
+        return new ChunkedDownloadProvider(mBaseRequest.getClient(), mRequestUrl, getContentOptions());
+    }
+
+    /**
+     * Gets the client which issues this request.
+     * @return The client.
+     */
+    protected IOneDriveClient getClient() {
+        return mBaseRequest.getClient();
+    }
+
+    /**
+     * Gets the options of this request for the requests that fetch its content.
+     * @return The options without the request stats header, which each request adds itself.
+     */
+    private List<Option> getContentOptions() {
+        final List<Option> options = new ArrayList<>();
+        for (final Option option : mBaseRequest.getOptions()) {
+            if (!(option instanceof HeaderOption)
+                    || !BaseRequest.REQUEST_STATS_HEADER_NAME.equals(option.getName())) {
+                options.add(option);
+            }
+        }
+        return options;
     }
 
     /**
@@ -62,18 +105,31 @@ public abstract class BaseStreamRequest<T> implements IHttpStreamRequest {
      * @param callback The callback when this request complements. The caller needs to close the stream.
      */
     protected void send(final ICallback<InputStream> callback) {
-        mBaseRequest.setHttpMethod(HttpMethod.GET);
-        mBaseRequest.getClient().getHttpProvider().send(this, callback, InputStream.class, null);
+        final IExecutors executors = mBaseRequest.getClient().getExecutors();
+        executors.performOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executors.performOnForeground(send(), callback);
+                } catch (final ClientException e) {
+                    executors.performOnForeground(e, callback);
+                }
+            }
+        }, ExecutorLane.Transfer, callback);
     }
 
     /**
-     * Sends this request.
+     * Sends this request. If the connection drops while the stream is read, the request is re-issued for the
+     * remaining bytes as long as the content on the server is unchanged.
      * @return The stream that the caller needs to close.
      * @throws ClientException An exception occurs if there was an error while the request was sent.
      */
     protected InputStream send() throws ClientException {
         mBaseRequest.setHttpMethod(HttpMethod.GET);
-        return mBaseRequest.getClient().getHttpProvider().send(this, InputStream.class, null);
+        return ResumableDownloadStream.open(mBaseRequest.getClient(),
+                                            mRequestUrl,
+                                            getContentOptions(),
+                                            ResumableDownloadStream.MAXIMUM_RETRY_TIMES);
     }
 
     /**
@@ -98,6 +154,67 @@ public abstract class BaseStreamRequest<T> implements IHttpStreamRequest {
         return (T) mBaseRequest.getClient().getHttpProvider().send(this, mBaseRequest.getResponseType(), fileContents);
     }
 
+    /**
+     * Sends this request with a body streamed from the given stream.
+     * @param content The stream to upload, it is not closed by this request.
+     * @param length The number of bytes to upload from the stream.
+     * @param callback The callback when this request completes, progress is reported if it is an IProgressCallback.
+     */
+    protected void send(final InputStream content, final long length, final ICallback<T> callback) {
+        send(new InputStreamRequestBody(content, length), callback);
+    }
+
+    /**
+     * Sends this request with a body streamed from the given stream.
+     * @param content The stream to upload, it is not closed by this request.
+     * @param length The number of bytes to upload from the stream.
+     * @return The response object.
+     * @throws ClientException An exception occurs if there was an error while the request was sent.
+     */
+    protected T send(final InputStream content, final long length) throws ClientException {
+        return send(new InputStreamRequestBody(content, length));
+    }
+
+    /**
+     * Sends this request with a body streamed from the given file.
+     * @param file The file to upload.
+     * @param callback The callback when this request completes, progress is reported if it is an IProgressCallback.
+     */
+    protected void send(final File file, final ICallback<T> callback) {
+        send(new FileRequestBody(file), callback);
+    }
+
+    /**
+     * Sends this request with a body streamed from the given file.
+     * @param file The file to upload.
+     * @return The response object.
+     * @throws ClientException An exception occurs if there was an error while the request was sent.
+     */
+    protected T send(final File file) throws ClientException {
+        return send(new FileRequestBody(file));
+    }
+
+    /**
+     * Sends this request with a body that writes itself to the connection.
+     * @param body The body to upload.
+     * @param callback The callback when this request completes.
+     */
+    private void send(final IRequestBody body, final ICallback<T> callback) {
+        mBaseRequest.setHttpMethod(HttpMethod.PUT);
+        mBaseRequest.getClient().getHttpProvider().send(this, callback, mBaseRequest.getResponseType(), body);
+    }
+
+    /**
+     * Sends this request with a body that writes itself to the connection.
+     * @param body The body to upload.
+     * @return The response object.
+     */
+    @SuppressWarnings("unchecked")
+    private T send(final IRequestBody body) {
+        mBaseRequest.setHttpMethod(HttpMethod.PUT);
+        return (T) mBaseRequest.getClient().getHttpProvider().send(this, mBaseRequest.getResponseType(), body);
+    }
+
     /**
      * Gets the request url.
      * @return The request url.
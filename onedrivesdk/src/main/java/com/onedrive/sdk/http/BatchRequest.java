@@ -0,0 +1,404 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.annotations.SerializedName;
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.IOneDriveClient;
+import com.onedrive.sdk.options.HeaderOption;
+import com.onedrive.sdk.serializer.ISerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends many requests in few round trips through the json $batch endpoint. Requests are added with the http method
+ * and body they would be sent with, and are sent in batches of at most {@link #MAX_BATCH_SIZE} when
+ * {@link #send()} is called. Each request gets its own typed result or {@link OneDriveServiceException} through
+ * the {@link BatchStep} returned when it was added.
+ */
+public class BatchRequest {
+
+    /**
+     * The largest number of requests the service accepts in one batch.
+     */
+    public static final int MAX_BATCH_SIZE = 20;
+
+    /**
+     * The url segment of the batch endpoint.
+     */
+    private static final String BATCH_SEGMENT = "/$batch";
+
+    /**
+     * The lowest http status code of a failure.
+     */
+    private static final int FIRST_FAILURE_STATUS = 400;
+
+    /**
+     * The property of an error response holding the error.
+     */
+    private static final String ERROR_PROPERTY = "error";
+
+    /**
+     * The http status code that is reported as a fatal service exception.
+     */
+    private static final int INTERNAL_SERVER_ERROR = 500;
+
+    /**
+     * The client.
+     */
+    private final IOneDriveClient mClient;
+
+    /**
+     * The requests that have not been sent yet.
+     */
+    private final List<BatchStep<?>> mSteps = new ArrayList<>();
+
+    /**
+     * The id of the next request.
+     */
+    private int mNextId = 1;
+
+    /**
+     * Creates a new BatchRequest.
+     * @param client The client.
+     */
+    public BatchRequest(final IOneDriveClient client) {
+        mClient = client;
+    }
+
+    /**
+     * Adds a request without a body to the batch.
+     * @param request The request, such as {@code client.getDrive().getItems(id).buildRequest()}.
+     * @param method The http method.
+     * @param resultClass The class of the result, or Void for requests without a response body.
+     * @param <T> The type of the result.
+     * @return The step that holds the result once the batch has been sent.
+     */
+    public <T> BatchStep<T> add(final IHttpRequest request, final HttpMethod method, final Class<T> resultClass) {
+        return add(request, method, resultClass, null);
+    }
+
+    /**
+     * Adds a request to the batch.
+     * @param request The request, such as {@code client.getDrive().getItems(id).buildRequest()}.
+     * @param method The http method.
+     * @param resultClass The class of the result, or Void for requests without a response body.
+     * @param body The object to serialize as the body, or null.
+     * @param <T> The type of the result.
+     * @return The step that holds the result once the batch has been sent.
+     * @throws IllegalArgumentException If the request url is not below the service root.
+     */
+    public synchronized <T> BatchStep<T> add(final IHttpRequest request,
+                                             final HttpMethod method,
+                                             final Class<T> resultClass,
+                                             final Object body) {
+        final String url = request.getRequestUrl().toString();
+        final String serviceRoot = mClient.getServiceRoot();
+        if (!url.startsWith(serviceRoot)) {
+            throw new IllegalArgumentException("Request " + url + " is not below the service root " + serviceRoot);
+        }
+        final BatchStep<T> step = new BatchStep<>(Integer.toString(mNextId++), request, method, resultClass, body);
+        mSteps.add(step);
+        return step;
+    }
+
+    /**
+     * Gets the number of requests waiting to be sent.
+     * @return The number of requests.
+     */
+    public synchronized int size() {
+        return mSteps.size();
+    }
+
+    /**
+     * Sends every added request. Every step is completed, either with the response to its request or with the
+     * failure of its batch, and the batch is empty again afterwards.
+     * @throws ClientException The first failure to send a batch, after the remaining batches were sent.
+     */
+    public void send() throws ClientException {
+        final List<BatchStep<?>> steps;
+        synchronized (this) {
+            steps = new ArrayList<>(mSteps);
+            mSteps.clear();
+        }
+        ClientException firstFailure = null;
+        for (int start = 0; start < steps.size(); start += MAX_BATCH_SIZE) {
+            final List<BatchStep<?>> batch = steps.subList(start, Math.min(start + MAX_BATCH_SIZE, steps.size()));
+            try {
+                sendBatch(batch);
+            } catch (final ClientException e) {
+                for (final BatchStep<?> step : batch) {
+                    step.fail(0, e);
+                }
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+    }
+
+    /**
+     * Sends one batch and completes its steps.
+     * @param batch The steps of the batch.
+     * @throws ClientException An exception occurs if the batch could not be sent.
+     */
+    private void sendBatch(final List<BatchStep<?>> batch) throws ClientException {
+        final String serviceRoot = mClient.getServiceRoot();
+        final ISerializer serializer = mClient.getSerializer();
+        final BatchRequestContent content = new BatchRequestContent();
+        content.requests = new ArrayList<>();
+        for (final BatchStep<?> step : batch) {
+            content.requests.add(createEntry(serviceRoot, serializer, step));
+        }
+
+        final BaseRequest request = new BaseRequest(serviceRoot + BATCH_SEGMENT, mClient, null,
+                                                    BatchResponseContent.class) { };
+        request.setHttpMethod(HttpMethod.POST);
+        final BatchResponseContent response = mClient.getHttpProvider().send(request, BatchResponseContent.class,
+                                                                             content);
+
+        final Map<String, BatchResponseEntry> responses = new HashMap<>();
+        if (response != null && response.responses != null) {
+            for (final BatchResponseEntry entry : response.responses) {
+                responses.put(entry.id, entry);
+            }
+        }
+        for (final BatchStep<?> step : batch) {
+            complete(step, responses.get(step.getId()), serializer);
+        }
+    }
+
+    /**
+     * Creates the batch entry of a request.
+     * @param serviceRoot The service root the request url is made relative to.
+     * @param serializer The serializer.
+     * @param step The step.
+     * @return The batch entry.
+     */
+    private static BatchRequestEntry createEntry(final String serviceRoot,
+                                                 final ISerializer serializer,
+                                                 final BatchStep<?> step) {
+        final String url = step.getRequest().getRequestUrl().toString();
+        if (!url.startsWith(serviceRoot)) {
+            throw new IllegalArgumentException("Request " + url + " is not below the service root " + serviceRoot);
+        }
+        final BatchRequestEntry entry = new BatchRequestEntry();
+        entry.id = step.getId();
+        entry.method = step.getMethod().toString();
+        entry.url = url.substring(serviceRoot.length());
+        entry.headers = new LinkedHashMap<>();
+        for (final HeaderOption header : step.getRequest().getHeaders()) {
+            entry.headers.put(header.getName(), header.getValue());
+        }
+        if (step.getBody() != null) {
+            entry.headers.put(DefaultHttpProvider.CONTENT_TYPE_HEADER_NAME, DefaultHttpProvider.JSON_CONTENT_TYPE);
+            entry.body = new JsonParser().parse(serializer.serializeObject(step.getBody()));
+        }
+        return entry;
+    }
+
+    /**
+     * Completes a step from its response.
+     * @param step The step.
+     * @param response The response, or null if the batch response has none for the step.
+     * @param serializer The serializer.
+     * @param <T> The type of the result.
+     */
+    private static <T> void complete(final BatchStep<T> step,
+                                     final BatchResponseEntry response,
+                                     final ISerializer serializer) {
+        if (response == null) {
+            step.fail(0, new ClientException("The batch response has no response for request " + step.getId(),
+                                             null,
+                                             OneDriveErrorCodes.GeneralException));
+            return;
+        }
+        if (response.status >= FIRST_FAILURE_STATUS) {
+            step.fail(response.status, createServiceException(step, response, serializer));
+            return;
+        }
+        if (response.body == null || response.body.isJsonNull() || step.getResultClass() == Void.class) {
+            step.succeed(response.status, null);
+            return;
+        }
+        try {
+            step.succeed(response.status, serializer.deserializeObject(response.body, step.getResultClass()));
+        } catch (final RuntimeException e) {
+            step.fail(response.status, new ClientException("Unable to deserialize the response to request "
+                                                           + step.getId(), e, OneDriveErrorCodes.GeneralException));
+        }
+    }
+
+    /**
+     * Creates the service exception of a failed request, as if it had been sent on its own.
+     * @param step The step.
+     * @param response The response.
+     * @param serializer The serializer.
+     * @return The exception.
+     */
+    private static OneDriveServiceException createServiceException(final BatchStep<?> step,
+                                                                   final BatchResponseEntry response,
+                                                                   final ISerializer serializer) {
+        final List<String> requestHeaders = new LinkedList<>();
+        for (final HeaderOption option : step.getRequest().getHeaders()) {
+            requestHeaders.add(option.getName() + " : " + option.getValue());
+        }
+        String requestBody = null;
+        if (step.getBody() != null) {
+            requestBody = serializer.serializeObject(step.getBody());
+        }
+        final List<String> responseHeaders = new LinkedList<>();
+        if (response.headers != null) {
+            for (final Map.Entry<String, String> header : response.headers.entrySet()) {
+                responseHeaders.add(header.getKey() + " : " + header.getValue());
+            }
+        }
+
+        OneDriveErrorResponse error = null;
+        final JsonElement body = response.body;
+        if (body != null && body.isJsonObject() && body.getAsJsonObject().has(ERROR_PROPERTY)) {
+            try {
+                error = serializer.deserializeObject(body, OneDriveErrorResponse.class);
+            } catch (final RuntimeException ignored) {
+                // Reported as an unparsable error below
+            }
+        }
+        if (error == null || error.error == null) {
+            error = new OneDriveErrorResponse();
+            error.error = new OneDriveError();
+            error.error.code = "Unable to parse error response message";
+            error.error.message = "Raw error: " + body;
+        }
+
+        final String method = step.getMethod().toString();
+        final String url = step.getRequest().getRequestUrl().toString();
+        final String responseMessage = error.error.message;
+        if (response.status == INTERNAL_SERVER_ERROR) {
+            return new OneDriveFatalServiceException(method, url, requestHeaders, requestBody, response.status,
+                                                     responseMessage, responseHeaders, error);
+        }
+        return new OneDriveServiceException(method, url, requestHeaders, requestBody, response.status,
+                                            responseMessage, responseHeaders, error);
+    }
+
+    /**
+     * The body of a batch request.
+     */
+    static class BatchRequestContent {
+
+        /**
+         * The requests.
+         */
+        @SerializedName("requests")
+        List<BatchRequestEntry> requests;
+    }
+
+    /**
+     * One request of a batch.
+     */
+    static class BatchRequestEntry {
+
+        /**
+         * The id of the request within the batch.
+         */
+        @SerializedName("id")
+        String id;
+
+        /**
+         * The http method.
+         */
+        @SerializedName("method")
+        String method;
+
+        /**
+         * The url, relative to the service root.
+         */
+        @SerializedName("url")
+        String url;
+
+        /**
+         * The request headers.
+         */
+        @SerializedName("headers")
+        Map<String, String> headers;
+
+        /**
+         * The json body, or null.
+         */
+        @SerializedName("body")
+        JsonElement body;
+    }
+
+    /**
+     * The body of a batch response.
+     */
+    static class BatchResponseContent {
+
+        /**
+         * The responses, in any order.
+         */
+        @SerializedName("responses")
+        List<BatchResponseEntry> responses;
+    }
+
+    /**
+     * The response to one request of a batch.
+     */
+    static class BatchResponseEntry {
+
+        /**
+         * The id of the request within the batch.
+         */
+        @SerializedName("id")
+        String id;
+
+        /**
+         * The http status code.
+         */
+        @SerializedName("status")
+        int status;
+
+        /**
+         * The response headers.
+         */
+        @SerializedName("headers")
+        Map<String, String> headers;
+
+        /**
+         * The json body, or null.
+         */
+        @SerializedName("body")
+        JsonElement body;
+    }
+}
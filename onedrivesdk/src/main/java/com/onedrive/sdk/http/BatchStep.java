@@ -0,0 +1,190 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.core.ClientException;
+
+/**
+ * One request of a {@link BatchRequest}, holding its result once the batch has been sent.
+ * @param <T> The type of the result.
+ */
+public class BatchStep<T> {
+
+    /**
+     * The id of the request within the batch.
+     */
+    private final String mId;
+
+    /**
+     * The request.
+     */
+    private final IHttpRequest mRequest;
+
+    /**
+     * The http method.
+     */
+    private final HttpMethod mMethod;
+
+    /**
+     * The class of the result.
+     */
+    private final Class<T> mResultClass;
+
+    /**
+     * The body, or null.
+     */
+    private final Object mBody;
+
+    /**
+     * Whether the batch has been sent.
+     */
+    private boolean mCompleted;
+
+    /**
+     * The result.
+     */
+    private T mResult;
+
+    /**
+     * The failure.
+     */
+    private ClientException mFailure;
+
+    /**
+     * The http status code of the response, or 0 if there was none.
+     */
+    private int mStatus;
+
+    /**
+     * Creates a new BatchStep.
+     * @param id The id of the request within the batch.
+     * @param request The request.
+     * @param method The http method.
+     * @param resultClass The class of the result.
+     * @param body The body, or null.
+     */
+    BatchStep(final String id,
+              final IHttpRequest request,
+              final HttpMethod method,
+              final Class<T> resultClass,
+              final Object body) {
+        mId = id;
+        mRequest = request;
+        mMethod = method;
+        mResultClass = resultClass;
+        mBody = body;
+    }
+
+    /**
+     * Gets the id of the request within the batch.
+     * @return The id.
+     */
+    public String getId() {
+        return mId;
+    }
+
+    /**
+     * Gets the http status code of the response.
+     * @return The status code, or 0 if the batch has not been sent or the request got no response.
+     */
+    public synchronized int getStatus() {
+        return mStatus;
+    }
+
+    /**
+     * Gets whether the request succeeded.
+     * @return Whether the batch has been sent and the request succeeded.
+     */
+    public synchronized boolean isSuccess() {
+        return mCompleted && mFailure == null;
+    }
+
+    /**
+     * Gets the result of the request.
+     * @return The result, or null if the response has no body.
+     * @throws ClientException The failure of the request, such as a {@link OneDriveServiceException}.
+     */
+    public synchronized T getResult() throws ClientException {
+        if (!mCompleted) {
+            throw new IllegalStateException("The batch has not been sent");
+        }
+        if (mFailure != null) {
+            throw mFailure;
+        }
+        return mResult;
+    }
+
+    /**
+     * Gets the request.
+     * @return The request.
+     */
+    IHttpRequest getRequest() {
+        return mRequest;
+    }
+
+    /**
+     * Gets the http method.
+     * @return The http method.
+     */
+    HttpMethod getMethod() {
+        return mMethod;
+    }
+
+    /**
+     * Gets the class of the result.
+     * @return The class of the result.
+     */
+    Class<T> getResultClass() {
+        return mResultClass;
+    }
+
+    /**
+     * Gets the body.
+     * @return The body, or null.
+     */
+    Object getBody() {
+        return mBody;
+    }
+
+    /**
+     * Completes this step with a result.
+     * @param status The http status code.
+     * @param result The result.
+     */
+    synchronized void succeed(final int status, final T result) {
+        mCompleted = true;
+        mStatus = status;
+        mResult = result;
+    }
+
+    /**
+     * Completes this step with a failure.
+     * @param status The http status code, or 0 if there was no response.
+     * @param failure The failure.
+     */
+    synchronized void fail(final int status, final ClientException failure) {
+        mCompleted = true;
+        mStatus = status;
+        mFailure = failure;
+    }
+}
@@ -0,0 +1,93 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of equally sized heap buffers.
+ */
+public class BufferPool {
+
+    /**
+     * The size of each buffer.
+     */
+    private final int mBufferSize;
+
+    /**
+     * The number of idle buffers that are kept for reuse.
+     */
+    private final int mMaximumPooled;
+
+    /**
+     * The idle buffers.
+     */
+    private final Queue<ByteBuffer> mBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of idle buffers, tracked separately as the queue size is not constant time.
+     */
+    private final AtomicInteger mPooled = new AtomicInteger(0);
+
+    /**
+     * Creates a new BufferPool.
+     * @param bufferSize The size of each buffer.
+     * @param maximumPooled The number of idle buffers that are kept for reuse.
+     */
+    public BufferPool(final int bufferSize, final int maximumPooled) {
+        mBufferSize = bufferSize;
+        mMaximumPooled = maximumPooled;
+    }
+
+    /**
+     * Takes an idle buffer from the pool, or allocates one if the pool is empty.
+     * @return The buffer, with its backing array available through {@link ByteBuffer#array()}.
+     */
+    public ByteBuffer acquire() {
+        final ByteBuffer buffer = mBuffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(mBufferSize);
+        }
+        mPooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool, it is dropped if the pool is full or it was not allocated by this pool.
+     * @param buffer The buffer.
+     */
+    public void release(final ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != mBufferSize || !buffer.hasArray()) {
+            return;
+        }
+        if (mPooled.incrementAndGet() > mMaximumPooled) {
+            mPooled.decrementAndGet();
+            return;
+        }
+        mBuffers.offer(buffer);
+    }
+}
@@ -0,0 +1,77 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body backed by a region of a byte array, written without copying the array.
+ */
+public class ByteArrayRequestBody implements IRequestBody {
+
+    /**
+     * The array holding the body.
+     */
+    private final byte[] mBuffer;
+
+    /**
+     * The offset of the body in the array.
+     */
+    private final int mOffset;
+
+    /**
+     * The length of the body.
+     */
+    private final int mLength;
+
+    /**
+     * Creates a new ByteArrayRequestBody, the array must not be modified until the request has been sent.
+     * @param buffer The array holding the body.
+     * @param offset The offset of the body in the array.
+     * @param length The length of the body.
+     */
+    public ByteArrayRequestBody(final byte[] buffer, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException("Body region is outside of the buffer");
+        }
+        mBuffer = buffer;
+        mOffset = offset;
+        mLength = length;
+    }
+
+    @Override
+    public int getLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        out.write(mBuffer, mOffset, mLength);
+    }
+
+    @Override
+    public String toString() {
+        return "byte[" + mLength + "]";
+    }
+}
@@ -0,0 +1,65 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+/**
+ * A response body stored by the {@link ResponseCache} together with the eTag it was served with.
+ */
+class CachedResponse {
+
+    /**
+     * The eTag of the response.
+     */
+    private final String mETag;
+
+    /**
+     * The decoded response body.
+     */
+    private final byte[] mBody;
+
+    /**
+     * Creates a new CachedResponse.
+     * @param eTag The eTag of the response.
+     * @param body The decoded response body.
+     */
+    CachedResponse(final String eTag, final byte[] body) {
+        mETag = eTag;
+        mBody = body;
+    }
+
+    /**
+     * Gets the eTag of the response.
+     * @return The eTag to revalidate with.
+     */
+    String getETag() {
+        return mETag;
+    }
+
+    /**
+     * Gets the decoded response body.
+     * @return The body.
+     */
+    byte[] getBody() {
+        return mBody;
+    }
+}
@@ -0,0 +1,88 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for compressed responses, to monitor how much transfer the response compression saves.
+ */
+public class CompressionStats {
+
+    /**
+     * The number of compressed responses read.
+     */
+    private final AtomicLong mResponseCount = new AtomicLong();
+
+    /**
+     * The compressed bytes read from the network.
+     */
+    private final AtomicLong mCompressedBytes = new AtomicLong();
+
+    /**
+     * The bytes produced by decompressing them.
+     */
+    private final AtomicLong mDecompressedBytes = new AtomicLong();
+
+    /**
+     * Gets the number of compressed responses read.
+     * @return The number of responses.
+     */
+    public long getResponseCount() {
+        return mResponseCount.get();
+    }
+
+    /**
+     * Gets the compressed bytes read from the network.
+     * @return The number of bytes on the wire.
+     */
+    public long getCompressedBytes() {
+        return mCompressedBytes.get();
+    }
+
+    /**
+     * Gets the bytes produced by decompressing the responses.
+     * @return The number of bytes after decompression.
+     */
+    public long getDecompressedBytes() {
+        return mDecompressedBytes.get();
+    }
+
+    /**
+     * Records a compressed response that has been read or closed.
+     * @param compressedBytes The compressed bytes read.
+     * @param decompressedBytes The bytes produced by decompressing them.
+     */
+    void onResponse(final long compressedBytes, final long decompressedBytes) {
+        mResponseCount.incrementAndGet();
+        mCompressedBytes.addAndGet(compressedBytes);
+        mDecompressedBytes.addAndGet(decompressedBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats[responses=" + getResponseCount()
+               + ", compressed=" + getCompressedBytes()
+               + ", decompressed=" + getDecompressedBytes() + "]";
+    }
+}
@@ -0,0 +1,212 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps idle sockets alive so later requests to the same server skip the TCP and TLS handshakes. Idle sockets are
+ * evicted once they exceed the keep alive duration or the pool is full, least recently used first.
+ */
+public class ConnectionPool {
+
+    /**
+     * The default number of idle sockets kept alive.
+     */
+    public static final int DEFAULT_MAXIMUM_IDLE_CONNECTIONS = 5;
+
+    /**
+     * The default time an idle socket is kept alive, 5 minutes.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 5 * 60 * 1000;
+
+    /**
+     * The number of idle sockets kept alive.
+     */
+    private final int mMaximumIdleConnections;
+
+    /**
+     * The time an idle socket is kept alive.
+     */
+    private final long mKeepAliveMillis;
+
+    /**
+     * The idle sockets, most recently used first, guarded by this.
+     */
+    private final Deque<PooledSocket> mIdle = new ArrayDeque<>();
+
+    /**
+     * The number of sockets opened.
+     */
+    private final AtomicLong mConnectionCount = new AtomicLong();
+
+    /**
+     * The number of requests carried by a pooled socket.
+     */
+    private final AtomicLong mReuseCount = new AtomicLong();
+
+    /**
+     * The number of idle sockets closed by the pool.
+     */
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+    /**
+     * Creates a new ConnectionPool with the default sizing.
+     */
+    public ConnectionPool() {
+        this(DEFAULT_MAXIMUM_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_MILLIS);
+    }
+
+    /**
+     * Creates a new ConnectionPool.
+     * @param maximumIdleConnections The number of idle sockets kept alive.
+     * @param keepAliveMillis The time an idle socket is kept alive.
+     */
+    public ConnectionPool(final int maximumIdleConnections, final long keepAliveMillis) {
+        if (maximumIdleConnections < 0 || keepAliveMillis < 0) {
+            throw new IllegalArgumentException("Idle connections and keep alive must not be negative");
+        }
+        mMaximumIdleConnections = maximumIdleConnections;
+        mKeepAliveMillis = keepAliveMillis;
+    }
+
+    /**
+     * Gets the number of sockets opened.
+     * @return The number of new connections.
+     */
+    public long getConnectionCount() {
+        return mConnectionCount.get();
+    }
+
+    /**
+     * Gets the number of requests that were carried by a pooled socket instead of a new one.
+     * @return The number of reused connections.
+     */
+    public long getReuseCount() {
+        return mReuseCount.get();
+    }
+
+    /**
+     * Gets the number of idle sockets closed because they expired or the pool was full.
+     * @return The number of evicted connections.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * Gets the number of idle sockets.
+     * @return The number of idle connections.
+     */
+    public synchronized int getIdleConnectionCount() {
+        return mIdle.size();
+    }
+
+    /**
+     * Closes all idle sockets.
+     */
+    public void evictAll() {
+        final PooledSocket[] evicted;
+        synchronized (this) {
+            evicted = mIdle.toArray(new PooledSocket[mIdle.size()]);
+            mIdle.clear();
+        }
+        for (final PooledSocket socket : evicted) {
+            mEvictionCount.incrementAndGet();
+            socket.close();
+        }
+    }
+
+    /**
+     * Takes a healthy idle socket to a route.
+     * @param route The scheme, host and port of the server.
+     * @return The socket, or null if a new one has to be opened.
+     */
+    PooledSocket acquire(final String route) {
+        while (true) {
+            PooledSocket candidate = null;
+            synchronized (this) {
+                evictExpired(System.currentTimeMillis());
+                final Iterator<PooledSocket> iterator = mIdle.iterator();
+                while (iterator.hasNext()) {
+                    final PooledSocket socket = iterator.next();
+                    if (socket.getRoute().equals(route)) {
+                        iterator.remove();
+                        candidate = socket;
+                        break;
+                    }
+                }
+            }
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate.isHealthy()) {
+                mReuseCount.incrementAndGet();
+                return candidate;
+            }
+            candidate.close();
+        }
+    }
+
+    /**
+     * Records a newly opened socket.
+     */
+    void onConnectionOpened() {
+        mConnectionCount.incrementAndGet();
+    }
+
+    /**
+     * Returns a socket whose last response was fully read, so it can carry another request.
+     * @param socket The socket.
+     */
+    void release(final PooledSocket socket) {
+        if (mMaximumIdleConnections == 0) {
+            socket.close();
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        socket.setIdleSince(now);
+        synchronized (this) {
+            mIdle.addFirst(socket);
+            evictExpired(now);
+            while (mIdle.size() > mMaximumIdleConnections) {
+                mIdle.removeLast().close();
+                mEvictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Closes the idle sockets that exceeded the keep alive duration, guarded by this.
+     * @param now The current time in milliseconds.
+     */
+    private void evictExpired(final long now) {
+        while (!mIdle.isEmpty() && now - mIdle.peekLast().getIdleSince() > mKeepAliveMillis) {
+            mIdle.removeLast().close();
+            mEvictionCount.incrementAndGet();
+        }
+    }
+}
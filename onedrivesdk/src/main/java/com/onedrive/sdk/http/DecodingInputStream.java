@@ -0,0 +1,484 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Decodes a gzip or deflate response body with an inflater taken from a shared pool, and records the compressed
+ * and decompressed byte counts when the body ends or is closed.
+ */
+final class DecodingInputStream extends InflaterInputStream {
+
+    /**
+     * The gzip magic number, as read in little endian order.
+     */
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    /**
+     * The deflate compression method, used by both gzip and zlib.
+     */
+    private static final int DEFLATE_METHOD = 8;
+
+    /**
+     * The gzip flag for a header checksum.
+     */
+    private static final int FLAG_HEADER_CRC = 2;
+
+    /**
+     * The gzip flag for an extra field.
+     */
+    private static final int FLAG_EXTRA = 4;
+
+    /**
+     * The gzip flag for a file name.
+     */
+    private static final int FLAG_NAME = 8;
+
+    /**
+     * The gzip flag for a comment.
+     */
+    private static final int FLAG_COMMENT = 16;
+
+    /**
+     * The bytes of the gzip header after the flags: modification time, extra flags and operating system.
+     */
+    private static final int GZIP_HEADER_SKIP = 6;
+
+    /**
+     * The length of the gzip trailer: the checksum and the size of the content.
+     */
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    /**
+     * The divisor of a valid zlib header check.
+     */
+    private static final int ZLIB_CHECK_DIVISOR = 31;
+
+    /**
+     * The mask of the compression method in a zlib header.
+     */
+    private static final int ZLIB_METHOD_MASK = 0x0f;
+
+    /**
+     * The number of bits in a byte.
+     */
+    private static final int BYTE_BITS = 8;
+
+    /**
+     * The mask of an unsigned 32 bit value.
+     */
+    private static final long UINT_MASK = 0xffffffffL;
+
+    /**
+     * The size of the compressed input buffer.
+     */
+    private static final int INPUT_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The number of idle inflaters of each kind kept for reuse.
+     */
+    private static final int MAXIMUM_POOLED_INFLATERS = 4;
+
+    /**
+     * The idle inflaters for raw deflate data, as in gzip.
+     */
+    private static final Queue<Inflater> RAW_INFLATERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The idle inflaters for zlib wrapped data.
+     */
+    private static final Queue<Inflater> ZLIB_INFLATERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of idle inflaters of both kinds.
+     */
+    private static final AtomicInteger POOLED_INFLATERS = new AtomicInteger();
+
+    /**
+     * The compressed stream, which counts the bytes read from the network.
+     */
+    private final CountingInputStream mCompressed;
+
+    /**
+     * Whether the content is gzip, with a trailer to verify.
+     */
+    private final boolean mGzip;
+
+    /**
+     * Whether the inflater expects raw deflate data.
+     */
+    private final boolean mRaw;
+
+    /**
+     * The counters to record the response in.
+     */
+    private final CompressionStats mStats;
+
+    /**
+     * The checksum of the decompressed content, for gzip.
+     */
+    private final CRC32 mCrc = new CRC32();
+
+    /**
+     * The decompressed bytes read.
+     */
+    private long mDecompressedBytes;
+
+    /**
+     * Whether the response has been recorded.
+     */
+    private boolean mRecorded;
+
+    /**
+     * Whether this stream has been closed.
+     */
+    private boolean mStreamClosed;
+
+    /**
+     * Creates a new DecodingInputStream.
+     * @param in The compressed stream, positioned at the deflate data.
+     * @param compressed The counting stream under it.
+     * @param gzip Whether the content is gzip.
+     * @param raw Whether the deflate data is raw rather than zlib wrapped.
+     * @param stats The counters to record the response in.
+     */
+    private DecodingInputStream(final InputStream in,
+                                final CountingInputStream compressed,
+                                final boolean gzip,
+                                final boolean raw,
+                                final CompressionStats stats) {
+        super(in, acquireInflater(raw), INPUT_BUFFER_SIZE);
+        mCompressed = compressed;
+        mGzip = gzip;
+        mRaw = raw;
+        mStats = stats;
+    }
+
+    /**
+     * Wraps a response body so it is decoded according to its Content-Encoding.
+     * @param in The response body.
+     * @param contentEncoding The Content-Encoding header, or null.
+     * @param stats The counters to record the response in.
+     * @return The decoded stream, or the body itself if it is not gzip or deflate encoded.
+     * @throws IOException An exception occurs if the gzip or zlib header is malformed.
+     */
+    static InputStream decode(final InputStream in, final String contentEncoding, final CompressionStats stats)
+            throws IOException {
+        if (contentEncoding == null) {
+            return in;
+        }
+        final String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+            final CountingInputStream compressed = new CountingInputStream(in);
+            readGzipHeader(compressed);
+            return new DecodingInputStream(compressed, compressed, true, true, stats);
+        }
+        if ("deflate".equals(encoding)) {
+            // Deflate should be zlib wrapped, but some servers send raw deflate data
+            final CountingInputStream compressed = new CountingInputStream(in);
+            final PushbackInputStream peek = new PushbackInputStream(compressed, 2);
+            final int first = peek.read();
+            final int second = peek.read();
+            if (second == -1) {
+                throw new EOFException("Deflate response ended before its header");
+            }
+            peek.unread(second);
+            peek.unread(first);
+            final boolean zlib = (first & ZLIB_METHOD_MASK) == DEFLATE_METHOD
+                                 && ((first << BYTE_BITS) | second) % ZLIB_CHECK_DIVISOR == 0;
+            return new DecodingInputStream(peek, compressed, false, !zlib, stats);
+        }
+        return in;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        checkOpen();
+        final int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            mDecompressedBytes += read;
+            if (mGzip) {
+                mCrc.update(buffer, offset, read);
+            }
+        } else if (read == -1 && !mRecorded) {
+            if (mGzip) {
+                readGzipTrailer();
+            }
+            record();
+        }
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkOpen();
+        return super.available();
+    }
+
+    /**
+     * Closes the compressed stream and returns the inflater to the pool. InflaterInputStream.close() is not called,
+     * since on older platform releases it ends the inflater, which could then be neither reset nor reused.
+     * @throws IOException An exception occurs if the compressed stream could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (mStreamClosed) {
+            return;
+        }
+        mStreamClosed = true;
+        record();
+        try {
+            in.close();
+        } finally {
+            releaseInflater(inf, mRaw);
+        }
+    }
+
+    /**
+     * Checks that this stream is open, as InflaterInputStream no longer tracks it once close() is overridden.
+     * @throws IOException An exception occurs if the stream has been closed.
+     */
+    private void checkOpen() throws IOException {
+        if (mStreamClosed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Records the response in the counters, once.
+     */
+    private void record() {
+        if (!mRecorded) {
+            mRecorded = true;
+            mStats.onResponse(mCompressed.getCount(), mDecompressedBytes);
+        }
+    }
+
+    /**
+     * Verifies the checksum and size in the gzip trailer.
+     * @throws IOException An exception occurs if the trailer is missing or does not match the content.
+     */
+    private void readGzipTrailer() throws IOException {
+        // The inflater may have consumed the trailer into the input buffer already
+        final int remaining = inf.getRemaining();
+        InputStream trailer = in;
+        if (remaining > 0) {
+            trailer = new SequenceInputStream(new ByteArrayInputStream(buf, len - remaining, remaining), in);
+        }
+        final long crc = readUnsignedInt(trailer);
+        final long size = readUnsignedInt(trailer);
+        if (crc != mCrc.getValue() || size != (mDecompressedBytes & UINT_MASK)) {
+            throw new ZipException("Corrupt gzip response, the trailer does not match the content");
+        }
+    }
+
+    /**
+     * Reads and checks a gzip header.
+     * @param in The compressed stream.
+     * @throws IOException An exception occurs if the header is malformed.
+     */
+    private static void readGzipHeader(final InputStream in) throws IOException {
+        if (readUnsignedShort(in) != GZIP_MAGIC) {
+            throw new ZipException("Not in gzip format");
+        }
+        if (readUnsignedByte(in) != DEFLATE_METHOD) {
+            throw new ZipException("Unsupported gzip compression method");
+        }
+        final int flags = readUnsignedByte(in);
+        skipFully(in, GZIP_HEADER_SKIP);
+        if ((flags & FLAG_EXTRA) != 0) {
+            skipFully(in, readUnsignedShort(in));
+        }
+        if ((flags & FLAG_NAME) != 0) {
+            skipString(in);
+        }
+        if ((flags & FLAG_COMMENT) != 0) {
+            skipString(in);
+        }
+        if ((flags & FLAG_HEADER_CRC) != 0) {
+            skipFully(in, 2);
+        }
+    }
+
+    /**
+     * Reads an unsigned byte.
+     * @param in The stream.
+     * @return The byte.
+     * @throws IOException An exception occurs if the stream ended.
+     */
+    private static int readUnsignedByte(final InputStream in) throws IOException {
+        final int b = in.read();
+        if (b == -1) {
+            throw new EOFException("Compressed response ended early");
+        }
+        return b;
+    }
+
+    /**
+     * Reads a little endian unsigned short.
+     * @param in The stream.
+     * @return The value.
+     * @throws IOException An exception occurs if the stream ended.
+     */
+    private static int readUnsignedShort(final InputStream in) throws IOException {
+        return readUnsignedByte(in) | (readUnsignedByte(in) << BYTE_BITS);
+    }
+
+    /**
+     * Reads a little endian unsigned int.
+     * @param in The stream.
+     * @return The value.
+     * @throws IOException An exception occurs if the stream ended.
+     */
+    private static long readUnsignedInt(final InputStream in) throws IOException {
+        return ((long) readUnsignedShort(in) | ((long) readUnsignedShort(in) << (2 * BYTE_BITS))) & UINT_MASK;
+    }
+
+    /**
+     * Skips a zero terminated string.
+     * @param in The stream.
+     * @throws IOException An exception occurs if the stream ended.
+     */
+    private static void skipString(final InputStream in) throws IOException {
+        while (readUnsignedByte(in) != 0) {
+            // Skip until the terminator
+        }
+    }
+
+    /**
+     * Skips a number of bytes.
+     * @param in The stream.
+     * @param count The number of bytes.
+     * @throws IOException An exception occurs if the stream ended.
+     */
+    private static void skipFully(final InputStream in, final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readUnsignedByte(in);
+        }
+    }
+
+    /**
+     * Takes an idle inflater from the pool, or creates one.
+     * @param raw Whether the inflater expects raw deflate data.
+     * @return The inflater.
+     */
+    private static Inflater acquireInflater(final boolean raw) {
+        final Inflater inflater;
+        if (raw) {
+            inflater = RAW_INFLATERS.poll();
+        } else {
+            inflater = ZLIB_INFLATERS.poll();
+        }
+        if (inflater == null) {
+            return new Inflater(raw);
+        }
+        POOLED_INFLATERS.decrementAndGet();
+        return inflater;
+    }
+
+    /**
+     * Returns an inflater to the pool, or frees it if the pool is full.
+     * @param inflater The inflater.
+     * @param raw Whether the inflater expects raw deflate data.
+     */
+    private static void releaseInflater(final Inflater inflater, final boolean raw) {
+        if (POOLED_INFLATERS.incrementAndGet() > MAXIMUM_POOLED_INFLATERS) {
+            POOLED_INFLATERS.decrementAndGet();
+            inflater.end();
+            return;
+        }
+        inflater.reset();
+        if (raw) {
+            RAW_INFLATERS.offer(inflater);
+        } else {
+            ZLIB_INFLATERS.offer(inflater);
+        }
+    }
+
+    /**
+     * Counts the bytes read from a stream.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        /**
+         * The bytes read.
+         */
+        private long mCount;
+
+        /**
+         * Creates a new CountingInputStream.
+         * @param in The stream to count.
+         */
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        /**
+         * Gets the bytes read.
+         * @return The count.
+         */
+        long getCount() {
+            return mCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                mCount += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long count) throws IOException {
+            final long skipped = super.skip(count);
+            mCount += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * A connection that asks for a gzip or deflate encoded response and decodes it, so that callers, including the
+ * error handling, read the decoded body from {@link #getInputStream()}.
+ */
+class DecompressingConnection implements IConnection {
+
+    /**
+     * The accept encoding header name.
+     */
+    private static final String ACCEPT_ENCODING_HEADER_NAME = "Accept-Encoding";
+
+    /**
+     * The content encoding response header name.
+     */
+    private static final String CONTENT_ENCODING_HEADER_NAME = "Content-Encoding";
+
+    /**
+     * The encodings that can be decoded.
+     */
+    private static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+
+    /**
+     * The connection to decode the response of.
+     */
+    private final IConnection mConnection;
+
+    /**
+     * The counters to record compressed responses in.
+     */
+    private final CompressionStats mStats;
+
+    /**
+     * The decoded response body, once requested.
+     */
+    private InputStream mDecoded;
+
+    /**
+     * Creates a new DecompressingConnection.
+     * @param connection The connection to decode the response of.
+     * @param stats The counters to record compressed responses in.
+     */
+    DecompressingConnection(final IConnection connection, final CompressionStats stats) {
+        mConnection = connection;
+        mStats = stats;
+        mConnection.addRequestHeader(ACCEPT_ENCODING_HEADER_NAME, SUPPORTED_ENCODINGS);
+    }
+
+    @Override
+    public void setFollowRedirects(final boolean followRedirects) {
+        mConnection.setFollowRedirects(followRedirects);
+    }
+
+    @Override
+    public void addRequestHeader(final String headerName, final String headerValue) {
+        mConnection.addRequestHeader(headerName, headerValue);
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return mConnection.getOutputStream();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (mDecoded == null) {
+            final InputStream in = mConnection.getInputStream();
+            if (in == null) {
+                return null;
+            }
+            mDecoded = DecodingInputStream.decode(in, getContentEncoding(), mStats);
+        }
+        return mDecoded;
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        return mConnection.getResponseCode();
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        return mConnection.getResponseMessage();
+    }
+
+    @Override
+    public void close() {
+        if (mDecoded != null) {
+            try {
+                mDecoded.close();
+            } catch (final IOException ignored) {
+                // The connection is closed below either way
+            }
+        }
+        mConnection.close();
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        return mConnection.getHeaders();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return mConnection.getRequestMethod();
+    }
+
+    @Override
+    public void setContentLength(final int length) {
+        mConnection.setContentLength(length);
+    }
+
+    /**
+     * Gets the Content-Encoding of the response regardless of the case of the header name.
+     * @return The encoding, or null if the response is not encoded.
+     */
+    private String getContentEncoding() {
+        for (final Map.Entry<String, String> header : mConnection.getHeaders().entrySet()) {
+            if (CONTENT_ENCODING_HEADER_NAME.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
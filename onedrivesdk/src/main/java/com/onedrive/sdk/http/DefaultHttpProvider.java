@@ -23,23 +23,29 @@
 package com.onedrive.sdk.http;
 
 import com.onedrive.sdk.concurrency.AsyncMonitorLocation;
+import com.onedrive.sdk.concurrency.ExecutorLane;
 import com.onedrive.sdk.concurrency.ICallback;
 import com.onedrive.sdk.concurrency.IExecutors;
 import com.onedrive.sdk.concurrency.IProgressCallback;
 import com.onedrive.sdk.core.ClientException;
 import com.onedrive.sdk.core.OneDriveErrorCodes;
 import com.onedrive.sdk.logger.ILogger;
-import com.onedrive.sdk.logger.LoggerLevel;
+import com.onedrive.sdk.options.HeaderOption;
 import com.onedrive.sdk.serializer.ISerializer;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.Callable;
 
 /**
  * Http provider based off of URLConnection.
@@ -56,6 +62,21 @@ public class DefaultHttpProvider implements IHttpProvider {
      */
     static final String JSON_CONTENT_TYPE = "application/json";
 
+    /**
+     * The eTag response header.
+     */
+    private static final String ETAG_HEADER_NAME = "ETag";
+
+    /**
+     * The conditional request header for revalidating cached responses.
+     */
+    private static final String IF_NONE_MATCH_HEADER_NAME = "If-None-Match";
+
+    /**
+     * The size of the buffer used to read cacheable responses.
+     */
+    private static final int READ_BUFFER_SIZE = 4096;
+
     /**
      * The serializer.
      */
@@ -81,6 +102,26 @@ public class DefaultHttpProvider implements IHttpProvider {
      */
     private IConnectionFactory mConnectionFactory;
 
+    /**
+     * The counters of compressed responses.
+     */
+    private final CompressionStats mCompressionStats = new CompressionStats();
+
+    /**
+     * The cache of json responses, or null if caching is disabled.
+     */
+    private volatile ResponseCache mResponseCache;
+
+    /**
+     * The coalescer of identical in-flight GET requests, or null if coalescing is disabled.
+     */
+    private volatile RequestCoalescer mRequestCoalescer;
+
+    /**
+     * Whether compressed json responses are requested.
+     */
+    private volatile boolean mCompressionEnabled;
+
     /**
      * Creates the DefaultHttpProvider.
      * @param serializer The serializer.
@@ -92,11 +133,27 @@ public class DefaultHttpProvider implements IHttpProvider {
                                final IRequestInterceptor requestInterceptor,
                                final IExecutors executors,
                                final ILogger logger) {
+        this(serializer, requestInterceptor, executors, logger, new DefaultConnectionFactory());
+    }
+
+    /**
+     * Creates the DefaultHttpProvider with a connection factory.
+     * @param serializer The serializer.
+     * @param requestInterceptor The request interceptor.
+     * @param executors The executors.
+     * @param logger The logger for diagnostic information.
+     * @param connectionFactory The connection factory, such as a {@link PooledConnectionFactory}.
+     */
+    public DefaultHttpProvider(final ISerializer serializer,
+                               final IRequestInterceptor requestInterceptor,
+                               final IExecutors executors,
+                               final ILogger logger,
+                               final IConnectionFactory connectionFactory) {
         mSerializer = serializer;
         mRequestInterceptor = requestInterceptor;
         mExecutors = executors;
         mLogger = logger;
-        mConnectionFactory = new DefaultConnectionFactory();
+        mConnectionFactory = connectionFactory;
     }
 
     /**
@@ -130,6 +187,15 @@ public class DefaultHttpProvider implements IHttpProvider {
             progressCallback = null;
         }
 
+        final ExecutorLane lane;
+        if (resultClass == InputStream.class
+                || serializable instanceof byte[]
+                || serializable instanceof IRequestBody) {
+            lane = ExecutorLane.Transfer;
+        } else {
+            lane = ExecutorLane.Interactive;
+        }
+
         mExecutors.performOnBackground(new Runnable() {
             @Override
             public void run() {
@@ -144,7 +210,7 @@ public class DefaultHttpProvider implements IHttpProvider {
                     mExecutors.performOnForeground(e, callback);
                 }
             }
-        });
+        }, lane, callback);
     }
 
     /**
@@ -203,12 +269,48 @@ public class DefaultHttpProvider implements IHttpProvider {
                                                       final IProgressCallback<Result> progress,
                                                       final IStatefulResponseHandler<Result, DeserializeType> handler)
             throws ClientException {
+        final RequestCoalescer coalescer = mRequestCoalescer;
+        if (coalescer == null || handler != null || !RequestCoalescer.canCoalesce(request, resultClass, serializable)) {
+            return sendRequestInternal(request, resultClass, serializable, progress, handler, true);
+        }
+
+        // The authorization header is part of the key, so the request is intercepted before it is looked up
+        intercept(request);
+        return coalescer.execute(RequestCoalescer.createKey(request, resultClass), new Callable<Result>() {
+            @Override
+            public Result call() {
+                return sendRequestInternal(request, resultClass, null, progress, null, false);
+            }
+        });
+    }
+
+    /**
+     * Sends the http request.
+     * @param request The request description.
+     * @param resultClass The class of the response from the service.
+     * @param serializable The object to send to the service in the body of the request.
+     * @param progress The progress callback for the request.
+     * @param handler The handler for stateful response.
+     * @param shouldIntercept Whether the request still needs to be passed to the request interceptor.
+     * @param <Result> The type of the response object.
+     * @param <Body> The type of the object to send to the service in the body of the request.
+     * @param <DeserializeType> The response handler for stateful response.
+     * @return The result from the request.
+     * @throws ClientException An exception occurs if the request was unable to complete for any reason.
+     */
+    private <Result, Body, DeserializeType> Result sendRequestInternal(final IHttpRequest request,
+                                                      final Class<Result> resultClass,
+                                                      final Body serializable,
+                                                      final IProgressCallback<Result> progress,
+                                                      final IStatefulResponseHandler<Result, DeserializeType> handler,
+                                                      final boolean shouldIntercept)
+            throws ClientException {
         final int defaultBufferSize = 4096;
         final String contentLengthHeaderName = "Content-Length";
         final String binaryContentType = "application/octet-stream";
 
         try {
-            if (mRequestInterceptor != null) {
+            if (shouldIntercept && mRequestInterceptor != null) {
                 mRequestInterceptor.intercept(request);
             }
 
@@ -216,22 +318,54 @@ public class DefaultHttpProvider implements IHttpProvider {
             InputStream in = null;
             boolean isBinaryStreamInput = false;
             final URL requestUrl = request.getRequestUrl();
-            mLogger.logDebug("Starting to send request, URL " + requestUrl.toString());
-            final IConnection connection = mConnectionFactory.createFromRequest(request);
+            mLogger.logDebug("Starting to send request, URL {}", requestUrl);
+            final IConnection connection;
+            if (mCompressionEnabled && handler == null && resultClass != InputStream.class) {
+                // Binary content is left alone, its ranges and lengths refer to the encoded bytes
+                connection = new DecompressingConnection(mConnectionFactory.createFromRequest(request),
+                                                         mCompressionStats);
+            } else {
+                connection = mConnectionFactory.createFromRequest(request);
+            }
+
+            String cacheKey = null;
+            CachedResponse cached = null;
+            if (mResponseCache != null
+                    && handler == null
+                    && serializable == null
+                    && request.getHttpMethod() == HttpMethod.GET
+                    && resultClass != InputStream.class
+                    && !hasHeader(request, IF_NONE_MATCH_HEADER_NAME)) {
+                cacheKey = ResponseCache.createKey(request, getAccountId());
+                cached = mResponseCache.get(cacheKey);
+                if (cached != null) {
+                    mLogger.logDebug("Revalidating cached response with eTag {}", cached.getETag());
+                    connection.addRequestHeader(IF_NONE_MATCH_HEADER_NAME, cached.getETag());
+                }
+            }
 
             try {
-                mLogger.logDebug("Request Method " + request.getHttpMethod().toString());
+                mLogger.logDebug("Request Method {}", request.getHttpMethod());
 
                 final byte[] bytesToWrite;
+                IRequestBody bodyToWrite = null;
                 if (serializable == null) {
                     bytesToWrite = null;
+                } else if (serializable instanceof IRequestBody) {
+                    mLogger.logDebug("Sending {} as request body", serializable);
+                    bytesToWrite = null;
+                    bodyToWrite = (IRequestBody) serializable;
+                    connection.addRequestHeader(CONTENT_TYPE_HEADER_NAME, binaryContentType);
+                    connection.setContentLength(bodyToWrite.getLength());
                 } else if (serializable instanceof byte[]) {
                     mLogger.logDebug("Sending byte[] as request body");
                     bytesToWrite = (byte[]) serializable;
                     connection.addRequestHeader(CONTENT_TYPE_HEADER_NAME, binaryContentType);
                     connection.setContentLength(bytesToWrite.length);
                 } else {
-                    mLogger.logDebug("Sending " + serializable.getClass().getName() + " as request body");
+                    if (mLogger.isDebugEnabled()) {
+                        mLogger.logDebug("Sending {} as request body", serializable.getClass().getName());
+                    }
                     final String serializeObject = mSerializer.serializeObject(serializable);
                     bytesToWrite = serializeObject.getBytes();
                     connection.addRequestHeader(CONTENT_TYPE_HEADER_NAME, JSON_CONTENT_TYPE);
@@ -239,32 +373,41 @@ public class DefaultHttpProvider implements IHttpProvider {
                 }
 
                 // Handle cases where we've got a body to process.
+                // The connection stream is already buffered, so bodies are written to it directly.
                 if (bytesToWrite != null) {
                     out = connection.getOutputStream();
 
                     int writtenSoFar = 0;
-                    BufferedOutputStream bos = new BufferedOutputStream(out);
 
                     int toWrite;
                     do {
                         toWrite = Math.min(defaultBufferSize, bytesToWrite.length - writtenSoFar);
-                        bos.write(bytesToWrite, writtenSoFar, toWrite);
+                        out.write(bytesToWrite, writtenSoFar, toWrite);
                         writtenSoFar = writtenSoFar + toWrite;
                         if (progress != null) {
                             mExecutors.performOnForeground(writtenSoFar, bytesToWrite.length,
                                     progress);
                         }
                     } while (toWrite > 0);
-                    bos.close();
+                    out.close();
+                } else if (bodyToWrite != null) {
+                    out = connection.getOutputStream();
+                    if (progress != null) {
+                        out = new ProgressOutputStream(out, mExecutors, progress, bodyToWrite.getLength());
+                    }
+                    bodyToWrite.writeTo(out);
+                    out.close();
                 }
 
                 if (handler != null) {
                     handler.configConnection(connection);
                 }
 
-                mLogger.logDebug(String.format("Response code %d, %s",
-                        connection.getResponseCode(),
-                        connection.getResponseMessage()));
+                if (mLogger.isDebugEnabled()) {
+                    mLogger.logDebug("Response code {}, {}",
+                            connection.getResponseCode(),
+                            connection.getResponseMessage());
+                }
 
                 if (handler != null) {
                     mLogger.logDebug("StatefulResponse is handling the HTTP response.");
@@ -278,6 +421,12 @@ public class DefaultHttpProvider implements IHttpProvider {
                     handleErrorResponse(request, serializable, connection);
                 }
 
+                if (cached != null && connection.getResponseCode() == HttpResponseCode.HTTP_NOT_MODIFIED) {
+                    mLogger.logDebug("Handling not modified response from the cache");
+                    mResponseCache.onHit();
+                    return handleJsonResponse(new ByteArrayInputStream(cached.getBody()), resultClass);
+                }
+
                 if (connection.getResponseCode() == HttpResponseCode.HTTP_NOBODY
                         || connection.getResponseCode() == HttpResponseCode.HTTP_NOT_MODIFIED) {
                     mLogger.logDebug("Handling response with no body");
@@ -299,6 +448,20 @@ public class DefaultHttpProvider implements IHttpProvider {
                 final String contentType = headers.get(CONTENT_TYPE_HEADER_NAME);
                 if (contentType.contains(JSON_CONTENT_TYPE)) {
                     mLogger.logDebug("Response json");
+                    final String eTag = getHeader(headers, ETAG_HEADER_NAME);
+                    if (cacheKey != null && eTag != null
+                            && connection.getResponseCode() == HttpResponseCode.HTTP_OK) {
+                        final ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+                        if (!readAtMost(in, buffered, mResponseCache.getMaximumEntrySize())) {
+                            mLogger.logDebug("Response is too large to cache");
+                            return handleJsonResponse(
+                                    new SequenceInputStream(new ByteArrayInputStream(buffered.toByteArray()), in),
+                                    resultClass);
+                        }
+                        final byte[] body = buffered.toByteArray();
+                        mResponseCache.put(cacheKey, new CachedResponse(eTag, body));
+                        return handleJsonResponse(new ByteArrayInputStream(body), resultClass);
+                    }
                     return handleJsonResponse(in, resultClass);
                 } else {
                     mLogger.logDebug("Response binary");
@@ -310,13 +473,17 @@ public class DefaultHttpProvider implements IHttpProvider {
                 if (out != null) {
                     out.close();
                 }
-                if (!isBinaryStreamInput && in != null) {
-                    in.close();
+                // Every response that is not handed to the caller as a stream is closed, so a pooled socket goes
+                // back to the pool even when the response had no body to read
+                if (!isBinaryStreamInput && handler == null) {
+                    if (in != null) {
+                        in.close();
+                    }
                     connection.close();
                 }
             }
         } catch (final OneDriveServiceException ex) {
-            final boolean shouldLogVerbosely = mLogger.getLoggingLevel() == LoggerLevel.Debug;
+            final boolean shouldLogVerbosely = mLogger.isDebugEnabled();
             mLogger.logError("OneDrive Service exception " + ex.getMessage(shouldLogVerbosely), ex);
             throw ex;
         } catch (final Exception ex) {
@@ -328,6 +495,26 @@ public class DefaultHttpProvider implements IHttpProvider {
         }
     }
 
+    /**
+     * Passes a request to the request interceptor.
+     * @param request The request.
+     * @throws ClientException An exception occurs if the interceptor failed.
+     */
+    private void intercept(final IHttpRequest request) throws ClientException {
+        if (mRequestInterceptor == null) {
+            return;
+        }
+        try {
+            mRequestInterceptor.intercept(request);
+        } catch (final RuntimeException ex) {
+            final ClientException clientException = new ClientException("Error during http request",
+                    ex,
+                    OneDriveErrorCodes.GeneralException);
+            mLogger.logError("Error during http request", clientException);
+            throw clientException;
+        }
+    }
+
     /**
      * Handles the event of an error response.
      * @param request The request that caused the failed response.
@@ -366,8 +553,56 @@ public class DefaultHttpProvider implements IHttpProvider {
             return null;
         }
 
-        final String rawJson = streamToString(in);
-        return getSerializer().deserializeObject(rawJson, clazz);
+        return getSerializer().deserializeObject(in, clazz);
+    }
+
+    /**
+     * Sets whether json responses are requested with gzip or deflate encoding and decoded as they are read.
+     * Stream responses and responses read by a stateful handler are never requested compressed.
+     * @param compressionEnabled true to request compressed responses.
+     */
+    public void setCompressionEnabled(final boolean compressionEnabled) {
+        mCompressionEnabled = compressionEnabled;
+    }
+
+    /**
+     * Gets the counters of compressed responses, for monitoring.
+     * @return The compression counters.
+     */
+    public CompressionStats getCompressionStats() {
+        return mCompressionStats;
+    }
+
+    /**
+     * Sets the cache that json GET responses with an eTag are stored in and revalidated against.
+     * @param responseCache The response cache, or null to disable caching.
+     */
+    public void setResponseCache(final ResponseCache responseCache) {
+        mResponseCache = responseCache;
+    }
+
+    /**
+     * Gets the response cache.
+     * @return The response cache, or null if caching is disabled.
+     */
+    public ResponseCache getResponseCache() {
+        return mResponseCache;
+    }
+
+    /**
+     * Sets the coalescer that lets identical json GET requests in flight at the same time share one exchange.
+     * @param requestCoalescer The request coalescer, or null to disable coalescing.
+     */
+    public void setRequestCoalescer(final RequestCoalescer requestCoalescer) {
+        mRequestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Gets the request coalescer.
+     * @return The request coalescer, or null if coalescing is disabled.
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return mRequestCoalescer;
     }
 
     /**
@@ -379,16 +614,91 @@ public class DefaultHttpProvider implements IHttpProvider {
         mConnectionFactory = factory;
     }
 
+    /**
+     * Gets whether a request already has a header, regardless of the case of its name.
+     * @param request The request.
+     * @param name The header name.
+     * @return true if the header is present.
+     */
+    private static boolean hasHeader(final IHttpRequest request, final String name) {
+        for (final HeaderOption header : request.getHeaders()) {
+            if (name.equalsIgnoreCase(header.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a response header regardless of the case of its name.
+     * @param headers The response headers.
+     * @param name The header name.
+     * @return The header value, or null if it is not present.
+     */
+    private static String getHeader(final Map<String, String> headers, final String name) {
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the account that requests are authorized for, from the request interceptor.
+     * @return The account id, or null if the interceptor does not know it.
+     */
+    private String getAccountId() {
+        if (mRequestInterceptor instanceof IAccountIdentifier) {
+            return ((IAccountIdentifier) mRequestInterceptor).getAccountId();
+        }
+        return null;
+    }
+
+    /**
+     * Reads a response body into memory so it can be cached, stopping once it is larger than the cache keeps.
+     * @param in The response body.
+     * @param out The bytes read so far.
+     * @param limit The largest body to read in full.
+     * @return True if the whole body was read, false if reading stopped at the limit with bytes left in the stream.
+     * @throws IOException An exception occurs if the body could not be read.
+     */
+    private static boolean readAtMost(final InputStream in, final ByteArrayOutputStream out, final long limit)
+            throws IOException {
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read = in.read(buffer);
+        while (read != -1) {
+            out.write(buffer, 0, read);
+            if (out.size() > limit) {
+                return false;
+            }
+            read = in.read(buffer);
+        }
+        return true;
+    }
+
     /**
      * Reads in a stream and converts it into a string.
+     * Json responses are decoded from the stream directly by the serializer, this is only needed when the raw text
+     * of a response is required.
      *
      * @param input The response body stream.
      * @return The string result.
      */
     public static String streamToString(final InputStream input) {
-        final String httpStreamEncoding = "UTF-8";
-        final String endOfFile = "\\A";
-        final Scanner scanner = new Scanner(input, httpStreamEncoding).useDelimiter(endOfFile);
-        return scanner.next();
+        final int bufferSize = 4096;
+        final Reader reader = new InputStreamReader(input, Charset.forName("UTF-8"));
+        final StringBuilder sb = new StringBuilder();
+        final char[] buffer = new char[bufferSize];
+        try {
+            int read = reader.read(buffer);
+            while (read != -1) {
+                sb.append(buffer, 0, read);
+                read = reader.read(buffer);
+            }
+        } catch (final IOException e) {
+            throw new ClientException("Unable to read the response stream", e, OneDriveErrorCodes.GeneralException);
+        }
+        return sb.toString();
     }
 }
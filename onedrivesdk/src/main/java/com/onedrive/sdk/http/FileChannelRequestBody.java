@@ -0,0 +1,110 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A request body backed by a region of a file, streamed to the connection through a pooled transfer buffer.
+ * Positional reads are used, so several bodies may share one channel and be sent concurrently.
+ */
+public class FileChannelRequestBody implements IRequestBody {
+
+    /**
+     * The size of the transfer buffers, 64 KiB.
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of idle transfer buffers that are kept for reuse.
+     */
+    private static final int MAXIMUM_POOLED_BUFFERS = 4;
+
+    /**
+     * The transfer buffers shared by all file bodies.
+     */
+    private static final BufferPool TRANSFER_BUFFERS = new BufferPool(TRANSFER_BUFFER_SIZE, MAXIMUM_POOLED_BUFFERS);
+
+    /**
+     * The channel holding the body.
+     */
+    private final FileChannel mChannel;
+
+    /**
+     * The position of the body in the channel.
+     */
+    private final long mPosition;
+
+    /**
+     * The length of the body.
+     */
+    private final int mLength;
+
+    /**
+     * Creates a new FileChannelRequestBody.
+     * @param channel The channel holding the body.
+     * @param position The position of the body in the channel.
+     * @param length The length of the body.
+     */
+    public FileChannelRequestBody(final FileChannel channel, final long position, final int length) {
+        mChannel = channel;
+        mPosition = position;
+        mLength = length;
+    }
+
+    @Override
+    public int getLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        final ByteBuffer buffer = TRANSFER_BUFFERS.acquire();
+        try {
+            long position = mPosition;
+            int remaining = mLength;
+            while (remaining > 0) {
+                buffer.clear();
+                buffer.limit(Math.min(buffer.capacity(), remaining));
+                final int read = mChannel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("File ended before the end of the request body");
+                }
+                out.write(buffer.array(), buffer.arrayOffset(), read);
+                position += read;
+                remaining -= read;
+            }
+        } finally {
+            TRANSFER_BUFFERS.release(buffer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "file[" + mPosition + "+" + mLength + "]";
+    }
+}
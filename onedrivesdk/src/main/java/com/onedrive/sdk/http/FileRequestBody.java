@@ -0,0 +1,79 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body backed by a whole file. The file is opened each time the body is written and closed afterwards,
+ * so the body can be sent from any thread and retried without the caller managing the file.
+ */
+public class FileRequestBody implements IRequestBody {
+
+    /**
+     * The file holding the body.
+     */
+    private final File mFile;
+
+    /**
+     * The length of the body.
+     */
+    private final int mLength;
+
+    /**
+     * Creates a new FileRequestBody.
+     * @param file The file holding the body.
+     */
+    public FileRequestBody(final File file) {
+        final long length = file.length();
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Files over " + Integer.MAX_VALUE
+                                               + " bytes must be uploaded with an upload session");
+        }
+        mFile = file;
+        mLength = (int) length;
+    }
+
+    @Override
+    public int getLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        final FileInputStream in = new FileInputStream(mFile);
+        try {
+            new FileChannelRequestBody(in.getChannel(), 0, mLength).writeTo(out);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "file[" + mFile + "]";
+    }
+}
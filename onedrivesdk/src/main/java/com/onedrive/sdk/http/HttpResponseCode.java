@@ -52,6 +52,11 @@ public final class  HttpResponseCode {
      */
     public static final int HTTP_NOBODY = 204;
 
+    /**
+     * Http response code for partial content.
+     */
+    public static final int HTTP_PARTIAL_CONTENT = 206;
+
     /**
      * Http response code for see other.
      */
@@ -66,4 +71,14 @@ public final class  HttpResponseCode {
      * Http response code for error response.
      */
     public static final int HTTP_CLIENT_ERROR = 400;
+
+    /**
+     * Http response code for precondition failed.
+     */
+    public static final int HTTP_PRECONDITION_FAILED = 412;
+
+    /**
+     * Http response code for a range that starts after the end of the content.
+     */
+    public static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
 }
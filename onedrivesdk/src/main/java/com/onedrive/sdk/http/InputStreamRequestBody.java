@@ -0,0 +1,117 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A request body read from a stream of known length, copied to the connection through a pooled transfer buffer
+ * so memory use does not grow with the size of the body. The stream can only be sent once.
+ */
+public class InputStreamRequestBody implements IRequestBody {
+
+    /**
+     * The size of the transfer buffers, 64 KiB.
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of idle transfer buffers that are kept for reuse.
+     */
+    private static final int MAXIMUM_POOLED_BUFFERS = 4;
+
+    /**
+     * The transfer buffers shared by all stream bodies.
+     */
+    private static final BufferPool TRANSFER_BUFFERS = new BufferPool(TRANSFER_BUFFER_SIZE, MAXIMUM_POOLED_BUFFERS);
+
+    /**
+     * The stream holding the body.
+     */
+    private final InputStream mStream;
+
+    /**
+     * The length of the body.
+     */
+    private final int mLength;
+
+    /**
+     * Whether the stream has been written.
+     */
+    private boolean mWritten;
+
+    /**
+     * Creates a new InputStreamRequestBody.
+     * @param stream The stream holding the body, it is not closed by this body.
+     * @param length The number of bytes to send from the stream.
+     */
+    public InputStreamRequestBody(final InputStream stream, final long length) {
+        if (stream == null) {
+            throw new IllegalArgumentException("Stream is null");
+        }
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Stream bodies must be between 0 and " + Integer.MAX_VALUE + " bytes");
+        }
+        mStream = stream;
+        mLength = (int) length;
+    }
+
+    @Override
+    public int getLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        if (mWritten) {
+            throw new IllegalStateException("The stream of this body has already been sent");
+        }
+        mWritten = true;
+
+        final ByteBuffer buffer = TRANSFER_BUFFERS.acquire();
+        try {
+            int remaining = mLength;
+            while (remaining > 0) {
+                final int read = mStream.read(buffer.array(),
+                                              buffer.arrayOffset(),
+                                              Math.min(buffer.capacity(), remaining));
+                if (read < 0) {
+                    throw new EOFException("Stream ended before the end of the request body");
+                }
+                out.write(buffer.array(), buffer.arrayOffset(), read);
+                remaining -= read;
+            }
+        } finally {
+            TRANSFER_BUFFERS.release(buffer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "stream[" + mLength + "]";
+    }
+}
@@ -276,6 +276,8 @@ public class OneDriveServiceException extends ClientException {
                 sb.append(TRUNCATION_MARKER).append("}");
             }
             requestBody = sb.toString();
+        } else if (serializable instanceof IRequestBody) {
+            requestBody = serializable.toString();
         } else if (serializable != null) {
             requestBody = serializer.serializeObject(serializable);
         } else {
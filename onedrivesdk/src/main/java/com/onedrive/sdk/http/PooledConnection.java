@@ -0,0 +1,928 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.options.HeaderOption;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * An HTTP/1.1 exchange over a socket taken from a {@link ConnectionPool}. Once the response body has been read
+ * to the end, or is short enough to be drained on close, the socket goes back to the pool for the next request.
+ */
+class PooledConnection implements IConnection {
+
+    /**
+     * The default port of the http scheme.
+     */
+    private static final int HTTP_PORT = 80;
+
+    /**
+     * The default port of the https scheme.
+     */
+    private static final int HTTPS_PORT = 443;
+
+    /**
+     * The number of redirects followed before the redirect response is returned as is.
+     */
+    private static final int MAXIMUM_REDIRECTS = 5;
+
+    /**
+     * The number of unread response bytes that are drained on close to keep the socket alive.
+     */
+    private static final int DRAIN_LIMIT = 64 * 1024;
+
+    /**
+     * The first informational http status.
+     */
+    private static final int HTTP_INFORMATIONAL = 100;
+
+    /**
+     * The first successful http status.
+     */
+    private static final int HTTP_SUCCESS = 200;
+
+    /**
+     * The moved permanently http status.
+     */
+    private static final int HTTP_MOVED_PERMANENTLY = 301;
+
+    /**
+     * The found http status.
+     */
+    private static final int HTTP_FOUND = 302;
+
+    /**
+     * The temporary redirect http status.
+     */
+    private static final int HTTP_TEMPORARY_REDIRECT = 307;
+
+    /**
+     * The permanent redirect http status.
+     */
+    private static final int HTTP_PERMANENT_REDIRECT = 308;
+
+    /**
+     * The radix of chunk sizes.
+     */
+    private static final int HEX_RADIX = 16;
+
+    /**
+     * The charset of the request and response heads.
+     */
+    private static final Charset HEAD_CHARSET = Charset.forName("ISO-8859-1");
+
+    /**
+     * The head request method, whose responses have no body.
+     */
+    private static final String HEAD_METHOD = "HEAD";
+
+    /**
+     * The mask of the bits of a byte.
+     */
+    private static final int BYTE_MASK = 0xff;
+
+    /**
+     * The authorization header name, which is not sent on to other hosts when following redirects.
+     */
+    private static final String AUTHORIZATION_HEADER_NAME = "Authorization";
+
+    /**
+     * The pool to take sockets from and return them to.
+     */
+    private final ConnectionPool mPool;
+
+    /**
+     * The connect timeout in milliseconds.
+     */
+    private final int mConnectTimeout;
+
+    /**
+     * The read timeout in milliseconds.
+     */
+    private final int mReadTimeout;
+
+    /**
+     * The request headers.
+     */
+    private final List<HeaderOption> mRequestHeaders = new ArrayList<>();
+
+    /**
+     * The url of the request, updated when a redirect is followed.
+     */
+    private URL mUrl;
+
+    /**
+     * The request method.
+     */
+    private String mMethod;
+
+    /**
+     * Whether redirects are followed.
+     */
+    private boolean mFollowRedirects = true;
+
+    /**
+     * The length of the request body, or -1 if there is none.
+     */
+    private int mContentLength = -1;
+
+    /**
+     * The socket carrying the exchange.
+     */
+    private PooledSocket mSocket;
+
+    /**
+     * The request body stream, once requested.
+     */
+    private RequestBody mRequestBody;
+
+    /**
+     * The response code, or -1 until the response head has been read.
+     */
+    private int mResponseCode = -1;
+
+    /**
+     * The response message.
+     */
+    private String mResponseMessage;
+
+    /**
+     * The response headers, with the status line under the null key like {@link UrlConnection}.
+     */
+    private HashMap<String, String> mHeaders;
+
+    /**
+     * The response body stream.
+     */
+    private ResponseBody mResponseBody;
+
+    /**
+     * Whether this connection has been closed.
+     */
+    private boolean mClosed;
+
+    /**
+     * Creates a new PooledConnection.
+     * @param request The request to create the connection from.
+     * @param pool The pool to take sockets from.
+     * @param connectTimeout The connect timeout in milliseconds.
+     * @param readTimeout The read timeout in milliseconds.
+     * @throws IOException An exception occurs if the request url is not http or https.
+     */
+    PooledConnection(final IHttpRequest request,
+                     final ConnectionPool pool,
+                     final int connectTimeout,
+                     final int readTimeout) throws IOException {
+        mUrl = request.getRequestUrl();
+        if (!isSupported(mUrl)) {
+            throw new IOException("Unsupported protocol " + mUrl.getProtocol());
+        }
+        mMethod = request.getHttpMethod().toString();
+        mRequestHeaders.addAll(request.getHeaders());
+        mPool = pool;
+        mConnectTimeout = connectTimeout;
+        mReadTimeout = readTimeout;
+    }
+
+    @Override
+    public void setFollowRedirects(final boolean followRedirects) {
+        mFollowRedirects = followRedirects;
+    }
+
+    @Override
+    public void addRequestHeader(final String headerName, final String headerValue) {
+        if (mSocket != null) {
+            throw new IllegalStateException("The request has already been sent");
+        }
+        mRequestHeaders.add(new HeaderOption(headerName, headerValue));
+    }
+
+    @Override
+    public void setContentLength(final int length) {
+        if (mSocket != null) {
+            throw new IllegalStateException("The request has already been sent");
+        }
+        mContentLength = length;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (mRequestBody != null) {
+            return mRequestBody;
+        }
+        if (mContentLength < 0) {
+            throw new IllegalStateException("The content length must be set before the request body is written");
+        }
+        if (mSocket != null) {
+            throw new IllegalStateException("The request has already been sent");
+        }
+        try {
+            openSocket(true);
+            writeHead();
+        } catch (final IOException e) {
+            discardSocket();
+            throw e;
+        }
+        mRequestBody = new RequestBody(mSocket.getOutputStream(), mContentLength);
+        return mRequestBody;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        readResponse();
+        return mResponseBody;
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        readResponse();
+        return mResponseCode;
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        readResponse();
+        return mResponseMessage;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        try {
+            readResponse();
+        } catch (final IOException e) {
+            return new HashMap<>();
+        }
+        return mHeaders;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return mMethod;
+    }
+
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        if (mResponseBody != null) {
+            try {
+                mResponseBody.close();
+            } catch (final IOException ignored) {
+                // The socket has been discarded
+            }
+        } else {
+            discardSocket();
+        }
+    }
+
+    /**
+     * Sends the request if needed and reads the response head, following redirects.
+     * @throws IOException An exception occurs if the exchange failed.
+     */
+    private void readResponse() throws IOException {
+        if (mResponseCode != -1) {
+            return;
+        }
+        if (mClosed) {
+            throw new IOException("Connection closed");
+        }
+        try {
+            int redirects = 0;
+            exchange();
+            while (shouldFollowRedirect(redirects)) {
+                final URL target = new URL(mUrl, getHeader("Location"));
+                mResponseBody.close();
+                if (!target.getHost().equalsIgnoreCase(mUrl.getHost())) {
+                    removeRequestHeader(AUTHORIZATION_HEADER_NAME);
+                }
+                if (mResponseCode == HttpResponseCode.HTTP_SEE_OTHER && !HEAD_METHOD.equals(mMethod)) {
+                    mMethod = HttpMethod.GET.toString();
+                }
+                mUrl = target;
+                mResponseCode = -1;
+                mResponseBody = null;
+                redirects++;
+                exchange();
+            }
+        } catch (final IOException e) {
+            mResponseCode = -1;
+            discardSocket();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets whether the current response is a redirect that should be followed.
+     * @param redirects The number of redirects followed so far.
+     * @return true if the redirect should be followed.
+     * @throws IOException An exception occurs if the location is malformed.
+     */
+    private boolean shouldFollowRedirect(final int redirects) throws IOException {
+        if (!mFollowRedirects || mRequestBody != null || redirects >= MAXIMUM_REDIRECTS) {
+            return false;
+        }
+        if (mResponseCode != HTTP_MOVED_PERMANENTLY
+                && mResponseCode != HTTP_FOUND
+                && mResponseCode != HttpResponseCode.HTTP_SEE_OTHER
+                && mResponseCode != HTTP_TEMPORARY_REDIRECT
+                && mResponseCode != HTTP_PERMANENT_REDIRECT) {
+            return false;
+        }
+        final String location = getHeader("Location");
+        return location != null && isSupported(new URL(mUrl, location));
+    }
+
+    /**
+     * Sends the request and reads the response head. An idempotent request without a body is sent again on a new
+     * socket if a pooled socket turns out to be closed by the server before any of the response arrived. Timeouts
+     * are never retried, since the server may be processing the request.
+     * @throws IOException An exception occurs if the exchange failed.
+     */
+    private void exchange() throws IOException {
+        if (mRequestBody != null) {
+            mRequestBody.finish();
+            readResponseHead();
+            return;
+        }
+
+        openSocket(true);
+        final long lineBytesRead = mSocket.getLineBytesRead();
+        try {
+            writeHead();
+            mSocket.getOutputStream().flush();
+            readResponseHead();
+        } catch (final IOException e) {
+            if (!mSocket.isReused()
+                    || !isIdempotent()
+                    || e instanceof SocketTimeoutException
+                    || mSocket.getLineBytesRead() != lineBytesRead) {
+                throw e;
+            }
+            discardSocket();
+            openSocket(false);
+            writeHead();
+            mSocket.getOutputStream().flush();
+            readResponseHead();
+        }
+    }
+
+    /**
+     * Gets whether the request method can be sent twice without changing its effect on the server.
+     * @return true for GET, HEAD, DELETE and PUT.
+     */
+    private boolean isIdempotent() {
+        return HttpMethod.GET.toString().equals(mMethod)
+               || HEAD_METHOD.equals(mMethod)
+               || HttpMethod.DELETE.toString().equals(mMethod)
+               || HttpMethod.PUT.toString().equals(mMethod);
+    }
+
+    /**
+     * Takes a socket from the pool, or opens a new one.
+     * @param allowPooled Whether a pooled socket may be used.
+     * @throws IOException An exception occurs if the socket could not be opened.
+     */
+    private void openSocket(final boolean allowPooled) throws IOException {
+        final String host = mUrl.getHost();
+        final int port = getPort(mUrl);
+        final String route = mUrl.getProtocol().toLowerCase(Locale.ROOT) + "://" + host.toLowerCase(Locale.ROOT)
+                             + ":" + port;
+        if (allowPooled) {
+            mSocket = mPool.acquire(route);
+            if (mSocket != null) {
+                return;
+            }
+        }
+
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), mConnectTimeout);
+            socket.setSoTimeout(mReadTimeout);
+            socket.setTcpNoDelay(true);
+            if (isSecure(mUrl)) {
+                final SSLSocket sslSocket = (SSLSocket) HttpsURLConnection.getDefaultSSLSocketFactory()
+                        .createSocket(socket, host, port, true);
+                socket = sslSocket;
+                sslSocket.startHandshake();
+                if (!HttpsURLConnection.getDefaultHostnameVerifier().verify(host, sslSocket.getSession())) {
+                    throw new SSLPeerUnverifiedException("Hostname " + host + " not verified");
+                }
+            }
+            mSocket = new PooledSocket(socket, route);
+        } catch (final IOException e) {
+            socket.close();
+            throw e;
+        }
+        mPool.onConnectionOpened();
+    }
+
+    /**
+     * Writes the request line and headers.
+     * @throws IOException An exception occurs if the socket could not be written.
+     */
+    private void writeHead() throws IOException {
+        String target = mUrl.getFile();
+        if (target.isEmpty()) {
+            target = "/";
+        }
+        final StringBuilder head = new StringBuilder();
+        head.append(mMethod).append(' ').append(target).append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(mUrl.getHost());
+        if (mUrl.getPort() != -1 && mUrl.getPort() != mUrl.getDefaultPort()) {
+            head.append(':').append(mUrl.getPort());
+        }
+        head.append("\r\n");
+        for (final HeaderOption header : mRequestHeaders) {
+            head.append(header.getName()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        if (mContentLength >= 0) {
+            head.append("Content-Length: ").append(mContentLength).append("\r\n");
+        } else if (HttpMethod.POST.toString().equals(mMethod)
+                || HttpMethod.PUT.toString().equals(mMethod)
+                || HttpMethod.PATCH.toString().equals(mMethod)) {
+            head.append("Content-Length: 0\r\n");
+        }
+        head.append("\r\n");
+        mSocket.getOutputStream().write(head.toString().getBytes(HEAD_CHARSET));
+    }
+
+    /**
+     * Reads the status line and headers of the response, skipping informational responses.
+     * @throws IOException An exception occurs if the response is malformed or the socket could not be read.
+     */
+    private void readResponseHead() throws IOException {
+        String statusLine;
+        do {
+            statusLine = mSocket.readLine();
+            if (!statusLine.startsWith("HTTP/") || statusLine.indexOf(' ') < 0) {
+                throw new IOException("Unexpected status line " + statusLine);
+            }
+            final int codeStart = statusLine.indexOf(' ') + 1;
+            final int codeEnd = Math.min(codeStart + 3, statusLine.length());
+            try {
+                mResponseCode = Integer.parseInt(statusLine.substring(codeStart, codeEnd));
+            } catch (final NumberFormatException e) {
+                throw new IOException("Unexpected status line " + statusLine, e);
+            }
+            if (codeEnd < statusLine.length()) {
+                mResponseMessage = statusLine.substring(codeEnd).trim();
+            } else {
+                mResponseMessage = "";
+            }
+
+            mHeaders = new HashMap<>();
+            mHeaders.put(null, statusLine);
+            String line = mSocket.readLine();
+            while (!line.isEmpty()) {
+                final int colon = line.indexOf(':');
+                if (colon > 0) {
+                    mHeaders.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+                }
+                line = mSocket.readLine();
+            }
+        } while (mResponseCode >= HTTP_INFORMATIONAL && mResponseCode < HTTP_SUCCESS);
+
+        final String connection = getHeader("Connection");
+        final boolean reusable;
+        if (statusLine.startsWith("HTTP/1.0")) {
+            reusable = "keep-alive".equalsIgnoreCase(connection);
+        } else {
+            reusable = !"close".equalsIgnoreCase(connection);
+        }
+
+        final String transferEncoding = getHeader("Transfer-Encoding");
+        final String contentLength = getHeader("Content-Length");
+        if (HEAD_METHOD.equals(mMethod)
+                || mResponseCode == HttpResponseCode.HTTP_NOBODY
+                || mResponseCode == HttpResponseCode.HTTP_NOT_MODIFIED) {
+            mResponseBody = new FixedLengthBody(0, reusable);
+        } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            mResponseBody = new ChunkedBody(reusable);
+        } else if (contentLength != null) {
+            try {
+                mResponseBody = new FixedLengthBody(Long.parseLong(contentLength), reusable);
+            } catch (final NumberFormatException e) {
+                throw new IOException("Malformed Content-Length " + contentLength, e);
+            }
+        } else {
+            mResponseBody = new UntilCloseBody();
+        }
+    }
+
+    /**
+     * Gets a response header regardless of the case of its name.
+     * @param name The header name.
+     * @return The header value, or null if it is not present.
+     */
+    private String getHeader(final String name) {
+        for (final Map.Entry<String, String> header : mHeaders.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes a request header regardless of the case of its name.
+     * @param name The header name.
+     */
+    private void removeRequestHeader(final String name) {
+        final Iterator<HeaderOption> iterator = mRequestHeaders.iterator();
+        while (iterator.hasNext()) {
+            if (name.equalsIgnoreCase(iterator.next().getName())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the socket to the pool or closes it, once the exchange is over.
+     * @param reusable Whether the socket can carry another request.
+     */
+    private void releaseSocket(final boolean reusable) {
+        if (mSocket == null) {
+            return;
+        }
+        if (reusable) {
+            mPool.release(mSocket);
+        } else {
+            mSocket.close();
+        }
+        mSocket = null;
+    }
+
+    /**
+     * Closes the socket, if any.
+     */
+    private void discardSocket() {
+        releaseSocket(false);
+    }
+
+    /**
+     * Gets whether a url can be fetched with this connection.
+     * @param url The url.
+     * @return true for http and https urls.
+     */
+    private static boolean isSupported(final URL url) {
+        return "http".equalsIgnoreCase(url.getProtocol()) || isSecure(url);
+    }
+
+    /**
+     * Gets whether a url uses tls.
+     * @param url The url.
+     * @return true for https urls.
+     */
+    private static boolean isSecure(final URL url) {
+        return "https".equalsIgnoreCase(url.getProtocol());
+    }
+
+    /**
+     * Gets the port of a url.
+     * @param url The url.
+     * @return The explicit port, or the default port of the scheme.
+     */
+    private static int getPort(final URL url) {
+        if (url.getPort() != -1) {
+            return url.getPort();
+        }
+        if (isSecure(url)) {
+            return HTTPS_PORT;
+        }
+        return HTTP_PORT;
+    }
+
+    /**
+     * The request body, which must be exactly as long as the declared content length.
+     */
+    private static class RequestBody extends OutputStream {
+
+        /**
+         * The socket output stream.
+         */
+        private final OutputStream mOut;
+
+        /**
+         * The bytes that remain to be written.
+         */
+        private long mRemaining;
+
+        /**
+         * Creates a new RequestBody.
+         * @param out The socket output stream.
+         * @param length The content length.
+         */
+        RequestBody(final OutputStream out, final long length) {
+            mOut = out;
+            mRemaining = length;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (length > mRemaining) {
+                throw new IOException("Request body exceeds the content length by " + (length - mRemaining) + " bytes");
+            }
+            mOut.write(buffer, offset, length);
+            mRemaining -= length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            mOut.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The socket stays open for the response
+            mOut.flush();
+        }
+
+        /**
+         * Checks the whole body was written and flushes it.
+         * @throws IOException An exception occurs if the body is short or could not be flushed.
+         */
+        void finish() throws IOException {
+            if (mRemaining > 0) {
+                throw new IOException("Request body is " + mRemaining + " bytes short of the content length");
+            }
+            mOut.flush();
+        }
+    }
+
+    /**
+     * A response body, which returns the socket to the pool when it has been read to the end.
+     */
+    private abstract class ResponseBody extends InputStream {
+
+        /**
+         * Whether the socket can carry another request once the body has been read.
+         */
+        private final boolean mReusable;
+
+        /**
+         * The buffer for single byte reads.
+         */
+        private final byte[] mSingleByte = new byte[1];
+
+        /**
+         * Whether the end of the body has been reached.
+         */
+        private boolean mExhausted;
+
+        /**
+         * Whether this stream has been closed.
+         */
+        private boolean mBodyClosed;
+
+        /**
+         * Creates a new ResponseBody.
+         * @param reusable Whether the socket can carry another request once the body has been read.
+         */
+        ResponseBody(final boolean reusable) {
+            mReusable = reusable;
+        }
+
+        /**
+         * Reads from the body.
+         * @param buffer The buffer to read into.
+         * @param offset The offset in the buffer.
+         * @param length The maximum number of bytes to read.
+         * @return The number of bytes read, or -1 at the end of the body.
+         * @throws IOException An exception occurs if the socket could not be read.
+         */
+        abstract int readBody(final byte[] buffer, final int offset, final int length) throws IOException;
+
+        @Override
+        public int read() throws IOException {
+            if (read(mSingleByte, 0, 1) == -1) {
+                return -1;
+            }
+            return mSingleByte[0] & BYTE_MASK;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (mBodyClosed) {
+                throw new IOException("Stream closed");
+            }
+            if (mExhausted) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            final int read;
+            try {
+                read = readBody(buffer, offset, length);
+            } catch (final IOException e) {
+                releaseSocket(false);
+                throw e;
+            }
+            if (read == -1) {
+                mExhausted = true;
+                releaseSocket(mReusable);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (mBodyClosed) {
+                return;
+            }
+            mBodyClosed = true;
+            if (mExhausted) {
+                return;
+            }
+            releaseSocket(mReusable && drain());
+        }
+
+        /**
+         * Reads a short remainder of the body so the socket can be reused.
+         * @return true if the end of the body was reached within the drain limit.
+         */
+        private boolean drain() {
+            final byte[] buffer = new byte[DRAIN_LIMIT];
+            int drained = 0;
+            try {
+                while (drained < DRAIN_LIMIT) {
+                    final int read = readBody(buffer, drained, DRAIN_LIMIT - drained);
+                    if (read == -1) {
+                        return true;
+                    }
+                    drained += read;
+                }
+            } catch (final IOException e) {
+                return false;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A body delimited by its Content-Length.
+     */
+    private class FixedLengthBody extends ResponseBody {
+
+        /**
+         * The bytes that remain to be read.
+         */
+        private long mRemaining;
+
+        /**
+         * Creates a new FixedLengthBody.
+         * @param length The content length.
+         * @param reusable Whether the socket can carry another request once the body has been read.
+         */
+        FixedLengthBody(final long length, final boolean reusable) {
+            super(reusable);
+            mRemaining = length;
+        }
+
+        @Override
+        int readBody(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (mRemaining == 0) {
+                return -1;
+            }
+            final int read = mSocket.getInputStream().read(buffer, offset, (int) Math.min(length, mRemaining));
+            if (read == -1) {
+                throw new IOException("Connection closed with " + mRemaining + " bytes of the body unread");
+            }
+            mRemaining -= read;
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (mSocket == null) {
+                return 0;
+            }
+            return (int) Math.min(mSocket.getInputStream().available(), mRemaining);
+        }
+    }
+
+    /**
+     * A body sent with chunked transfer encoding.
+     */
+    private class ChunkedBody extends ResponseBody {
+
+        /**
+         * The bytes that remain in the current chunk, or -1 before the first chunk.
+         */
+        private long mChunkRemaining = -1;
+
+        /**
+         * Whether the last chunk has been read.
+         */
+        private boolean mLastChunk;
+
+        /**
+         * Creates a new ChunkedBody.
+         * @param reusable Whether the socket can carry another request once the body has been read.
+         */
+        ChunkedBody(final boolean reusable) {
+            super(reusable);
+        }
+
+        @Override
+        int readBody(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (mLastChunk) {
+                return -1;
+            }
+            if (mChunkRemaining <= 0) {
+                if (mChunkRemaining == 0) {
+                    // The line break after the previous chunk
+                    mSocket.readLine();
+                }
+                String sizeLine = mSocket.readLine();
+                final int extension = sizeLine.indexOf(';');
+                if (extension >= 0) {
+                    sizeLine = sizeLine.substring(0, extension);
+                }
+                try {
+                    mChunkRemaining = Long.parseLong(sizeLine.trim(), HEX_RADIX);
+                } catch (final NumberFormatException e) {
+                    throw new IOException("Malformed chunk size " + sizeLine, e);
+                }
+                if (mChunkRemaining == 0) {
+                    // Skip the trailers
+                    String trailer = mSocket.readLine();
+                    while (!trailer.isEmpty()) {
+                        trailer = mSocket.readLine();
+                    }
+                    mLastChunk = true;
+                    return -1;
+                }
+            }
+            final int read = mSocket.getInputStream().read(buffer, offset, (int) Math.min(length, mChunkRemaining));
+            if (read == -1) {
+                throw new IOException("Connection closed in the middle of a chunk");
+            }
+            mChunkRemaining -= read;
+            return read;
+        }
+    }
+
+    /**
+     * A body delimited by the server closing the connection.
+     */
+    private class UntilCloseBody extends ResponseBody {
+
+        /**
+         * Creates a new UntilCloseBody.
+         */
+        UntilCloseBody() {
+            super(false);
+        }
+
+        @Override
+        int readBody(final byte[] buffer, final int offset, final int length) throws IOException {
+            return mSocket.getInputStream().read(buffer, offset, length);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.IOException;
+
+/**
+ * Creates connections that keep their sockets alive in a {@link ConnectionPool}, so consecutive requests to the
+ * same server reuse the TCP connection and TLS session instead of handshaking again. Requests are sent directly
+ * over HTTP/1.1 and do not go through the system proxy.
+ */
+public class PooledConnectionFactory implements IConnectionFactory {
+
+    /**
+     * The default connect timeout, 30 seconds.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 30 * 1000;
+
+    /**
+     * The default read timeout, 60 seconds.
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 60 * 1000;
+
+    /**
+     * The pool of idle sockets.
+     */
+    private final ConnectionPool mPool;
+
+    /**
+     * The connect timeout in milliseconds.
+     */
+    private final int mConnectTimeout;
+
+    /**
+     * The read timeout in milliseconds.
+     */
+    private final int mReadTimeout;
+
+    /**
+     * Creates a new PooledConnectionFactory with a default pool and timeouts.
+     */
+    public PooledConnectionFactory() {
+        this(new ConnectionPool(), DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Creates a new PooledConnectionFactory.
+     * @param pool The pool of idle sockets, which may be shared between factories.
+     * @param connectTimeout The connect timeout in milliseconds.
+     * @param readTimeout The read timeout in milliseconds.
+     */
+    public PooledConnectionFactory(final ConnectionPool pool, final int connectTimeout, final int readTimeout) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Connection pool is null");
+        }
+        mPool = pool;
+        mConnectTimeout = connectTimeout;
+        mReadTimeout = readTimeout;
+    }
+
+    /**
+     * Gets the pool of idle sockets, which also holds the connection reuse counters.
+     * @return The connection pool.
+     */
+    public ConnectionPool getConnectionPool() {
+        return mPool;
+    }
+
+    /**
+     * Creates a connection from an IHttpRequest.
+     * @param request The request to make the connection from.
+     * @return The connection object.
+     * @throws IOException An exception occurs if the request url is not http or https.
+     */
+    @Override
+    public IConnection createFromRequest(final IHttpRequest request) throws IOException {
+        return new PooledConnection(request, mPool, mConnectTimeout, mReadTimeout);
+    }
+}
@@ -0,0 +1,229 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * A socket to a server with its buffered streams, which can be kept alive in a {@link ConnectionPool} between
+ * requests.
+ */
+class PooledSocket {
+
+    /**
+     * The size of the socket stream buffers.
+     */
+    private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The longest response line that is accepted.
+     */
+    private static final int MAXIMUM_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * The read timeout while checking whether an idle socket was closed by the server.
+     */
+    private static final int HEALTH_CHECK_TIMEOUT = 1;
+
+    /**
+     * The socket.
+     */
+    private final Socket mSocket;
+
+    /**
+     * The route of the socket, the scheme, host and port of the server.
+     */
+    private final String mRoute;
+
+    /**
+     * The buffered input stream of the socket.
+     */
+    private final BufferedInputStream mIn;
+
+    /**
+     * The buffered output stream of the socket.
+     */
+    private final BufferedOutputStream mOut;
+
+    /**
+     * The time this socket was returned to the pool.
+     */
+    private long mIdleSince;
+
+    /**
+     * Whether this socket has carried a request before.
+     */
+    private boolean mReused;
+
+    /**
+     * The bytes of response lines read over the life of this socket.
+     */
+    private long mLineBytesRead;
+
+    /**
+     * Creates a new PooledSocket.
+     * @param socket The connected socket.
+     * @param route The route of the socket.
+     * @throws IOException An exception occurs if the socket streams could not be opened.
+     */
+    PooledSocket(final Socket socket, final String route) throws IOException {
+        mSocket = socket;
+        mRoute = route;
+        mIn = new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER_SIZE);
+        mOut = new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER_SIZE);
+    }
+
+    /**
+     * Gets the route of this socket.
+     * @return The scheme, host and port of the server.
+     */
+    String getRoute() {
+        return mRoute;
+    }
+
+    /**
+     * Gets the input stream of this socket.
+     * @return The buffered input stream.
+     */
+    InputStream getInputStream() {
+        return mIn;
+    }
+
+    /**
+     * Gets the output stream of this socket.
+     * @return The buffered output stream.
+     */
+    OutputStream getOutputStream() {
+        return mOut;
+    }
+
+    /**
+     * Gets the time this socket was returned to the pool.
+     * @return The time in milliseconds.
+     */
+    long getIdleSince() {
+        return mIdleSince;
+    }
+
+    /**
+     * Sets the time this socket was returned to the pool.
+     * @param idleSince The time in milliseconds.
+     */
+    void setIdleSince(final long idleSince) {
+        mIdleSince = idleSince;
+        mReused = true;
+    }
+
+    /**
+     * Gets whether this socket has carried a request before.
+     * @return true if the socket came from the pool.
+     */
+    boolean isReused() {
+        return mReused;
+    }
+
+    /**
+     * Reads a line of the response head, without its line terminator.
+     * @return The line.
+     * @throws IOException An exception occurs if the stream ended or the line is too long.
+     */
+    String readLine() throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c = mIn.read();
+        while (c != '\n') {
+            if (c == -1) {
+                throw new IOException("Connection closed while reading the response");
+            }
+            mLineBytesRead++;
+            if (line.length() > MAXIMUM_LINE_LENGTH) {
+                throw new IOException("Response line is too long");
+            }
+            line.append((char) c);
+            c = mIn.read();
+        }
+        mLineBytesRead++;
+        final int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Gets the bytes of response lines read over the life of this socket, so an exchange can tell whether any of
+     * its response arrived.
+     * @return The number of bytes.
+     */
+    long getLineBytesRead() {
+        return mLineBytesRead;
+    }
+
+    /**
+     * Checks whether an idle socket can still carry a request, servers close idle connections on their own terms.
+     * Buffered or available bytes rule the socket out at once. Otherwise, a closed connection only shows as the end
+     * of the stream, so this blocks in a read for up to HEALTH_CHECK_TIMEOUT milliseconds, which every acquire
+     * of a pooled socket pays.
+     * @return true if the socket is open and the server has not sent anything since the last response.
+     */
+    boolean isHealthy() {
+        if (mSocket.isClosed() || mSocket.isInputShutdown() || mSocket.isOutputShutdown()) {
+            return false;
+        }
+        try {
+            if (mIn.available() > 0) {
+                // The server sent unsolicited data, such as an error before closing the connection
+                return false;
+            }
+            final int readTimeout = mSocket.getSoTimeout();
+            try {
+                mSocket.setSoTimeout(HEALTH_CHECK_TIMEOUT);
+                // Either the server closed the socket or it sent unsolicited data, neither can be reused
+                mIn.read();
+                return false;
+            } finally {
+                mSocket.setSoTimeout(readTimeout);
+            }
+        } catch (final SocketTimeoutException e) {
+            return true;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes this socket without reporting failures.
+     */
+    void close() {
+        try {
+            mSocket.close();
+        } catch (final IOException ignored) {
+            // The socket is discarded either way
+        }
+    }
+}
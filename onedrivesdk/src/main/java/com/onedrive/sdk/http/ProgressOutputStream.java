@@ -0,0 +1,95 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.concurrency.IExecutors;
+import com.onedrive.sdk.concurrency.IProgressCallback;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Reports the progress of a request body after every slice written to the connection. Updates go through
+ * {@link IExecutors#performOnForeground(int, int, IProgressCallback)}, so the main thread only sees the latest one.
+ */
+class ProgressOutputStream extends FilterOutputStream {
+
+    /**
+     * The executors that deliver the progress.
+     */
+    private final IExecutors mExecutors;
+
+    /**
+     * The progress callback.
+     */
+    private final IProgressCallback<?> mProgress;
+
+    /**
+     * The length of the body.
+     */
+    private final int mLength;
+
+    /**
+     * The bytes written so far.
+     */
+    private int mWritten;
+
+    /**
+     * Creates a new ProgressOutputStream.
+     * @param out The output stream of the connection.
+     * @param executors The executors that deliver the progress.
+     * @param progress The progress callback.
+     * @param length The length of the body.
+     */
+    ProgressOutputStream(final OutputStream out,
+                         final IExecutors executors,
+                         final IProgressCallback<?> progress,
+                         final int length) {
+        super(out);
+        mExecutors = executors;
+        mProgress = progress;
+        mLength = length;
+    }
+
+    @Override
+    public void write(final int oneByte) throws IOException {
+        out.write(oneByte);
+        onWritten(1);
+    }
+
+    @Override
+    public void write(final byte[] buffer, final int offset, final int count) throws IOException {
+        out.write(buffer, offset, count);
+        onWritten(count);
+    }
+
+    /**
+     * Reports the bytes written so far.
+     * @param count The bytes written by the last slice.
+     */
+    private void onWritten(final int count) {
+        mWritten += count;
+        mExecutors.performOnForeground(mWritten, mLength, mProgress);
+    }
+}
@@ -0,0 +1,163 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical json GET requests that are in flight at the same time, so that they share one exchange with
+ * the service and one deserialized result. Requests are identical when their method, final url, authorization
+ * header and result class match. Nothing is kept once the exchange completes, a later request always goes to the
+ * service.
+ *
+ * Callers that share an exchange receive the same result instance, or the same exception.
+ */
+public class RequestCoalescer {
+
+    /**
+     * The separator between the parts of a key.
+     */
+    private static final char KEY_SEPARATOR = '\n';
+
+    /**
+     * The exchanges in flight by key.
+     */
+    private final ConcurrentMap<String, FutureTask<?>> mInFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The number of exchanges sent to the service.
+     */
+    private final AtomicLong mExchangeCount = new AtomicLong();
+
+    /**
+     * The number of requests that joined an exchange already in flight.
+     */
+    private final AtomicLong mCoalescedCount = new AtomicLong();
+
+    /**
+     * Gets the number of exchanges sent to the service.
+     * @return The number of exchanges.
+     */
+    public long getExchangeCount() {
+        return mExchangeCount.get();
+    }
+
+    /**
+     * Gets the number of requests that were answered by joining an exchange already in flight.
+     * @return The number of coalesced requests.
+     */
+    public long getCoalescedCount() {
+        return mCoalescedCount.get();
+    }
+
+    /**
+     * Gets the number of exchanges in flight.
+     * @return The number of exchanges.
+     */
+    public int getInFlightCount() {
+        return mInFlight.size();
+    }
+
+    /**
+     * Gets whether a request can be coalesced.
+     * @param request The request.
+     * @param resultClass The class of the result.
+     * @param serializable The request body.
+     * @return true for GET requests without a body that produce a json result.
+     */
+    static boolean canCoalesce(final IHttpRequest request, final Class<?> resultClass, final Object serializable) {
+        return request.getHttpMethod() == HttpMethod.GET
+                && serializable == null
+                && resultClass != null
+                && resultClass != InputStream.class;
+    }
+
+    /**
+     * Creates the key of a request, after its authorization header has been added.
+     * @param request The request.
+     * @param resultClass The class of the result.
+     * @return The key.
+     */
+    static String createKey(final IHttpRequest request, final Class<?> resultClass) {
+        return request.getHttpMethod().toString() + KEY_SEPARATOR
+                + resultClass.getName() + KEY_SEPARATOR
+                + ResponseCache.createKey(request, /* accountId */ null);
+    }
+
+    /**
+     * Runs an exchange, or waits for the identical exchange already in flight.
+     * @param key The key of the request.
+     * @param exchange The exchange with the service.
+     * @param <Result> The type of the result.
+     * @return The result of the exchange.
+     * @throws ClientException The exception of the exchange, or if the wait was interrupted.
+     */
+    @SuppressWarnings("unchecked")
+    <Result> Result execute(final String key, final Callable<Result> exchange) throws ClientException {
+        final FutureTask<Result> task = new FutureTask<>(exchange);
+        final FutureTask<?> existing = mInFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            mCoalescedCount.incrementAndGet();
+            return (Result) await(existing);
+        }
+
+        mExchangeCount.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            mInFlight.remove(key, task);
+        }
+        return await(task);
+    }
+
+    /**
+     * Waits for an exchange and unwraps its exception.
+     * @param task The exchange.
+     * @param <Result> The type of the result.
+     * @return The result of the exchange.
+     * @throws ClientException The exception of the exchange, or if the wait was interrupted.
+     */
+    private static <Result> Result await(final FutureTask<Result> task) throws ClientException {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for a coalesced request", e,
+                                      OneDriveErrorCodes.GeneralException);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            throw new ClientException("Error during http request", e.getCause(), OneDriveErrorCodes.GeneralException);
+        }
+    }
+}
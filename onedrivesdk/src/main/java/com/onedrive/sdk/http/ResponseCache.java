@@ -0,0 +1,502 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.http;
+
+import com.onedrive.sdk.options.HeaderOption;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches json responses that carry an eTag, so that a GET of an unchanged item or folder is revalidated with
+ * If-None-Match and answered from the cache when the service returns 304 Not Modified. Entries are keyed by the
+ * request url and the signed in account, so they outlive token refreshes, and are evicted least recently used first
+ * from a bounded memory tier and an optional bounded disk tier. Disk files are read and written outside of the
+ * cache's lock. Cached responses are always revalidated, never served stale.
+ */
+public class ResponseCache {
+
+    /**
+     * The extension of the disk tier files.
+     */
+    private static final String FILE_EXTENSION = ".cache";
+
+    /**
+     * The extension of disk tier files that are being written.
+     */
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+    /**
+     * The version of the disk tier file format.
+     */
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * The initial capacity of the tier indexes.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The load factor of the tier indexes.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The authorization header name.
+     */
+    private static final String AUTHORIZATION_HEADER_NAME = "Authorization";
+
+    /**
+     * The mask of the low four bits of a byte.
+     */
+    private static final int NIBBLE_MASK = 0x0f;
+
+    /**
+     * The number of bits in a nibble.
+     */
+    private static final int NIBBLE_BITS = 4;
+
+    /**
+     * The hex digits.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The charset of the cache keys.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The largest number of body bytes held in memory.
+     */
+    private final long mMaximumMemoryBytes;
+
+    /**
+     * The directory of the disk tier, or null if there is none.
+     */
+    private final File mDirectory;
+
+    /**
+     * The largest number of bytes stored on disk.
+     */
+    private final long mMaximumDiskBytes;
+
+    /**
+     * The memory tier in access order, guarded by this.
+     */
+    private final LinkedHashMap<String, CachedResponse> mMemory = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * The files of the disk tier and their sizes in access order, guarded by this.
+     */
+    private final LinkedHashMap<String, Long> mDisk = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * The body bytes held in memory, guarded by this.
+     */
+    private long mMemoryBytes;
+
+    /**
+     * The bytes stored on disk, guarded by this.
+     */
+    private long mDiskBytes;
+
+    /**
+     * The number of responses served from the cache after a 304.
+     */
+    private final AtomicLong mHitCount = new AtomicLong();
+
+    /**
+     * The number of responses stored in the cache.
+     */
+    private final AtomicLong mStoreCount = new AtomicLong();
+
+    /**
+     * The number of disk tier writes started, which keeps the temporary file of each write apart.
+     */
+    private final AtomicLong mWriteCount = new AtomicLong();
+
+    /**
+     * Creates a new memory only ResponseCache.
+     * @param maximumMemoryBytes The largest number of body bytes held in memory.
+     */
+    public ResponseCache(final long maximumMemoryBytes) {
+        this(maximumMemoryBytes, null, 0);
+    }
+
+    /**
+     * Creates a new ResponseCache with a disk tier, such as a directory in the application's cache directory.
+     * Entries written by a previous instance are picked up, least recently used first.
+     * @param maximumMemoryBytes The largest number of body bytes held in memory.
+     * @param directory The directory of the disk tier, created if it does not exist, or null for no disk tier.
+     * @param maximumDiskBytes The largest number of bytes stored on disk.
+     */
+    public ResponseCache(final long maximumMemoryBytes, final File directory, final long maximumDiskBytes) {
+        if (maximumMemoryBytes < 0 || maximumDiskBytes < 0) {
+            throw new IllegalArgumentException("Cache sizes must not be negative");
+        }
+        mMaximumMemoryBytes = maximumMemoryBytes;
+        mDirectory = directory;
+        mMaximumDiskBytes = maximumDiskBytes;
+        if (mDirectory != null) {
+            loadDiskIndex();
+        }
+    }
+
+    /**
+     * Gets the number of responses served from the cache after the service answered 304 Not Modified.
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Gets the number of responses stored in the cache.
+     * @return The number of stores.
+     */
+    public long getStoreCount() {
+        return mStoreCount.get();
+    }
+
+    /**
+     * Gets the body bytes held in memory.
+     * @return The size of the memory tier.
+     */
+    public synchronized long getMemorySize() {
+        return mMemoryBytes;
+    }
+
+    /**
+     * Gets the bytes stored on disk.
+     * @return The size of the disk tier.
+     */
+    public synchronized long getDiskSize() {
+        return mDiskBytes;
+    }
+
+    /**
+     * Gets the largest response body that either tier keeps, larger bodies are not cached.
+     * @return The largest body size in bytes.
+     */
+    long getMaximumEntrySize() {
+        if (mDirectory == null) {
+            return mMaximumMemoryBytes;
+        }
+        return Math.max(mMaximumMemoryBytes, mMaximumDiskBytes);
+    }
+
+    /**
+     * Removes all entries from both tiers.
+     */
+    public void clear() {
+        final List<String> names;
+        synchronized (this) {
+            mMemory.clear();
+            mMemoryBytes = 0;
+            names = new ArrayList<>(mDisk.keySet());
+            mDisk.clear();
+            mDiskBytes = 0;
+        }
+        deleteFiles(names);
+    }
+
+    /**
+     * Creates the cache key of a request, after its authorization header has been added.
+     * @param request The request.
+     * @param accountId The account that the request is authorized for, or null to key by the authorization header.
+     * @return The key, which does not contain the authorization header itself.
+     */
+    static String createKey(final IHttpRequest request, final String accountId) {
+        String identity = accountId;
+        if (identity == null) {
+            identity = "";
+            for (final HeaderOption header : request.getHeaders()) {
+                if (AUTHORIZATION_HEADER_NAME.equalsIgnoreCase(header.getName())) {
+                    identity = header.getValue();
+                }
+            }
+        }
+        return hash(request.getRequestUrl().toString() + '\n' + identity);
+    }
+
+    /**
+     * Gets a cached response, promoting it from the disk tier to memory if needed.
+     * @param key The cache key.
+     * @return The response, or null if it is not cached.
+     */
+    CachedResponse get(final String key) {
+        final String name = key + FILE_EXTENSION;
+        synchronized (this) {
+            final CachedResponse cached = mMemory.get(key);
+            if (cached != null || mDirectory == null || mDisk.get(name) == null) {
+                return cached;
+            }
+        }
+
+        final CachedResponse loaded = readFile(name);
+        if (loaded == null) {
+            synchronized (this) {
+                final Long size = mDisk.remove(name);
+                if (size != null) {
+                    mDiskBytes -= size;
+                }
+            }
+            deleteFile(new File(mDirectory, name));
+            return null;
+        }
+        synchronized (this) {
+            final CachedResponse stored = mMemory.get(key);
+            if (stored != null) {
+                // A response stored while the file was read is newer than the file
+                return stored;
+            }
+            putInMemory(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Records a response served from the cache.
+     */
+    void onHit() {
+        mHitCount.incrementAndGet();
+    }
+
+    /**
+     * Stores a response in both tiers.
+     * @param key The cache key.
+     * @param response The response.
+     */
+    void put(final String key, final CachedResponse response) {
+        mStoreCount.incrementAndGet();
+        synchronized (this) {
+            putInMemory(key, response);
+        }
+        if (mDirectory != null) {
+            deleteFiles(writeFile(key, response));
+        }
+    }
+
+    /**
+     * Stores a response in the memory tier, evicting the least recently used entries over the bound.
+     * @param key The cache key.
+     * @param response The response.
+     */
+    private void putInMemory(final String key, final CachedResponse response) {
+        final CachedResponse previous = mMemory.put(key, response);
+        if (previous != null) {
+            mMemoryBytes -= previous.getBody().length;
+        }
+        mMemoryBytes += response.getBody().length;
+        final Iterator<CachedResponse> eldest = mMemory.values().iterator();
+        while (mMemoryBytes > mMaximumMemoryBytes && eldest.hasNext()) {
+            mMemoryBytes -= eldest.next().getBody().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Reads a response from the disk tier.
+     * @param name The file name.
+     * @return The response, or null if it could not be read.
+     */
+    private CachedResponse readFile(final String name) {
+        final File file = new File(mDirectory, name);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FILE_VERSION) {
+                throw new IOException("Unknown cache file version");
+            }
+            final String eTag = in.readUTF();
+            final byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            // Keep the recency across restarts
+            file.setLastModified(System.currentTimeMillis());
+            return new CachedResponse(eTag, body);
+        } catch (final IOException e) {
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Writes a response to the disk tier. The file is written outside of the lock and only renamed into place and
+     * indexed under it, evicting the least recently used files over the bound.
+     * @param key The cache key.
+     * @param response The response.
+     * @return The names of the evicted files, which the caller deletes outside of the lock.
+     */
+    private List<String> writeFile(final String key, final CachedResponse response) {
+        final String name = key + FILE_EXTENSION;
+        final File file = new File(mDirectory, name);
+        final File temporary = new File(mDirectory, name + '.' + mWriteCount.incrementAndGet()
+                                                    + TEMPORARY_FILE_EXTENSION);
+        DataOutputStream out = null;
+        try {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                return Collections.emptyList();
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(response.getETag());
+            out.writeInt(response.getBody().length);
+            out.write(response.getBody());
+            out.close();
+            out = null;
+        } catch (final IOException e) {
+            closeQuietly(out);
+            deleteFile(temporary);
+            return Collections.emptyList();
+        }
+
+        final long length = temporary.length();
+        final List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            // Renaming under the lock keeps the index in step with the file when a key is stored concurrently
+            if (!temporary.renameTo(file)) {
+                evicted.add(temporary.getName());
+                return evicted;
+            }
+            final Long previous = mDisk.put(name, length);
+            if (previous != null) {
+                mDiskBytes -= previous;
+            }
+            mDiskBytes += length;
+            final Iterator<Map.Entry<String, Long>> eldest = mDisk.entrySet().iterator();
+            while (mDiskBytes > mMaximumDiskBytes && eldest.hasNext()) {
+                final Map.Entry<String, Long> entry = eldest.next();
+                mDiskBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Deletes files of the disk tier that are no longer indexed.
+     * @param names The file names.
+     */
+    private void deleteFiles(final List<String> names) {
+        for (final String name : names) {
+            deleteFile(new File(mDirectory, name));
+        }
+    }
+
+    /**
+     * Builds the index of the disk tier from the files left by a previous instance, oldest access first.
+     */
+    private void loadDiskIndex() {
+        final File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File lhs, final File rhs) {
+                final long lhsModified = lhs.lastModified();
+                final long rhsModified = rhs.lastModified();
+                if (lhsModified < rhsModified) {
+                    return -1;
+                }
+                if (lhsModified > rhsModified) {
+                    return 1;
+                }
+                return 0;
+            }
+        });
+        for (final File file : files) {
+            if (file.getName().endsWith(FILE_EXTENSION)) {
+                mDisk.put(file.getName(), file.length());
+                mDiskBytes += file.length();
+            } else if (file.getName().endsWith(TEMPORARY_FILE_EXTENSION)) {
+                deleteFile(file);
+            }
+        }
+    }
+
+    /**
+     * Hashes a string so that any key is a valid file name.
+     * @param value The string.
+     * @return The hex encoded SHA-1 hash.
+     */
+    private static String hash(final String value) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-1").digest(value.getBytes(UTF8));
+            final StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (final byte b : hash) {
+                hex.append(HEX_DIGITS[(b >> NIBBLE_BITS) & NIBBLE_MASK]).append(HEX_DIGITS[b & NIBBLE_MASK]);
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    /**
+     * Deletes a file, ignoring any failure.
+     * @param file The file.
+     */
+    private static void deleteFile(final File file) {
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Closes a stream, ignoring any failure.
+     * @param closeable The stream, or null.
+     */
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (final IOException ignored) {
+            // Nothing left to do with the stream
+        }
+    }
+}
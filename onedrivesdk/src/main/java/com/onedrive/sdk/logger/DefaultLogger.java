@@ -25,21 +25,51 @@ package com.onedrive.sdk.logger;
 import android.util.Log;
 
 /**
- * The default logger for the service client, which writes to logcat.
+ * The default logger for the service client, which writes to logcat under a fixed tag.
  */
 public class DefaultLogger implements ILogger {
 
+    /**
+     * The tag messages are logged with by default.
+     */
+    public static final String DEFAULT_TAG = "OneDriveSDK";
+
+    /**
+     * The placeholder for a parameter in a message.
+     */
+    private static final String PLACEHOLDER = "{}";
+
+    /**
+     * The tag messages are logged with.
+     */
+    private final String mTag;
+
     /**
      * The logging level.
      */
-    private LoggerLevel mLevel = LoggerLevel.Error;
+    private volatile LoggerLevel mLevel = LoggerLevel.Error;
+
+    /**
+     * Creates a DefaultLogger that logs with the default tag.
+     */
+    public DefaultLogger() {
+        this(DEFAULT_TAG);
+    }
+
+    /**
+     * Creates a DefaultLogger.
+     * @param tag The tag messages are logged with.
+     */
+    public DefaultLogger(final String tag) {
+        mTag = tag;
+    }
 
     /**
      * Sets the logging level of this logger.
      * @param level The level to log at.
      */
     public void setLoggingLevel(final LoggerLevel level) {
-        Log.i(getTag(), "Setting logging level to " + level);
+        Log.i(mTag, "Setting logging level to " + level);
         mLevel = level;
     }
 
@@ -52,25 +82,12 @@ public class DefaultLogger implements ILogger {
     }
 
     /**
-     * Creates the tag automatically.
-     * @return The tag for the current method.
-     * Sourced from https://gist.github.com/eefret/a9c7ac052854a10a8936
+     * Gets whether debug messages are logged.
+     * @return true if the logging level is debug.
      */
-    private String getTag() {
-        try {
-            final StringBuilder sb = new StringBuilder();
-            final int callerStackDepth = 4;
-            final String className = Thread.currentThread().getStackTrace()[callerStackDepth].getClassName();
-            sb.append(className.substring(className.lastIndexOf(".") + 1));
-            sb.append("[");
-            sb.append(Thread.currentThread().getStackTrace()[callerStackDepth].getMethodName());
-            sb.append("] - ");
-            sb.append(Thread.currentThread().getStackTrace()[callerStackDepth].getLineNumber());
-            return sb.toString();
-        } catch (final Exception ex) {
-            Log.e("DefaultLogger", ex.getMessage());
-        }
-        return null;
+    @Override
+    public boolean isDebugEnabled() {
+        return mLevel == LoggerLevel.Debug;
     }
 
     /**
@@ -79,11 +96,33 @@ public class DefaultLogger implements ILogger {
      */
     @Override
     public void logDebug(final String message) {
-        switch (mLevel) {
-            case Debug:
-                Log.d(getTag(), message);
-            default:
-            case Error:
+        if (isDebugEnabled()) {
+            Log.d(mTag, message);
+        }
+    }
+
+    /**
+     * Logs a debug message with a parameter.
+     * @param format The message, with {} in place of the parameter.
+     * @param arg The parameter.
+     */
+    @Override
+    public void logDebug(final String format, final Object arg) {
+        if (isDebugEnabled()) {
+            Log.d(mTag, formatMessage(format, arg));
+        }
+    }
+
+    /**
+     * Logs a debug message with two parameters.
+     * @param format The message, with {} in place of each parameter.
+     * @param arg1 The first parameter.
+     * @param arg2 The second parameter.
+     */
+    @Override
+    public void logDebug(final String format, final Object arg1, final Object arg2) {
+        if (isDebugEnabled()) {
+            Log.d(mTag, formatMessage(format, arg1, arg2));
         }
     }
 
@@ -94,11 +133,27 @@ public class DefaultLogger implements ILogger {
      */
     @Override
     public void logError(final String message, final Throwable throwable) {
-        switch (mLevel) {
-            default:
-            case Debug:
-            case Error:
-                Log.e(getTag(), message, throwable);
+        Log.e(mTag, message, throwable);
+    }
+
+    /**
+     * Replaces each {} in a message with the next parameter, placeholders beyond the parameters are left as is.
+     * @param format The message.
+     * @param args The parameters.
+     * @return The formatted message.
+     */
+    static String formatMessage(final String format, final Object... args) {
+        final StringBuilder sb = new StringBuilder(format.length());
+        int start = 0;
+        for (final Object arg : args) {
+            final int placeholder = format.indexOf(PLACEHOLDER, start);
+            if (placeholder == -1) {
+                break;
+            }
+            sb.append(format, start, placeholder).append(arg);
+            start = placeholder + PLACEHOLDER.length();
         }
+        sb.append(format, start, format.length());
+        return sb.toString();
     }
 }
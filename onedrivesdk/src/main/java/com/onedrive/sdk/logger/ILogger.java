@@ -39,12 +39,33 @@ public interface ILogger {
      */
     LoggerLevel getLoggingLevel();
 
+    /**
+     * Gets whether debug messages are logged, so callers can skip building messages that would be dropped.
+     * @return true if debug messages are logged.
+     */
+    boolean isDebugEnabled();
+
     /**
      * Log a debug message.
      * @param message The message.
      */
     void logDebug(final String message);
 
+    /**
+     * Log a debug message with a parameter, the message is only formatted if debug messages are logged.
+     * @param format The message, with {} in place of the parameter.
+     * @param arg The parameter.
+     */
+    void logDebug(final String format, final Object arg);
+
+    /**
+     * Log a debug message with two parameters, the message is only formatted if debug messages are logged.
+     * @param format The message, with {} in place of each parameter.
+     * @param arg1 The first parameter.
+     * @param arg2 The second parameter.
+     */
+    void logDebug(final String format, final Object arg1, final Object arg2);
+
     /**
      * Log an error message with throwable.
      * @param message The message.
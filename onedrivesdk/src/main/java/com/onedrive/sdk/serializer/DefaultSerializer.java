@@ -23,15 +23,29 @@
 package com.onedrive.sdk.serializer;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 
 import com.onedrive.sdk.logger.ILogger;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
 /**
  * The default serializer implementation for the OneDrive SDK.
  */
 public class DefaultSerializer implements ISerializer {
 
+    /**
+     * The encoding of json streams.
+     */
+    private static final Charset JSON_CHARSET = Charset.forName("UTF-8");
+
     /**
      * The instance of the internal serializer.
      */
@@ -42,13 +56,53 @@ public class DefaultSerializer implements ISerializer {
      */
     private final ILogger mLogger;
 
+    /**
+     * Whether responses are parsed once into a json tree that both the typed object and the raw object
+     * are built from.
+     */
+    private final boolean mSinglePass;
+
+    /**
+     * How the raw json of deserialized objects is retained.
+     */
+    private final RawObjectPolicy mRawObjectPolicy;
+
     /**
      * Creates a DefaultSerializer.
      * @param logger The logger.
      */
     public DefaultSerializer(final ILogger logger) {
+        this(logger, false);
+    }
+
+    /**
+     * Creates a DefaultSerializer.
+     * @param logger The logger.
+     * @param singlePass Whether to parse each response only once, binding the typed object from the parsed tree.
+     */
+    public DefaultSerializer(final ILogger logger, final boolean singlePass) {
+        this(logger, singlePass, RawObjectPolicy.Eager);
+    }
+
+    /**
+     * Creates a DefaultSerializer.
+     * @param logger The logger.
+     * @param singlePass Whether to parse each response only once, binding the typed object from the parsed tree.
+     * @param rawObjectPolicy How the raw json of deserialized objects is retained.
+     */
+    public DefaultSerializer(final ILogger logger, final boolean singlePass, final RawObjectPolicy rawObjectPolicy) {
         mLogger = logger;
         mGson = GsonFactory.getGsonInstance(logger);
+        mSinglePass = singlePass;
+        mRawObjectPolicy = rawObjectPolicy;
+    }
+
+    /**
+     * Indicates if this serializer parses each response only once.
+     * @return true if single pass deserialization is enabled.
+     */
+    public boolean isSinglePass() {
+        return mSinglePass;
     }
 
     /**
@@ -60,20 +114,120 @@ public class DefaultSerializer implements ISerializer {
      */
     @Override
     public <T> T deserializeObject(final String inputString, final Class<T> clazz) {
+        if (mSinglePass) {
+            return deserializeObject(new JsonReader(new StringReader(inputString)), clazz);
+        }
+
         final T jsonObject = mGson.fromJson(inputString, clazz);
 
         // Populate the json backed fields for any annotations that are not in the object model
         if (jsonObject instanceof IJsonBackedObject) {
-            mLogger.logDebug("Deserializing type " + clazz.getSimpleName());
+            if (mLogger.isDebugEnabled()) {
+                mLogger.logDebug("Deserializing type " + clazz.getSimpleName());
+            }
             final IJsonBackedObject jsonBackedObject = (IJsonBackedObject)jsonObject;
             jsonBackedObject.setRawObject(this, mGson.fromJson(inputString, JsonObject.class));
-        } else {
+        } else if (mLogger.isDebugEnabled()) {
             mLogger.logDebug("Deserializing a non-IJsonBackedObject type " + clazz.getSimpleName());
         }
 
         return jsonObject;
     }
 
+    /**
+     * Deserialize an object from an already parsed json tree.
+     * The tree is bound directly to the typed object and is used as its raw object, without any
+     * intermediate string.
+     * @param json The json tree that stores the representation of the item.
+     * @param clazz The .class of the item to be deserialized.
+     * @param <T> The type of the item to be deserialized.
+     * @return The deserialized item from the json tree.
+     */
+    @Override
+    public <T> T deserializeObject(final JsonElement json, final Class<T> clazz) {
+        final T jsonObject = mGson.fromJson(json, clazz);
+
+        // Populate the json backed fields for any annotations that are not in the object model
+        if (jsonObject instanceof IJsonBackedObject && json.isJsonObject()) {
+            if (mLogger.isDebugEnabled()) {
+                mLogger.logDebug("Deserializing type " + clazz.getSimpleName() + " from a json tree");
+            }
+            final IJsonBackedObject jsonBackedObject = (IJsonBackedObject)jsonObject;
+            jsonBackedObject.setRawObject(this, json.getAsJsonObject());
+        } else if (mLogger.isDebugEnabled()) {
+            mLogger.logDebug("Deserializing a non-IJsonBackedObject type " + clazz.getSimpleName());
+        }
+
+        return jsonObject;
+    }
+
+    /**
+     * Deserialize an object from a stream of UTF-8 encoded json, decoding it incrementally and never holding the
+     * body as a string. Json backed objects are parsed into a tree that the typed object is bound from. With single
+     * pass deserialization that tree is shared as the raw object, otherwise the raw object is read again from the
+     * tree into a copy of its own. All other types are bound directly from the stream.
+     * @param inputStream The stream that contains the representation of the item.
+     * @param clazz The .class of the item to be deserialized.
+     * @param <T> The type of the item to be deserialized.
+     * @return The deserialized item from the stream.
+     */
+    @Override
+    public <T> T deserializeObject(final InputStream inputStream, final Class<T> clazz) {
+        final Reader streamReader = new InputStreamReader(inputStream, JSON_CHARSET);
+        if (IJsonBackedObject.class.isAssignableFrom(clazz)) {
+            final JsonElement json = new JsonParser().parse(new JsonReader(streamReader));
+            if (mSinglePass || !json.isJsonObject()) {
+                return deserializeObject(json, clazz);
+            }
+            return deserializeTwoPass(json, clazz);
+        }
+
+        if (mLogger.isDebugEnabled()) {
+            mLogger.logDebug("Deserializing a non-IJsonBackedObject type " + clazz.getSimpleName() + " from a stream");
+        }
+        return mGson.fromJson(new JsonReader(streamReader), clazz);
+    }
+
+    /**
+     * Deserialize an object from a json reader, parsing the json only once.
+     * The typed object is bound from the parsed tree and the same tree is used as the raw object.
+     * @param reader The reader positioned at the start of the json representation of the item.
+     * @param clazz The .class of the item to be deserialized.
+     * @param <T> The type of the item to be deserialized.
+     * @return The deserialized item from the reader.
+     */
+    private <T> T deserializeObject(final JsonReader reader, final Class<T> clazz) {
+        return deserializeObject(new JsonParser().parse(reader), clazz);
+    }
+
+    /**
+     * Deserialize a json backed object from a parsed json tree, keeping a separate copy of the tree as the raw
+     * object as two pass deserialization of a string does.
+     * @param json The json object that stores the representation of the item.
+     * @param clazz The .class of the item to be deserialized.
+     * @param <T> The type of the item to be deserialized.
+     * @return The deserialized item from the json tree.
+     */
+    private <T> T deserializeTwoPass(final JsonElement json, final Class<T> clazz) {
+        final T jsonObject = mGson.fromJson(json, clazz);
+        if (jsonObject instanceof IJsonBackedObject) {
+            if (mLogger.isDebugEnabled()) {
+                mLogger.logDebug("Deserializing type " + clazz.getSimpleName() + " from a stream");
+            }
+            ((IJsonBackedObject) jsonObject).setRawObject(this, mGson.fromJson(json, JsonObject.class));
+        }
+        return jsonObject;
+    }
+
+    /**
+     * Gets how the raw json of deserialized objects is retained.
+     * @return The raw object policy.
+     */
+    @Override
+    public RawObjectPolicy getRawObjectPolicy() {
+        return mRawObjectPolicy;
+    }
+
     /**
      * Serializes an object into a string.
      *
@@ -83,7 +237,9 @@ public class DefaultSerializer implements ISerializer {
      */
     @Override
     public <T> String serializeObject(final T serializableObject) {
-        mLogger.logDebug("Serializing type " + serializableObject.getClass().getSimpleName());
+        if (mLogger.isDebugEnabled()) {
+            mLogger.logDebug("Serializing type " + serializableObject.getClass().getSimpleName());
+        }
         return mGson.toJson(serializableObject);
     }
 }
@@ -91,8 +91,8 @@ final class GsonFactory {
         };
 
         return new GsonBuilder()
-                .registerTypeAdapter(Calendar.class, dateJsonSerializer)
-                .registerTypeAdapter(Calendar.class, dateJsonDeserializer)
+                .registerTypeHierarchyAdapter(Calendar.class, dateJsonSerializer)
+                .registerTypeHierarchyAdapter(Calendar.class, dateJsonDeserializer)
                 .create();
     }
 }
@@ -22,6 +22,10 @@
 
 package com.onedrive.sdk.serializer;
 
+import com.google.gson.JsonElement;
+
+import java.io.InputStream;
+
 /**
  * Serializes and deserializes items from strings into their types.
  */
@@ -36,6 +40,31 @@ public interface ISerializer {
      */
     <T> T deserializeObject(final String inputString, Class<T> clazz);
 
+    /**
+     * Deserialize an object from an already parsed json tree.
+     * @param json The json tree that stores the representation of the item.
+     * @param clazz The .class of the item to be deserialized.
+     * @param <T> The type of the item to be deserialized.
+     * @return The deserialized item from the json tree.
+     */
+    <T> T deserializeObject(final JsonElement json, Class<T> clazz);
+
+    /**
+     * Deserialize an object from a stream of UTF-8 encoded json, decoding it incrementally.
+     * The caller remains responsible for closing the stream.
+     * @param inputStream The stream that contains the representation of the item.
+     * @param clazz The .class of the item to be deserialized.
+     * @param <T> The type of the item to be deserialized.
+     * @return The deserialized item from the stream.
+     */
+    <T> T deserializeObject(final InputStream inputStream, Class<T> clazz);
+
+    /**
+     * Gets how the raw json of deserialized objects is retained.
+     * @return The raw object policy.
+     */
+    RawObjectPolicy getRawObjectPolicy();
+
     /**
      * Serializes an object into a string.
      * @param serializableObject The object to convert into a string.
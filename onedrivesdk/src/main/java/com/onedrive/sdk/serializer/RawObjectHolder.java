@@ -0,0 +1,138 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Holds the raw json an object was parsed from, according to a {@link RawObjectPolicy}.
+ */
+public final class RawObjectHolder {
+
+    /**
+     * The holder used when no raw json is retained.
+     */
+    public static final RawObjectHolder EMPTY = new RawObjectHolder(null, null);
+
+    /**
+     * The encoding of the compact representation.
+     */
+    private static final Charset JSON_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * The instance used to write json trees, keeping null members as they were received.
+     */
+    private static final Gson TREE_WRITER = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
+    /**
+     * The json tree, null until materialized when the json is held lazily.
+     */
+    private JsonObject mJson;
+
+    /**
+     * The compact representation of the json, null once materialized.
+     */
+    private byte[] mBytes;
+
+    /**
+     * Creates a RawObjectHolder.
+     * @param json The json tree.
+     * @param bytes The compact representation of the json.
+     */
+    private RawObjectHolder(final JsonObject json, final byte[] bytes) {
+        mJson = json;
+        mBytes = bytes;
+    }
+
+    /**
+     * Creates a holder for the json using the policy of the serializer.
+     * @param serializer The serializer the json was parsed by, may be null.
+     * @param json The json tree.
+     * @return The holder.
+     */
+    public static RawObjectHolder create(final ISerializer serializer, final JsonObject json) {
+        if (serializer == null) {
+            return create(json, RawObjectPolicy.Eager);
+        }
+        return create(json, serializer.getRawObjectPolicy());
+    }
+
+    /**
+     * Creates a holder for the json.
+     * @param json The json tree.
+     * @param policy The retention policy.
+     * @return The holder.
+     */
+    public static RawObjectHolder create(final JsonObject json, final RawObjectPolicy policy) {
+        if (json == null || policy == RawObjectPolicy.TypedOnly) {
+            return EMPTY;
+        }
+        if (policy == RawObjectPolicy.Lazy) {
+            return new RawObjectHolder(null, toBytes(json));
+        }
+        return new RawObjectHolder(json, null);
+    }
+
+    /**
+     * Gets the json tree, parsing it from the compact representation on first access.
+     * @return The json tree, or null if it was not retained.
+     */
+    public synchronized JsonObject get() {
+        if (mJson == null && mBytes != null) {
+            mJson = new JsonParser()
+                    .parse(new InputStreamReader(new ByteArrayInputStream(mBytes), JSON_CHARSET))
+                    .getAsJsonObject();
+            mBytes = null;
+        }
+        return mJson;
+    }
+
+    /**
+     * Writes the json tree as UTF-8 bytes.
+     * @param json The json tree.
+     * @return The bytes.
+     */
+    private static byte[] toBytes(final JsonObject json) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, JSON_CHARSET));
+        try {
+            TREE_WRITER.toJson(json, writer);
+            writer.close();
+        } catch (final IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException("Unable to write the raw json", e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,152 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.sync;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.onedrive.sdk.concurrency.ExecutorLane;
+import com.onedrive.sdk.concurrency.ICallback;
+import com.onedrive.sdk.concurrency.IExecutors;
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.IDeltaCollectionPage;
+import com.onedrive.sdk.extensions.IDeltaRequestBuilder;
+import com.onedrive.sdk.extensions.IItemRequestBuilder;
+
+/**
+ * Keeps a {@link DriveIndex} in step with the delta feed of a folder, usually the root of a drive. Each sync
+ * continues from the delta token of the index and applies the feed page by page, so an interrupted sync
+ * continues from the last applied page.
+ */
+public class DeltaSyncProvider {
+
+    /**
+     * The annotation holding the delta token of a page.
+     */
+    private static final String DELTA_TOKEN_ANNOTATION = "@delta.token";
+
+    /**
+     * The folder to follow.
+     */
+    private final IItemRequestBuilder mFolder;
+
+    /**
+     * The index.
+     */
+    private final DriveIndex mIndex;
+
+    /**
+     * Creates a new DeltaSyncProvider.
+     * @param folder The folder to follow, such as {@code client.getDrive().getRoot()}.
+     * @param index The index.
+     */
+    public DeltaSyncProvider(final IItemRequestBuilder folder, final DriveIndex index) {
+        mFolder = folder;
+        mIndex = index;
+    }
+
+    /**
+     * Gets the index.
+     * @return The index.
+     */
+    public DriveIndex getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * Applies every change since the last sync to the index. If the service no longer accepts the delta token the
+     * index is cleared and the folder enumerated again.
+     * @return The number of changed items that were applied.
+     * @throws ClientException An exception occurs if a page could not be fetched or written.
+     */
+    public int sync() throws ClientException {
+        final String deltaToken = mIndex.getDeltaToken();
+        try {
+            return syncFrom(deltaToken);
+        } catch (final ClientException e) {
+            if (deltaToken == null || !e.isError(OneDriveErrorCodes.ResyncRequired)) {
+                throw e;
+            }
+            mIndex.clear();
+            return syncFrom(null);
+        }
+    }
+
+    /**
+     * Applies every change since the last sync to the index in the background.
+     * @param callback The callback, receiving the number of changed items that were applied.
+     */
+    public void sync(final ICallback<Integer> callback) {
+        final IExecutors executors = mFolder.getClient().getExecutors();
+        executors.performOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executors.performOnForeground(sync(), callback);
+                } catch (final ClientException e) {
+                    executors.performOnForeground(e, callback);
+                }
+            }
+        }, ExecutorLane.Sync, callback);
+    }
+
+    /**
+     * Fetches and applies the delta feed page by page.
+     * @param deltaToken The delta token to start from, or null to enumerate the folder.
+     * @return The number of changed items that were applied.
+     * @throws ClientException An exception occurs if a page could not be fetched or written.
+     */
+    private int syncFrom(final String deltaToken) throws ClientException {
+        int applied = 0;
+        String lastToken = deltaToken;
+        IDeltaRequestBuilder builder = mFolder.getDelta(deltaToken);
+        while (builder != null) {
+            final IDeltaCollectionPage page = builder.buildRequest().get();
+            final String pageToken = getDeltaToken(page);
+            if (pageToken != null) {
+                lastToken = pageToken;
+            }
+            mIndex.apply(page.getCurrentPage(), lastToken);
+            applied += page.getCurrentPage().size();
+            builder = page.getNextPage();
+        }
+        return applied;
+    }
+
+    /**
+     * Gets the delta token of a page.
+     * @param page The page.
+     * @return The delta token, or null if the page has none.
+     */
+    private static String getDeltaToken(final IDeltaCollectionPage page) {
+        final JsonObject raw = page.getRawObject();
+        if (raw == null) {
+            return null;
+        }
+        final JsonElement token = raw.get(DELTA_TOKEN_ANNOTATION);
+        if (token == null || token.isJsonNull()) {
+            return null;
+        }
+        return token.getAsString();
+    }
+}
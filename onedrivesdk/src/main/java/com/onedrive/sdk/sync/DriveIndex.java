@@ -0,0 +1,581 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.sync;
+
+import com.onedrive.sdk.core.ClientException;
+import com.onedrive.sdk.core.OneDriveErrorCodes;
+import com.onedrive.sdk.extensions.Item;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent local index of a drive, built from the delta feed by a {@link DeltaSyncProvider}, that answers
+ * listing queries without a round trip. The index is held in memory and backed by a snapshot file and a journal
+ * next to it. Every delta page is appended to the journal as one checksummed record together with its delta token
+ * and synced to disk before it is applied, so after a crash the index resumes from the last complete page. The
+ * journal is folded into a new snapshot, replaced atomically, once it holds enough pages.
+ */
+public class DriveIndex {
+
+    /**
+     * The extension of the journal file.
+     */
+    private static final String JOURNAL_EXTENSION = ".journal";
+
+    /**
+     * The extension of a snapshot that is being written.
+     */
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+    /**
+     * The version of the snapshot file format.
+     */
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * The number of journal records after which the journal is folded into the snapshot.
+     */
+    private static final int COMPACTION_RECORDS = 64;
+
+    /**
+     * The size of a journal record header, the payload length and checksum.
+     */
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /**
+     * The mask of an unsigned int.
+     */
+    private static final long UNSIGNED_INT_MASK = 0xffffffffL;
+
+    /**
+     * The operation that adds or replaces an entry.
+     */
+    private static final byte OPERATION_PUT = 1;
+
+    /**
+     * The operation that removes an entry and everything below it.
+     */
+    private static final byte OPERATION_REMOVE = 2;
+
+    /**
+     * The snapshot file.
+     */
+    private final File mFile;
+
+    /**
+     * The journal file.
+     */
+    private final File mJournal;
+
+    /**
+     * The entries by item id, guarded by this.
+     */
+    private final HashMap<String, DriveIndexEntry> mEntries = new HashMap<>();
+
+    /**
+     * The entries by parent id and item id, guarded by this.
+     */
+    private final HashMap<String, LinkedHashMap<String, DriveIndexEntry>> mChildren = new HashMap<>();
+
+    /**
+     * The delta token of the last applied page, guarded by this.
+     */
+    private String mDeltaToken;
+
+    /**
+     * The sequence number of the last applied page, guarded by this.
+     */
+    private long mSequence;
+
+    /**
+     * The sequence number of the last page folded into the snapshot, guarded by this.
+     */
+    private long mSnapshotSequence;
+
+    /**
+     * Opens a DriveIndex, loading the state left by a previous instance.
+     * @param file The snapshot file, such as a file in the application's files directory. The journal is kept in
+     *             the same directory.
+     * @throws ClientException An exception occurs if the index could not be read.
+     */
+    public DriveIndex(final File file) throws ClientException {
+        mFile = file;
+        mJournal = new File(file.getPath() + JOURNAL_EXTENSION);
+        try {
+            loadSnapshot();
+            replayJournal();
+        } catch (final IOException e) {
+            throw new ClientException("Unable to load drive index", e, OneDriveErrorCodes.GeneralException);
+        }
+    }
+
+    /**
+     * Gets the delta token to continue the delta feed from.
+     * @return The delta token, or null if the index is empty.
+     */
+    public synchronized String getDeltaToken() {
+        return mDeltaToken;
+    }
+
+    /**
+     * Gets an item.
+     * @param id The item id.
+     * @return The entry, or null if the item is not in the index.
+     */
+    public synchronized DriveIndexEntry get(final String id) {
+        return mEntries.get(id);
+    }
+
+    /**
+     * Gets the root of the drive.
+     * @return The entry of the root, or null if the index is empty.
+     */
+    public synchronized DriveIndexEntry getRoot() {
+        final Map<String, DriveIndexEntry> roots = mChildren.get(null);
+        if (roots == null || roots.isEmpty()) {
+            return null;
+        }
+        return roots.values().iterator().next();
+    }
+
+    /**
+     * Lists the children of a folder.
+     * @param parentId The id of the folder.
+     * @return The entries of the children, in the order they were first seen.
+     */
+    public synchronized List<DriveIndexEntry> getChildren(final String parentId) {
+        final Map<String, DriveIndexEntry> children = mChildren.get(parentId);
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(children.values()));
+    }
+
+    /**
+     * Gets the number of items in the index.
+     * @return The number of items.
+     */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Applies one page of the delta feed and checkpoints its delta token with it. Deleted items are removed along
+     * with everything below them.
+     * @param items The items of the page.
+     * @param deltaToken The delta token of the page.
+     * @throws ClientException An exception occurs if the page could not be written, the index is then unchanged.
+     */
+    public synchronized void apply(final List<Item> items, final String deltaToken) throws ClientException {
+        final byte[] record;
+        try {
+            record = createRecord(mSequence + 1, deltaToken, items);
+            appendRecord(record);
+        } catch (final IOException e) {
+            throw new ClientException("Unable to write drive index", e, OneDriveErrorCodes.GeneralException);
+        }
+        try {
+            applyRecord(record);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to apply a drive index record", e);
+        }
+        if (mSequence - mSnapshotSequence >= COMPACTION_RECORDS) {
+            try {
+                writeSnapshot();
+            } catch (final IOException e) {
+                // The journal still holds every page, compaction is retried after the next one
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes every item and the delta token, so that the next sync enumerates the drive again.
+     * @throws ClientException An exception occurs if the index could not be written.
+     */
+    public synchronized void clear() throws ClientException {
+        mEntries.clear();
+        mChildren.clear();
+        mDeltaToken = null;
+        try {
+            writeSnapshot();
+        } catch (final IOException e) {
+            throw new ClientException("Unable to write drive index", e, OneDriveErrorCodes.GeneralException);
+        }
+    }
+
+    /**
+     * Loads the snapshot, if there is one.
+     * @throws IOException If the snapshot could not be read.
+     */
+    private void loadSnapshot() throws IOException {
+        if (!mFile.isFile()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if (in.readInt() != FILE_VERSION) {
+                throw new IOException("Unknown drive index version");
+            }
+            mSequence = in.readLong();
+            mSnapshotSequence = mSequence;
+            mDeltaToken = readString(in);
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                putEntry(readEntry(in));
+            }
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Applies the journal records written after the snapshot, and cuts off a record left incomplete by a crash.
+     * @throws IOException If the journal could not be read.
+     */
+    private void replayJournal() throws IOException {
+        if (!mJournal.isFile()) {
+            return;
+        }
+        final long length = mJournal.length();
+        long valid = 0;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mJournal)));
+            while (valid + RECORD_HEADER_BYTES <= length) {
+                final int recordLength = in.readInt();
+                final long checksum = in.readInt() & UNSIGNED_INT_MASK;
+                if (recordLength < 0 || valid + RECORD_HEADER_BYTES + recordLength > length) {
+                    break;
+                }
+                final byte[] record = new byte[recordLength];
+                in.readFully(record);
+                if (checksum(record) != checksum) {
+                    break;
+                }
+                applyRecord(record);
+                valid += RECORD_HEADER_BYTES + recordLength;
+            }
+        } catch (final EOFException e) {
+            // The journal ends in an incomplete record
+        } finally {
+            closeQuietly(in);
+        }
+        if (valid < length) {
+            final RandomAccessFile journal = new RandomAccessFile(mJournal, "rw");
+            try {
+                journal.setLength(valid);
+            } finally {
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Encodes one page of the delta feed as a journal record.
+     * @param sequence The sequence number of the page.
+     * @param deltaToken The delta token of the page.
+     * @param items The items of the page.
+     * @return The record.
+     * @throws IOException If the record could not be encoded.
+     */
+    private static byte[] createRecord(final long sequence, final String deltaToken, final List<Item> items)
+            throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeLong(sequence);
+        writeString(out, deltaToken);
+        out.writeInt(items.size());
+        for (final Item item : items) {
+            if (item.deleted != null) {
+                out.writeByte(OPERATION_REMOVE);
+                out.writeUTF(item.id);
+            } else {
+                out.writeByte(OPERATION_PUT);
+                writeEntry(out, DriveIndexEntry.fromItem(item));
+            }
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Applies a journal record, unless it is already part of the snapshot.
+     * @param record The record.
+     * @throws IOException If the record could not be decoded.
+     */
+    private void applyRecord(final byte[] record) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        final long sequence = in.readLong();
+        if (sequence <= mSequence) {
+            return;
+        }
+        final String deltaToken = readString(in);
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            if (in.readByte() == OPERATION_REMOVE) {
+                removeEntry(in.readUTF());
+            } else {
+                putEntry(readEntry(in));
+            }
+        }
+        mSequence = sequence;
+        mDeltaToken = deltaToken;
+    }
+
+    /**
+     * Appends a record to the journal and syncs it to disk. A record that could not be written completely is cut
+     * off again, so that it does not hide the records appended after it.
+     * @param record The record.
+     * @throws IOException If the record could not be written.
+     */
+    private void appendRecord(final byte[] record) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(RECORD_HEADER_BYTES + record.length);
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(record.length);
+        out.writeInt((int) checksum(record));
+        out.write(record);
+        createDirectory();
+        final RandomAccessFile journal = new RandomAccessFile(mJournal, "rw");
+        try {
+            final long offset = journal.length();
+            try {
+                journal.seek(offset);
+                journal.write(buffer.toByteArray());
+                journal.getFD().sync();
+            } catch (final IOException e) {
+                journal.setLength(offset);
+                throw e;
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Writes the whole index to a new snapshot, replaces the previous one and empties the journal.
+     * @throws IOException If the snapshot could not be written.
+     */
+    private void writeSnapshot() throws IOException {
+        final File temporary = new File(mFile.getPath() + TEMPORARY_FILE_EXTENSION);
+        createDirectory();
+        final FileOutputStream stream = new FileOutputStream(temporary);
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FILE_VERSION);
+            out.writeLong(mSequence);
+            writeString(out, mDeltaToken);
+            out.writeInt(mEntries.size());
+            for (final DriveIndexEntry entry : mEntries.values()) {
+                writeEntry(out, entry);
+            }
+            out.flush();
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+        if (!temporary.renameTo(mFile)) {
+            if (!temporary.delete()) {
+                temporary.deleteOnExit();
+            }
+            throw new IOException("Unable to replace " + mFile);
+        }
+        mSnapshotSequence = mSequence;
+        // Records up to the snapshot sequence are skipped on replay, so a crash before this point is harmless
+        if (mJournal.exists() && !mJournal.delete()) {
+            throw new IOException("Unable to remove " + mJournal);
+        }
+    }
+
+    /**
+     * Creates the directory of the index if it does not exist.
+     * @throws IOException If the directory could not be created.
+     */
+    private void createDirectory() throws IOException {
+        final File directory = mFile.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+    }
+
+    /**
+     * Adds or replaces an entry, moving it to its new parent.
+     * @param entry The entry.
+     */
+    private void putEntry(final DriveIndexEntry entry) {
+        final DriveIndexEntry previous = mEntries.put(entry.getId(), entry);
+        if (previous != null) {
+            detach(previous);
+        }
+        LinkedHashMap<String, DriveIndexEntry> siblings = mChildren.get(entry.getParentId());
+        if (siblings == null) {
+            siblings = new LinkedHashMap<>();
+            mChildren.put(entry.getParentId(), siblings);
+        }
+        siblings.put(entry.getId(), entry);
+    }
+
+    /**
+     * Removes an entry and everything below it.
+     * @param id The item id.
+     */
+    private void removeEntry(final String id) {
+        final Deque<String> pending = new ArrayDeque<>();
+        pending.add(id);
+        while (!pending.isEmpty()) {
+            final String next = pending.remove();
+            final DriveIndexEntry entry = mEntries.remove(next);
+            if (entry != null) {
+                detach(entry);
+            }
+            final Map<String, DriveIndexEntry> children = mChildren.remove(next);
+            if (children != null) {
+                pending.addAll(children.keySet());
+            }
+        }
+    }
+
+    /**
+     * Removes an entry from the children of its parent.
+     * @param entry The entry.
+     */
+    private void detach(final DriveIndexEntry entry) {
+        final Map<String, DriveIndexEntry> siblings = mChildren.get(entry.getParentId());
+        if (siblings != null) {
+            siblings.remove(entry.getId());
+            if (siblings.isEmpty()) {
+                mChildren.remove(entry.getParentId());
+            }
+        }
+    }
+
+    /**
+     * Writes an entry.
+     * @param out The output.
+     * @param entry The entry.
+     * @throws IOException If the entry could not be written.
+     */
+    private static void writeEntry(final DataOutputStream out, final DriveIndexEntry entry) throws IOException {
+        out.writeUTF(entry.getId());
+        writeString(out, entry.getParentId());
+        writeString(out, entry.getName());
+        writeString(out, entry.getETag());
+        writeString(out, entry.getCTag());
+        out.writeLong(entry.getSize());
+        writeString(out, entry.getSha1Hash());
+        writeString(out, entry.getCrc32Hash());
+        out.writeBoolean(entry.isFolder());
+    }
+
+    /**
+     * Reads an entry.
+     * @param in The input.
+     * @return The entry.
+     * @throws IOException If the entry could not be read.
+     */
+    private static DriveIndexEntry readEntry(final DataInputStream in) throws IOException {
+        return new DriveIndexEntry(in.readUTF(),
+                                   readString(in),
+                                   readString(in),
+                                   readString(in),
+                                   readString(in),
+                                   in.readLong(),
+                                   readString(in),
+                                   readString(in),
+                                   in.readBoolean());
+    }
+
+    /**
+     * Writes a string that may be null.
+     * @param out The output.
+     * @param value The string.
+     * @throws IOException If the string could not be written.
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Reads a string that may be null.
+     * @param in The input.
+     * @return The string.
+     * @throws IOException If the string could not be read.
+     */
+    private static String readString(final DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+
+    /**
+     * Computes the checksum of a journal record.
+     * @param record The record.
+     * @return The CRC32 of the record.
+     */
+    private static long checksum(final byte[] record) {
+        final CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Closes a stream, ignoring any failure.
+     * @param closeable The stream, or null.
+     */
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (final IOException ignored) {
+            // Nothing more can be done
+        }
+    }
+}
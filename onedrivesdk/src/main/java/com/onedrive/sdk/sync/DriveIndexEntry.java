@@ -0,0 +1,211 @@
+// ------------------------------------------------------------------------------
+// Copyright (c) 2015 Microsoft Corporation
+// 
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+// 
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+// 
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+// ------------------------------------------------------------------------------
+
+package com.onedrive.sdk.sync;
+
+import com.onedrive.sdk.extensions.Item;
+
+/**
+ * The metadata of one item in a {@link DriveIndex}.
+ */
+public class DriveIndexEntry {
+
+    /**
+     * The item id.
+     */
+    private final String mId;
+
+    /**
+     * The id of the parent folder, or null for the root.
+     */
+    private final String mParentId;
+
+    /**
+     * The item name.
+     */
+    private final String mName;
+
+    /**
+     * The eTag of the item.
+     */
+    private final String mETag;
+
+    /**
+     * The cTag of the item content.
+     */
+    private final String mCTag;
+
+    /**
+     * The size of the item, in bytes.
+     */
+    private final long mSize;
+
+    /**
+     * The SHA1 hash of the file content, or null.
+     */
+    private final String mSha1Hash;
+
+    /**
+     * The CRC32 hash of the file content, or null.
+     */
+    private final String mCrc32Hash;
+
+    /**
+     * Whether the item is a folder.
+     */
+    private final boolean mFolder;
+
+    /**
+     * Creates a new DriveIndexEntry.
+     * @param id The item id.
+     * @param parentId The id of the parent folder, or null for the root.
+     * @param name The item name.
+     * @param eTag The eTag of the item.
+     * @param cTag The cTag of the item content.
+     * @param size The size of the item, in bytes.
+     * @param sha1Hash The SHA1 hash of the file content, or null.
+     * @param crc32Hash The CRC32 hash of the file content, or null.
+     * @param folder Whether the item is a folder.
+     */
+    DriveIndexEntry(final String id,
+                    final String parentId,
+                    final String name,
+                    final String eTag,
+                    final String cTag,
+                    final long size,
+                    final String sha1Hash,
+                    final String crc32Hash,
+                    final boolean folder) {
+        mId = id;
+        mParentId = parentId;
+        mName = name;
+        mETag = eTag;
+        mCTag = cTag;
+        mSize = size;
+        mSha1Hash = sha1Hash;
+        mCrc32Hash = crc32Hash;
+        mFolder = folder;
+    }
+
+    /**
+     * Creates the entry of an item from the delta feed.
+     * @param item The item.
+     * @return The entry.
+     */
+    static DriveIndexEntry fromItem(final Item item) {
+        String parentId = null;
+        if (item.parentReference != null) {
+            parentId = item.parentReference.id;
+        }
+        long size = 0;
+        if (item.size != null) {
+            size = item.size;
+        }
+        String sha1Hash = null;
+        String crc32Hash = null;
+        if (item.file != null && item.file.hashes != null) {
+            sha1Hash = item.file.hashes.sha1Hash;
+            crc32Hash = item.file.hashes.crc32Hash;
+        }
+        return new DriveIndexEntry(item.id,
+                                   parentId,
+                                   item.name,
+                                   item.eTag,
+                                   item.cTag,
+                                   size,
+                                   sha1Hash,
+                                   crc32Hash,
+                                   item.folder != null);
+    }
+
+    /**
+     * Gets the item id.
+     * @return The item id.
+     */
+    public String getId() {
+        return mId;
+    }
+
+    /**
+     * Gets the id of the parent folder.
+     * @return The id of the parent folder, or null for the root.
+     */
+    public String getParentId() {
+        return mParentId;
+    }
+
+    /**
+     * Gets the item name.
+     * @return The item name.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Gets the eTag of the item, which changes with any change to the item.
+     * @return The eTag.
+     */
+    public String getETag() {
+        return mETag;
+    }
+
+    /**
+     * Gets the cTag of the item, which changes with the content of the item.
+     * @return The cTag.
+     */
+    public String getCTag() {
+        return mCTag;
+    }
+
+    /**
+     * Gets the size of the item, in bytes.
+     * @return The size.
+     */
+    public long getSize() {
+        return mSize;
+    }
+
+    /**
+     * Gets the SHA1 hash of the file content.
+     * @return The hash, or null if the item is not a file or the hash is not known.
+     */
+    public String getSha1Hash() {
+        return mSha1Hash;
+    }
+
+    /**
+     * Gets the CRC32 hash of the file content.
+     * @return The hash, or null if the item is not a file or the hash is not known.
+     */
+    public String getCrc32Hash() {
+        return mCrc32Hash;
+    }
+
+    /**
+     * Gets whether the item is a folder.
+     * @return Whether the item is a folder.
+     */
+    public boolean isFolder() {
+        return mFolder;
+    }
+}